@@ -0,0 +1,156 @@
+package nl.ctmm.trait.opl;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel mzXML reader for files without a (valid) scan offset index.
+ *
+ * The file is split into byte ranges (chunks) that are scanned on a ForkJoinPool, each by its own MzXmlScanner on a
+ * shared FileChannel. A chunk reports the scan tags that start in its range. When the merge finds that a comment,
+ * CDATA section or scan tag of the previous chunk runs into the next chunk, the next chunk is scanned again from the
+ * position where the previous one stopped. The scans are then passed to the handler in document order, so the result
+ * is exactly the same as the serial scanner.
+ */
+public class MzXmlChunkReader {
+    /**
+     * The maximum size of a chunk; larger ranges are split in two.
+     */
+    static final long CHUNK_SIZE = 32 * 1024 * 1024;
+
+    /**
+     * Read the scans of an mzXML file in parallel chunks.
+     *
+     * @param mzXML the path of the mzXML file.
+     * @param threadCount the number of threads used to scan the chunks.
+     * @param handler the handler that receives the scans in document order.
+     * @throws IOException if the file cannot be read.
+     */
+    public static void read(String mzXML, int threadCount, ScanHandler handler) throws IOException {
+        read(mzXML, threadCount, CHUNK_SIZE, handler);
+    }
+
+    /**
+     * Read the scans of an mzXML file in parallel chunks of at most the given size.
+     *
+     * @param mzXML the path of the mzXML file.
+     * @param threadCount the number of threads used to scan the chunks.
+     * @param chunkSize the maximum size of a chunk.
+     * @param handler the handler that receives the scans in document order.
+     * @throws IOException if the file cannot be read.
+     */
+    static void read(String mzXML, int threadCount, long chunkSize, ScanHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(mzXML), StandardOpenOption.READ)) {
+            List<Chunk> chunks = scanChunks(channel, threadCount, chunkSize);
+            long previousStop = 0;
+            for (Chunk chunk : chunks) {
+                if (previousStop > chunk.start) {
+                    chunk.headers = new ScanHeaderList();
+                    chunk.stop = previousStop < chunk.end
+                                 ? createScanner(channel, chunkSize).scanRange(previousStop, chunk.end, chunk.headers)
+                                 : previousStop;
+                }
+                chunk.headers.replay(handler);
+                previousStop = chunk.stop;
+            }
+        }
+    }
+
+    /**
+     * Scan all chunks of the file on a ForkJoinPool.
+     *
+     * @param channel the channel of the mzXML file.
+     * @param threadCount the parallelism of the pool.
+     * @param chunkSize the maximum size of a chunk.
+     * @return the chunks in document order.
+     */
+    static List<Chunk> scanChunks(FileChannel channel, int threadCount, long chunkSize) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threadCount));
+        try {
+            return pool.invoke(new ChunkTask(channel, 0, channel.size(), chunkSize));
+        } catch (RuntimeException e) {
+            // The pool may wrap the exception of a worker thread once more, so look for the IOException in the causes.
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+            }
+            throw e;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Create a scanner for a chunk, with blocks no larger than the chunk itself.
+     *
+     * @param channel the channel of the mzXML file.
+     * @param chunkSize the maximum size of a chunk.
+     * @return the scanner.
+     */
+    private static MzXmlScanner createScanner(FileChannel channel, long chunkSize) throws IOException {
+        return new MzXmlScanner(channel, (int) Math.min(MzXmlScanner.BLOCK_SIZE, chunkSize));
+    }
+
+    /**
+     * The scans that start in a byte range of the file.
+     */
+    static class Chunk {
+        final long start;
+        final long end;
+        ScanHeaderList headers = new ScanHeaderList();
+        long stop;
+
+        Chunk(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Task that scans a byte range directly or splits it in two halves that are scanned in parallel.
+     */
+    private static class ChunkTask extends RecursiveTask<List<Chunk>> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient FileChannel channel;
+        private final long start;
+        private final long end;
+        private final long chunkSize;
+
+        ChunkTask(FileChannel channel, long start, long end, long chunkSize) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected List<Chunk> compute() {
+            if (end - start > chunkSize) {
+                long middle = start + (end - start) / 2;
+                ChunkTask first = new ChunkTask(channel, start, middle, chunkSize);
+                first.fork();
+                List<Chunk> second = new ChunkTask(channel, middle, end, chunkSize).compute();
+                List<Chunk> chunks = new ArrayList<Chunk>(first.join());
+                chunks.addAll(second);
+                return chunks;
+            }
+            Chunk chunk = new Chunk(start, end);
+            try {
+                chunk.stop = createScanner(channel, chunkSize).scanRange(start, end, chunk.headers);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            List<Chunk> chunks = new ArrayList<Chunk>();
+            chunks.add(chunk);
+            return chunks;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package nl.ctmm.trait.opl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * mzXML reader that uses the scan offset index at the end of the file.
+ *
+ * An indexed mzXML file ends with an &lt;index name="scan"&gt; element that contains the byte offset of every scan
+ * element, followed by &lt;indexOffset&gt; with the byte offset of the index itself. This reader reads the tail of
+ * the file, then the index, and then only the scan start tags at the indexed offsets, using positional reads on a
+ * shared FileChannel. The peak lists between the scans are never read. The scans can be split by scan range over a
+ * number of threads; the results are passed to the handler in index (document) order.
+ */
+public class MzXmlIndexReader {
+    /**
+     * The number of bytes at the end of the file that are searched for the indexOffset element.
+     */
+    static final int TAIL_SIZE = 4096;
+
+    /**
+     * The number of bytes that is read at a scan offset; enough for a typical scan start tag.
+     */
+    static final int HEADER_SIZE = 1024;
+
+    /**
+     * The maximum size of a scan start tag; larger tags mean the offset is wrong.
+     */
+    static final int MAXIMUM_HEADER_SIZE = 1024 * 1024;
+
+    private static final String INDEX_OFFSET_START = "<indexOffset>";
+    private static final String INDEX_OFFSET_END = "</indexOffset>";
+    private static final String OFFSET_START = "<offset";
+    private static final String OFFSET_END = "</offset>";
+    private static final byte[] SCAN_TAG = "<scan".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Read the scans of an mzXML file using the scan offset index.
+     *
+     * @param mzXML the path of the mzXML file.
+     * @param threadCount the number of threads used to read the scan start tags.
+     * @param handler the handler that receives the scans in document order.
+     * @return whether the file could be read using the index; if false, nothing was passed to the handler.
+     * @throws IOException if the file cannot be opened.
+     */
+    public static boolean read(String mzXML, int threadCount, ScanHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(mzXML), StandardOpenOption.READ)) {
+            long[] offsets = readScanOffsets(channel);
+            if (offsets == null) {
+                System.out.println("No valid scan offset index found in " + mzXML);
+                return false;
+            }
+            List<ScanHeaderList> ranges = readScanHeaders(channel, offsets, threadCount);
+            if (ranges == null) {
+                System.out.println("The scan offset index of " + mzXML + " does not match the scans");
+                return false;
+            }
+            for (ScanHeaderList range : ranges) {
+                range.replay(handler);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Read the scan offsets from the index at the end of the file.
+     *
+     * @param channel the channel of the mzXML file.
+     * @return the scan offsets in index order, or null if the file has no valid index.
+     */
+    static long[] readScanOffsets(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        long tailStart = Math.max(0, fileSize - TAIL_SIZE);
+        String tail = readString(channel, tailStart, (int) (fileSize - tailStart));
+        int offsetStart = tail.lastIndexOf(INDEX_OFFSET_START);
+        int offsetEnd = tail.indexOf(INDEX_OFFSET_END, Math.max(offsetStart, 0));
+        if (offsetStart < 0 || offsetEnd < 0) {
+            return null;
+        }
+        long indexOffset;
+        try {
+            indexOffset = Long.parseLong(tail.substring(offsetStart + INDEX_OFFSET_START.length(), offsetEnd).trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        long indexEnd = tailStart + offsetStart;
+        if (indexOffset <= 0 || indexOffset >= indexEnd || indexEnd - indexOffset > Integer.MAX_VALUE) {
+            return null;
+        }
+        String index = readString(channel, indexOffset, (int) (indexEnd - indexOffset));
+        if (!index.startsWith("<index")) {
+            return null;
+        }
+        List<Long> offsets = new ArrayList<Long>();
+        int position = index.indexOf(OFFSET_START);
+        while (position >= 0) {
+            int valueStart = index.indexOf('>', position) + 1;
+            int valueEnd = index.indexOf(OFFSET_END, valueStart);
+            if (valueStart <= 0 || valueEnd < 0) {
+                return null;
+            }
+            try {
+                offsets.add(Long.parseLong(index.substring(valueStart, valueEnd).trim()));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            position = index.indexOf(OFFSET_START, valueEnd);
+        }
+        long[] result = new long[offsets.size()];
+        for (int scanIndex = 0; scanIndex < result.length; scanIndex++) {
+            result[scanIndex] = offsets.get(scanIndex);
+        }
+        return result;
+    }
+
+    /**
+     * Read the scan start tags at the scan offsets, split by scan range over a number of threads.
+     *
+     * @param channel the channel of the mzXML file.
+     * @param offsets the scan offsets.
+     * @param threadCount the number of threads.
+     * @return the scan headers per range, in index order, or null if an offset does not point at a scan start tag.
+     */
+    static List<ScanHeaderList> readScanHeaders(final FileChannel channel, final long[] offsets, int threadCount)
+            throws IOException {
+        int rangeCount = Math.max(1, Math.min(threadCount, offsets.length));
+        ExecutorService executorService = Executors.newFixedThreadPool(rangeCount);
+        try {
+            List<Future<ScanHeaderList>> futures = new ArrayList<Future<ScanHeaderList>>();
+            for (int rangeIndex = 0; rangeIndex < rangeCount; rangeIndex++) {
+                final int from = (int) ((long) offsets.length * rangeIndex / rangeCount);
+                final int to = (int) ((long) offsets.length * (rangeIndex + 1) / rangeCount);
+                futures.add(executorService.submit(new Callable<ScanHeaderList>() {
+                    @Override
+                    public ScanHeaderList call() throws IOException {
+                        return readScanHeaders(channel, offsets, from, to);
+                    }
+                }));
+            }
+            List<ScanHeaderList> ranges = new ArrayList<ScanHeaderList>();
+            for (Future<ScanHeaderList> future : futures) {
+                ScanHeaderList range = future.get();
+                if (range == null) {
+                    return null;
+                }
+                ranges.add(range);
+            }
+            return ranges;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Reading the scans was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Reading the scans failed", e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Read the scan start tags for a range of scan offsets.
+     *
+     * @return the scan headers, or null if an offset does not point at a scan start tag.
+     */
+    private static ScanHeaderList readScanHeaders(FileChannel channel, long[] offsets, int from, int to)
+            throws IOException {
+        ScanHeaderList headers = new ScanHeaderList();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+        for (int scanIndex = from; scanIndex < to; scanIndex++) {
+            int tagEnd;
+            while (true) {
+                buffer.clear();
+                while (buffer.hasRemaining() && channel.read(buffer, offsets[scanIndex] + buffer.position()) >= 0) {
+                    // Keep reading until the buffer is full or the end of the file is reached.
+                }
+                tagEnd = findTagEnd(buffer.array(), buffer.position());
+                if (tagEnd >= 0 || buffer.hasRemaining() || buffer.capacity() >= MAXIMUM_HEADER_SIZE) {
+                    break;
+                }
+                buffer = ByteBuffer.allocate(2 * buffer.capacity());
+            }
+            if (tagEnd < 0 || !isScanTag(buffer.array(), buffer.position())) {
+                return null;
+            }
+            MzXmlScanner.parseScanTag(buffer.array(), SCAN_TAG.length, tagEnd, headers);
+        }
+        return headers;
+    }
+
+    private static boolean isScanTag(byte[] bytes, int length) {
+        if (length <= SCAN_TAG.length) {
+            return false;
+        }
+        for (int index = 0; index < SCAN_TAG.length; index++) {
+            if (bytes[index] != SCAN_TAG[index]) {
+                return false;
+            }
+        }
+        byte next = bytes[SCAN_TAG.length];
+        return next == ' ' || next == '\t' || next == '\n' || next == '\r' || next == '>' || next == '/';
+    }
+
+    /**
+     * Find the '>' that closes the start tag at the beginning of the bytes, ignoring '>' inside quoted values.
+     *
+     * @return the position of the '>' or -1 if it is not found.
+     */
+    private static int findTagEnd(byte[] bytes, int length) {
+        byte quote = 0;
+        for (int index = 0; index < length; index++) {
+            byte value = bytes[index];
+            if (quote != 0) {
+                if (value == quote) {
+                    quote = 0;
+                }
+            } else if (value == '"' || value == '\'') {
+                quote = value;
+            } else if (value == '>') {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private static String readString(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+            // Keep reading until the buffer is full or the end of the file is reached.
+        }
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.ISO_8859_1);
+    }
+}
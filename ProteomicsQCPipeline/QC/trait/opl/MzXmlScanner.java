@@ -0,0 +1,294 @@
+package nl.ctmm.trait.opl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Byte-level mzXML scanner that only looks at the scan start tags.
+ *
+ * The file is read in large blocks and searched for '<' characters. Only "<scan" start tags are parsed (the msLevel,
+ * retentionTime and totIonCurrent attributes); everything else, including the base64 encoded peak lists, is skipped
+ * without decoding or converting it to characters. Comments and CDATA sections are skipped as well.
+ *
+ * Attribute values are passed as they appear in the file: character and entity references are not expanded, which
+ * is fine for the numeric attributes that are used.
+ */
+public class MzXmlScanner {
+    /**
+     * The size of the blocks that are read from the file.
+     */
+    static final int BLOCK_SIZE = 4 * 1024 * 1024;
+
+    private static final byte[] SCAN_TAG = bytes("<scan");
+    private static final byte[] COMMENT_START = bytes("<!--");
+    private static final byte[] COMMENT_END = bytes("-->");
+    private static final byte[] CDATA_START = bytes("<![CDATA[");
+    private static final byte[] CDATA_END = bytes("]]>");
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private byte[] block;
+    private long blockStart;
+    private int blockLength;
+
+    /**
+     * Create a scanner for an open file channel. The channel is only read with positional reads, so several scanners
+     * can share one channel.
+     *
+     * @param channel the channel of the mzXML file.
+     * @throws IOException if the size of the file cannot be determined.
+     */
+    MzXmlScanner(FileChannel channel) throws IOException {
+        this(channel, BLOCK_SIZE);
+    }
+
+    /**
+     * Create a scanner for an open file channel that reads blocks of the given size.
+     *
+     * @param channel the channel of the mzXML file.
+     * @param blockSize the size of the blocks that are read from the file.
+     * @throws IOException if the size of the file cannot be determined.
+     */
+    MzXmlScanner(FileChannel channel, int blockSize) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        this.block = new byte[blockSize];
+    }
+
+    /**
+     * Scan a complete mzXML file.
+     *
+     * @param mzXML the path of the mzXML file.
+     * @param handler the handler that receives the scans in document order.
+     * @throws IOException if the file cannot be read.
+     */
+    public static void scan(String mzXML, ScanHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(mzXML), StandardOpenOption.READ)) {
+            new MzXmlScanner(channel).scanRange(0, channel.size(), handler);
+        }
+    }
+
+    /**
+     * Scan the part of the file from start to end. Every scan tag that starts in this range is passed to the handler;
+     * a tag that crosses the end is read completely. When start is not 0, it should not be inside a comment or CDATA
+     * section.
+     *
+     * @param start the position to start scanning.
+     * @param end the position to stop scanning.
+     * @param handler the handler that receives the scans in document order.
+     * @return the position where scanning stopped; after end if a comment, CDATA section or scan tag crosses end.
+     * @throws IOException if the file cannot be read.
+     */
+    long scanRange(long start, long end, ScanHandler handler) throws IOException {
+        long position = start;
+        while (position < end) {
+            long tagStart = indexOf((byte) '<', position);
+            if (tagStart < 0) {
+                return fileSize;
+            }
+            if (tagStart >= end) {
+                break;
+            }
+            if (startsWith(tagStart, COMMENT_START)) {
+                position = skipPast(tagStart + COMMENT_START.length, COMMENT_END);
+            } else if (startsWith(tagStart, CDATA_START)) {
+                position = skipPast(tagStart + CDATA_START.length, CDATA_END);
+            } else if (startsWith(tagStart, SCAN_TAG) && isNameEnd(byteAt(tagStart + SCAN_TAG.length))) {
+                long tagEnd = findTagEnd(tagStart + SCAN_TAG.length);
+                if (tagEnd < 0 || !load(tagStart, tagEnd + 1)) {
+                    return fileSize;
+                }
+                int offset = (int) (tagStart - blockStart);
+                parseScanTag(block, offset + SCAN_TAG.length, (int) (tagEnd - blockStart), handler);
+                position = tagEnd + 1;
+            } else {
+                position = tagStart + 1;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Parse the attributes of a scan start tag and pass them to the handler.
+     *
+     * @param bytes the bytes that contain the tag.
+     * @param from the position directly after the element name.
+     * @param to the position of the closing '>'.
+     * @param handler the handler that receives the scan.
+     */
+    static void parseScanTag(byte[] bytes, int from, int to, ScanHandler handler) {
+        String msLevel = null;
+        String retentionTime = null;
+        String totIonCurrent = null;
+        int position = from;
+        while (position < to) {
+            while (position < to && isWhitespace(bytes[position])) {
+                position++;
+            }
+            int nameStart = position;
+            while (position < to && bytes[position] != '=' && !isWhitespace(bytes[position])) {
+                position++;
+            }
+            int nameEnd = position;
+            while (position < to && (isWhitespace(bytes[position]) || bytes[position] == '=')) {
+                position++;
+            }
+            if (position >= to || (bytes[position] != '"' && bytes[position] != '\'')) {
+                break;
+            }
+            byte quote = bytes[position];
+            int valueStart = ++position;
+            while (position < to && bytes[position] != quote) {
+                position++;
+            }
+            String value = new String(bytes, valueStart, position - valueStart, StandardCharsets.US_ASCII);
+            position++;
+            if (nameEquals(bytes, nameStart, nameEnd, "msLevel")) {
+                msLevel = value;
+            } else if (nameEquals(bytes, nameStart, nameEnd, "retentionTime")) {
+                retentionTime = value;
+            } else if (nameEquals(bytes, nameStart, nameEnd, "totIonCurrent")) {
+                totIonCurrent = value;
+            }
+        }
+        handler.handleScan(msLevel, retentionTime, totIonCurrent);
+    }
+
+    /**
+     * Find the '>' that closes a start tag, ignoring '>' characters inside quoted attribute values.
+     *
+     * @return the position of the '>' or -1 if the end of the file was reached.
+     */
+    private long findTagEnd(long from) throws IOException {
+        byte quote = 0;
+        for (long position = from; ; position++) {
+            int value = byteAt(position);
+            if (value < 0) {
+                return -1;
+            }
+            if (quote != 0) {
+                if (value == quote) {
+                    quote = 0;
+                }
+            } else if (value == '"' || value == '\'') {
+                quote = (byte) value;
+            } else if (value == '>') {
+                return position;
+            }
+        }
+    }
+
+    /**
+     * Find the position directly after the next occurrence of a pattern, or the file size if it does not occur.
+     */
+    private long skipPast(long from, byte[] pattern) throws IOException {
+        long position = from;
+        while (true) {
+            long candidate = indexOf(pattern[0], position);
+            if (candidate < 0) {
+                return fileSize;
+            }
+            if (startsWith(candidate, pattern)) {
+                return candidate + pattern.length;
+            }
+            position = candidate + 1;
+        }
+    }
+
+    /**
+     * Find the next occurrence of a byte.
+     *
+     * @return the position of the byte or -1 if it does not occur before the end of the file.
+     */
+    private long indexOf(byte value, long from) throws IOException {
+        long position = from;
+        while (load(position, position + 1)) {
+            byte[] bytes = block;
+            int end = blockLength;
+            for (int index = (int) (position - blockStart); index < end; index++) {
+                if (bytes[index] == value) {
+                    return blockStart + index;
+                }
+            }
+            position = blockStart + end;
+        }
+        return -1;
+    }
+
+    private boolean startsWith(long position, byte[] pattern) throws IOException {
+        if (!load(position, position + pattern.length)) {
+            return false;
+        }
+        int offset = (int) (position - blockStart);
+        for (int index = 0; index < pattern.length; index++) {
+            if (block[offset + index] != pattern[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the byte at a position.
+     *
+     * @return the byte (0-255) or -1 if the position is at or after the end of the file.
+     */
+    private int byteAt(long position) throws IOException {
+        return load(position, position + 1) ? block[(int) (position - blockStart)] & 0xff : -1;
+    }
+
+    /**
+     * Make sure the bytes from start to end are in the block, reading a new block starting at start if needed.
+     *
+     * @return whether all the bytes are available (false if the end of the file is reached).
+     */
+    private boolean load(long start, long end) throws IOException {
+        if (start >= blockStart && end <= blockStart + blockLength) {
+            return true;
+        }
+        if (end > fileSize) {
+            return false;
+        }
+        if (end - start > block.length) {
+            block = new byte[(int) Math.max(end - start, 2L * block.length)];
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(block);
+        while (buffer.hasRemaining()) {
+            int count = channel.read(buffer, start + buffer.position());
+            if (count < 0) {
+                break;
+            }
+        }
+        blockStart = start;
+        blockLength = buffer.position();
+        return end <= blockStart + blockLength;
+    }
+
+    private static boolean nameEquals(byte[] bytes, int from, int to, String name) {
+        if (to - from != name.length()) {
+            return false;
+        }
+        for (int index = 0; index < name.length(); index++) {
+            if (bytes[from + index] != name.charAt(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNameEnd(int value) {
+        return isWhitespace(value) || value == '>' || value == '/';
+    }
+
+    private static boolean isWhitespace(int value) {
+        return value == ' ' || value == '\t' || value == '\n' || value == '\r';
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
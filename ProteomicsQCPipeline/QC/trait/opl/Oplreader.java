@@ -3,6 +3,13 @@
 package nl.ctmm.trait.opl; 
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -17,7 +24,7 @@ import org.xml.sax.helpers.DefaultHandler;
  * @author t.pham
  */
 
-public class Oplreader  extends DefaultHandler {
+public class Oplreader  extends DefaultHandler implements ScanHandler {
 
     class xy {
         public double x;
@@ -28,6 +35,19 @@ public class Oplreader  extends DefaultHandler {
         }
     }
 
+    /*Binary TIC file (<rawbasename>_ticmatrix.bin), read by the QC report viewer instead of the csv file:
+     * header: magic "QTIC", format version, number of points (int) and max intensity (double),
+     * followed by (retention time in seconds, intensity) float pairs; everything is little-endian.
+     */
+    static final int TIC_BINARY_MAGIC = 0x43495451;
+    static final int TIC_BINARY_VERSION = 1;
+    static final int TIC_BINARY_HEADER_SIZE = 20;
+
+    static final String MODE_SAX = "sax";
+    static final String MODE_SCAN = "scan";
+    static final String MODE_INDEX = "index";
+    static final String MODE_PARALLEL = "parallel";
+
     int ms1Spectra = 0;
     int ms2Spectra = 0;
     double maxIntensity = 0.0;
@@ -35,7 +55,7 @@ public class Oplreader  extends DefaultHandler {
     
     
     /**
-     * @param args indir, rawbasename, webdir
+     * @param args indir, rawbasename, webdir and optionally the reader mode (sax, index, parallel or scan)
      */
     
     /*The main method should accept three arguments: indir, rawbasename and webdir
@@ -45,6 +65,13 @@ public class Oplreader  extends DefaultHandler {
      * rawbasename = PH090924_HCW090828_293NE_P3A02
      * webdir = C:\\Program Files (x86)\\Apache Software Foundation\\Apache2.2\\htdocs\\ctmm\\2013\\May\\data01QE2_130409_OPL1013_CvA_Bonemarrow_TiOx_S5
      * 
+     * The optional fourth argument selects how the mzXML file is read:
+     * sax (default) = the original SAX parser, which pushes every element and all base64 peak data through the handler,
+     * index = use the scan offset index at the end of the file and only read the scan start tags,
+     *         using all processors; falls back to parallel if the file has no valid index,
+     * parallel = split the file into chunks that are scanned on a ForkJoinPool using all processors,
+     * scan = byte-level scanner that only looks at scan start tags and skips the peak payloads.
+     * The faster modes are opt-in; the pipeline (run_msqc_pipeline.py) passes no mode and so keeps using SAX.
      */
     
     public static void main(String[] args)  {
@@ -53,6 +80,7 @@ public class Oplreader  extends DefaultHandler {
         String webdir = args[2];
         String mzXML = indir + "/" + rawbasename + ".RAW.mzXML";
         String ticmatrix_file = webdir + "/" + rawbasename + "_ticmatrix.csv";
+        String ticbinary_file = webdir + "/" + rawbasename + "_ticmatrix.bin";
         String rlog_file = indir + "/" + rawbasename + ".RLOG"; 
         //Create an instance of this class; it defines all the handler methods
         Oplreader handler = new Oplreader();
@@ -62,18 +90,15 @@ public class Oplreader  extends DefaultHandler {
         System.out.println("mzXML = " + mzXML);
         System.out.println("output_file = " + ticmatrix_file);
 
-        //Create a "parser factory" for creating SAX parsers
-        SAXParserFactory spfac = SAXParserFactory.newInstance();
-        //Now use the parser factory to create a SAXParser object
-        SAXParser sp;
+        String mode = args.length > 3 ? args[3] : MODE_SAX;
+        System.out.println("mode = " + mode);
         try {
-            sp = spfac.newSAXParser();
-          //Finally, tell the parser to parse the input and notify the handler
-            sp.parse(mzXML, handler);
+            handler.read(mzXML, mode);
         } catch (ParserConfigurationException | SAXException | IOException e) {
             e.printStackTrace();
         }
         handler.print(ticmatrix_file, rlog_file);
+        handler.printBinary(ticbinary_file);
     }
     
     	/*
@@ -83,26 +108,60 @@ public class Oplreader  extends DefaultHandler {
        public void startElement(String uri, String localName,
                      String qName, Attributes attributes) throws SAXException {
               if (qName.equals("scan")) {
-                     String msLevel = attributes.getValue("msLevel");
-                     if (msLevel.equals("1")) {
-                         ms1Spectra++;
-                         String retentionTime = attributes.getValue("retentionTime");
-                         String totIonCurrent = attributes.getValue("totIonCurrent");
-                         double x = Double.parseDouble(retentionTime.substring(2, retentionTime.length()-1));
-                         double y = Double.parseDouble(totIonCurrent);
-                         if (y > maxIntensity) {
-                             maxIntensity = y;
-                         }
-                         tic.add(new xy(x, y));
-                     }
-                     else {
-                         if (msLevel.equals("2")) {
-                             ms2Spectra++;
-                        }  
-                     }
+                     handleScan(attributes.getValue("msLevel"), attributes.getValue("retentionTime"),
+                                attributes.getValue("totIonCurrent"));
               }
        }       
 
+    /*
+     * Read all scans from the mzXML file using the specified reader mode.
+     */
+    void read(String mzXML, String mode) throws ParserConfigurationException, SAXException, IOException {
+        if (mode.equals(MODE_SAX)) {
+            //Create a "parser factory" for creating SAX parsers
+            SAXParserFactory spfac = SAXParserFactory.newInstance();
+            //Now use the parser factory to create a SAXParser object
+            SAXParser sp = spfac.newSAXParser();
+            //Finally, tell the parser to parse the input and notify the handler
+            sp.parse(mzXML, this);
+        } else if (mode.equals(MODE_INDEX)) {
+            int threadCount = Runtime.getRuntime().availableProcessors();
+            if (!MzXmlIndexReader.read(mzXML, threadCount, this)) {
+                System.out.println("Falling back to mode " + MODE_PARALLEL);
+                MzXmlChunkReader.read(mzXML, threadCount, this);
+            }
+        } else if (mode.equals(MODE_PARALLEL)) {
+            MzXmlChunkReader.read(mzXML, Runtime.getRuntime().availableProcessors(), this);
+        } else if (mode.equals(MODE_SCAN)) {
+            MzXmlScanner.scan(mzXML, this);
+        } else {
+            throw new IllegalArgumentException("Unknown mode " + mode + "; use " + MODE_INDEX + ", " + MODE_PARALLEL
+                                               + ", " + MODE_SCAN + " or " + MODE_SAX);
+        }
+    }
+
+    /*
+     * Update the counters and the TIC with the attributes of a single scan start tag.
+     * All reader modes (SAX and the byte-level scanners) pass every scan to this method in document order.
+     */
+    @Override
+    public void handleScan(String msLevel, String retentionTime, String totIonCurrent) {
+        if (msLevel.equals("1")) {
+            ms1Spectra++;
+            double x = Double.parseDouble(retentionTime.substring(2, retentionTime.length()-1));
+            double y = Double.parseDouble(totIonCurrent);
+            if (y > maxIntensity) {
+                maxIntensity = y;
+            }
+            tic.add(new xy(x, y));
+        }
+        else {
+            if (msLevel.equals("2")) {
+                ms2Spectra++;
+            }
+        }
+    }
+
     private void print(String ticmatrix_file, String rlog_file) {
               System.out.println("ms1Spectra   = " + ms1Spectra);
               System.out.println("ms2Spectra   = " + ms2Spectra);
@@ -129,4 +188,41 @@ public class Oplreader  extends DefaultHandler {
     			e.printStackTrace();
     		}
     }
+
+    /*
+     * Write the TIC in the compact binary format. The file is written under a temporary name first and then
+     * atomically moved over the target, so the viewer never sees a partially written or missing file.
+     */
+    void printBinary(String ticbinary_file) {
+        ByteBuffer buffer = ByteBuffer.allocate(TIC_BINARY_HEADER_SIZE + 8 * tic.size());
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(TIC_BINARY_MAGIC);
+        buffer.putInt(TIC_BINARY_VERSION);
+        buffer.putInt(tic.size());
+        buffer.putDouble(maxIntensity);
+        for (xy item: tic) {
+            buffer.putFloat((float) item.x);
+            buffer.putFloat((float) item.y);
+        }
+        buffer.flip();
+        Path temporaryPath = new File(ticbinary_file + ".tmp").toPath();
+        Path binaryPath = new File(ticbinary_file).toPath();
+        try {
+            try (FileOutputStream outputStream = new FileOutputStream(temporaryPath.toFile());
+                 FileChannel channel = outputStream.getChannel()) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            try {
+                Files.move(temporaryPath, binaryPath, StandardCopyOption.REPLACE_EXISTING,
+                           StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryPath, binaryPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.out.println("Could not write binary TIC file " + ticbinary_file);
+            e.printStackTrace();
+        }
+    }
 }
@@ -0,0 +1,177 @@
+package nl.ctmm.trait.opl;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark for the mzXML reader modes of Oplreader.
+ *
+ * Generates an mzXML file of the requested size (MS1 scans with nested MS2 scans, random base64 peak lists and a scan
+ * offset index), reads it with every mode and prints the run times. The results of all modes are compared with the
+ * SAX results: ms1Spectra, ms2Spectra, maxIntensity and the TIC points must be exactly the same.
+ *
+ * Usage: java -cp oplreader.jar nl.ctmm.trait.opl.OplreaderBenchmark [mzXML file] [size in MB] [modes]
+ * e.g. java -cp oplreader.jar nl.ctmm.trait.opl.OplreaderBenchmark /tmp/benchmark.mzXML 4096 sax,scan,parallel,index
+ *
+ * An existing file with the same name is reused, so the size only applies when the file is generated. Run the modes
+ * in different orders (or with a cold file cache) to check that the file cache does not favour one of them.
+ */
+public class OplreaderBenchmark {
+    private static final int DEFAULT_SIZE_MB = 2048;
+    private static final String DEFAULT_MODES = Oplreader.MODE_SAX + "," + Oplreader.MODE_SCAN + ","
+                                                + Oplreader.MODE_PARALLEL + "," + Oplreader.MODE_INDEX;
+    private static final int MS2_SCANS_PER_MS1_SCAN = 5;
+    private static final int MS1_PEAKS = 2000;
+    private static final int MS2_PEAKS = 300;
+    private static final String BASE64_CHARACTERS =
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+
+    public static void main(String[] args) throws Exception {
+        File mzXMLFile = new File(args.length > 0 ? args[0] : "benchmark.mzXML");
+        long sizeMB = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_SIZE_MB;
+        List<String> modes = Arrays.asList((args.length > 2 ? args[2] : DEFAULT_MODES).split(","));
+        if (!mzXMLFile.exists()) {
+            long start = System.nanoTime();
+            generate(mzXMLFile, sizeMB * 1024 * 1024);
+            System.out.println(String.format("Generated %s (%d MB) in %.1f s", mzXMLFile, mzXMLFile.length() >> 20,
+                                             (System.nanoTime() - start) / 1e9));
+        }
+        Oplreader reference = null;
+        for (String mode : modes) {
+            Oplreader reader = new Oplreader();
+            long start = System.nanoTime();
+            reader.read(mzXMLFile.getPath(), mode);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(String.format("%-10s %8.2f s %8.1f MB/s  ms1Spectra=%d ms2Spectra=%d maxIntensity=%s",
+                                             mode, seconds, (mzXMLFile.length() >> 20) / seconds, reader.ms1Spectra,
+                                             reader.ms2Spectra, reader.maxIntensity));
+            if (reference == null) {
+                reference = reader;
+            } else if (!sameResults(reference, reader)) {
+                System.out.println("ERROR: results of mode " + mode + " differ from mode " + modes.get(0));
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * Check whether two readers found exactly the same scans.
+     */
+    static boolean sameResults(Oplreader expected, Oplreader actual) {
+        if (expected.ms1Spectra != actual.ms1Spectra || expected.ms2Spectra != actual.ms2Spectra
+            || Double.compare(expected.maxIntensity, actual.maxIntensity) != 0
+            || expected.tic.size() != actual.tic.size()) {
+            return false;
+        }
+        for (int index = 0; index < expected.tic.size(); index++) {
+            if (Double.compare(expected.tic.get(index).x, actual.tic.get(index).x) != 0
+                || Double.compare(expected.tic.get(index).y, actual.tic.get(index).y) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Generate an mzXML file of (about) the requested size, including the scan offset index.
+     */
+    static void generate(File mzXMLFile, long targetSize) throws IOException {
+        Random random = new Random(42);
+        byte[] ms1Peaks = randomBase64(random, MS1_PEAKS * 8 * 4 / 3);
+        byte[] ms2Peaks = randomBase64(random, MS2_PEAKS * 8 * 4 / 3);
+        List<Long> scanOffsets = new ArrayList<Long>();
+        try (CountingOutputStream output = new CountingOutputStream(
+                 new BufferedOutputStream(new FileOutputStream(mzXMLFile), 1 << 20))) {
+            write(output, "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>\n"
+                          + "<mzXML xmlns=\"http://sashimi.sourceforge.net/schema_revision/mzXML_3.2\">\n"
+                          + "  <!-- Generated by OplreaderBenchmark; <scan num=\"0\"> in a comment is ignored -->\n"
+                          + "  <msRun scanCount=\"0\" startTime=\"PT0S\" endTime=\"PT0S\">\n"
+                          + "    <parentFile fileName=\"benchmark.RAW\" fileType=\"RAWData\" fileSha1=\"0\"/>\n");
+            int scanNumber = 0;
+            double retentionTime = 0;
+            while (output.count < targetSize) {
+                retentionTime += 0.1 + random.nextDouble();
+                scanNumber++;
+                scanOffsets.add(output.count + 4);
+                write(output, "    <scan num=\"" + scanNumber + "\"\n          msLevel=\"1\"\n"
+                              + "          peaksCount=\"" + MS1_PEAKS + "\"\n          polarity=\"+\"\n"
+                              + "          retentionTime=\"PT" + retentionTime + "S\"\n"
+                              + "          lowMz=\"300\"\n          highMz=\"2000\"\n"
+                              + "          totIonCurrent=\"" + (random.nextDouble() * 1e10) + "\">\n"
+                              + "      <peaks precision=\"32\" byteOrder=\"network\" pairOrder=\"m/z-int\">");
+                output.write(ms1Peaks);
+                write(output, "</peaks>\n");
+                for (int ms2Index = 0; ms2Index < MS2_SCANS_PER_MS1_SCAN; ms2Index++) {
+                    scanNumber++;
+                    scanOffsets.add(output.count + 6);
+                    write(output, "      <scan num=\"" + scanNumber + "\" msLevel=\"2\" peaksCount=\"" + MS2_PEAKS
+                                  + "\" retentionTime=\"PT" + (retentionTime + 0.01 * ms2Index) + "S\""
+                                  + " totIonCurrent=\"" + (random.nextDouble() * 1e8) + "\">\n"
+                                  + "        <precursorMz precursorIntensity=\"1e6\">512.3</precursorMz>\n"
+                                  + "        <peaks precision=\"32\" byteOrder=\"network\" pairOrder=\"m/z-int\">");
+                    output.write(ms2Peaks);
+                    write(output, "</peaks>\n      </scan>\n");
+                }
+                write(output, "    </scan>\n");
+            }
+            write(output, "  </msRun>\n");
+            long indexOffset = output.count + 2;
+            write(output, "  <index name=\"scan\">\n");
+            for (int scanIndex = 0; scanIndex < scanOffsets.size(); scanIndex++) {
+                write(output, "    <offset id=\"" + (scanIndex + 1) + "\">" + scanOffsets.get(scanIndex)
+                              + "</offset>\n");
+            }
+            write(output, "  </index>\n  <indexOffset>" + indexOffset + "</indexOffset>\n"
+                          + "  <sha1>0</sha1>\n</mzXML>\n");
+        }
+    }
+
+    private static byte[] randomBase64(Random random, int length) {
+        byte[] bytes = new byte[(length + 3) / 4 * 4];
+        for (int index = 0; index < bytes.length; index++) {
+            bytes[index] = (byte) BASE64_CHARACTERS.charAt(random.nextInt(BASE64_CHARACTERS.length()));
+        }
+        return bytes;
+    }
+
+    private static void write(OutputStream output, String text) throws IOException {
+        output.write(text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Output stream that keeps track of the number of bytes written, which is used for the scan offset index.
+     */
+    private static class CountingOutputStream extends OutputStream {
+        private final OutputStream output;
+        private long count;
+
+        CountingOutputStream(OutputStream output) {
+            this.output = output;
+        }
+
+        @Override
+        public void write(int value) throws IOException {
+            output.write(value);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            output.write(bytes, offset, length);
+            count += length;
+        }
+
+        @Override
+        public void close() throws IOException {
+            output.close();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package nl.ctmm.trait.opl;
+
+/**
+ * Receives the attributes of the scan start tags in an mzXML file, in document order.
+ */
+public interface ScanHandler {
+    /**
+     * Handle a single scan start tag. Attributes that are not present are passed as null.
+     *
+     * @param msLevel the value of the msLevel attribute.
+     * @param retentionTime the value of the retentionTime attribute (for example "PT300.413S").
+     * @param totIonCurrent the value of the totIonCurrent attribute.
+     */
+    void handleScan(String msLevel, String retentionTime, String totIonCurrent);
+}
@@ -0,0 +1,35 @@
+package nl.ctmm.trait.opl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the scan start tag attributes of (part of) an mzXML file, so scans that are read by worker threads can be
+ * passed to the real handler later, in document order.
+ */
+public class ScanHeaderList implements ScanHandler {
+    private final List<String[]> headers = new ArrayList<String[]>();
+
+    @Override
+    public void handleScan(String msLevel, String retentionTime, String totIonCurrent) {
+        headers.add(new String[]{msLevel, retentionTime, totIonCurrent});
+    }
+
+    /**
+     * Get the number of collected scans.
+     */
+    public int size() {
+        return headers.size();
+    }
+
+    /**
+     * Pass all collected scans to a handler, in the order in which they were collected.
+     *
+     * @param handler the handler that receives the scans.
+     */
+    public void replay(ScanHandler handler) {
+        for (String[] header : headers) {
+            handler.handleScan(header[0], header[1], header[2]);
+        }
+    }
+}
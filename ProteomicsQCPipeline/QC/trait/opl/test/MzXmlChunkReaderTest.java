@@ -0,0 +1,39 @@
+package nl.ctmm.trait.opl;
+
+import static nl.ctmm.trait.opl.MzXmlReaderAssert.assertSameAsSax;
+import static nl.ctmm.trait.opl.MzXmlReaderAssert.readWithSax;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for the MzXmlChunkReader class.
+ */
+public class MzXmlChunkReaderTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /*
+     * Test that merging the chunks gives the same result as SAX when comments, CDATA sections and scan tags cross the
+     * chunk boundaries. With chunk sizes this small, every construct in the file crosses a boundary for some size.
+     */
+    @Test
+    public void testReadWithSmallChunks() throws Exception {
+        for (long seed = 1; seed <= 3; seed++) {
+            MzXmlTestFile testFile = new MzXmlTestFile(30, seed);
+            File mzXML = testFile.write(temporaryFolder.getRoot(), -1);
+            Oplreader expected = readWithSax(mzXML.getPath());
+            for (long chunkSize = 1; chunkSize <= 200; chunkSize += (chunkSize < 40) ? 1 : 13) {
+                Oplreader actual = new Oplreader();
+                MzXmlChunkReader.read(mzXML.getPath(), 4, chunkSize, actual);
+                assertSameAsSax("seed " + seed + ", chunk size " + chunkSize, expected, actual);
+            }
+            Oplreader actual = new Oplreader();
+            actual.read(mzXML.getPath(), Oplreader.MODE_PARALLEL);
+            assertSameAsSax("seed " + seed + ", default chunk size", expected, actual);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package nl.ctmm.trait.opl;
+
+import static nl.ctmm.trait.opl.MzXmlReaderAssert.assertSameAsSax;
+import static nl.ctmm.trait.opl.MzXmlReaderAssert.readWithSax;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for the MzXmlIndexReader class.
+ */
+public class MzXmlIndexReaderTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /*
+     * Test that reading the scans at the indexed offsets gives the same result as SAX.
+     */
+    @Test
+    public void testRead() throws Exception {
+        File mzXML = new MzXmlTestFile(30, 1).write(temporaryFolder.getRoot(), -1);
+        Oplreader expected = readWithSax(mzXML.getPath());
+        for (int threadCount = 1; threadCount <= 4; threadCount++) {
+            Oplreader actual = new Oplreader();
+            assertTrue(MzXmlIndexReader.read(mzXML.getPath(), threadCount, actual));
+            assertSameAsSax("thread count " + threadCount, expected, actual);
+        }
+    }
+
+    /*
+     * Test that an offset that does not point at a scan start tag makes the index reader give up without passing
+     * any scans to the handler, and that the index mode then falls back to the chunk reader with the SAX result.
+     */
+    @Test
+    public void testReadCorruptOffset() throws Exception {
+        MzXmlTestFile testFile = new MzXmlTestFile(30, 2);
+        Oplreader expected = readWithSax(testFile.write(temporaryFolder.getRoot(), -1).getPath());
+        File mzXML = testFile.write(temporaryFolder.getRoot(), 17);
+        Oplreader indexOnly = new Oplreader();
+        assertFalse(MzXmlIndexReader.read(mzXML.getPath(), 4, indexOnly));
+        assertEquals(0, indexOnly.ms1Spectra + indexOnly.ms2Spectra);
+        Oplreader actual = new Oplreader();
+        actual.read(mzXML.getPath(), Oplreader.MODE_INDEX);
+        assertSameAsSax("fallback", expected, actual);
+        assertSameAsSax("corrupt file with SAX", expected, readWithSax(mzXML.getPath()));
+    }
+
+    /*
+     * Test that a file without a valid indexOffset has no scan offsets.
+     */
+    @Test
+    public void testReadScanOffsetsWithoutIndex() throws Exception {
+        File mzXML = temporaryFolder.newFile("noindex.mzXML");
+        Files.write(mzXML.toPath(), "<mzXML><msRun></msRun></mzXML>".getBytes(StandardCharsets.US_ASCII));
+        try (FileChannel channel = FileChannel.open(mzXML.toPath(), StandardOpenOption.READ)) {
+            assertNull(MzXmlIndexReader.readScanOffsets(channel));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package nl.ctmm.trait.opl;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the results of a byte-level reader with the results of the SAX parser.
+ */
+class MzXmlReaderAssert {
+    private MzXmlReaderAssert() {
+    }
+
+    /*
+     * Assert that the scan counts, the maximum intensity and the TIC are the same as read by SAX.
+     */
+    static void assertSameAsSax(String message, Oplreader expected, Oplreader actual) {
+        assertEquals(message, expected.ms1Spectra, actual.ms1Spectra);
+        assertEquals(message, expected.ms2Spectra, actual.ms2Spectra);
+        assertEquals(message, expected.maxIntensity, actual.maxIntensity, 0);
+        assertEquals(message, expected.tic.size(), actual.tic.size());
+        for (int pointIndex = 0; pointIndex < expected.tic.size(); pointIndex++) {
+            assertEquals(message, expected.tic.get(pointIndex).x, actual.tic.get(pointIndex).x, 0);
+            assertEquals(message, expected.tic.get(pointIndex).y, actual.tic.get(pointIndex).y, 0);
+        }
+    }
+
+    /*
+     * Read a file with the SAX parser.
+     */
+    static Oplreader readWithSax(String mzXML) throws Exception {
+        Oplreader oplreader = new Oplreader();
+        oplreader.read(mzXML, Oplreader.MODE_SAX);
+        return oplreader;
+    }
+}
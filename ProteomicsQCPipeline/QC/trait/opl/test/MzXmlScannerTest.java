@@ -0,0 +1,42 @@
+package nl.ctmm.trait.opl;
+
+import static nl.ctmm.trait.opl.MzXmlReaderAssert.assertSameAsSax;
+import static nl.ctmm.trait.opl.MzXmlReaderAssert.readWithSax;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for the MzXmlScanner class.
+ */
+public class MzXmlScannerTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /*
+     * Test that the scanner gives the same result as SAX, also when comments, CDATA sections and scan tags cross the
+     * boundaries of the blocks that are read.
+     */
+    @Test
+    public void testScanWithSmallBlocks() throws Exception {
+        File mzXML = new MzXmlTestFile(40, 1).write(temporaryFolder.getRoot(), -1);
+        Oplreader expected = readWithSax(mzXML.getPath());
+        assertTrue(expected.ms1Spectra == 40 && expected.ms2Spectra > 0);
+        for (int blockSize = 1; blockSize <= 64; blockSize++) {
+            Oplreader actual = new Oplreader();
+            try (FileChannel channel = FileChannel.open(mzXML.toPath(), StandardOpenOption.READ)) {
+                new MzXmlScanner(channel, blockSize).scanRange(0, channel.size(), actual);
+            }
+            assertSameAsSax("block size " + blockSize, expected, actual);
+        }
+        Oplreader actual = new Oplreader();
+        actual.read(mzXML.getPath(), Oplreader.MODE_SCAN);
+        assertSameAsSax("default block size", expected, actual);
+    }
+}
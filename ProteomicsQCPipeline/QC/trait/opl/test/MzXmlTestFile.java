@@ -0,0 +1,114 @@
+package nl.ctmm.trait.opl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates small indexed mzXML files for the reader tests.
+ *
+ * The files contain MS1 scans with nested MS2 scans, base64-like peak lists, comments and CDATA sections that contain
+ * fake scan tags with a very high intensity, and attribute values with '>' characters. The whitespace and the lengths
+ * of the peak lists vary, so with a small chunk or block size every kind of construct crosses a boundary somewhere.
+ */
+class MzXmlTestFile {
+    /*
+     * The intensity of the fake scan tags in comments and CDATA sections; it shows up as the maximum intensity if a
+     * reader does not skip them.
+     */
+    static final String FAKE_INTENSITY = "9.9e99";
+
+    private final StringBuilder contents = new StringBuilder();
+    private final List<Integer> scanOffsets = new ArrayList<Integer>();
+    private final Random random;
+    private int scanNumber = 0;
+
+    /*
+     * Generate a file with the given number of MS1 scans, using a fixed seed so the test is repeatable.
+     */
+    MzXmlTestFile(int ms1ScanCount, long seed) {
+        random = new Random(seed);
+        contents.append("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>\n");
+        contents.append("<mzXML xmlns=\"http://sashimi.sourceforge.net/schema_revision/mzXML_3.2\">\n");
+        contents.append("  <msRun scanCount=\"").append(ms1ScanCount).append("\">\n");
+        contents.append("    <!-- <scan num=\"0\" msLevel=\"1\" retentionTime=\"PT0S\" totIonCurrent=\"")
+                .append(FAKE_INTENSITY).append("\"> -->\n");
+        for (int ms1Index = 0; ms1Index < ms1ScanCount; ms1Index++) {
+            appendScan(1, ms1Index);
+            int ms2ScanCount = random.nextInt(3);
+            for (int ms2Index = 0; ms2Index < ms2ScanCount; ms2Index++) {
+                appendScan(2, ms1Index);
+                contents.append("    </scan>\n");
+            }
+            contents.append("    </scan>\n");
+            if (ms1Index % 3 == 1) {
+                contents.append("    <!-- comment - with - dashes and <scan msLevel=\"1\" retentionTime=\"PT1S\" ")
+                        .append("totIonCurrent=\"").append(FAKE_INTENSITY).append("\"> -->\n");
+            }
+            if (ms1Index % 4 == 2) {
+                contents.append("    <![CDATA[ ]] > <scan msLevel=\"1\" retentionTime=\"PT2S\" totIonCurrent=\"")
+                        .append(FAKE_INTENSITY).append("\"> ]]>\n");
+            }
+        }
+        contents.append("  </msRun>\n  ");
+        int indexOffset = contents.length();
+        contents.append("<index name=\"scan\">\n");
+        for (int scanIndex = 0; scanIndex < scanOffsets.size(); scanIndex++) {
+            contents.append("    <offset id=\"").append(scanIndex + 1).append("\">").append(scanOffsets.get(scanIndex))
+                    .append("</offset>\n");
+        }
+        contents.append("  </index>\n");
+        contents.append("  <indexOffset>").append(indexOffset).append("</indexOffset>\n");
+        contents.append("</mzXML>\n");
+    }
+
+    private void appendScan(int msLevel, int ms1Index) {
+        scanNumber++;
+        contents.append("    ");
+        scanOffsets.add(contents.length());
+        contents.append("<scan num=\"").append(scanNumber).append("\"");
+        appendWhitespace();
+        contents.append("msLevel=\"").append(msLevel).append("\"");
+        appendWhitespace();
+        contents.append("filterLine=\"FTMS + p ESI Full ms").append(msLevel > 1 ? "2 > 400.00" : "").append("\"");
+        appendWhitespace();
+        contents.append("retentionTime=\"PT").append(ms1Index * 1.25 + msLevel / 10.0).append("S\"");
+        appendWhitespace();
+        contents.append("totIonCurrent=\"").append(random.nextInt(100000) * 1000.5).append("\"");
+        appendWhitespace();
+        contents.append(">\n      <peaks precision=\"32\" byteOrder=\"network\">");
+        int peakLength = random.nextInt(64);
+        for (int index = 0; index < peakLength; index++) {
+            contents.append((char) ('A' + random.nextInt(26)));
+        }
+        contents.append("</peaks>\n");
+    }
+
+    private void appendWhitespace() {
+        contents.append(random.nextBoolean() ? " " : "\n        ");
+    }
+
+    /*
+     * Write the file; if corruptScanIndex is not negative, the offset of that scan in the index is moved one byte.
+     */
+    File write(File directory, int corruptScanIndex) throws IOException {
+        String text = contents.toString();
+        if (corruptScanIndex >= 0) {
+            String offset = ">" + scanOffsets.get(corruptScanIndex) + "</offset>";
+            String corruptOffset = ">" + (scanOffsets.get(corruptScanIndex) + 1) + "</offset>";
+            int indexStart = text.indexOf("<index ");
+            text = text.substring(0, indexStart) + text.substring(indexStart).replace(offset, corruptOffset);
+        }
+        File mzXML = File.createTempFile("test", ".mzXML", directory);
+        Files.write(mzXML.toPath(), text.getBytes(StandardCharsets.ISO_8859_1));
+        return mzXML;
+    }
+
+    int length() {
+        return contents.length();
+    }
+}
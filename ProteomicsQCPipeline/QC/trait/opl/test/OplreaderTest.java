@@ -0,0 +1,58 @@
+package nl.ctmm.trait.opl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for the Oplreader class.
+ *
+ * The pipeline has no build file; compile and run these tests from the QC directory with:
+ * javac -cp junit-4.11.jar:hamcrest-core-1.3.jar -d classes trait/opl/*.java trait/opl/test/*.java
+ * java -cp classes:junit-4.11.jar:hamcrest-core-1.3.jar org.junit.runner.JUnitCore nl.ctmm.trait.opl.OplreaderTest
+ */
+public class OplreaderTest {
+    /*
+     * The binary TIC file written for the scans of addTestScans, which the QC report viewer reads in
+     * TicMatrixReaderTest; both tests use this file, so the writer and the reader agree on the layout.
+     */
+    static final String TIC_BINARY_TEST_FILE = "test/data/ticmatrix.bin";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /*
+     * Test that the binary TIC file has exactly the layout the viewer reads and that no temporary file is left behind.
+     */
+    @Test
+    public void testPrintBinary() throws IOException {
+        Oplreader oplreader = new Oplreader();
+        addTestScans(oplreader);
+        File ticBinaryFile = new File(temporaryFolder.getRoot(), "msrun_ticmatrix.bin");
+        oplreader.printBinary(ticBinaryFile.getPath());
+        assertArrayEquals(Files.readAllBytes(new File(TIC_BINARY_TEST_FILE).toPath()),
+                          Files.readAllBytes(ticBinaryFile.toPath()));
+        assertFalse(new File(ticBinaryFile.getPath() + ".tmp").exists());
+        // Writing again replaces the existing file.
+        oplreader.printBinary(ticBinaryFile.getPath());
+        assertArrayEquals(Files.readAllBytes(new File(TIC_BINARY_TEST_FILE).toPath()),
+                          Files.readAllBytes(ticBinaryFile.toPath()));
+    }
+
+    /*
+     * Add three MS1 scans and one MS2 scan; the TIC is (60.5 s, 1000), (120 s, 2500.5) and (180.25 s, 0).
+     */
+    static void addTestScans(Oplreader oplreader) {
+        oplreader.handleScan("1", "PT60.5S", "1000.0");
+        oplreader.handleScan("2", "PT61S", "5.0");
+        oplreader.handleScan("1", "PT120S", "2500.5");
+        oplreader.handleScan("1", "PT180.25S", "0");
+    }
+}
@@ -1,5 +1,6 @@
 package nl.ctmm.trait.proteomics.qcviewer;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.Paths;
@@ -13,14 +14,24 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+
 import nl.ctmm.trait.proteomics.qcviewer.gui.DataEntryForm;
 import nl.ctmm.trait.proteomics.qcviewer.gui.ViewerFrame;
 import nl.ctmm.trait.proteomics.qcviewer.input.MetricsParser;
+import nl.ctmm.trait.proteomics.qcviewer.input.MetricsTable;
+import nl.ctmm.trait.proteomics.qcviewer.input.MsrunRegistry;
+import nl.ctmm.trait.proteomics.qcviewer.input.ProgressLogEntry;
 import nl.ctmm.trait.proteomics.qcviewer.input.ProgressLogReader;
+import nl.ctmm.trait.proteomics.qcviewer.input.ReportIndex;
+import nl.ctmm.trait.proteomics.qcviewer.input.ReportLoadListener;
 import nl.ctmm.trait.proteomics.qcviewer.input.ReportReader;
 import nl.ctmm.trait.proteomics.qcviewer.input.ReportUnit;
 import nl.ctmm.trait.proteomics.qcviewer.utils.Constants;
@@ -106,6 +117,18 @@ public class Main {
     private static final String PREFERRED_ROOT_DIRECTORY_MESSAGE = 
                                             "Preferred root directory = %s";
 
+    /**
+     * Message written to the logger if the report loader threads property is not a valid number.
+     */
+    private static final String INCORRECT_THREAD_COUNT_MESSAGE =
+            "Invalid number of report loader threads (%s); using %d threads.";
+
+    /**
+     * Message written to the logger when a log file change is handled after the reports have been loaded.
+     */
+    private static final String DEFERRED_LOG_CHANGE_MESSAGE =
+            "Progress log file changed while loading reports; searching for new reports after loading.";
+
     /**
      * Message written to the logger if the exception occurs while 
      * loading application properties.
@@ -124,6 +147,12 @@ public class Main {
      */
     private MetricsParser metricsParser;
 
+    /**
+     * The table that stores the metrics values of the reports in the viewer. A new table is used when the reports are
+     * replaced, so the values of the old reports can be garbage collected.
+     */
+    private volatile MetricsTable metricsTable;
+
     /**
      * The current pipeline status like idle or currently analyzing ...
      */
@@ -153,10 +182,10 @@ public class Main {
     private DataEntryForm dataEntryForm;
 
     /**
-     * The list contains keys of reports being displayed in the main user interface.
-     * This list is updated for every new report. 
+     * The registry contains keys of reports being displayed in the main user interface.
+     * This registry is updated for every new report; it is also used by the progress log monitor thread.
      */
-    private List<String> reportUnitsKeys = new ArrayList<>();
+    private final MsrunRegistry reportUnitsKeys = new MsrunRegistry();
     
     /**
      * Reader for the pipeline log file - qc_status.log from the preferredRootDirectory.
@@ -182,6 +211,22 @@ public class Main {
      * A date format with the pattern "dd/MM/yyyy".
      */
     private DateFormat dateFormat = Utilities.createDateFormat();
+
+    /**
+     * The worker that is loading reports in the background or <code>null</code> if no reports are being loaded.
+     */
+    private volatile ReportLoadingWorker reportLoadingWorker;
+
+    /**
+     * Whether the progress log file changed while reports were being loaded, which means the directories should be
+     * searched for new reports when loading has finished.
+     */
+    private volatile boolean logChangedWhileLoading;
+
+    /**
+     * The report index of the root directory, which is kept in memory across report loads.
+     */
+    private ReportIndex reportIndex;
     
     /**
      * The constructor is private so only the singleton instance can be used.
@@ -245,28 +290,23 @@ public class Main {
         //Set progress log reader and running msrun name
         setProgressLogReaderAndRunningMsrunName();
         metricsParser = new MetricsParser();
-
-        //Obtain displayable set of reports 
-        final Map<String, ReportUnit> reportUnitsTable = 
-                                        getDisplayableReportUnitsTable();
-        logger.fine(String.format(NUMBER_OF_REPORTS_MESSAGE, 
-                                           reportUnitsTable.size()));
-        final List<ReportUnit> displayableReportUnits = new ArrayList<>(reportUnitsTable.values());
-        //Sort displayableReportUnits in ascending order of report index
-        Collections.sort(displayableReportUnits, ReportUnit.getComparatorV2(Constants.SORT_KEY_REPORT_INDEX, true));
-        //Start main user interface
-        startQCReportViewerGui(applicationProperties, displayableReportUnits, pipelineStatus);
+        //Start main user interface without reports: they are shown while they are loaded in the background
+        startQCReportViewerGui(applicationProperties, new ArrayList<ReportUnit>(), pipelineStatus);
         dataEntryForm.disposeInitialDialog();
-        if (reportUnitsTable.size() == 0) {
-            // There are no reports in the current root directory. Obtain new directory location from the user. 
-            dataEntryForm.displayNoReportsFoundDialogue(preferredRootDirectory);
-        } else {
-            //Maintain reportUnitsKeys
-            reportUnitsKeys = new ArrayList<>(reportUnitsTable.keySet());
-            logger.fine(String.format(SIZE_REPORTS_KEYS_MESSAGE, reportUnitsKeys.size()));
-        }
+        startReportLoading(true, pipelineStatus);
         startProgressLogFileMonitor();
     }
+
+    /**
+     * Cancel loading reports in the background. The reports that have been loaded so far remain visible.
+     */
+    public void cancelReportLoading() {
+        final ReportLoadingWorker worker = reportLoadingWorker;
+        if (worker != null) {
+            // Do not interrupt the worker thread: that would close the file channels used by the readers.
+            worker.cancel(false);
+        }
+    }
     
     /**
      * Setup progressLogReader to read current pipeline status.
@@ -375,45 +415,59 @@ public class Main {
     }
     
     /**
-     * Progress log file has changed. Refresh the application automatically on this notification.
+     * Progress log file has changed. Refresh the application automatically on this notification. The reports are
+     * loaded by a report loading worker that is started on the event dispatch thread, so a log driven load cannot
+     * interfere with a load that replaces the reports.
      *
      * @param newPipelineStatus the new status of the QC pipeline.
      */
     public void notifyProgressLogFileChanged(final String newPipelineStatus) {
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                loadNewReports(newPipelineStatus);
+            }
+        });
+    }
+
+    /**
+     * Load the reports that have been added since the progress log file changed, unless reports are being loaded: in
+     * that case new reports are searched for when loading has finished. This method is called on the event dispatch
+     * thread.
+     *
+     * @param newPipelineStatus the new status of the QC pipeline.
+     */
+    private void loadNewReports(final String newPipelineStatus) {
         /* The tillDate has to be updated as currentTime - since the pipeline status has changed.
         * FromDate could be specified by the user
         */
         runningMsrunName = progressLogReader.getRunningMsrunName();
         tillDate = Calendar.getInstance().getTime();
-        final Map<String, ReportUnit> reportUnitsTable = getDisplayableReportUnitsTable(); 
-        if (reportUnitsTable.size() == 0) {
-            logger.fine(String.format(NO_NEW_REPORTS_MESSAGE, preferredRootDirectory));
+        if (reportLoadingWorker != null) {
+            // The worker registers the reports it loads; search for new reports when it has finished.
+            logger.fine(DEFERRED_LOG_CHANGE_MESSAGE);
+            logChangedWhileLoading = true;
         } else {
-            final List<ReportUnit> newReportUnits = new ArrayList<>(reportUnitsTable.values());
-            //Sort newReportUnits in ascending order of report index
-            Collections.sort(newReportUnits, ReportUnit.getComparatorV2(Constants.SORT_KEY_REPORT_INDEX, true));
-            //Maintain reportUnitsKeys
-            reportUnitsKeys.addAll(new ArrayList<>(reportUnitsTable.keySet()));
-            logger.fine(String.format(SIZE_REPORTS_KEYS_MESSAGE, reportUnitsKeys.size()));
-            reportUnitsTable.clear(); 
-            //Refresh ViewerFrame with new Report Units
-            frame.updateReportUnits(newReportUnits, newPipelineStatus, false);
+            startReportLoading(false, newPipelineStatus);
         }
     }
 
     /**
-     * Get the report units from the directory structure below the root directory.
-     * @return the list with report units. 
+     * Get the number of threads to use for loading the reports from the application properties.
+     *
+     * @return the number of report loader threads.
      */
-    private Map<String, ReportUnit> getDisplayableReportUnitsTable() {
-        /** preferredRootDirectory the root directory to search in.
-        * runningMsrunName  the name of the currently running msrun.
-        * reportUnitsKeys   list containing names of report units being displayed.
-        * fromDate          the start of the date range to search.
-        * tillDate          the end of the date range to search.
-        * */
-        return new ReportReader(metricsParser).retrieveReports(preferredRootDirectory, runningMsrunName, 
-                reportUnitsKeys, fromDate, tillDate);
+    private int getReportLoaderThreadCount() {
+        int threadCount = Constants.DEFAULT_REPORT_LOADER_THREADS;
+        final String threadCountProperty = applicationProperties.getProperty(Constants.PROPERTY_REPORT_LOADER_THREADS);
+        if (threadCountProperty != null) {
+            try {
+                threadCount = Integer.parseInt(threadCountProperty.trim());
+            } catch (final NumberFormatException e) {
+                logger.warning(String.format(INCORRECT_THREAD_COUNT_MESSAGE, threadCountProperty, threadCount));
+            }
+        }
+        return Math.max(1, threadCount);
     }
 
     /**
@@ -492,24 +546,174 @@ public class Main {
             setProgressLogReaderAndRunningMsrunName();
         }
         determineReportDateRange();
-        //Clear reportUnitsKeys 
+        //Stop loading the old reports and clear reportUnitsKeys
+        cancelReportLoading();
         reportUnitsKeys.clear();
-        //Obtain set of reports to be displayed in the viewer
-        final Map<String, ReportUnit> reportUnitsTable = getDisplayableReportUnitsTable();
-        logger.fine(String.format(NUMBER_OF_REPORTS_MESSAGE, reportUnitsTable.size()));
-        if (reportUnitsTable.size() == 0) {
-            // There exist no reports in selected root directory conforming date range.
-            dataEntryForm.displayNoReportsFoundDialogue(preferredRootDirectory);
-        } else {
-            //Maintain reportUnitsKeys
-            reportUnitsKeys = new ArrayList<>(reportUnitsTable.keySet());
+        //Load the reports to be displayed in the viewer in the background
+        startReportLoading(true, progressLogReader.getCurrentStatus());
+        startProgressLogFileMonitor();
+    }
+
+    /**
+     * Start loading the reports in the background. A report loading worker that is still running is cancelled.
+     *
+     * @param replaceReports whether the loaded reports replace the reports in the viewer (otherwise they are added).
+     * @param newPipelineStatus the status of the QC pipeline to show in the viewer.
+     */
+    private void startReportLoading(final boolean replaceReports, final String newPipelineStatus) {
+        cancelReportLoading();
+        logChangedWhileLoading = false;
+        if (replaceReports || metricsTable == null) {
+            metricsTable = new MetricsTable(metricsParser);
+        }
+        final File rootDirectory = new File(FilenameUtils.normalize(preferredRootDirectory));
+        if (reportIndex == null || !reportIndex.getRootDirectory().equals(rootDirectory)) {
+            reportIndex = new ReportIndex(rootDirectory, metricsParser);
+        }
+        // New reports are numbered after the reports in the viewer, so the report index is the position in the viewer.
+        final int reportCount = replaceReports ? 0 : frame.getReportCount();
+        final ReportLoadingWorker worker = new ReportLoadingWorker(replaceReports, reportCount, newPipelineStatus);
+        reportLoadingWorker = worker;
+        // The first loading is started from the main thread; the viewer frame is updated on the event dispatch thread.
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                frame.showLoadingProgress(0, 0);
+            }
+        });
+        worker.execute();
+    }
+
+    /**
+     * The worker that loads the reports on a background thread and passes them to the viewer in batches, so the first
+     * reports can be used while the others are still being loaded. The batches are handled on the event dispatch
+     * thread and are ignored once the worker has been cancelled or replaced by a new worker.
+     */
+    private class ReportLoadingWorker extends SwingWorker<Void, ReportUnit> implements ReportLoadListener {
+        /**
+         * Whether the loaded reports replace the reports in the viewer (otherwise they are added).
+         */
+        private final boolean replaceReports;
+
+        /**
+         * The status of the QC pipeline to show in the viewer.
+         */
+        private final String workerPipelineStatus;
+
+        /**
+         * The table that stores the metrics values of the reports loaded by this worker.
+         */
+        private final MetricsTable workerMetricsTable = metricsTable;
+
+        /**
+         * The report index of the root directory that is loaded by this worker.
+         */
+        private final ReportIndex workerReportIndex = reportIndex;
+
+        /**
+         * The number of msrun directories that will be loaded (zero if this is not known yet).
+         */
+        private volatile int directoryCount;
+
+        /**
+         * The number of reports in the viewer when the worker was started (zero if the reports are replaced).
+         */
+        private final int reportCount;
+
+        /**
+         * The report units that replace the reports of msruns whose directories have been removed.
+         */
+        private final Set<ReportUnit> removedReportUnits
+                = Collections.newSetFromMap(new ConcurrentHashMap<ReportUnit, Boolean>());
+
+        /**
+         * The number of reports passed to the viewer.
+         */
+        private int loadedReportCount;
+
+        /**
+         * Create a report loading worker.
+         *
+         * @param replaceReports whether the loaded reports replace the reports in the viewer.
+         * @param reportCount the number of reports in the viewer (zero if the reports are replaced).
+         * @param workerPipelineStatus the status of the QC pipeline to show in the viewer.
+         */
+        public ReportLoadingWorker(final boolean replaceReports, final int reportCount,
+                                   final String workerPipelineStatus) {
+            this.replaceReports = replaceReports;
+            this.reportCount = reportCount;
+            this.workerPipelineStatus = workerPipelineStatus;
+        }
+
+        @Override
+        protected Void doInBackground() {
+            final ReportReader reportReader = new ReportReader(metricsParser, getReportLoaderThreadCount(), true);
+            reportReader.setReportLoadListener(this);
+            reportReader.setMetricsTable(workerMetricsTable);
+            reportReader.setReportCount(reportCount);
+            reportReader.setReportIndex(workerReportIndex);
+            // When reports are added, only load the msrun directories named in the new log entries; search all
+            // directories if they are unknown.
+            final List<ProgressLogEntry> newLogEntries = !replaceReports ? progressLogReader.readNewLogEntries() : null;
+            final Map<String, ReportUnit> reportUnitsTable = (newLogEntries != null)
+                    ? reportReader.retrieveLoggedReports(preferredRootDirectory, runningMsrunName, reportUnitsKeys,
+                                                         newLogEntries, fromDate, tillDate)
+                    : reportReader.retrieveReports(preferredRootDirectory, runningMsrunName, reportUnitsKeys,
+                                                   fromDate, tillDate);
+            logger.fine(String.format(NUMBER_OF_REPORTS_MESSAGE, reportUnitsTable.size()));
+            return null;
+        }
+
+        @Override
+        public void directoriesFound(final int directoryCount) {
+            this.directoryCount = directoryCount;
+        }
+
+        @Override
+        public void reportLoaded(final ReportUnit reportUnit) {
+            publish(reportUnit);
+        }
+
+        @Override
+        public void reportRemoved(final ReportUnit reportUnit) {
+            removedReportUnits.add(reportUnit);
+            publish(reportUnit);
+        }
+
+        @Override
+        protected void process(final List<ReportUnit> reportUnits) {
+            if (isCancelled() || reportLoadingWorker != this) {
+                return;
+            }
+            for (final ReportUnit reportUnit : reportUnits) {
+                //Maintain reportUnitsKeys (the msrun of a removed directory is loaded again when the directory returns)
+                if (!removedReportUnits.contains(reportUnit)) {
+                    reportUnitsKeys.register(reportUnit.getMsrunName().trim(), reportUnit.getReportNum());
+                }
+            }
+            // The first batch replaces the reports in the viewer (if requested), the other batches are added.
+            frame.updateReportUnits(new ArrayList<>(reportUnits), workerPipelineStatus,
+                                    replaceReports && loadedReportCount == 0);
+            loadedReportCount += reportUnits.size();
+            frame.showLoadingProgress(loadedReportCount, directoryCount);
+        }
+
+        @Override
+        protected void done() {
+            if (reportLoadingWorker != this) {
+                return;
+            }
+            reportLoadingWorker = null;
+            frame.hideLoadingProgress();
             logger.fine(String.format(SIZE_REPORTS_KEYS_MESSAGE, reportUnitsKeys.size()));
-            final List<ReportUnit> displayableReportUnits = new ArrayList<>(reportUnitsTable.values());
-            //Sort displayableReportUnits in ascending order of report index
-            Collections.sort(displayableReportUnits, ReportUnit.getComparatorV2(Constants.SORT_KEY_REPORT_INDEX, true));
-            // Refresh ViewerFrame with new Report Units.
-            frame.updateReportUnits(displayableReportUnits, progressLogReader.getCurrentStatus(), true);
+            if (replaceReports && loadedReportCount == 0 && !isCancelled()) {
+                // There are no reports in the root directory within the date range. Ask for a new directory location.
+                dataEntryForm.displayNoReportsFoundDialogue(preferredRootDirectory);
+            } else if (logChangedWhileLoading) {
+                startReportLoading(false, pipelineStatus);
+            } else if (loadedReportCount == 0) {
+                logger.fine(String.format(NO_NEW_REPORTS_MESSAGE, preferredRootDirectory));
+            }
         }
-        startProgressLogFileMonitor();
     }
 }
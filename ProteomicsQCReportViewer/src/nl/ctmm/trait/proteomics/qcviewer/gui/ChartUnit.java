@@ -11,17 +11,31 @@ import nl.ctmm.trait.proteomics.qcviewer.utils.Constants;
 
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.axis.NumberAxis;
-import org.jfree.chart.labels.StandardXYToolTipGenerator;
+import org.jfree.chart.axis.ValueAxis;
+import org.jfree.chart.event.AxisChangeEvent;
+import org.jfree.chart.event.AxisChangeListener;
 import org.jfree.chart.plot.XYPlot;
 import org.jfree.chart.renderer.xy.XYAreaRenderer;
 import org.jfree.chart.renderer.xy.XYBarRenderer;
 import org.jfree.chart.title.TextTitle;
-import org.jfree.data.xy.XYSeries;
+import org.jfree.data.Range;
+import org.jfree.data.xy.XYDataset;
 import org.jfree.data.xy.XYSeriesCollection;
 
 /**
  * The object of this class represents a tic chart (including maximum intensity) of a single msrun.
  *
+ * The TIC data of a chart can be loaded lazily: a chart unit can be created with only the maximum intensity, after
+ * which the TIC data is set (and removed again) with {@link #setTicDataset}. The zoom bounds of the chart are kept when
+ * the TIC data is changed.
+ *
+ * The chart does not draw all the TIC points: it draws a level of detail version of the TIC data with at most two
+ * points per bucket (see {@link TicDataset#createLevelOfDetail}), which is created again when the domain axis changes.
+ *
+ * The rows of the report list draw the TIC data with a lightweight {@link TicSparkline}, so the JFreeChart object is
+ * only created when it is first needed (for the TIC graph pane or a PDF export). The zoom bounds are kept in the chart
+ * unit itself, so all charts can be zoomed without creating their JFreeChart objects.
+ *
  * @author <a href="mailto:pravin.pawar@nbic.nl">Pravin Pawar</a>
  * @author <a href="mailto:freek.de.bruijn@nbic.nl">Freek de Bruijn</a>
  */
@@ -51,7 +65,8 @@ public class ChartUnit {
     private static final String CHART_UNIT_TITLE = "Index = %s    %s    MaxIntensity = %s";
 
     /**
-     * Number format for displaying the max intensities.
+     * Number format for displaying the max intensities. Since chart units can be created by multiple report loading
+     * threads and <code>DecimalFormat</code> is not thread-safe, access to this format is synchronized.
      */
     private static final NumberFormat MAX_INTENSITY_FORMAT = new DecimalFormat("0.0000E0");
 
@@ -61,7 +76,34 @@ public class ChartUnit {
     private static final NumberFormat RANGE_AXIS_FORMAT = new DecimalFormat("0E00");
 
     /**
-     * The JFreeChart object used to draw this tic chart.
+     * The factor used for zooming in along the domain axis (the same default as <code>ChartPanel</code> uses).
+     */
+    private static final double ZOOM_IN_FACTOR = 0.5;
+
+    /**
+     * The factor used for zooming out along the domain axis (the same default as <code>ChartPanel</code> uses).
+     */
+    private static final double ZOOM_OUT_FACTOR = 2;
+
+    /**
+     * The minimum number of buckets used for the level of detail of the TIC data: half the width in pixels of the
+     * widest TIC chart. The level of detail uses up to twice as many buckets with up to two points each, so at most
+     * about two points per horizontal pixel are drawn.
+     */
+    private static final int LEVEL_OF_DETAIL_BUCKET_COUNT = 800;
+
+    /**
+     * The title of the tic chart.
+     */
+    private final String title;
+
+    /**
+     * The color used to draw the TIC data.
+     */
+    private final Color graphColor;
+
+    /**
+     * The JFreeChart object used to draw this tic chart or <code>null</code> if it has not been created yet.
      */
     private JFreeChart ticChart;
 
@@ -75,48 +117,151 @@ public class ChartUnit {
      * The maximum intensity in String format. 
      */
     private String maxIntensityString; 
-    
+
+    /**
+     * The TIC data shown in the chart or <code>null</code> if the TIC data is not available or not loaded.
+     */
+    private TicDataset ticDataset;
+
+    /**
+     * The lower bound of the domain for which the level of detail of the TIC data was created.
+     */
+    private double levelOfDetailLower = Double.NaN;
+
+    /**
+     * The upper bound of the domain for which the level of detail of the TIC data was created.
+     */
+    private double levelOfDetailUpper = Double.NaN;
+
+    /**
+     * The lower bound of the domain axis or <code>Double.NaN</code> if the domain axis has an automatic range.
+     */
+    private double domainLower = Double.NaN;
+
     /**
-     * Create a chart unit with the specified msrun name, report number and data series.
+     * The upper bound of the domain axis or <code>Double.NaN</code> if the domain axis has an automatic range.
+     */
+    private double domainUpper = Double.NaN;
+
+    /**
+     * Create a chart unit with the specified msrun name, report number and TIC data.
      *
      * @param msrunName the name of the msrun.
      * @param reportIndex the index of msrun report.
-     * @param series the data series.
+     * @param ticDataset the TIC data or <code>null</code> if there is no TIC data.
      */
-    public ChartUnit(final String msrunName, final int reportIndex, final XYSeries series) {
+    public ChartUnit(final String msrunName, final int reportIndex, final TicDataset ticDataset) {
+        this(msrunName, reportIndex, ticDataset, (ticDataset != null) ? ticDataset.getMaxY() : Double.NaN);
+    }
+
+    /**
+     * Create a chart unit with the specified msrun name, report number and maximum intensity, without loading the TIC
+     * data yet.
+     *
+     * @param msrunName the name of the msrun.
+     * @param reportIndex the index of msrun report.
+     * @param maxIntensity the maximum intensity of the TIC data.
+     */
+    public ChartUnit(final String msrunName, final int reportIndex, final double maxIntensity) {
+        this(msrunName, reportIndex, null, maxIntensity);
+    }
+
+    /**
+     * Create a chart unit with the specified msrun name, report number, TIC data and maximum intensity.
+     *
+     * @param msrunName the name of the msrun.
+     * @param reportIndex the index of msrun report.
+     * @param ticDataset the TIC data or <code>null</code> if there is no TIC data (yet).
+     * @param maxIntensity the maximum intensity or <code>Double.NaN</code> if there is no TIC data.
+     */
+    private ChartUnit(final String msrunName, final int reportIndex, final TicDataset ticDataset,
+                      final double maxIntensity) {
+        this.ticDataset = ticDataset;
         maxIntensityString = Constants.NOT_AVAILABLE_STRING;
-        if (series != null) {
-            maxIntensity = series.getMaxY();
-            maxIntensityString = MAX_INTENSITY_FORMAT.format(maxIntensity);
+        if (!Double.isNaN(maxIntensity)) {
+            this.maxIntensity = maxIntensity;
+            synchronized (MAX_INTENSITY_FORMAT) {
+                maxIntensityString = MAX_INTENSITY_FORMAT.format(maxIntensity);
+            }
         }
         logger.fine(String.format(CHART_UNIT_MESSAGE, reportIndex, msrunName, maxIntensity));
-        final XYAreaRenderer renderer = createAreaRenderer(reportIndex);
-        final XYSeriesCollection xyDataset = new XYSeriesCollection(series);
+        title = String.format(CHART_UNIT_TITLE, reportIndex, msrunName, maxIntensityString);
+        graphColor = GRAPH_COLORS.get(reportIndex % GRAPH_COLORS.size());
+    }
+
+    /**
+     * Create the JFreeChart object for this tic chart, with the current TIC data and zoom bounds.
+     *
+     * @return the tic chart.
+     */
+    private JFreeChart createTicChart() {
+        final JFreeChart chart = createChart((ticDataset != null) ? ticDataset : new XYSeriesCollection());
+        final ValueAxis domainAxis = ((XYPlot) chart.getPlot()).getDomainAxis();
+        domainAxis.addChangeListener(new AxisChangeListener() {
+            @Override
+            public void axisChanged(final AxisChangeEvent axisChangeEvent) {
+                // The domain axis can also be zoomed by the user in a chart panel.
+                domainLower = domainAxis.isAutoRange() ? Double.NaN : domainAxis.getLowerBound();
+                domainUpper = domainAxis.isAutoRange() ? Double.NaN : domainAxis.getUpperBound();
+                updateLevelOfDetail();
+            }
+        });
+        return chart;
+    }
+
+    /**
+     * Create a chart with the current zoom bounds that is not kept by this chart unit, for example to export it to a
+     * PDF file. Changes to the new chart do not affect this chart unit.
+     *
+     * @param exportTicDataset the TIC data to show or <code>null</code> to show the TIC data of this chart unit.
+     * @return the new chart.
+     */
+    public JFreeChart createDetachedChart(final TicDataset exportTicDataset) {
+        final TicDataset chartTicDataset = (exportTicDataset != null) ? exportTicDataset : ticDataset;
+        XYDataset xyDataset = (chartTicDataset != null) ? chartTicDataset : new XYSeriesCollection();
+        if (chartTicDataset != null && chartTicDataset.getItemCount(0) > 0) {
+            final Range domain = !Double.isNaN(domainLower) ? new Range(domainLower, domainUpper)
+                                                             : chartTicDataset.getDomainBounds(false);
+            xyDataset = chartTicDataset.createLevelOfDetail(domain.getLowerBound(), domain.getUpperBound(),
+                                                            LEVEL_OF_DETAIL_BUCKET_COUNT);
+        }
+        return createChart(xyDataset);
+    }
+
+    /**
+     * Create a JFreeChart object with the title, colors and zoom bounds of this tic chart.
+     *
+     * @param xyDataset the data to show in the chart.
+     * @return the new chart.
+     */
+    private JFreeChart createChart(final XYDataset xyDataset) {
+        final XYAreaRenderer renderer = createAreaRenderer();
         //Prepare chart using plot - this is the best option to control domain and range axes
         final NumberAxis domainAxis = new NumberAxis(null);
         final NumberAxis rangeAxis = new NumberAxis(null);
         final XYPlot plot = new XYPlot(xyDataset, domainAxis, rangeAxis, renderer);
         rangeAxis.setNumberFormatOverride(RANGE_AXIS_FORMAT);
-        final String title = String.format(CHART_UNIT_TITLE, reportIndex, 
-                msrunName, maxIntensityString);
-        ticChart = new JFreeChart(title, Constants.CHART_TITLE_FONT, plot, false);
+        if (!Double.isNaN(domainLower)) {
+            domainAxis.setRange(domainLower, domainUpper);
+        }
+        final JFreeChart chart = new JFreeChart(title, Constants.CHART_TITLE_FONT, plot, false);
         // performance
-        ticChart.setAntiAlias(false);
+        chart.setAntiAlias(false);
         // Adding color to the title
-        final TextTitle chartTitle = ticChart.getTitle(); 
+        final TextTitle chartTitle = chart.getTitle(); 
         chartTitle.setPaint(Color.red);
-        ticChart.setTitle(chartTitle);
+        chart.setTitle(chartTitle);
+        return chart;
     }
 
     /**
      * Create a <code>XYAreaRenderer</code>.
      * XYArea renderer does not display white spaces between data items. 
-     * @param reportIndex the report index, which is used for picking a color.
      * @return the <code>XYAreaRenderer</code>.
      */
-    private XYAreaRenderer createAreaRenderer(final int reportIndex) {
+    private XYAreaRenderer createAreaRenderer() {
         final XYAreaRenderer renderer = new XYAreaRenderer();
-        final Color currentColor = GRAPH_COLORS.get(reportIndex % GRAPH_COLORS.size());
+        final Color currentColor = graphColor;
         renderer.setSeriesPaint(0, currentColor);
         renderer.setSeriesOutlinePaint(0, currentColor);
         renderer.setBaseFillPaint(currentColor);
@@ -124,21 +269,102 @@ public class ChartUnit {
         renderer.setSeriesStroke(0, null);
         renderer.setBasePaint(Color.WHITE);
         XYBarRenderer.setDefaultShadowsVisible(false);
-        //Add support for toolTip
-        final StandardXYToolTipGenerator toolTipGenerator = new StandardXYToolTipGenerator();
-        renderer.setBaseToolTipGenerator(toolTipGenerator);
+        // No tool tip generator: the TIC chart panel shows the point nearest to the mouse instead (see TicChartPanel).
         return renderer;
     }
 
     /**
-     * Get the corresponding tic chart.
+     * Get the corresponding tic chart, which is created when it is first needed. Since the chart is not thread-safe,
+     * this method should be called on the event dispatch thread.
      *
      * @return the tic chart.
      */
     public JFreeChart getTicChart() {
+        if (ticChart == null) {
+            ticChart = createTicChart();
+            updateLevelOfDetail();
+        }
         return ticChart;
     }
 
+    /**
+     * Get the title of the tic chart, with the report index, the msrun name and the maximum intensity.
+     *
+     * @return the title of the tic chart.
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Get the color used to draw the TIC data, which alternates between the reports.
+     *
+     * @return the color used to draw the TIC data.
+     */
+    public Color getGraphColor() {
+        return graphColor;
+    }
+
+    /**
+     * Get the visible part of the domain (the retention times): the zoom bounds or, when the domain axis has an
+     * automatic range, the bounds of the TIC data.
+     *
+     * @return the visible domain or <code>null</code> if the domain axis has an automatic range and the TIC data is
+     *         not loaded.
+     */
+    public Range getDomainRange() {
+        final Range domainRange;
+        if (!Double.isNaN(domainLower)) {
+            domainRange = new Range(domainLower, domainUpper);
+        } else {
+            domainRange = (ticDataset != null) ? ticDataset.getDomainBounds(false) : null;
+        }
+        return domainRange;
+    }
+
+    /**
+     * Get the zoom bounds of the domain, which do not depend on whether the TIC data is loaded.
+     *
+     * @return the zoom bounds or <code>null</code> if the domain axis has an automatic range.
+     */
+    public Range getZoomRange() {
+        return !Double.isNaN(domainLower) ? new Range(domainLower, domainUpper) : null;
+    }
+
+    /**
+     * Get the TIC data shown in the chart.
+     *
+     * @return the TIC data or <code>null</code> if the TIC data is not available or not loaded.
+     */
+    public TicDataset getTicDataset() {
+        return ticDataset;
+    }
+
+    /**
+     * Check whether the TIC data is shown in the chart.
+     *
+     * @return whether the TIC data is loaded.
+     */
+    public boolean isTicDataLoaded() {
+        return ticDataset != null;
+    }
+
+    /**
+     * Set (or remove) the TIC data shown in the chart. The maximum intensity and the zoom bounds are not changed. Since
+     * the chart is changed, this method should be called on the event dispatch thread.
+     *
+     * @param ticDataset the TIC data or <code>null</code> to remove the TIC data from the chart.
+     */
+    public void setTicDataset(final TicDataset ticDataset) {
+        this.ticDataset = ticDataset;
+        if (ticChart != null) {
+            levelOfDetailLower = Double.NaN;
+            levelOfDetailUpper = Double.NaN;
+            getPlot().setDataset((ticDataset != null) ? ticDataset : new XYSeriesCollection());
+            updateLevelOfDetail();
+        }
+    }
+
     /**
      * Get the maximum intensity of the tic graph.
      *
@@ -156,4 +382,91 @@ public class ChartUnit {
     public String getMaxTicIntensityString() {
         return maxIntensityString;
     }
+
+    /**
+     * Zoom in along the domain axis (x axis) around the center of the current range.
+     *
+     * The zoom methods change the zoom bounds (and the axes of the chart, if it has been created) directly, so the
+     * chart can be zoomed without a chart panel. Chart panels that show this chart are repainted automatically.
+     */
+    public void zoomInDomain() {
+        resizeDomain(ZOOM_IN_FACTOR);
+    }
+
+    /**
+     * Zoom out along the domain axis (x axis) around the center of the current range.
+     */
+    public void zoomOutDomain() {
+        resizeDomain(ZOOM_OUT_FACTOR);
+    }
+
+    /**
+     * Restore the automatic bounds of the domain and range axes.
+     */
+    public void restoreAutoBounds() {
+        domainLower = Double.NaN;
+        domainUpper = Double.NaN;
+        if (ticChart != null) {
+            getPlot().getDomainAxis().setAutoRange(true);
+            getPlot().getRangeAxis().setAutoRange(true);
+        }
+    }
+
+    /**
+     * Set the range of the domain axis (x axis).
+     *
+     * @param lower the lower bound of the domain axis.
+     * @param upper the upper bound of the domain axis.
+     */
+    public void setDomainRange(final double lower, final double upper) {
+        domainLower = lower;
+        domainUpper = upper;
+        if (ticChart != null) {
+            getPlot().getDomainAxis().setRange(lower, upper);
+        }
+    }
+
+    /**
+     * Resize the range of the domain axis around the center of the current range. Without a chart, the visible domain
+     * is resized; if that is not known yet (automatic range without TIC data), the zoom bounds are not changed.
+     *
+     * @param factor the resize factor.
+     */
+    private void resizeDomain(final double factor) {
+        if (ticChart != null) {
+            getPlot().getDomainAxis().resizeRange(factor);
+        } else {
+            final Range domainRange = getDomainRange();
+            if (domainRange != null) {
+                final double halfLength = domainRange.getLength() * factor / 2;
+                setDomainRange(domainRange.getCentralValue() - halfLength,
+                               domainRange.getCentralValue() + halfLength);
+            }
+        }
+    }
+
+    /**
+     * Create the level of detail of the TIC data for the current domain, unless it has not changed. When the domain
+     * axis has an automatic range, the level of detail is created for all the TIC data.
+     */
+    private void updateLevelOfDetail() {
+        if (ticChart != null && ticDataset != null && ticDataset.getItemCount(0) > 0) {
+            final Range domain = getDomainRange();
+            if (domain.getLowerBound() != levelOfDetailLower || domain.getUpperBound() != levelOfDetailUpper) {
+                levelOfDetailLower = domain.getLowerBound();
+                levelOfDetailUpper = domain.getUpperBound();
+                getPlot().setDataset(ticDataset.createLevelOfDetail(levelOfDetailLower, levelOfDetailUpper,
+                                                                    LEVEL_OF_DETAIL_BUCKET_COUNT));
+            }
+        }
+    }
+
+    /**
+     * Get the plot of the tic chart.
+     *
+     * @return the plot of the tic chart.
+     */
+    private XYPlot getPlot() {
+        return (XYPlot) ticChart.getPlot();
+    }
 }
@@ -0,0 +1,266 @@
+package nl.ctmm.trait.proteomics.qcviewer.gui;
+
+import java.awt.Container;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.JViewport;
+import javax.swing.Scrollable;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+/**
+ * This class represents the scrollable list with a row for each report.
+ *
+ * The list is virtualized: only the rows in or near the visible part of the scroll pane have a component. Rows that
+ * scroll out of view are kept as spare rows and are filled with another report when that report scrolls into view.
+ * The number of components (and the time needed for the layout) therefore depends on the height of the viewport and
+ * not on the number of reports.
+ */
+public class ReportListPane extends JPanel implements Scrollable {
+    /**
+     * The version number for (de)serialization of this class (UID: universal identifier).
+     */
+    private static final long serialVersionUID = 1;
+
+    /**
+     * The amount of pixels to scroll when the user scrolls a single unit.
+     */
+    private static final int SCROLLABLE_UNIT_INCREMENT = 50;
+
+    /**
+     * The number of rows above and below the visible rows that also get a component, to make scrolling smoother.
+     */
+    private static final int EXTRA_ROW_COUNT = 2;
+
+    /**
+     * The width of the rows.
+     */
+    private final int rowWidth;
+
+    /**
+     * The height of the rows.
+     */
+    private final int rowHeight;
+
+    /**
+     * The model that creates the row components and fills them with report data.
+     */
+    private final RowModel rowModel;
+
+    /**
+     * Mapping from row indices to the components of the rows that are currently shown.
+     */
+    private final Map<Integer, JComponent> shownRows = new HashMap<>();
+
+    /**
+     * The row components that are currently not used.
+     */
+    private final Deque<JComponent> spareRows = new ArrayDeque<>();
+
+    /**
+     * The listener that updates the shown rows when the viewport is scrolled.
+     */
+    private final ChangeListener viewportListener = new ChangeListener() {
+        @Override
+        public void stateChanged(final ChangeEvent changeEvent) {
+            updateShownRows();
+        }
+    };
+
+    /**
+     * The number of rows in the list.
+     */
+    private int rowCount;
+
+    /**
+     * The model that creates the row components and fills them with the data of a specific row.
+     */
+    public interface RowModel {
+        /**
+         * Create a new (empty) row component.
+         *
+         * @return the new row component.
+         */
+        JComponent createRow();
+
+        /**
+         * Fill a (new or recycled) row component with the data of a specific row.
+         *
+         * @param row the row component.
+         * @param rowIndex the index of the row.
+         */
+        void showRow(JComponent row, int rowIndex);
+
+        /**
+         * Clear a row component that is hidden and kept as a spare row, so it no longer holds on to the data of its
+         * last row.
+         *
+         * @param row the row component.
+         */
+        void hideRow(JComponent row);
+    }
+
+    /**
+     * Create a report list pane.
+     *
+     * @param rowWidth the width of the rows.
+     * @param rowHeight the height of the rows.
+     * @param rowModel the model that creates and fills the row components.
+     */
+    public ReportListPane(final int rowWidth, final int rowHeight, final RowModel rowModel) {
+        super(null);
+        this.rowWidth = rowWidth;
+        this.rowHeight = rowHeight;
+        this.rowModel = rowModel;
+        setPreferredSize(new Dimension(rowWidth, 0));
+    }
+
+    /**
+     * Set the number of rows in the list and refresh the data of all the shown rows.
+     *
+     * @param rowCount the number of rows.
+     */
+    public void setRowCount(final int rowCount) {
+        this.rowCount = rowCount;
+        setPreferredSize(new Dimension(rowWidth, rowCount * rowHeight));
+        refreshRows();
+        revalidate();
+    }
+
+    /**
+     * Refresh the data of all the shown rows, for example after the rows were sorted or the selected metrics changed.
+     */
+    public void refreshRows() {
+        final Iterator<Map.Entry<Integer, JComponent>> rowIterator = shownRows.entrySet().iterator();
+        while (rowIterator.hasNext()) {
+            final Map.Entry<Integer, JComponent> rowEntry = rowIterator.next();
+            if (rowEntry.getKey() < rowCount) {
+                rowModel.showRow(rowEntry.getValue(), rowEntry.getKey());
+            } else {
+                hideRow(rowEntry.getValue());
+                rowIterator.remove();
+            }
+        }
+        updateShownRows();
+        repaint();
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        final Container parent = getParent();
+        if (parent instanceof JViewport) {
+            ((JViewport) parent).addChangeListener(viewportListener);
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        final Container parent = getParent();
+        if (parent instanceof JViewport) {
+            ((JViewport) parent).removeChangeListener(viewportListener);
+        }
+        super.removeNotify();
+    }
+
+    @Override
+    public void doLayout() {
+        for (final Map.Entry<Integer, JComponent> rowEntry : shownRows.entrySet()) {
+            rowEntry.getValue().setBounds(getRowBounds(rowEntry.getKey()));
+        }
+        updateShownRows();
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(final Rectangle visibleRect, final int orientation, final int direction) {
+        return SCROLLABLE_UNIT_INCREMENT;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(final Rectangle visibleRect, final int orientation, final int direction) {
+        return Math.max(rowHeight, visibleRect.height - rowHeight);
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+
+    /**
+     * Make sure exactly the rows in or near the visible part of the list have a component: recycle the components of
+     * rows that are no longer visible and fill them with the rows that became visible.
+     */
+    private void updateShownRows() {
+        final Rectangle visibleRect = getVisibleRect();
+        final int firstRow = Math.max(0, visibleRect.y / rowHeight - EXTRA_ROW_COUNT);
+        final int lastRow = Math.min(rowCount - 1, (visibleRect.y + visibleRect.height) / rowHeight + EXTRA_ROW_COUNT);
+        final Iterator<Map.Entry<Integer, JComponent>> rowIterator = shownRows.entrySet().iterator();
+        while (rowIterator.hasNext()) {
+            final Map.Entry<Integer, JComponent> rowEntry = rowIterator.next();
+            if (rowEntry.getKey() < firstRow || rowEntry.getKey() > lastRow) {
+                hideRow(rowEntry.getValue());
+                rowIterator.remove();
+            }
+        }
+        for (int rowIndex = firstRow; rowIndex <= lastRow; rowIndex++) {
+            if (!shownRows.containsKey(rowIndex)) {
+                final JComponent row = spareRows.isEmpty() ? addNewRow() : spareRows.pop();
+                rowModel.showRow(row, rowIndex);
+                row.setBounds(getRowBounds(rowIndex));
+                row.setVisible(true);
+                row.validate();
+                shownRows.put(rowIndex, row);
+            }
+        }
+    }
+
+    /**
+     * Create a new row component and add it to this pane.
+     *
+     * @return the new row component.
+     */
+    private JComponent addNewRow() {
+        final JComponent row = rowModel.createRow();
+        add(row);
+        return row;
+    }
+
+    /**
+     * Hide a row component and keep it as a spare row.
+     *
+     * @param row the row component.
+     */
+    private void hideRow(final JComponent row) {
+        rowModel.hideRow(row);
+        row.setVisible(false);
+        spareRows.push(row);
+    }
+
+    /**
+     * Get the bounds of a row.
+     *
+     * @param rowIndex the index of the row.
+     * @return the bounds of the row.
+     */
+    private Rectangle getRowBounds(final int rowIndex) {
+        return new Rectangle(0, rowIndex * rowHeight, Math.max(rowWidth, getWidth()), rowHeight);
+    }
+}
@@ -0,0 +1,238 @@
+package nl.ctmm.trait.proteomics.qcviewer.gui;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.GridLayout;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.BorderFactory;
+import javax.swing.Box;
+import javax.swing.BoxLayout;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+
+import nl.ctmm.trait.proteomics.qcviewer.input.ReportUnit;
+import nl.ctmm.trait.proteomics.qcviewer.utils.Constants;
+import nl.ctmm.trait.proteomics.qcviewer.utils.Utilities;
+
+/**
+ * The panel for a row in the report list, showing the report number, selection check box, details button, metrics
+ * and the TIC chart of a report. The report list recycles these panels: a panel can be filled with another report by
+ * calling {@link #showReport}.
+ */
+public class ReportRowPanel extends JPanel {
+    /**
+     * Width of the left panel for each report in the list, with the report number, the metrics details button and the
+     * selection check box.
+     */
+    static final int CHECK_PANEL_WIDTH = 90;
+
+    /**
+     * Width of the panel showing the selected metrics for each report in the list.
+     */
+    static final int METRICS_PANEL_WIDTH = 350;
+
+    /**
+     * Prefix used for the action command of the metrics details buttons.
+     */
+    static final String DETAILS_ACTION_PREFIX = "Details-";
+
+    /**
+     * The version number for (de)serialization of this class (UID: universal identifier).
+     */
+    private static final long serialVersionUID = 1;
+
+    /**
+     * Alternating colors used for the metrics.
+     */
+    private static final List<Color> LABEL_COLORS = Arrays.asList(Color.BLUE, Color.DARK_GRAY, Color.BLACK);
+
+    /**
+     * Length of metrics name in the metricsPanel.
+     */
+    private static final int METRIC_STRING_LENGTH = 50;
+
+    /**
+     * Width of the details button.
+     */
+    private static final int DETAILS_BUTTON_WIDTH = 85;
+
+    /**
+     * Height of the details button.
+     */
+    private static final int DETAILS_BUTTON_HEIGHT = 25;
+
+    /**
+     * Width of the report error area.
+     */
+    private static final int REPORT_ERROR_AREA_WIDTH = 80;
+
+    /**
+     * Height of the report error area.
+     */
+    private static final int REPORT_ERROR_AREA_HEIGHT = 40;
+
+    /**
+     * Label of the Details button.
+     */
+    private static final String DETAILS_BUTTON_LABEL = "Details";
+
+    /**
+     * Label of the check box for selecting a report for comparison.
+     */
+    private static final String COMPARE_CHECK_BOX_LABEL = "Compare";
+
+    /**
+     * The label with the report number.
+     */
+    private final JLabel reportNumberLabel = new JLabel();
+
+    /**
+     * The check box for selecting the report for comparison.
+     */
+    private final JCheckBox selectionCheckBox = new JCheckBox(COMPARE_CHECK_BOX_LABEL);
+
+    /**
+     * The button that shows the details of the report.
+     */
+    private final JButton detailsButton = new JButton(DETAILS_BUTTON_LABEL);
+
+    /**
+     * The label with the report errors.
+     */
+    private final JLabel reportErrorLabel = new JLabel();
+
+    /**
+     * The panel with a label for each of the selected metrics.
+     */
+    private final JPanel metricsPanel = new JPanel();
+
+    /**
+     * The lightweight component that draws the TIC chart.
+     */
+    private final TicSparkline ticSparkline;
+
+    /**
+     * Create an (empty) report row panel.
+     *
+     * @param viewerFrame the viewer frame that handles the check box, button and mouse events.
+     * @param ticDataCache the cache with the TIC data of the charts.
+     * @param ticThumbnailCache the cache with the rendered TIC chart images.
+     * @param chartWidth the width of the TIC chart.
+     * @param chartHeight the height of the TIC chart.
+     * @param panelHeight the height of the report id and metrics panels.
+     */
+    public ReportRowPanel(final ViewerFrame viewerFrame, final TicDataCache ticDataCache,
+                          final TicThumbnailCache ticThumbnailCache, final int chartWidth, final int chartHeight,
+                          final int panelHeight) {
+        ticSparkline = new TicSparkline(ticDataCache, ticThumbnailCache, chartWidth, chartHeight);
+        ticSparkline.addMouseListener(viewerFrame);
+        detailsButton.addActionListener(viewerFrame);
+        selectionCheckBox.addItemListener(viewerFrame);
+        metricsPanel.setBackground(Color.WHITE);
+        metricsPanel.setPreferredSize(new Dimension(METRICS_PANEL_WIDTH, panelHeight));
+        //The row panel uses FlowLayout
+        setLayout(new FlowLayout());
+        add(createReportIdPanel(panelHeight));
+        add(metricsPanel);
+        add(ticSparkline);
+        setBorder(BorderFactory.createRaisedBevelBorder());
+        addMouseListener(viewerFrame);
+    }
+
+    /**
+     * Fill this panel with the data of a report.
+     *
+     * @param reportUnit the report unit to show.
+     * @param selected whether the report is selected for comparison.
+     * @param selectedMetrics mapping from the keys of the selected metrics to their names.
+     */
+    public void showReport(final ReportUnit reportUnit, final boolean selected,
+                           final Map<String, String> selectedMetrics) {
+        final String reportIndex = Integer.toString(reportUnit.getReportIndex());
+        setName(reportIndex);
+        reportNumberLabel.setText(Integer.toString(reportUnit.getReportNum()));
+        detailsButton.setActionCommand(DETAILS_ACTION_PREFIX + reportIndex);
+        // The name is set before the selection, so the item event (if any) updates the selection of this report.
+        selectionCheckBox.setName(reportIndex);
+        selectionCheckBox.setSelected(selected);
+        reportErrorLabel.setText(reportUnit.getReportErrorString());
+        showMetrics(reportUnit, selectedMetrics);
+        ticSparkline.setReportUnit(reportUnit);
+    }
+
+    /**
+     * Clear this panel when it is hidden, so the TIC data cache knows its report is no longer shown.
+     */
+    public void hideReport() {
+        ticSparkline.setReportUnit(null);
+    }
+
+    /**
+     * Create a panel showing the report number, the selection check box and the metrics details button.
+     *
+     * @param panelHeight the height of the panel.
+     * @return the panel with the report number, the selection check box and the metrics details button.
+     */
+    private JPanel createReportIdPanel(final int panelHeight) {
+        detailsButton.setPreferredSize(new Dimension(DETAILS_BUTTON_WIDTH, DETAILS_BUTTON_HEIGHT));
+        selectionCheckBox.setBackground(Color.WHITE);
+        reportErrorLabel.setFont(Constants.REPORT_ERROR_LABEL_FONT);
+        reportErrorLabel.setForeground(Color.RED);
+        reportErrorLabel.setMaximumSize(new Dimension(REPORT_ERROR_AREA_WIDTH, REPORT_ERROR_AREA_HEIGHT));
+        //reportIDPanel uses BoxLayout
+        final JPanel reportIdPanel = new JPanel();
+        reportIdPanel.setLayout(new BoxLayout(reportIdPanel, BoxLayout.PAGE_AXIS));
+        reportIdPanel.setBackground(Color.WHITE);
+        reportIdPanel.add(Box.createRigidArea(Constants.DIMENSION_0X10));
+        reportIdPanel.add(reportNumberLabel, Component.CENTER_ALIGNMENT);
+        reportIdPanel.add(Box.createRigidArea(Constants.DIMENSION_0X10));
+        reportIdPanel.add(selectionCheckBox, Component.CENTER_ALIGNMENT);
+        reportIdPanel.add(Box.createRigidArea(Constants.DIMENSION_0X10));
+        reportIdPanel.add(detailsButton, Component.CENTER_ALIGNMENT);
+        reportIdPanel.add(Box.createRigidArea(Constants.DIMENSION_0X10));
+        reportIdPanel.add(reportErrorLabel, Component.CENTER_ALIGNMENT);
+        reportIdPanel.add(Box.createRigidArea(Constants.DIMENSION_0X10));
+        reportIdPanel.setPreferredSize(new Dimension(CHECK_PANEL_WIDTH, panelHeight));
+        Utilities.setFontContainer(reportIdPanel, Constants.DEFAULT_FONT);
+        reportNumberLabel.setFont(Constants.REPORT_NUMBER_FONT);
+        return reportIdPanel;
+    }
+
+    /**
+     * Show the selected metrics of a report in the metrics panel. The labels are only recreated when the number of
+     * selected metrics has changed.
+     *
+     * @param reportUnit the report unit to show.
+     * @param selectedMetrics mapping from the keys of the selected metrics to their names.
+     */
+    private void showMetrics(final ReportUnit reportUnit, final Map<String, String> selectedMetrics) {
+        if (metricsPanel.getComponentCount() != selectedMetrics.size()) {
+            metricsPanel.removeAll();
+            metricsPanel.setLayout(new GridLayout(selectedMetrics.size(), 1));
+            for (int metricIndex = 0; metricIndex < selectedMetrics.size(); metricIndex++) {
+                final JLabel label = new JLabel();
+                label.setFont(Constants.DEFAULT_FONT);
+                label.setForeground(LABEL_COLORS.get(metricIndex % LABEL_COLORS.size()));
+                metricsPanel.add(label);
+            }
+            metricsPanel.revalidate();
+        }
+        int metricIndex = 0;
+        for (final Map.Entry<String, String> metricEntry : selectedMetrics.entrySet()) {
+            final String metricValue = reportUnit.getMetricsValueFromKey(metricEntry.getKey());
+            String metricName = metricEntry.getValue();
+            if (metricName.length() > METRIC_STRING_LENGTH) {
+                metricName = metricName.substring(0, METRIC_STRING_LENGTH) + "...";
+            }
+            ((JLabel) metricsPanel.getComponent(metricIndex)).setText(metricName + ": " + metricValue);
+            metricIndex++;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package nl.ctmm.trait.proteomics.qcviewer.gui;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Stroke;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Rectangle2D;
+import java.text.DecimalFormat;
+
+import org.jfree.chart.ChartMouseEvent;
+import org.jfree.chart.ChartMouseListener;
+import org.jfree.chart.ChartPanel;
+import org.jfree.chart.labels.StandardCrosshairLabelGenerator;
+import org.jfree.chart.panel.CrosshairOverlay;
+import org.jfree.chart.plot.Crosshair;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.ui.RectangleAnchor;
+
+/**
+ * The chart panel for the detailed TIC chart of a single report, with a crosshair on the TIC point nearest to the
+ * mouse pointer.
+ *
+ * A standard chart panel lets JFreeChart create an entity with a tool tip text for every drawn data point on every
+ * repaint, which is slow for TIC charts with thousands of points. This panel turns off the entity collection and the
+ * tool tips. Instead, when the mouse moves, it finds the nearest TIC point with a binary search on the sorted
+ * retention times (see {@link TicDataset#findNearestIndex}) and shows the retention time and intensity of that point
+ * with a crosshair overlay. Since the overlay is drawn on top of the buffered chart image, moving the mouse does not
+ * draw the chart again.
+ */
+public class TicChartPanel extends ChartPanel implements ChartMouseListener {
+    /**
+     * The version number for (de)serialization of this class (UID: universal identifier).
+     */
+    private static final long serialVersionUID = 1;
+
+    /**
+     * The label template for the retention time of the nearest TIC point.
+     */
+    private static final String RETENTION_TIME_LABEL_TEMPLATE = "rt = {0} min";
+
+    /**
+     * The label template for the intensity of the nearest TIC point.
+     */
+    private static final String INTENSITY_LABEL_TEMPLATE = "intensity = {0}";
+
+    /**
+     * The number format of the retention time.
+     */
+    private static final String RETENTION_TIME_FORMAT = "0.00";
+
+    /**
+     * The number format of the intensity (the same format as the maximum intensity in the chart title).
+     */
+    private static final String INTENSITY_FORMAT = "0.0000E0";
+
+    /**
+     * The color of the crosshair lines.
+     */
+    private static final Color CROSSHAIR_COLOR = Color.RED;
+
+    /**
+     * The stroke of the crosshair lines.
+     */
+    private static final Stroke CROSSHAIR_STROKE = new BasicStroke(0.5f);
+
+    /**
+     * The chart unit with the TIC data.
+     */
+    private final transient ChartUnit chartUnit;
+
+    /**
+     * The vertical crosshair at the retention time of the nearest TIC point.
+     */
+    private final Crosshair retentionTimeCrosshair;
+
+    /**
+     * The horizontal crosshair at the intensity of the nearest TIC point.
+     */
+    private final Crosshair intensityCrosshair;
+
+    /**
+     * Create a TIC chart panel for a chart unit.
+     *
+     * @param chartUnit the chart unit with the TIC chart and the TIC data.
+     */
+    public TicChartPanel(final ChartUnit chartUnit) {
+        super(chartUnit.getTicChart());
+        this.chartUnit = chartUnit;
+        // Without an entity collection, JFreeChart does not create an entity (and tool tip) for each data point.
+        getChartRenderingInfo().setEntityCollection(null);
+        setDisplayToolTips(false);
+        retentionTimeCrosshair = createCrosshair(RETENTION_TIME_LABEL_TEMPLATE, RETENTION_TIME_FORMAT,
+                                                 RectangleAnchor.TOP_RIGHT);
+        intensityCrosshair = createCrosshair(INTENSITY_LABEL_TEMPLATE, INTENSITY_FORMAT, RectangleAnchor.TOP_LEFT);
+        final CrosshairOverlay crosshairOverlay = new CrosshairOverlay();
+        crosshairOverlay.addDomainCrosshair(retentionTimeCrosshair);
+        crosshairOverlay.addRangeCrosshair(intensityCrosshair);
+        addOverlay(crosshairOverlay);
+        addChartMouseListener(this);
+    }
+
+    /**
+     * Create a crosshair that is hidden until the mouse moves over the TIC data.
+     *
+     * @param labelTemplate the template of the crosshair label.
+     * @param numberFormat the number format of the value in the label.
+     * @param labelAnchor the position of the label relative to the crosshair.
+     * @return the crosshair.
+     */
+    private Crosshair createCrosshair(final String labelTemplate, final String numberFormat,
+                                      final RectangleAnchor labelAnchor) {
+        final Crosshair crosshair = new Crosshair(Double.NaN, CROSSHAIR_COLOR, CROSSHAIR_STROKE);
+        crosshair.setLabelGenerator(new StandardCrosshairLabelGenerator(labelTemplate,
+                                                                        new DecimalFormat(numberFormat)));
+        crosshair.setLabelVisible(true);
+        crosshair.setLabelAnchor(labelAnchor);
+        crosshair.setVisible(false);
+        return crosshair;
+    }
+
+    /**
+     * Move the crosshairs to the TIC point nearest to the mouse pointer, or hide them if the mouse pointer is outside
+     * the plot area or the TIC data is not (yet) loaded.
+     *
+     * @param chartMouseEvent the mouse event.
+     */
+    @Override
+    public void chartMouseMoved(final ChartMouseEvent chartMouseEvent) {
+        showNearestPoint(chartMouseEvent.getTrigger());
+    }
+
+    @Override
+    public void chartMouseClicked(final ChartMouseEvent chartMouseEvent) {
+        // Clicking the chart does not change the crosshairs.
+    }
+
+    /**
+     * Show the TIC point nearest to the mouse pointer with the crosshairs.
+     *
+     * @param mouseEvent the mouse event with the position of the mouse pointer.
+     */
+    void showNearestPoint(final MouseEvent mouseEvent) {
+        final TicDataset ticDataset = chartUnit.getTicDataset();
+        final Rectangle2D dataArea = getScreenDataArea();
+        int nearestIndex = -1;
+        if (ticDataset != null && dataArea.contains(mouseEvent.getPoint())) {
+            final XYPlot plot = (XYPlot) getChart().getPlot();
+            final double retentionTime = plot.getDomainAxis().java2DToValue(mouseEvent.getX(), dataArea,
+                                                                            plot.getDomainAxisEdge());
+            nearestIndex = ticDataset.findNearestIndex(retentionTime);
+        }
+        if (nearestIndex >= 0) {
+            retentionTimeCrosshair.setValue(ticDataset.getXValue(0, nearestIndex));
+            intensityCrosshair.setValue(ticDataset.getYValue(0, nearestIndex));
+        }
+        retentionTimeCrosshair.setVisible(nearestIndex >= 0);
+        intensityCrosshair.setVisible(nearestIndex >= 0);
+    }
+
+    /**
+     * Get the crosshair at the retention time of the nearest TIC point.
+     *
+     * @return the retention time crosshair.
+     */
+    Crosshair getRetentionTimeCrosshair() {
+        return retentionTimeCrosshair;
+    }
+
+    /**
+     * Get the crosshair at the intensity of the nearest TIC point.
+     *
+     * @return the intensity crosshair.
+     */
+    Crosshair getIntensityCrosshair() {
+        return intensityCrosshair;
+    }
+}
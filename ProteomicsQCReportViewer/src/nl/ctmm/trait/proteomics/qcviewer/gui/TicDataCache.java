@@ -0,0 +1,281 @@
+package nl.ctmm.trait.proteomics.qcviewer.gui;
+
+import java.awt.Component;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.swing.SwingUtilities;
+
+import nl.ctmm.trait.proteomics.qcviewer.input.ReportUnit;
+import nl.ctmm.trait.proteomics.qcviewer.input.TicMatrixReader;
+
+/**
+ * The cache with the TIC data of the reports that are shown.
+ *
+ * The reports are loaded without their TIC data. When a chart is about to be shown (a row nears the visible part of
+ * the report list or a report is shown in the TIC graph pane), its TIC data is queued and read on a background thread,
+ * one report at a time, and set in the chart. The rows of the report list tell the cache which reports they show: a
+ * queued report whose row is hidden again (for example because the user scrolls quickly) is dropped from the queue
+ * before its file is read. The TIC data is kept in a least recently used cache with a memory limit: the TIC data of the
+ * reports that are not shown and were not used for the longest time is removed from their charts again. The TIC data
+ * of the shown reports is never removed, so the cache can temporarily use more memory if the shown reports need it.
+ * The methods of this class should be called on the event dispatch thread.
+ */
+public class TicDataCache {
+    /**
+     * The name of the thread that reads the TIC data.
+     */
+    private static final String LOAD_THREAD_NAME = "TIC data loader";
+
+    /**
+     * The initial capacity of the map with loaded reports.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The load factor of the map with loaded reports.
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * The reader for the TIC files.
+     */
+    private final TicMatrixReader ticMatrixReader;
+
+    /**
+     * The maximum number of bytes used by the TIC data.
+     */
+    private final long maximumBytes;
+
+    /**
+     * Mapping from the reports with loaded TIC data (in least recently used order) to the size of their TIC data.
+     */
+    private final Map<ReportUnit, Long> loadedReports = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+
+    /**
+     * The reports that are shown in a row of the report list.
+     */
+    private final Set<ReportUnit> shownReports = new HashSet<>();
+
+    /**
+     * Mapping from the reports whose TIC data is waiting to be read (in request order) to the components that are
+     * repainted when the TIC data has been loaded.
+     */
+    private final Map<ReportUnit, Component> queuedReports = new LinkedHashMap<>();
+
+    /**
+     * The reports for which the TIC data could not be read, which are not tried again.
+     */
+    private final Set<ReportUnit> failedReports = new HashSet<>();
+
+    /**
+     * The executor that reads the TIC data on a background thread.
+     */
+    private final ExecutorService loadExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread loadThread = new Thread(runnable, LOAD_THREAD_NAME);
+            loadThread.setDaemon(true);
+            return loadThread;
+        }
+    });
+
+    /**
+     * The report whose TIC data is never removed, because it is shown in the TIC graph pane.
+     */
+    private ReportUnit pinnedReport;
+
+    /**
+     * The report for which the TIC data is being read or <code>null</code> if no TIC data is being read.
+     */
+    private ReportUnit loadingReport;
+
+    /**
+     * The version of the cache contents, which is incremented when the cache is cleared. TIC data that was read for an
+     * older version is ignored.
+     */
+    private int version;
+
+    /**
+     * The number of bytes currently used by the TIC data.
+     */
+    private long usedBytes;
+
+    /**
+     * Create a TIC data cache.
+     *
+     * @param ticMatrixReader the reader for the TIC files.
+     * @param maximumBytes the maximum number of bytes used by the TIC data.
+     */
+    public TicDataCache(final TicMatrixReader ticMatrixReader, final long maximumBytes) {
+        this.ticMatrixReader = ticMatrixReader;
+        this.maximumBytes = maximumBytes;
+    }
+
+    /**
+     * Make sure the TIC data of a report is available in its chart. If the TIC data is not loaded, it is queued to be
+     * read in the background and the requester is repainted when the TIC data has been set in the chart.
+     *
+     * @param reportUnit the report.
+     * @param requester the component that is repainted when the TIC data has been loaded.
+     * @return whether the chart of the report is complete: the TIC data is loaded or cannot be loaded.
+     */
+    public boolean request(final ReportUnit reportUnit, final Component requester) {
+        final boolean complete;
+        if (loadedReports.containsKey(reportUnit)) {
+            // Mark the report as recently used.
+            loadedReports.get(reportUnit);
+            complete = true;
+        } else if (reportUnit.getChartUnit().isTicDataLoaded() || !reportUnit.hasTicFiles()
+                   || failedReports.contains(reportUnit)) {
+            complete = true;
+        } else {
+            if (reportUnit != loadingReport) {
+                queuedReports.put(reportUnit, requester);
+                loadNextReport();
+            }
+            complete = false;
+        }
+        return complete;
+    }
+
+    /**
+     * Mark a report as shown or no longer shown in a row of the report list. The TIC data of a shown report is not
+     * removed; a report that is no longer shown is dropped from the queue (unless it is pinned).
+     *
+     * @param reportUnit the report.
+     * @param shown whether the report is shown.
+     */
+    public void setShown(final ReportUnit reportUnit, final boolean shown) {
+        if (shown) {
+            shownReports.add(reportUnit);
+        } else {
+            shownReports.remove(reportUnit);
+            if (reportUnit != pinnedReport) {
+                queuedReports.remove(reportUnit);
+            }
+        }
+    }
+
+    /**
+     * Keep the TIC data of a report in its chart until another report is pinned, because it is shown in the TIC
+     * graph pane.
+     *
+     * @param reportUnit the report to pin or <code>null</code> to unpin the current report.
+     */
+    public void setPinnedReport(final ReportUnit reportUnit) {
+        pinnedReport = reportUnit;
+    }
+
+    /**
+     * Remove the TIC data of all reports from their charts, for example when the reports are replaced.
+     */
+    public void clear() {
+        for (final ReportUnit reportUnit : loadedReports.keySet()) {
+            reportUnit.getChartUnit().setTicDataset(null);
+        }
+        loadedReports.clear();
+        shownReports.clear();
+        queuedReports.clear();
+        failedReports.clear();
+        pinnedReport = null;
+        loadingReport = null;
+        usedBytes = 0;
+        version++;
+    }
+
+    /**
+     * Get the number of reports with loaded TIC data.
+     *
+     * @return the number of reports with loaded TIC data.
+     */
+    public int size() {
+        return loadedReports.size();
+    }
+
+    /**
+     * Get the number of reports whose TIC data is waiting to be read.
+     *
+     * @return the number of queued reports.
+     */
+    public int getQueuedCount() {
+        return queuedReports.size();
+    }
+
+    /**
+     * Get the number of bytes currently used by the TIC data.
+     *
+     * @return the number of bytes used.
+     */
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Read the TIC data of the first queued report in the background, unless TIC data is already being read. When it
+     * has been read, the next queued report is loaded.
+     */
+    private void loadNextReport() {
+        if (loadingReport != null || queuedReports.isEmpty()) {
+            return;
+        }
+        final Map.Entry<ReportUnit, Component> queuedEntry = queuedReports.entrySet().iterator().next();
+        final ReportUnit reportUnit = queuedEntry.getKey();
+        final Component requester = queuedEntry.getValue();
+        queuedReports.remove(reportUnit);
+        loadingReport = reportUnit;
+        final int loadVersion = version;
+        loadExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final TicDataset ticDataset = reportUnit.readTicDataset(ticMatrixReader);
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (loadVersion == version) {
+                            loadingReport = null;
+                            if (ticDataset != null) {
+                                store(reportUnit, ticDataset);
+                            } else {
+                                failedReports.add(reportUnit);
+                            }
+                            requester.repaint();
+                            loadNextReport();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Set the TIC data in the chart of a report and remove the least recently used TIC data if the cache uses too much
+     * memory. The TIC data of the new report, of the shown reports and of the pinned report is always kept.
+     *
+     * @param reportUnit the report.
+     * @param ticDataset the TIC data of the report.
+     */
+    private void store(final ReportUnit reportUnit, final TicDataset ticDataset) {
+        reportUnit.getChartUnit().setTicDataset(ticDataset);
+        final long ticBytes = ticDataset.getByteCount();
+        loadedReports.put(reportUnit, ticBytes);
+        usedBytes += ticBytes;
+        final Iterator<Map.Entry<ReportUnit, Long>> reportIterator = loadedReports.entrySet().iterator();
+        while (usedBytes > maximumBytes && reportIterator.hasNext()) {
+            final Map.Entry<ReportUnit, Long> reportEntry = reportIterator.next();
+            final ReportUnit leastRecentReport = reportEntry.getKey();
+            if (leastRecentReport != reportUnit && leastRecentReport != pinnedReport
+                && !shownReports.contains(leastRecentReport)) {
+                leastRecentReport.getChartUnit().setTicDataset(null);
+                usedBytes -= reportEntry.getValue();
+                reportIterator.remove();
+            }
+        }
+    }
+}
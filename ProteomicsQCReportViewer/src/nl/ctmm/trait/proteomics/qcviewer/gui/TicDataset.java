@@ -0,0 +1,507 @@
+package nl.ctmm.trait.proteomics.qcviewer.gui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jfree.data.DomainInfo;
+import org.jfree.data.Range;
+import org.jfree.data.RangeInfo;
+import org.jfree.data.xy.AbstractXYDataset;
+
+/**
+ * The dataset with the TIC (total ion current) values of a single msrun. The retention times (in minutes) and the
+ * intensities are stored in two primitive float arrays instead of boxed data items, which keeps the memory use of
+ * the thousands of points per msrun low. The dataset contains a single series and cannot be changed.
+ *
+ * For drawing, a level of detail version of the dataset can be created with {@link #createLevelOfDetail}: the points in
+ * the visible domain are divided into buckets (about one per horizontal pixel) and only the points with the minimum and
+ * maximum intensity of each bucket are kept, so the peaks look the same while the drawing time depends on the number of
+ * pixels instead of the number of scans. To make this fast for any zoom window, the dataset precomputes a min/max
+ * pyramid: for blocks of 8, 16, 32, ... consecutive points, the indices of the points with the minimum and maximum
+ * intensity. A level of detail is then taken from the pyramid level with blocks that fit the requested buckets, which
+ * only touches a few values per bucket instead of all the points in the window.
+ */
+public class TicDataset extends AbstractXYDataset implements DomainInfo, RangeInfo {
+    /**
+     * The version number for (de)serialization of this class (UID: universal identifier).
+     */
+    private static final long serialVersionUID = 1;
+
+    /**
+     * The number of points per block in the finest level of the min/max pyramid. Each next level has blocks that are
+     * twice as large. Finer levels are not stored, since scanning a few points per bucket is fast as well.
+     */
+    private static final int PYRAMID_BASE_BLOCK_SIZE = 8;
+
+    /**
+     * The key of the single series in this dataset (the msrun name).
+     */
+    private final Comparable<?> seriesKey;
+
+    /**
+     * The x values: retention times in minutes, sorted in ascending order.
+     */
+    private final float[] xValues;
+
+    /**
+     * The y values: TIC intensities.
+     */
+    private final float[] yValues;
+
+    /**
+     * The range of the x values or <code>null</code> if the dataset is empty.
+     */
+    private final Range domainRange;
+
+    /**
+     * The range of the y values or <code>null</code> if the dataset is empty.
+     */
+    private final Range valueRange;
+
+    /**
+     * The min/max pyramid with a level per block size (<code>PYRAMID_BASE_BLOCK_SIZE &lt;&lt; level</code>). Each
+     * level contains two indices per block: the index of the point with the minimum y value and the index of the
+     * point with the maximum y value.
+     */
+    private final int[][] pyramid;
+
+    /**
+     * Create a TIC dataset. The arrays are used directly (not copied), so they should not be changed afterwards. If the
+     * x values are not in ascending order, the points are sorted by x value.
+     *
+     * @param seriesKey the key of the series (the msrun name).
+     * @param xValues the x values: retention times in minutes.
+     * @param yValues the y values: TIC intensities.
+     */
+    public TicDataset(final Comparable<?> seriesKey, final float[] xValues, final float[] yValues) {
+        if (xValues.length != yValues.length) {
+            throw new IllegalArgumentException("The x and y arrays should have the same length.");
+        }
+        this.seriesKey = seriesKey;
+        if (isSorted(xValues)) {
+            this.xValues = xValues;
+            this.yValues = yValues;
+        } else {
+            this.xValues = new float[xValues.length];
+            this.yValues = new float[yValues.length];
+            sortPoints(xValues, yValues);
+        }
+        domainRange = findRange(this.xValues);
+        valueRange = findRange(this.yValues);
+        pyramid = buildPyramid(this.yValues);
+    }
+
+    /**
+     * Create a TIC dataset with points that are already sorted and the bounds of another dataset. This is used for
+     * level of detail datasets, which are only drawn and therefore do not get a min/max pyramid.
+     *
+     * @param seriesKey the key of the series (the msrun name).
+     * @param xValues the x values, sorted in ascending order.
+     * @param yValues the y values.
+     * @param domainRange the range of the x values that is reported as the domain bounds.
+     * @param valueRange the range of the y values that is reported as the range bounds.
+     */
+    private TicDataset(final Comparable<?> seriesKey, final float[] xValues, final float[] yValues,
+                       final Range domainRange, final Range valueRange) {
+        this.seriesKey = seriesKey;
+        this.xValues = xValues;
+        this.yValues = yValues;
+        this.domainRange = domainRange;
+        this.valueRange = valueRange;
+        this.pyramid = new int[0][];
+    }
+
+    /**
+     * Check whether the values are in ascending order.
+     *
+     * @param values the values to check.
+     * @return whether the values are in ascending order.
+     */
+    private static boolean isSorted(final float[] values) {
+        for (int index = 1; index < values.length; index++) {
+            if (values[index] < values[index - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copy the points into the x and y value arrays of this dataset, sorted by x value. Points with the same x value
+     * keep their original order.
+     *
+     * @param unsortedXValues the unsorted x values.
+     * @param unsortedYValues the corresponding y values.
+     */
+    private void sortPoints(final float[] unsortedXValues, final float[] unsortedYValues) {
+        final long[] sortKeys = new long[unsortedXValues.length];
+        for (int index = 0; index < sortKeys.length; index++) {
+            // Float.compare ordering via the sortable bit pattern in the high half and the original index in the low.
+            final int bits = Float.floatToIntBits(unsortedXValues[index]);
+            final int sortableBits = bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+            sortKeys[index] = ((long) sortableBits << 32) | index;
+        }
+        Arrays.sort(sortKeys);
+        for (int index = 0; index < sortKeys.length; index++) {
+            final int originalIndex = (int) sortKeys[index];
+            xValues[index] = unsortedXValues[originalIndex];
+            yValues[index] = unsortedYValues[originalIndex];
+        }
+    }
+
+    /**
+     * Find the range of the values.
+     *
+     * @param values the values.
+     * @return the range of the values or <code>null</code> if there are no values.
+     */
+    private static Range findRange(final float[] values) {
+        if (values.length == 0) {
+            return null;
+        }
+        float minimum = values[0];
+        float maximum = values[0];
+        for (final float value : values) {
+            minimum = Math.min(minimum, value);
+            maximum = Math.max(maximum, value);
+        }
+        return new Range(minimum, maximum);
+    }
+
+    /**
+     * Build the min/max pyramid for the y values. The finest level is computed from the points and each next level
+     * from the previous one, so building the pyramid takes linear time. The pyramid uses about a quarter of the memory
+     * of the points.
+     *
+     * @param values the y values.
+     * @return the levels of the pyramid, from the smallest to the largest block size.
+     */
+    private static int[][] buildPyramid(final float[] values) {
+        final List<int[]> levels = new ArrayList<>();
+        if (values.length > PYRAMID_BASE_BLOCK_SIZE) {
+            int[] level = new int[2 * ((values.length + PYRAMID_BASE_BLOCK_SIZE - 1) / PYRAMID_BASE_BLOCK_SIZE)];
+            for (int block = 0; block < level.length / 2; block++) {
+                final int start = block * PYRAMID_BASE_BLOCK_SIZE;
+                final int end = Math.min(values.length, start + PYRAMID_BASE_BLOCK_SIZE);
+                int minimumIndex = start;
+                int maximumIndex = start;
+                for (int index = start + 1; index < end; index++) {
+                    if (values[index] < values[minimumIndex]) {
+                        minimumIndex = index;
+                    }
+                    if (values[index] > values[maximumIndex]) {
+                        maximumIndex = index;
+                    }
+                }
+                level[2 * block] = minimumIndex;
+                level[2 * block + 1] = maximumIndex;
+            }
+            levels.add(level);
+            while (level.length > 2) {
+                // Combine each pair of blocks of the previous level; an odd last block is copied.
+                final int[] coarserLevel = new int[2 * ((level.length / 2 + 1) / 2)];
+                for (int block = 0; block < coarserLevel.length / 2; block++) {
+                    final int left = 4 * block;
+                    final int right = left + 2;
+                    final boolean hasRight = right < level.length;
+                    coarserLevel[2 * block] = hasRight && values[level[right]] < values[level[left]]
+                                              ? level[right] : level[left];
+                    coarserLevel[2 * block + 1] = hasRight && values[level[right + 1]] > values[level[left + 1]]
+                                                  ? level[right + 1] : level[left + 1];
+                }
+                levels.add(coarserLevel);
+                level = coarserLevel;
+            }
+        }
+        return levels.toArray(new int[levels.size()][]);
+    }
+
+    /**
+     * Get the x values: retention times in minutes, sorted in ascending order. The array is not copied, so it should
+     * not be changed.
+     *
+     * @return the x values.
+     */
+    public float[] getXValues() {
+        return xValues;
+    }
+
+    /**
+     * Get the y values: TIC intensities. The array is not copied, so it should not be changed.
+     *
+     * @return the y values.
+     */
+    public float[] getYValues() {
+        return yValues;
+    }
+
+    /**
+     * Create a level of detail version of this dataset for drawing the domain between <code>lower</code> and
+     * <code>upper</code>. The points in the domain are divided into at least <code>bucketCount</code> buckets and for
+     * each bucket the points with the minimum and maximum y value are kept (in their original order), plus the points
+     * just outside the domain that are needed to draw the lines to the edges.
+     * <p/>
+     * When the domain contains many points, the buckets are the blocks of the coarsest pyramid level that still gives
+     * <code>bucketCount</code> buckets, so the result has at most about four points per bucket and the time needed does
+     * not depend on the number of points in the domain. Otherwise the domain is divided into buckets of equal width,
+     * which are filled by scanning the points. The level of detail dataset reports the same domain and range bounds as
+     * this dataset, so automatic axis ranges are not affected.
+     *
+     * @param lower the lower bound of the visible domain.
+     * @param upper the upper bound of the visible domain.
+     * @param bucketCount the number of buckets, for example the width of the chart in pixels.
+     * @return the level of detail dataset or this dataset if it does not have more points than needed.
+     */
+    public TicDataset createLevelOfDetail(final double lower, final double upper, final int bucketCount) {
+        if (xValues.length <= 2 * bucketCount) {
+            return this;
+        }
+        // Include one point on each side of the visible domain, so the lines to the edges are drawn correctly.
+        final int firstIndex = Math.max(0, findFirstIndex(lower) - 1);
+        final int lastIndex = Math.min(xValues.length - 1, findFirstIndex(upper));
+        final int pointCount = lastIndex - firstIndex + 1;
+        final float[] detailXValues;
+        final float[] detailYValues;
+        if (pointCount <= 2 * bucketCount || upper <= lower) {
+            detailXValues = Arrays.copyOfRange(xValues, firstIndex, firstIndex + Math.max(0, pointCount));
+            detailYValues = Arrays.copyOfRange(yValues, firstIndex, firstIndex + Math.max(0, pointCount));
+        } else {
+            final int pyramidLevel = findPyramidLevel(pointCount / bucketCount);
+            final int[] bucketIndices = (pyramidLevel >= 0)
+                                        ? selectPyramidPoints(pyramidLevel, firstIndex, lastIndex)
+                                        : selectBucketPoints(firstIndex, lastIndex, lower, upper, bucketCount);
+            detailXValues = new float[bucketIndices.length];
+            detailYValues = new float[bucketIndices.length];
+            for (int detailIndex = 0; detailIndex < bucketIndices.length; detailIndex++) {
+                detailXValues[detailIndex] = xValues[bucketIndices[detailIndex]];
+                detailYValues[detailIndex] = yValues[bucketIndices[detailIndex]];
+            }
+        }
+        return new TicDataset(seriesKey, detailXValues, detailYValues, domainRange, valueRange);
+    }
+
+    /**
+     * Find the coarsest pyramid level with blocks that are not larger than a maximum block size.
+     *
+     * @param maximumBlockSize the maximum number of points per block.
+     * @return the pyramid level or -1 if the blocks of all levels are too large.
+     */
+    private int findPyramidLevel(final int maximumBlockSize) {
+        int level = -1;
+        while (level + 1 < pyramid.length && (PYRAMID_BASE_BLOCK_SIZE << (level + 1)) <= maximumBlockSize) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * Select the points with the minimum and maximum y value in each pyramid block that overlaps a range of points.
+     *
+     * @param level the pyramid level.
+     * @param firstIndex the index of the first point to consider.
+     * @param lastIndex the index of the last point to consider.
+     * @return the indices of the selected points in ascending order.
+     */
+    private int[] selectPyramidPoints(final int level, final int firstIndex, final int lastIndex) {
+        final int blockSize = PYRAMID_BASE_BLOCK_SIZE << level;
+        final int firstBlock = firstIndex / blockSize;
+        final int lastBlock = lastIndex / blockSize;
+        final int[] blockIndices = pyramid[level];
+        final int[] selectedIndices = new int[2 * (lastBlock - firstBlock + 1)];
+        int selectedCount = 0;
+        for (int block = firstBlock; block <= lastBlock; block++) {
+            final int minimumIndex = blockIndices[2 * block];
+            final int maximumIndex = blockIndices[2 * block + 1];
+            selectedIndices[selectedCount++] = Math.min(minimumIndex, maximumIndex);
+            if (minimumIndex != maximumIndex) {
+                selectedIndices[selectedCount++] = Math.max(minimumIndex, maximumIndex);
+            }
+        }
+        return Arrays.copyOf(selectedIndices, selectedCount);
+    }
+
+    /**
+     * Select the points with the minimum and maximum y value in each bucket.
+     *
+     * @param firstIndex the index of the first point to consider.
+     * @param lastIndex the index of the last point to consider.
+     * @param lower the lower bound of the visible domain.
+     * @param upper the upper bound of the visible domain.
+     * @param bucketCount the number of buckets.
+     * @return the indices of the selected points in ascending order.
+     */
+    private int[] selectBucketPoints(final int firstIndex, final int lastIndex, final double lower,
+                                     final double upper, final int bucketCount) {
+        final double bucketWidth = (upper - lower) / bucketCount;
+        final int[] selectedIndices = new int[2 * bucketCount];
+        int selectedCount = 0;
+        int pointIndex = firstIndex;
+        while (pointIndex <= lastIndex) {
+            // Points outside the visible domain are added to the first or last bucket.
+            final int bucket = getBucket(xValues[pointIndex], lower, bucketWidth, bucketCount);
+            int minimumIndex = pointIndex;
+            int maximumIndex = pointIndex;
+            pointIndex++;
+            while (pointIndex <= lastIndex
+                   && getBucket(xValues[pointIndex], lower, bucketWidth, bucketCount) == bucket) {
+                if (yValues[pointIndex] < yValues[minimumIndex]) {
+                    minimumIndex = pointIndex;
+                }
+                if (yValues[pointIndex] > yValues[maximumIndex]) {
+                    maximumIndex = pointIndex;
+                }
+                pointIndex++;
+            }
+            selectedIndices[selectedCount++] = Math.min(minimumIndex, maximumIndex);
+            if (minimumIndex != maximumIndex) {
+                selectedIndices[selectedCount++] = Math.max(minimumIndex, maximumIndex);
+            }
+        }
+        return Arrays.copyOf(selectedIndices, selectedCount);
+    }
+
+    /**
+     * Get the bucket of an x value.
+     *
+     * @param xValue the x value.
+     * @param lower the lower bound of the visible domain.
+     * @param bucketWidth the width of a bucket.
+     * @param bucketCount the number of buckets.
+     * @return the bucket index, between zero and <code>bucketCount - 1</code>.
+     */
+    private static int getBucket(final float xValue, final double lower, final double bucketWidth,
+                                 final int bucketCount) {
+        return Math.min(bucketCount - 1, Math.max(0, (int) Math.floor((xValue - lower) / bucketWidth)));
+    }
+
+    /**
+     * Find the point with the x value that is nearest to a value (binary search), for example the TIC point below the
+     * mouse pointer.
+     *
+     * @param xValue the x value to search for.
+     * @return the index of the nearest point or -1 if the dataset is empty.
+     */
+    public int findNearestIndex(final double xValue) {
+        final int nextIndex = findFirstIndex(xValue);
+        final int nearestIndex;
+        if (nextIndex == xValues.length) {
+            nearestIndex = nextIndex - 1;
+        } else if (nextIndex == 0) {
+            nearestIndex = 0;
+        } else {
+            final boolean previousIsNearer = xValue - xValues[nextIndex - 1] <= xValues[nextIndex] - xValue;
+            nearestIndex = previousIsNearer ? nextIndex - 1 : nextIndex;
+        }
+        return nearestIndex;
+    }
+
+    /**
+     * Find the index of the first point with an x value that is greater than or equal to a value (binary search).
+     *
+     * @param xValue the x value to search for.
+     * @return the index of the first point with an x value that is not less than <code>xValue</code> or the number of
+     *         points if all points have a smaller x value.
+     */
+    private int findFirstIndex(final double xValue) {
+        int low = 0;
+        int high = xValues.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (xValues[middle] < xValue) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get the number of bytes used by the points and the min/max pyramid of this dataset.
+     *
+     * @return the number of bytes used.
+     */
+    public long getByteCount() {
+        long byteCount = (long) (xValues.length + yValues.length) * Float.SIZE / Byte.SIZE;
+        for (final int[] level : pyramid) {
+            byteCount += (long) level.length * Integer.SIZE / Byte.SIZE;
+        }
+        return byteCount;
+    }
+
+    /**
+     * Get the maximum y value (the maximum intensity).
+     *
+     * @return the maximum y value or 0 if the dataset is empty.
+     */
+    public double getMaxY() {
+        return (valueRange != null) ? valueRange.getUpperBound() : 0;
+    }
+
+    @Override
+    public int getSeriesCount() {
+        return 1;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Comparable getSeriesKey(final int series) {
+        return seriesKey;
+    }
+
+    @Override
+    public int getItemCount(final int series) {
+        return xValues.length;
+    }
+
+    @Override
+    public Number getX(final int series, final int item) {
+        return xValues[item];
+    }
+
+    @Override
+    public double getXValue(final int series, final int item) {
+        return xValues[item];
+    }
+
+    @Override
+    public Number getY(final int series, final int item) {
+        return yValues[item];
+    }
+
+    @Override
+    public double getYValue(final int series, final int item) {
+        return yValues[item];
+    }
+
+    @Override
+    public double getDomainLowerBound(final boolean includeInterval) {
+        return (domainRange != null) ? domainRange.getLowerBound() : Double.NaN;
+    }
+
+    @Override
+    public double getDomainUpperBound(final boolean includeInterval) {
+        return (domainRange != null) ? domainRange.getUpperBound() : Double.NaN;
+    }
+
+    @Override
+    public Range getDomainBounds(final boolean includeInterval) {
+        return domainRange;
+    }
+
+    @Override
+    public double getRangeLowerBound(final boolean includeInterval) {
+        return (valueRange != null) ? valueRange.getLowerBound() : Double.NaN;
+    }
+
+    @Override
+    public double getRangeUpperBound(final boolean includeInterval) {
+        return (valueRange != null) ? valueRange.getUpperBound() : Double.NaN;
+    }
+
+    @Override
+    public Range getRangeBounds(final boolean includeInterval) {
+        return valueRange;
+    }
+}
@@ -0,0 +1,278 @@
+package nl.ctmm.trait.proteomics.qcviewer.gui;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+
+import javax.swing.JComponent;
+
+import nl.ctmm.trait.proteomics.qcviewer.input.ReportUnit;
+import nl.ctmm.trait.proteomics.qcviewer.utils.Constants;
+
+import org.jfree.data.Range;
+
+/**
+ * The lightweight component that draws the TIC chart of a report in a row of the report list.
+ *
+ * Instead of a full JFreeChart object per row, this component paints the chart title, the TIC data as a filled
+ * polyline and a domain axis with the bounds of the visible retention times straight from the primitive arrays of the
+ * TIC data. The visible domain is taken from the chart unit, so the zoom controls (which change the domain of all
+ * charts) apply to these rows as well. Only a level of detail with about two points per horizontal pixel is drawn (see
+ * {@link TicDataset#createLevelOfDetail}); the path with that level of detail is kept and is only created again when
+ * the TIC data, the visible domain or the size of the plot area change. The chart is drawn into an image in the TIC
+ * thumbnail cache when its TIC data has been loaded, and that image is painted until the zoom bounds or the size of the
+ * chart change. The TIC data is only requested from the TIC data cache when the row is filled or refreshed and there
+ * is no up to date image; painting never requests TIC data.
+ */
+public class TicSparkline extends JComponent {
+    /**
+     * The version number for (de)serialization of this class (UID: universal identifier).
+     */
+    private static final long serialVersionUID = 1;
+
+    /**
+     * The color of the chart title.
+     */
+    private static final Color TITLE_COLOR = Color.RED;
+
+    /**
+     * The color of the domain axis and its labels.
+     */
+    private static final Color AXIS_COLOR = Color.GRAY;
+
+    /**
+     * The margin in pixels around the title, the plot area and the axis labels.
+     */
+    private static final int MARGIN = 4;
+
+    /**
+     * The format of the retention time labels (in minutes) at both ends of the domain axis.
+     */
+    private static final String DOMAIN_LABEL_FORMAT = "%.1f";
+
+    /**
+     * The cache with the TIC data of the charts.
+     */
+    private final transient TicDataCache ticDataCache;
+
+    /**
+     * The cache with the rendered TIC chart images.
+     */
+    private final transient TicThumbnailCache ticThumbnailCache;
+
+    /**
+     * The report with the TIC chart to show.
+     */
+    private transient ReportUnit reportUnit;
+
+    /**
+     * The path with the TIC data that was drawn last, which is reused while its TIC data, domain and plot area are the
+     * same.
+     */
+    private transient Path2D ticPath;
+
+    /**
+     * The TIC data of the cached path.
+     */
+    private transient TicDataset ticPathDataset;
+
+    /**
+     * The visible domain of the cached path.
+     */
+    private transient Range ticPathDomain;
+
+    /**
+     * The plot area of the cached path.
+     */
+    private transient Rectangle ticPathPlotArea;
+
+    /**
+     * Create a TIC sparkline component.
+     *
+     * @param ticDataCache the cache with the TIC data of the charts.
+     * @param ticThumbnailCache the cache with the rendered TIC chart images.
+     * @param width the width of the component.
+     * @param height the height of the component.
+     */
+    public TicSparkline(final TicDataCache ticDataCache, final TicThumbnailCache ticThumbnailCache, final int width,
+                        final int height) {
+        this.ticDataCache = ticDataCache;
+        this.ticThumbnailCache = ticThumbnailCache;
+        setPreferredSize(new Dimension(width, height));
+        setOpaque(true);
+    }
+
+    /**
+     * Set the report with the TIC chart to show. This is done when the row nears the visible part of the report list
+     * and when the rows are refreshed (for example after zooming), so the TIC data is requested right away if there is
+     * no up to date thumbnail. The TIC data cache is told which report this row shows.
+     *
+     * @param reportUnit the report or <code>null</code> if the row is hidden.
+     */
+    public void setReportUnit(final ReportUnit reportUnit) {
+        if (reportUnit != this.reportUnit) {
+            if (this.reportUnit != null) {
+                ticDataCache.setShown(this.reportUnit, false);
+            }
+            if (reportUnit != null) {
+                ticDataCache.setShown(reportUnit, true);
+            }
+            this.reportUnit = reportUnit;
+            // The cached path holds on to the TIC data of the previous report.
+            setTicPath(null, null, null, null);
+        }
+        if (reportUnit != null
+            && !ticThumbnailCache.hasUpToDateThumbnail(reportUnit.getChartUnit(), getWidth(), getHeight())) {
+            ticDataCache.request(reportUnit, this);
+        }
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(final Graphics graphics) {
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, getWidth(), getHeight());
+        if (reportUnit != null) {
+            final ChartUnit chartUnit = reportUnit.getChartUnit();
+            boolean upToDate = ticThumbnailCache.hasUpToDateThumbnail(chartUnit, getWidth(), getHeight());
+            if (!upToDate && chartUnit.isTicDataLoaded() && getWidth() > 0 && getHeight() > 0) {
+                ticThumbnailCache.putThumbnail(chartUnit, createThumbnail(chartUnit));
+                upToDate = true;
+            }
+            final BufferedImage thumbnail = ticThumbnailCache.getThumbnail(chartUnit);
+            // An outdated thumbnail is shown while the TIC data is loaded to draw the new one.
+            if (thumbnail != null && (upToDate || reportUnit.hasTicFiles())) {
+                graphics.drawImage(thumbnail, 0, 0, null);
+            } else {
+                paintChart((Graphics2D) graphics, chartUnit);
+            }
+        }
+    }
+
+    /**
+     * Draw the chart into a thumbnail image with the size of this component.
+     *
+     * @param chartUnit the chart unit with the TIC data and the visible domain.
+     * @return the thumbnail image.
+     */
+    private BufferedImage createThumbnail(final ChartUnit chartUnit) {
+        final BufferedImage thumbnail = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_RGB);
+        final Graphics2D thumbnailGraphics = thumbnail.createGraphics();
+        try {
+            thumbnailGraphics.setColor(Color.WHITE);
+            thumbnailGraphics.fillRect(0, 0, getWidth(), getHeight());
+            paintChart(thumbnailGraphics, chartUnit);
+        } finally {
+            thumbnailGraphics.dispose();
+        }
+        return thumbnail;
+    }
+
+    /**
+     * Paint the title, the domain axis and (if it is loaded) the TIC data of a chart.
+     *
+     * @param graphics the graphics context to paint with.
+     * @param chartUnit the chart unit with the TIC data and the visible domain.
+     */
+    private void paintChart(final Graphics2D graphics, final ChartUnit chartUnit) {
+        graphics.setFont(Constants.CHART_TITLE_FONT);
+        final FontMetrics fontMetrics = graphics.getFontMetrics();
+        final int titleWidth = fontMetrics.stringWidth(chartUnit.getTitle());
+        graphics.setColor(TITLE_COLOR);
+        graphics.drawString(chartUnit.getTitle(), (getWidth() - titleWidth) / 2, MARGIN + fontMetrics.getAscent());
+        final int plotTop = 2 * MARGIN + fontMetrics.getHeight();
+        final int axisY = getHeight() - 2 * MARGIN - fontMetrics.getHeight();
+        final Rectangle plotArea = new Rectangle(MARGIN, plotTop, getWidth() - 2 * MARGIN, axisY - plotTop);
+        graphics.setColor(AXIS_COLOR);
+        graphics.drawLine(plotArea.x, axisY, plotArea.x + plotArea.width, axisY);
+        final Range domainRange = chartUnit.getDomainRange();
+        if (domainRange != null && plotArea.width > 0 && plotArea.height > 0) {
+            final int labelY = axisY + MARGIN + fontMetrics.getAscent();
+            final String lowerLabel = String.format(DOMAIN_LABEL_FORMAT, domainRange.getLowerBound());
+            final String upperLabel = String.format(DOMAIN_LABEL_FORMAT, domainRange.getUpperBound());
+            graphics.drawString(lowerLabel, plotArea.x, labelY);
+            graphics.drawString(upperLabel, plotArea.x + plotArea.width - fontMetrics.stringWidth(upperLabel), labelY);
+            final TicDataset ticDataset = chartUnit.getTicDataset();
+            if (ticDataset != null && ticDataset.getMaxY() > 0 && domainRange.getLength() > 0) {
+                final Graphics2D plotGraphics = (Graphics2D) graphics.create();
+                try {
+                    plotGraphics.setColor(chartUnit.getGraphColor());
+                    plotGraphics.clip(plotArea);
+                    plotGraphics.fill(getTicPath(ticDataset, domainRange, plotArea));
+                } finally {
+                    plotGraphics.dispose();
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the filled polyline of the visible TIC data: the cached path if it was created for the same TIC data, domain
+     * and plot area, otherwise a new path, which is cached.
+     *
+     * @param ticDataset the TIC data.
+     * @param domainRange the visible domain.
+     * @param plotArea the area in which the TIC data is drawn.
+     * @return the closed path with the TIC data.
+     */
+    Path2D getTicPath(final TicDataset ticDataset, final Range domainRange, final Rectangle plotArea) {
+        if (ticDataset != ticPathDataset || !domainRange.equals(ticPathDomain) || !plotArea.equals(ticPathPlotArea)) {
+            setTicPath(createTicPath(ticDataset, domainRange, plotArea), ticDataset, domainRange, plotArea);
+        }
+        return ticPath;
+    }
+
+    /**
+     * Set the cached path with the TIC data and the TIC data, domain and plot area it was created for.
+     *
+     * @param path the path or <code>null</code> to clear the cache.
+     * @param ticDataset the TIC data of the path.
+     * @param domainRange the visible domain of the path.
+     * @param plotArea the plot area of the path.
+     */
+    private void setTicPath(final Path2D path, final TicDataset ticDataset, final Range domainRange,
+                            final Rectangle plotArea) {
+        ticPath = path;
+        ticPathDataset = ticDataset;
+        ticPathDomain = domainRange;
+        ticPathPlotArea = plotArea;
+    }
+
+    /**
+     * Create the filled polyline of the visible TIC data, from a level of detail with a bucket per two pixels of the
+     * plot area.
+     *
+     * @param ticDataset the TIC data.
+     * @param domainRange the visible domain.
+     * @param plotArea the area in which the TIC data is drawn.
+     * @return the closed path with the TIC data, which is empty if there are no visible points.
+     */
+    static Path2D createTicPath(final TicDataset ticDataset, final Range domainRange, final Rectangle plotArea) {
+        final TicDataset levelOfDetail = ticDataset.createLevelOfDetail(domainRange.getLowerBound(),
+                                                                        domainRange.getUpperBound(),
+                                                                        Math.max(1, plotArea.width / 2));
+        final float[] xValues = levelOfDetail.getXValues();
+        final float[] yValues = levelOfDetail.getYValues();
+        final double xScale = plotArea.width / domainRange.getLength();
+        final double yScale = plotArea.height / ticDataset.getMaxY();
+        final double bottom = plotArea.y + plotArea.height;
+        final Path2D.Float ticPath = new Path2D.Float(Path2D.WIND_NON_ZERO, xValues.length + 2);
+        if (xValues.length > 0) {
+            final double firstX = plotArea.x + (xValues[0] - domainRange.getLowerBound()) * xScale;
+            ticPath.moveTo(firstX, bottom);
+            for (int pointIndex = 0; pointIndex < xValues.length; pointIndex++) {
+                ticPath.lineTo(plotArea.x + (xValues[pointIndex] - domainRange.getLowerBound()) * xScale,
+                               bottom - yValues[pointIndex] * yScale);
+            }
+            final double lastX = plotArea.x + (xValues[xValues.length - 1] - domainRange.getLowerBound()) * xScale;
+            ticPath.lineTo(lastX, bottom);
+            ticPath.closePath();
+        }
+        return ticPath;
+    }
+}
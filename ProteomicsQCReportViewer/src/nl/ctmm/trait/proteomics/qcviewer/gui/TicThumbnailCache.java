@@ -0,0 +1,161 @@
+package nl.ctmm.trait.proteomics.qcviewer.gui;
+
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jfree.data.Range;
+
+/**
+ * The cache with the rendered TIC chart images of the rows in the report list.
+ *
+ * A row draws its TIC chart once into an image and paints that image until the zoom bounds or the size of the chart
+ * change. Each image is stored with the zoom bounds it was drawn for, so an image stays up to date when the TIC data
+ * of its chart is removed from the TIC data cache and the row can be painted without reading the TIC data again. An
+ * outdated image is still returned, so a row keeps showing its old chart (instead of flickering) while the TIC data is
+ * loaded to draw the new one. The images are kept in a least recently used cache with a memory limit. The methods of
+ * this class should be called on the event dispatch thread.
+ */
+public class TicThumbnailCache {
+    /**
+     * The number of bytes per pixel of the thumbnail images.
+     */
+    private static final int BYTES_PER_PIXEL = 4;
+
+    /**
+     * The initial capacity of the map with thumbnails.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The load factor of the map with thumbnails.
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * The maximum number of bytes used by the thumbnail images.
+     */
+    private final long maximumBytes;
+
+    /**
+     * Mapping from chart units to their thumbnails, in least recently used order.
+     */
+    private final Map<ChartUnit, Thumbnail> thumbnails = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+
+    /**
+     * The number of bytes currently used by the thumbnail images.
+     */
+    private long usedBytes;
+
+    /**
+     * Create a TIC thumbnail cache.
+     *
+     * @param maximumBytes the maximum number of bytes used by the thumbnail images.
+     */
+    public TicThumbnailCache(final long maximumBytes) {
+        this.maximumBytes = maximumBytes;
+    }
+
+    /**
+     * Get the latest thumbnail image of a chart, which may be outdated, and mark it as recently used.
+     *
+     * @param chartUnit the chart unit.
+     * @return the thumbnail image or <code>null</code> if there is no thumbnail for the chart.
+     */
+    public BufferedImage getThumbnail(final ChartUnit chartUnit) {
+        final Thumbnail thumbnail = thumbnails.get(chartUnit);
+        return (thumbnail != null) ? thumbnail.image : null;
+    }
+
+    /**
+     * Check whether the thumbnail of a chart was drawn with the current zoom bounds of the chart and with a size.
+     *
+     * @param chartUnit the chart unit.
+     * @param width the width of the chart.
+     * @param height the height of the chart.
+     * @return whether the chart has an up to date thumbnail.
+     */
+    public boolean hasUpToDateThumbnail(final ChartUnit chartUnit, final int width, final int height) {
+        final Thumbnail thumbnail = thumbnails.get(chartUnit);
+        final Range zoomRange = chartUnit.getZoomRange();
+        return thumbnail != null && thumbnail.image.getWidth() == width && thumbnail.image.getHeight() == height
+               && (zoomRange != null ? zoomRange.equals(thumbnail.zoomRange) : thumbnail.zoomRange == null);
+    }
+
+    /**
+     * Store the thumbnail of a chart drawn with the current zoom bounds of the chart and remove the least recently
+     * used thumbnails if the cache uses too much memory. The new thumbnail is always kept.
+     *
+     * @param chartUnit the chart unit.
+     * @param image the thumbnail image.
+     */
+    public void putThumbnail(final ChartUnit chartUnit, final BufferedImage image) {
+        final Thumbnail oldThumbnail = thumbnails.put(chartUnit, new Thumbnail(image, chartUnit.getZoomRange()));
+        if (oldThumbnail != null) {
+            usedBytes -= getByteCount(oldThumbnail.image);
+        }
+        usedBytes += getByteCount(image);
+        final Iterator<Map.Entry<ChartUnit, Thumbnail>> thumbnailIterator = thumbnails.entrySet().iterator();
+        while (usedBytes > maximumBytes && thumbnailIterator.hasNext()) {
+            final Map.Entry<ChartUnit, Thumbnail> thumbnailEntry = thumbnailIterator.next();
+            if (thumbnailEntry.getKey() != chartUnit) {
+                usedBytes -= getByteCount(thumbnailEntry.getValue().image);
+                thumbnailIterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Remove all thumbnails, for example when the reports are replaced.
+     */
+    public void clear() {
+        thumbnails.clear();
+        usedBytes = 0;
+    }
+
+    /**
+     * Get the number of thumbnails in the cache.
+     *
+     * @return the number of thumbnails.
+     */
+    public int size() {
+        return thumbnails.size();
+    }
+
+    /**
+     * Get the number of bytes used by a thumbnail image.
+     *
+     * @param image the thumbnail image.
+     * @return the number of bytes used.
+     */
+    private static long getByteCount(final BufferedImage image) {
+        return (long) image.getWidth() * image.getHeight() * BYTES_PER_PIXEL;
+    }
+
+    /**
+     * A thumbnail image with the zoom bounds it was drawn for.
+     */
+    private static class Thumbnail {
+        /**
+         * The thumbnail image.
+         */
+        private final BufferedImage image;
+
+        /**
+         * The zoom bounds the image was drawn for or <code>null</code> for an automatic range.
+         */
+        private final Range zoomRange;
+
+        /**
+         * Create a thumbnail.
+         *
+         * @param image the thumbnail image.
+         * @param zoomRange the zoom bounds the image was drawn for or <code>null</code> for an automatic range.
+         */
+        Thumbnail(final BufferedImage image, final Range zoomRange) {
+            this.image = image;
+            this.zoomRange = zoomRange;
+        }
+    }
+}
@@ -4,7 +4,6 @@ import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
-import java.awt.FlowLayout;
 import java.awt.GridLayout;
 import java.awt.Image;
 import java.awt.Toolkit;
@@ -19,7 +18,6 @@ import java.io.File;
 import java.io.IOException;
 import java.text.NumberFormat;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -36,6 +34,7 @@ import javax.swing.ButtonGroup;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
+import javax.swing.JComponent;
 import javax.swing.JDesktopPane;
 import javax.swing.JDialog;
 import javax.swing.JFormattedTextField;
@@ -47,24 +46,26 @@ import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JRadioButton;
 import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
 import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
 import javax.swing.WindowConstants;
 import javax.swing.border.Border;
 
+import nl.ctmm.trait.proteomics.qcviewer.Main;
 import nl.ctmm.trait.proteomics.qcviewer.input.MetricsParser;
+import nl.ctmm.trait.proteomics.qcviewer.input.ReportSortKeys;
 import nl.ctmm.trait.proteomics.qcviewer.input.ReportUnit;
+import nl.ctmm.trait.proteomics.qcviewer.input.TicMatrixReader;
 import nl.ctmm.trait.proteomics.qcviewer.utils.Constants;
 import nl.ctmm.trait.proteomics.qcviewer.utils.ReportPDFExporter;
 import nl.ctmm.trait.proteomics.qcviewer.utils.Utilities;
 
 import org.apache.commons.io.FilenameUtils;
-import org.jfree.chart.ChartMouseEvent;
-import org.jfree.chart.ChartMouseListener;
 import org.jfree.chart.ChartPanel;
-import org.jfree.chart.plot.XYPlot;
 import org.jfree.ui.RefineryUtilities;
 
 /**
@@ -75,13 +76,10 @@ import org.jfree.ui.RefineryUtilities;
  * - Radio buttons: http://www.leepoint.net/notes-java/GUI/components/50radio_buttons/25radiobuttons.html
  * - Swing layout: http://www.cs101.org/courses/fall05/resources/swinglayout/
  *
- * TODO: Clicking on right part of the main table (on a graph) does not select that row.
- *       (And therefore does not show that graph large at the bottom).
- *
  * @author <a href="mailto:pravin.pawar@nbic.nl">Pravin Pawar</a>
  * @author <a href="mailto:freek.de.bruijn@nbic.nl">Freek de Bruijn</a>
  */
-public class ViewerFrame extends JFrame implements ActionListener, ItemListener, MouseListener, ChartMouseListener {
+public class ViewerFrame extends JFrame implements ActionListener, ItemListener, MouseListener {
     /**
      * The logger for this class.
      */
@@ -92,12 +90,6 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
      */
     private static final long serialVersionUID = 1;
 
-    /**
-     * Alternating colors used for the metrics.
-     */
-    private static final List<Color> LABEL_COLORS = Arrays.asList(
-            Color.BLUE, Color.DARK_GRAY, Color.BLACK);
-
     //Following are dimensions which are to be calibrated depending on the screen height and width.
     /**
      * Width of the panel with a TIC chart for each report in the list.
@@ -173,17 +165,6 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
     private static final int ACTUAL_CHART_HEIGHT = (int) (CHART_HEIGHT - 10);
     // CHECKSTYLE_ON: MagicNumberCheck
 
-    /**
-     * Width of the left panel for each report in the list, with the report number, the metrics details button and the
-     * selection check box.
-     */
-    private static final int CHECK_PANEL_WIDTH = 90;
-
-    /**
-     * Width of the panel showing the selected metrics for each report in the list.
-     */
-    private static final int METRICS_PANEL_WIDTH = 350;
-
     /**
      * Default divider location of the top split pane, which separates the top control panel from the rest of the GUI.
      */
@@ -233,16 +214,6 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
      * Height of min - max text box.
      */
     private static final int TEXT_BOX_HEIGHT = 20;
-    
-    /**
-     * Width of the report error area.
-     */
-    private static final int REPORT_ERROR_AREA_WIDTH = 80;
-    
-    /**
-     * Height of the report error area.
-     */
-    private static final int REPORT_ERROR_AREA_HEIGHT = 40;
 
     /**
      * Text of the change root directory menu command.
@@ -269,6 +240,26 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
      */
     private static final String ABOUT_COMMAND = "About";
 
+    /**
+     * Action command of the button that cancels loading the reports.
+     */
+    private static final String CANCEL_LOADING_COMMAND = "CancelLoading";
+
+    /**
+     * Text of the button that cancels loading the reports.
+     */
+    private static final String CANCEL_LOADING_BUTTON_TEXT = "Cancel";
+
+    /**
+     * Text shown in the loading progress bar: the number of loaded reports and the number of reports to load.
+     */
+    private static final String LOADING_PROGRESS_FORMAT = "Loaded %d of %d reports";
+
+    /**
+     * Text shown in the loading progress bar while the number of reports to load is not known yet.
+     */
+    private static final String SEARCHING_REPORTS_TEXT = "Searching reports...";
+
     /**
      * Error message to be shown in case exception occurs while exporting reports in PDF format.  
      */
@@ -407,7 +398,7 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
     /**
      * Preferred width of the status field.
      */
-    private static final int STATUS_FIELD_WIDTH = 1333; 
+    private static final int STATUS_FIELD_WIDTH = 1033; 
 
     /**
      * Preferred height of the status field.
@@ -424,6 +415,16 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
      */
     private static final int STATUS_PANEL_HEIGHT = 30;
 
+    /**
+     * Preferred width of the loading progress bar.
+     */
+    private static final int LOADING_PROGRESS_WIDTH = 200;
+
+    /**
+     * Preferred width of the button that cancels loading the reports.
+     */
+    private static final int CANCEL_LOADING_BUTTON_WIDTH = 85;
+
     /**
      * Width of a metric label.
      */
@@ -434,11 +435,6 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
      */
     private static final int METRIC_LABEL_HEIGHT = 30;
 
-    /**
-     * Prefix used for the action command of the metrics details buttons.
-     */
-    private static final String DETAILS_ACTION_PREFIX = "Details-";
-
     /**
      * Prefix used for the action command of zoom buttons.
      */
@@ -465,11 +461,6 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
      */
     private static final String CONSTRUCTOR_MESSAGE = "ViewerFrame constructor";
 
-    /**
-     * Message written to the logger to show the value of yCoordinate while updating report units. 
-     */
-    private static final String YCOORDINATE_MESSAGE = "yCoordinate is: %s.";
-
     /**
      * Message written to the logger while assembling components of ViewerFrame. 
      */
@@ -590,7 +581,7 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
     /**
      * Message written to the logger to print number of chart panels. 
      */
-    private static final String NUMBER_OF_CHART_PANELS_MESSAGE = "Number of chart panels: %s.";
+    private static final String NUMBER_OF_CHARTS_MESSAGE = "Number of charts: %s.";
 
     /**
      * Message written to the logger in case of unexpected zoom action command. 
@@ -619,14 +610,9 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
     private static final String CHART_ORDER_MESSAGE = "Prepare charts in ascending order = %s";
 
     /**
-     * Message written to the logger while adding chart frame for a particular report unit. 
-     */
-    private static final String ADD_CHART_FRAME_MESSAGE = "Add chart frame for report unit: %s.";
-
-    /**
-     * Label of the Details button. 
+     * Message written to the logger while showing a report in a row of the report list.
      */
-    private static final String DETAILS_BUTTON_LABEL = "Details";
+    private static final String SHOW_REPORT_ROW_MESSAGE = "Show in row %s the report with number %s.";
 
     /**
      * Message written to the logger while refreshing metrics values according to selected metrics. 
@@ -645,14 +631,9 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
     private static final String CHECK_BOX_DESELECTION_MESSAGE = "DeSelected check box with name %s.";
 
     /**
-     * Message written to the logger when user clicks on a particular report frame.
-     */
-    private static final String FRAME_CLICKED_MESSAGE = "Frame title = %s, frame name = %s.";
-
-    /**
-     * Message written to the logger when user clicks mouse on particular TIC graph. 
+     * Message written to the logger when user clicks on a particular report row.
      */
-    private static final String GRAPH_CLICK_MESSAGE = "Graph Index from SubTitle = %s.";
+    private static final String ROW_CLICKED_MESSAGE = "Report row clicked, report index = %s.";
 
     /**
      * Message written to the logger for printing screen dimensions. 
@@ -665,24 +646,29 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
     private static final int WIDTH_ADJUSTMENT_PIXELS_SIZE = 15;
 
     /**
-     * Length of metrics name in the metricsPanel.
+     * The main list with a row for each report, showing the TIC graphs.
      */
-    private static final int METRIC_STRING_LENGTH = 50;
+    private final ReportListPane reportListPane;
 
     /**
-     * The main desktop pane with the TIC graphs of all the reports.
+     * The cache with the TIC data of the charts that are shown. The reports are loaded without their TIC data.
      */
-    private final JDesktopPane desktopPane = new ScrollDesktop();
+    private final TicDataCache ticDataCache;
 
     /**
-     * The bottom pane showing the enlarged TIC graph of the selected report.
+     * The cache with the rendered TIC chart images of the rows in the report list.
      */
-    private final JDesktopPane ticGraphPane = new ScrollDesktop();
+    private final TicThumbnailCache ticThumbnailCache;
+
+    /**
+     * The typed sort keys of the reports, which are parsed once per report and sort key.
+     */
+    private final ReportSortKeys reportSortKeys = new ReportSortKeys();
 
     /**
-     * The list with all chart panels to be able to zoom all TIC graphs.
+     * The bottom pane showing the enlarged TIC graph of the selected report.
      */
-    private final List<ChartPanel> chartPanelList = new ArrayList<>();
+    private final JDesktopPane ticGraphPane = new ScrollDesktop();
 
     /**
      * Whether a report is selected for comparison.
@@ -707,14 +693,14 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
     //use this list for display and other operations
 
     /**
-     * The reports sorted according to the selected options.
+     * The reports sorted according to the selected options, in the order in which they are displayed.
      */
     private List<ReportUnit> orderedReportUnits = new ArrayList<>();
 
     /**
-     * Map from reports to the corresponding metrics panels. This map is used when updating the selected metrics.
+     * The report whose TIC graph is shown in the TIC graph pane or <code>null</code> if no TIC graph is shown.
      */
-    private final Map<ReportUnit, JPanel> reportUnitToMetricsPanel = new HashMap<>();
+    private ReportUnit ticGraphPaneReport;
 
     /**
      * Mapping from the keys of the selected metrics to their names.
@@ -745,6 +731,16 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
      */
     private JTextField statusField;
 
+    /**
+     * The progress bar that shows how many reports have been loaded while reports are loaded in the background.
+     */
+    private final JProgressBar loadingProgressBar = new JProgressBar();
+
+    /**
+     * The button that cancels loading the reports in the background.
+     */
+    private final JButton cancelLoadingButton = new JButton(CANCEL_LOADING_BUTTON_TEXT);
+
     /**
      * The split pane that contains the control panel and the rest of the GUI.
      */
@@ -761,11 +757,6 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
      */
     private final JPanel sortPanel = new JPanel();
 
-    /**
-     * The y coordinate used while laying out the reports in the main table.
-     */
-    private int yCoordinate;
-
     /**
      * Creates a new instance of the main frame of the proteomics QC viewer.
      *
@@ -788,6 +779,9 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
         this.metricsParser = metricsParser;
         this.pipelineStatus = pipelineStatus;
         parseSelectedMetricsData(selectedMetricsData);
+        ticDataCache = new TicDataCache(new TicMatrixReader(), Constants.TIC_DATA_CACHE_BYTES);
+        ticThumbnailCache = new TicThumbnailCache(Constants.TIC_THUMBNAIL_CACHE_BYTES);
+        reportListPane = new ReportListPane(desktopPaneWidth, REPORT_ROW_HEIGHT, createReportRowModel());
         setReportUnits(reportUnits);
         setOrderedReportUnits(reportUnits);
         assembleComponents();
@@ -820,42 +814,76 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
      * @param newReportUnits New QC reports
      * @param newPipelineStatus Updated pipeline status
      * @param replaceFlag If true, existing report units will be replaced by new report units.
-     *             Else if false, new reports are added to existing reports. GUI will be updated accordingly.
+     *             Else if false, new reports are added to existing reports. GUI will be updated accordingly. A new
+     *             report with the report index of an existing report (an msrun that was loaded again or whose
+     *             directory was removed) replaces that report at its position.
      */
     public void updateReportUnits(final List<ReportUnit> newReportUnits, final String newPipelineStatus,
                                   final Boolean replaceFlag) {
-        logger.fine(String.format(YCOORDINATE_MESSAGE, yCoordinate));
         if (replaceFlag) {
             //Replace all existing reports by newReportUnits.
             reportUnits.clear();
             orderedReportUnits.clear();
             reportIsSelected.clear();
-            desktopPane.removeAll();
+            ticDataCache.clear();
+            ticThumbnailCache.clear();
+            reportSortKeys.clear();
             ticGraphPane.removeAll();
+            ticGraphPaneReport = null;
             pack();
             revalidate();
-            yCoordinate = 0;
         }
-        final int reportIndexOffset = reportUnits.size();
-        if (newReportUnits.size() > 0) {
-            for (final ReportUnit ignored : newReportUnits) {
+        final boolean firstReportUnits = orderedReportUnits.isEmpty();
+        boolean reportsReplaced = false;
+        for (final ReportUnit newReportUnit : newReportUnits) {
+            final int reportIndex = newReportUnit.getReportIndex();
+            if (reportIndex < reportUnits.size()) {
+                replaceReportUnit(newReportUnit);
+                reportsReplaced = true;
+            } else {
                 reportIsSelected.add(false);
+                reportUnits.add(newReportUnit);
+                orderedReportUnits.add(newReportUnit);
             }
-            
-            for (int reportIndex = 0; reportIndex < newReportUnits.size(); reportIndex++) {
-                final ReportUnit thisUnit = newReportUnits.get(reportIndex);
-                reportUnits.add(thisUnit);
-                orderedReportUnits.add(thisUnit);
-                addChartFrame(thisUnit, reportIndexOffset + reportIndex);
-            }
-            desktopPane.setPreferredSize(new Dimension(desktopPaneWidth, reportUnits.size() * REPORT_ROW_HEIGHT));
-            //Set first report graph in the Tic Pane. 
+        }
+        // Only the rows in or near the visible part of the list are (re)created.
+        reportListPane.setRowCount(orderedReportUnits.size());
+        if (reportsReplaced) {
+            reportListPane.refreshRows();
+        }
+        if (firstReportUnits && newReportUnits.size() > 0) {
+            //Set first report graph in the Tic Pane (later batches of reports that are being loaded leave it alone).
             setTicGraphPaneChart(orderedReportUnits.get(0).getReportIndex());
         }
         updatePipelineStatus(newPipelineStatus);
         revalidate();
     }
 
+    /**
+     * Replace the report with the same report index by a new report, keeping its position in the (sorted) list of
+     * reports and whether it is selected.
+     *
+     * @param newReportUnit the new report.
+     */
+    private void replaceReportUnit(final ReportUnit newReportUnit) {
+        final int reportIndex = newReportUnit.getReportIndex();
+        final ReportUnit oldReportUnit = reportUnits.set(reportIndex, newReportUnit);
+        orderedReportUnits.set(orderedReportUnits.indexOf(oldReportUnit), newReportUnit);
+        reportSortKeys.updateReport(reportUnits, reportIndex);
+        if (oldReportUnit == ticGraphPaneReport) {
+            setTicGraphPaneChart(reportIndex);
+        }
+    }
+
+    /**
+     * Get the number of reports in the viewer. The report index of each report is its position in the reports.
+     *
+     * @return the number of reports.
+     */
+    public int getReportCount() {
+        return reportUnits.size();
+    }
+
     /**
      * Update the pipeline status in the report viewer.
      *
@@ -866,24 +894,51 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
         statusField.setText(getExtendedPipelineStatus());
     }
 
+    /**
+     * Show the progress of loading reports in the background, together with the button to cancel loading.
+     *
+     * @param loadedReportCount the number of reports that have been loaded.
+     * @param reportCount the number of reports to load or zero if this is not known yet.
+     */
+    public void showLoadingProgress(final int loadedReportCount, final int reportCount) {
+        if (reportCount > 0) {
+            loadingProgressBar.setIndeterminate(false);
+            loadingProgressBar.setMaximum(reportCount);
+            loadingProgressBar.setValue(loadedReportCount);
+            loadingProgressBar.setString(String.format(LOADING_PROGRESS_FORMAT, loadedReportCount, reportCount));
+        } else {
+            loadingProgressBar.setIndeterminate(true);
+            loadingProgressBar.setString(SEARCHING_REPORTS_TEXT);
+        }
+        loadingProgressBar.setVisible(true);
+        cancelLoadingButton.setVisible(true);
+    }
+
+    /**
+     * Hide the progress of loading reports, because loading has finished or was cancelled.
+     */
+    public void hideLoadingProgress() {
+        loadingProgressBar.setVisible(false);
+        cancelLoadingButton.setVisible(false);
+    }
+
     /**
      * Assemble following components of the ViewerFrame.
-     * 1) ControlFrame 2) desktopPane 3) ticGraphPane 4) MenuBar
+     * 1) ControlFrame 2) reportListPane 3) ticGraphPane 4) MenuBar
      */
     private void assembleComponents() {
         logger.fine(ASSEMBLE_COMPONENTS_MESSAGE);
         //We need two split panes to create 3 regions in the main frame
         
-        //Add desktopPane for displaying graphs and other QC Control
+        //Add reportListPane for displaying graphs and other QC Control
         final int totalReports = orderedReportUnits.size();
         if (totalReports != 0) {
-            desktopPane.setPreferredSize(new Dimension(desktopPaneWidth, totalReports * REPORT_ROW_HEIGHT));
             prepareChartsInOrder(true);
             // Set initial tic Graph - specify complete chart in terms of orderedReportUnits.
             setTicGraphPaneChart(orderedReportUnits.get(0).getReportIndex());
         }
-        //Display empty desktopPane and ticGraphPane
-        splitPane2.add(new JScrollPane(desktopPane), 0);
+        //Display reportListPane and ticGraphPane
+        splitPane2.add(new JScrollPane(reportListPane), 0);
         ticGraphPane.setPreferredSize(new Dimension(ticGraphPaneWidth, ticGraphPaneHeight));
         splitPane2.add(new JScrollPane(ticGraphPane), 1);
         //hide-show feature
@@ -987,8 +1042,18 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
         statusField.setPreferredSize(new Dimension(STATUS_FIELD_WIDTH, STATUS_FIELD_HEIGHT));
         statusField.setMinimumSize(new Dimension(STATUS_FIELD_WIDTH, STATUS_FIELD_HEIGHT));
         statusField.setMaximumSize(new Dimension(STATUS_FIELD_WIDTH, STATUS_FIELD_HEIGHT));
+        loadingProgressBar.setFont(Constants.DEFAULT_FONT);
+        loadingProgressBar.setStringPainted(true);
+        loadingProgressBar.setPreferredSize(new Dimension(LOADING_PROGRESS_WIDTH, STATUS_FIELD_HEIGHT));
+        cancelLoadingButton.setFont(Constants.DEFAULT_FONT);
+        cancelLoadingButton.setActionCommand(CANCEL_LOADING_COMMAND);
+        cancelLoadingButton.addActionListener(this);
+        cancelLoadingButton.setPreferredSize(new Dimension(CANCEL_LOADING_BUTTON_WIDTH, STATUS_FIELD_HEIGHT));
+        hideLoadingProgress();
         final JPanel statusPanel = new JPanel();
         statusPanel.add(statusField);
+        statusPanel.add(loadingProgressBar);
+        statusPanel.add(cancelLoadingButton);
         statusPanel.setPreferredSize(new Dimension(STATUS_PANEL_WIDTH, STATUS_PANEL_HEIGHT));
         statusPanel.setMinimumSize(new Dimension(STATUS_PANEL_WIDTH, STATUS_PANEL_HEIGHT));
         statusPanel.setMaximumSize(new Dimension(STATUS_PANEL_WIDTH, STATUS_PANEL_HEIGHT));
@@ -1242,8 +1307,12 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
     private void setTicGraphPaneChart(final int reportNum) {
         logger.fine(String.format(SET_TIC_GRAPH_PANE_MESSAGE, reportNum));
         ticGraphPane.removeAll();
-        // Create the visible chart panel.
-        final ChartPanel chartPanel = new ChartPanel(reportUnits.get(reportNum).getChartUnit().getTicChart());
+        // Create the visible chart panel; the chart is updated when its TIC data has been loaded.
+        final ReportUnit reportUnit = reportUnits.get(reportNum);
+        ticGraphPaneReport = reportUnit;
+        final ChartPanel chartPanel = new TicChartPanel(reportUnit.getChartUnit());
+        ticDataCache.setPinnedReport(reportUnit);
+        ticDataCache.request(reportUnit, chartPanel);
         chartPanel.setPreferredSize(new Dimension(desktopPaneWidth, 2 * CHART_HEIGHT));
         final JInternalFrame chartFrame = new JInternalFrame(CHART_FRAME_TITLE_PREFIX + reportNum, true);
         final javax.swing.plaf.InternalFrameUI ifu = chartFrame.getUI();
@@ -1305,12 +1374,21 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
      */
     private void setDomainRangeCharts(final int min, final int max) {
         logger.fine(String.format(MIN_MAX_VALUES_MESSAGE, minText.getText(), maxText.getText(), min, max));
-        for (final ChartPanel chartPanel : chartPanelList) {
-            final XYPlot plot = (XYPlot) chartPanel.getChart().getPlot();
-            plot.getDomainAxis().setRange(min, max);
-            chartPanel.setRefreshBuffer(true);
-            chartPanel.repaint();
+        // The charts are changed directly, since only the visible rows have a chart panel.
+        for (final ReportUnit reportUnit : reportUnits) {
+            reportUnit.getChartUnit().setDomainRange(min, max);
         }
+        refreshSparklines();
+    }
+
+    /**
+     * Refresh the TIC charts in the main list after the zoom bounds of the charts have changed, which makes their
+     * thumbnails outdated: the shown rows request their TIC data again (if it was removed) and are repainted. The rows
+     * draw their charts with a lightweight sparkline; the interactive chart panel is only used for the selected report
+     * in the bottom pane.
+     */
+    private void refreshSparklines() {
+        reportListPane.refreshRows();
     }
 
     /**
@@ -1322,7 +1400,7 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
     public void actionPerformed(final ActionEvent actionEvent) {
         final String actionCommand = actionEvent.getActionCommand();
         logger.fine(String.format(ACTION_COMMAND_AND_EVENT_MESSAGE, actionCommand, actionEvent.getClass())); 
-        if (actionCommand.startsWith(DETAILS_ACTION_PREFIX)) {
+        if (actionCommand.startsWith(ReportRowPanel.DETAILS_ACTION_PREFIX)) {
             //Parse action command to get reportUnit number
             final StringTokenizer commandTokenizer = new StringTokenizer(actionCommand, "-");
             commandTokenizer.nextToken();
@@ -1353,24 +1431,25 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
         if (ZOOM_MIN_MAX_COMMAND.equals(actionCommand)) {
             zoomMinMax();
         } else {
-            logger.fine(String.format(NUMBER_OF_CHART_PANELS_MESSAGE, chartPanelList.size()));
-            for (final ChartPanel chartPanel : chartPanelList) {
+            logger.fine(String.format(NUMBER_OF_CHARTS_MESSAGE, reportUnits.size()));
+            // The charts are changed directly; the chart panels showing them are repainted automatically.
+            for (final ReportUnit reportUnit : reportUnits) {
+                final ChartUnit chartUnit = reportUnit.getChartUnit();
                 switch (actionCommand) {
                     case ZOOM_IN_COMMAND:
-                        chartPanel.zoomInDomain(0, 0);
+                        chartUnit.zoomInDomain();
                         break;
                     case ZOOM_ORIGINAL_COMMAND:
-                        chartPanel.restoreAutoBounds();
+                        chartUnit.restoreAutoBounds();
                         break;
                     case ZOOM_OUT_COMMAND:
-                        chartPanel.zoomOutDomain(0, 0);
+                        chartUnit.zoomOutDomain();
                         break;
                     default:
                         logger.warning(String.format(UNEXPECTED_ZOOM_ACTION_MESSAGE, actionCommand));
                 }
-                chartPanel.setRefreshBuffer(true);
-                chartPanel.repaint();
             }
+            refreshSparklines();
         }
     }
 
@@ -1403,6 +1482,9 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
                 aboutFrame.setVisible(true);
                 aboutFrame.revalidate();
                 break;
+            case CANCEL_LOADING_COMMAND:
+                Main.getInstance().cancelReportLoading();
+                break;
             default:
                 logger.warning(String.format(UNEXPECTED_ACTION_MESSAGE, actionCommand));
         }
@@ -1450,8 +1532,6 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
         logger.fine(String.format(SORT_CRITERIA_MESSAGE, newSortCriteria, sortKey, sortOrder));
         //Remove currently ordered report units and recreate them according to sort criteria
         orderedReportUnits.clear();
-        // A new chart frame will be given to every report.
-        desktopPane.removeAll();
         final boolean ascending = sortOrder.equals(SORT_ORDER_ASCENDING);
         if (!SORT_KEY_COMPARE.equals(sortKey)) {
             /* TODO: can we use Collections.sort with a custom comparator here? [Freek]
@@ -1463,8 +1543,8 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
             //Copy reportUnits to orderedReportUnits
             orderedReportUnits.addAll(reportUnits);
             //Sort orderedReportUnits according to sortKey and sort order - ascending/descending
-            Collections.sort(orderedReportUnits, ReportUnit.getComparatorV2(sortKey, ascending));
-            //Create chart frames and add them to the desktop pane.
+            Collections.sort(orderedReportUnits, reportSortKeys.getComparator(reportUnits, sortKey, ascending));
+            //Show the reports in the list.
             prepareChartsInOrder(true);
             // Set first report graph in the Tic Pane. 
             setTicGraphPaneChart(orderedReportUnits.get(0).getReportIndex());
@@ -1482,133 +1562,61 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
             }
             // Now add all deselected reports.
             orderedReportUnits.addAll(deselectedReports);
-            final int selectedIndex = ascending ? 0 : orderedReportUnits.size() - 1;
             prepareChartsInOrder(ascending);
-            // Show the TIC graph of the first or last report in the bottom TIC pane.
-            setTicGraphPaneChart(orderedReportUnits.get(selectedIndex).getReportIndex());
+            // Show the TIC graph of the first displayed report in the bottom TIC pane.
+            setTicGraphPaneChart(orderedReportUnits.get(0).getReportIndex());
         }
         newSortCriteria = "";
     }
 
     /**
-     * Create chart frames and add them to the desktop pane.
+     * Show the ordered reports in the report list.
      *
-     * @param ascending if <code>true</code>, the charts will be prepared in ascending order; if <code>false</code>, the
-     *                  charts will be prepared in descending order.
+     * @param ascending if <code>true</code>, the reports will be shown in ascending order; if <code>false</code>, the
+     *                  order of the reports is reversed first.
      */
     private void prepareChartsInOrder(final boolean ascending) {
         logger.fine(String.format(CHART_ORDER_MESSAGE, ascending));
-        chartPanelList.clear();
-        yCoordinate = 0;
         logger.fine(String.format(NUMBER_OF_ORDERED_REPORT_UNITS_MESSAGE, orderedReportUnits.size()));
-        for (int reportIndex = 0; reportIndex < orderedReportUnits.size(); reportIndex++) {
-            final int sortedIndex = ascending ? reportIndex : orderedReportUnits.size() - reportIndex - 1;
-            addChartFrame(orderedReportUnits.get(sortedIndex), reportIndex);
+        if (!ascending) {
+            Collections.reverse(orderedReportUnits);
         }
+        reportListPane.setRowCount(orderedReportUnits.size());
     }
 
     /**
-     * Add an internal frame for a report showing the report number, selection check box, details button, metrics
-     * panel and the TIC chart. The controls are created in three panels: 1) reportIdPanel, 2) metricsPanel, and
-     * 3) chartPanel. The frame is added to the desktop pane.
+     * Create the row model for the report list, which creates the report row panels and fills them with the data of
+     * the ordered reports. The report list only asks for the rows in or near the visible part of the list.
      *
      * TODO: clarify when we use reportNumber, reportUnit.getReportNum() - 1 and reportUnit.getReportNum(). [Freek]
      * [Pravin] reportUnit.getReportNum() - 1 represents report index. Index is used for array operations. 
      * I have added reportIndex variable and getReportIndex method in ReportUnit to avoid repetitive calls to
      * reportUnit.getReportNum() - 1.
      *
-     * @param reportUnit the report unit.
-     * @param reportNumber the report number.
-     */
-    private void addChartFrame(final ReportUnit reportUnit, final int reportNumber) {
-        logger.fine(String.format(ADD_CHART_FRAME_MESSAGE, reportNumber));
-        final ChartPanel chartPanel = new ChartPanel(reportUnit.getChartUnit().getTicChart());
-        chartPanel.addChartMouseListener(this);
-        chartPanel.setPreferredSize(new Dimension(chartPanelWidth, ACTUAL_CHART_HEIGHT));
-        chartPanelList.add(chartPanel);
-
-        final JPanel reportIdPanel = createReportIdPanel(reportUnit);
-        //metricsPanel uses GridLayout
-        final JPanel metricsPanel = createOrUpdateMetricsPanel(reportUnit, null);
-        reportUnitToMetricsPanel.put(reportUnit, metricsPanel);
-        
-        //displayPanel now uses FlowLayout
-        final JPanel displayPanel = new JPanel();
-        displayPanel.setLayout(new FlowLayout());
-        displayPanel.add(reportIdPanel);
-        displayPanel.add(metricsPanel);
-        displayPanel.add(chartPanel);
-        displayPanel.setBorder(null);
-
-        final JInternalFrame chartFrame = new JInternalFrame(CHART_FRAME_TITLE_PREFIX + reportNumber, true);
-        chartFrame.setName(Integer.toString(reportUnit.getReportIndex()));
-        ((javax.swing.plaf.basic.BasicInternalFrameUI) chartFrame.getUI()).setNorthPane(null);
-        chartFrame.getContentPane().add(displayPanel);
-        chartFrame.setBorder(BorderFactory.createRaisedBevelBorder());
-        chartFrame.pack();
-        chartFrame.setLocation(0, yCoordinate);
-        chartFrame.setVisible(true);
-        chartFrame.addMouseListener(this);
-        desktopPane.add(chartFrame);
-        logger.fine(String.format(YCOORDINATE_MESSAGE, yCoordinate));
-        yCoordinate += REPORT_ROW_HEIGHT;
-    }
+     * @return the row model for the report list.
+     */
+    private ReportListPane.RowModel createReportRowModel() {
+        return new ReportListPane.RowModel() {
+            @Override
+            public JComponent createRow() {
+                return new ReportRowPanel(ViewerFrame.this, ticDataCache, ticThumbnailCache, chartPanelWidth,
+                                          ACTUAL_CHART_HEIGHT, CHART_HEIGHT);
+            }
 
-    /**
-     * Create a panel for a report showing the report number, the selection check box and the metrics details button.
-     *
-     * @param reportUnit the report unit to show.
-     * @return the panel with the relevant information.
-     */
-    private JPanel createReportIdPanel(final ReportUnit reportUnit) {
-        final JLabel reportNumberLabel = new JLabel(Integer.toString(reportUnit.getReportNum()));
-
-        final JButton detailsButton = new JButton(DETAILS_BUTTON_LABEL);
-        detailsButton.setPreferredSize(new Dimension(ZOOM_BUTTON_WIDTH, ZOOM_BUTTON_HEIGHT));
-        detailsButton.setActionCommand(DETAILS_ACTION_PREFIX + reportUnit.getReportIndex());
-        detailsButton.addActionListener(this);
-
-        final JCheckBox selectionCheckBox = new JCheckBox(SORT_ORDER_COMPARE_LABEL);
-        selectionCheckBox.setBackground(Color.WHITE);
-        // TODO: perhaps it's easier to use the report number here as well, since any unique id is ok? [Freek]
-        // [Pravin] Using report index instead of report number
-        selectionCheckBox.setName(Integer.toString(reportUnit.getReportIndex()));
-        // This call to setSelected preserves selection status.
-        /** TODO: this call to setSelected is needed after a refresh of the report list? [Freek]
-         * [Pravin] Call to setSelected preserves selection status set by the user. 
-         * In case of refresh of the report list, we already clear reportIsSelected list using 
-         * reportIsSelected.clear(); [line 411]
-         * For every new report, selection status is set to false reportIsSelected.add(false); [Line 424]
-         * Hence this call setSelected works fine every time (It doesn't need to know difference between 
-         * refresh of the report list and reordering report list) 
-         */
-        selectionCheckBox.setSelected(reportIsSelected.get(reportUnit.getReportIndex()));
-        selectionCheckBox.addItemListener(this);
-
-        final JLabel reportErrorLabel = new JLabel(reportUnit.getReportErrorString());
-        reportErrorLabel.setFont(Constants.REPORT_ERROR_LABEL_FONT);
-        reportErrorLabel.setForeground(Color.RED);
-        reportErrorLabel.setMaximumSize(new Dimension(REPORT_ERROR_AREA_WIDTH, REPORT_ERROR_AREA_HEIGHT));
-
-        //reportIDPanel now uses BoxLayout //TODO: issues with center alignment
-        final JPanel reportIdPanel = new JPanel();
-        reportIdPanel.setLayout(new BoxLayout(reportIdPanel, BoxLayout.PAGE_AXIS));
-        reportIdPanel.setBackground(Color.WHITE);
-        reportIdPanel.add(Box.createRigidArea(Constants.DIMENSION_0X10));
-        reportIdPanel.add(reportNumberLabel, Component.CENTER_ALIGNMENT);
-        reportIdPanel.add(Box.createRigidArea(Constants.DIMENSION_0X10));
-        reportIdPanel.add(selectionCheckBox, Component.CENTER_ALIGNMENT);
-        reportIdPanel.add(Box.createRigidArea(Constants.DIMENSION_0X10));
-        reportIdPanel.add(detailsButton, Component.CENTER_ALIGNMENT);
-        reportIdPanel.add(Box.createRigidArea(Constants.DIMENSION_0X10)); 
-        reportIdPanel.add(reportErrorLabel, Component.CENTER_ALIGNMENT);
-        reportIdPanel.add(Box.createRigidArea(Constants.DIMENSION_0X10));
-        reportIdPanel.setPreferredSize(new Dimension(CHECK_PANEL_WIDTH, CHART_HEIGHT));
-
-        Utilities.setFontContainer(reportIdPanel, Constants.DEFAULT_FONT);
-        reportNumberLabel.setFont(Constants.REPORT_NUMBER_FONT);
-
-        return reportIdPanel;
+            @Override
+            public void showRow(final JComponent row, final int rowIndex) {
+                final ReportUnit reportUnit = orderedReportUnits.get(rowIndex);
+                logger.fine(String.format(SHOW_REPORT_ROW_MESSAGE, rowIndex, reportUnit.getReportNum()));
+                // This call preserves the selection status set by the user.
+                ((ReportRowPanel) row).showReport(reportUnit, reportIsSelected.get(reportUnit.getReportIndex()),
+                                                  selectedMetrics);
+            }
+
+            @Override
+            public void hideRow(final JComponent row) {
+                ((ReportRowPanel) row).hideReport();
+            }
+        };
     }
 
     /**
@@ -1620,55 +1628,11 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
         // Update the control frame to display the newly selected metrics.
         logger.fine(REFRESH_METRICS_VALUES_MESSAGE);
         parseSelectedMetricsData(selectedMetricsData);
-        for (final ReportUnit reportUnit : reportUnits) {
-            if (reportUnitToMetricsPanel.containsKey(reportUnit)) {
-                createOrUpdateMetricsPanel(reportUnit, reportUnitToMetricsPanel.get(reportUnit));
-            }
-        }
+        reportListPane.refreshRows();
         createOrUpdateSortPanel();
         revalidate();
     }
 
-    /**
-     * Create or update a panel with the metrics for the specified report unit.
-     *
-     * @param reportUnit the report unit
-     * @param existingMetricsPanel <code>null</code> to create a new panel or an existing panel to replace the labels.
-     * @return the panel with the metrics.
-     */
-    private JPanel createOrUpdateMetricsPanel(final ReportUnit reportUnit, final JPanel existingMetricsPanel) {
-        // Create a new metrics panel or remove all labels from the existing panel.
-        // metricsPanel already uses GridLayout 
-        final JPanel metricsPanel = existingMetricsPanel == null ? new JPanel() : existingMetricsPanel;
-        if (existingMetricsPanel == null) {
-            metricsPanel.setBackground(Color.WHITE);
-            metricsPanel.setLayout(new GridLayout(selectedMetrics.size(), 1));
-            metricsPanel.setPreferredSize(new Dimension(METRICS_PANEL_WIDTH, CHART_HEIGHT));
-        } else {
-            metricsPanel.removeAll();
-        }
-        // Add labels for each of the selected metrics.
-        int metricIndex = 0;
-        for (Map.Entry<String, String> metricEntry : selectedMetrics.entrySet()) {
-            final String metricValue = reportUnit.getMetricsValueFromKey(metricEntry.getKey());
-            final Color foregroundColor = LABEL_COLORS.get(metricIndex % LABEL_COLORS.size());
-            String metricName = metricEntry.getValue(); 
-            if (metricName.length() > METRIC_STRING_LENGTH) {
-                metricName = metricName.substring(0, METRIC_STRING_LENGTH) + "...";
-            }
-            final JLabel label = new JLabel(metricName + ": " + metricValue);
-            label.setFont(Constants.DEFAULT_FONT);
-            label.setForeground(foregroundColor);
-            metricsPanel.add(label);
-            metricIndex++;
-        }
-        if (existingMetricsPanel != null) {
-            metricsPanel.validate();
-            metricsPanel.repaint();
-        }
-        return metricsPanel;
-    }
-
     @Override
     public void itemStateChanged(final ItemEvent itemEvent) {
         //Find out index of selection, checked-unchecked and update CheckBoxList
@@ -1689,11 +1653,14 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
 
     @Override
     public void mouseClicked(final MouseEvent mouseEvent) {
+        // The row or the TIC chart in the row can be clicked.
         final Component clickedComponent = mouseEvent.getComponent();
-        if (clickedComponent instanceof JInternalFrame) {
-            final JInternalFrame clickedFrame = (JInternalFrame) clickedComponent;
-            logger.fine(String.format(FRAME_CLICKED_MESSAGE, clickedFrame.getTitle(), clickedFrame.getName()));
-            setTicGraphPaneChart(Integer.parseInt(clickedFrame.getName()));
+        final Component clickedRow = clickedComponent instanceof ReportRowPanel
+                                     ? clickedComponent
+                                     : SwingUtilities.getAncestorOfClass(ReportRowPanel.class, clickedComponent);
+        if (clickedRow != null) {
+            logger.fine(String.format(ROW_CLICKED_MESSAGE, clickedRow.getName()));
+            setTicGraphPaneChart(Integer.parseInt(clickedRow.getName()));
         }
     }
 
@@ -1713,27 +1680,6 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
     public void mouseReleased(final MouseEvent mouseEvent) {
     }
 
-    /**
-     * Select the related report when the user clicks a TIC chart.
-     *
-     * @param chartMouseEvent the chart mouse event.
-     */
-    @Override
-    public void chartMouseClicked(final ChartMouseEvent chartMouseEvent) {
-        // Parse chart index from title.
-        final StringTokenizer tokenizer = new StringTokenizer(chartMouseEvent.getChart().getTitle().getText(), "= ");
-        // Skip first token. Second token is chart index.
-        tokenizer.nextToken();
-        final int index = Integer.parseInt(tokenizer.nextToken());
-        logger.fine(String.format(GRAPH_CLICK_MESSAGE, index));
-        setTicGraphPaneChart(index);
-    }
-
-    @Override
-    public void chartMouseMoved(final ChartMouseEvent chartMouseEvent) {
-        // This event is not used.
-    }
-    
     /**
      * Calculate values of variable dimensions based on screen width and height. 
      */
@@ -1752,7 +1698,8 @@ public class ViewerFrame extends JFrame implements ActionListener, ItemListener,
         //Initial width of the desktop pane.
         desktopPaneWidth = splitPane1Width - WIDTH_ADJUSTMENT_PIXELS_SIZE; 
         //Width of the panel with a TIC chart for each report in the list.
-        chartPanelWidth = desktopPaneWidth - CHECK_PANEL_WIDTH - METRICS_PANEL_WIDTH - WIDTH_ADJUSTMENT_PIXELS_SIZE;
+        chartPanelWidth = desktopPaneWidth - ReportRowPanel.CHECK_PANEL_WIDTH - ReportRowPanel.METRICS_PANEL_WIDTH
+                          - WIDTH_ADJUSTMENT_PIXELS_SIZE;
         //Default height for the top split pane, which separates the top control panel from the rest of the GUI.
         splitPane1Height = viewerHeight; 
         //Default width for the TIC Graph pane.
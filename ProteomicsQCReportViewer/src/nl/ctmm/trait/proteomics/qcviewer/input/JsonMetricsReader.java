@@ -1,24 +1,26 @@
 package nl.ctmm.trait.proteomics.qcviewer.input;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Map;
-import java.util.StringTokenizer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import nl.ctmm.trait.proteomics.qcviewer.utils.Constants;
 
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
+import org.json.simple.parser.ContentHandler;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 
 /**
  * The class for reading metrics values from json files.
  *
+ * The json file is read in a single pass with the streaming (SAX like) interface of the json-simple parser, so no
+ * object tree is built for the complete file. Only the values of the supported metrics are kept.
+ *
  * @author <a href="mailto:pravin.pawar@nbic.nl">Pravin Pawar</a>
  * @author <a href="mailto:freek.de.bruijn@nbic.nl">Freek de Bruijn</a>
  */
@@ -27,38 +29,42 @@ public class JsonMetricsReader {
      * The logger for this class.
      */
     private static final Logger logger = Logger.getLogger(JsonMetricsReader.class.getName());
-    
+
     /**
-     * Message written to the logger in case exception occurs while reading JSON file. 
+     * Message written to the logger in case exception occurs while reading JSON file.
      */
-    private static final String JSON_FILE_EXCEPTION_MESSAGE = 
+    private static final String JSON_FILE_EXCEPTION_MESSAGE =
                         "Something went wrong while reading JSON file.";
 
     /**
-     * Name of parameter generic:date.
+     * Name of the QuaMeter json object "qm".
      */
-    private static final String DATE_PARAM_NAME = "date";
+    private static final String QUAMETER_OBJECT_NAME = "qm";
 
     /**
-     * Name of parameter generic:runtime. 
+     * The nesting depth of the metric category objects (like "generic") and the QuaMeter array in the json file.
      */
-    private static final String RUNTIME_PARAM_NAME = "runtime";
+    private static final int CATEGORY_DEPTH = 1;
 
     /**
-     * Name of the QuaMeter json object "qm".
+     * The nesting depth of the metric values (like "date" in "generic") and the QuaMeter key-value pair arrays.
+     */
+    private static final int METRIC_DEPTH = 2;
+
+    /**
+     * The nesting depth of the elements of the description-value arrays and the QuaMeter key-value pair arrays.
      */
-    private static final Object QUAMETER_OBJECT_NAME = "qm";
-    
+    private static final int ARRAY_ELEMENT_DEPTH = 3;
+
     /**
-     * Colon string to be used as separator. 
+     * The index of the value in the description-value arrays and the QuaMeter key-value pair arrays.
      */
-    private static final String COLON_SEPERATOR = ":";
-    
+    private static final int VALUE_INDEX = 1;
+
     /**
-     * The map with all metrics supported by the NIST QC pipeline. The keys are "category:code" strings and the values
-     * are descriptions of the metrics.
+     * The metrics parser with the canonical keys of all metrics supported by the NIST QC pipeline.
      */
-    private final Map<String, String> allMetricsMap;
+    private final MetricsParser metricsParser;
 
     /**
      * Read all supported metrics.
@@ -66,44 +72,41 @@ public class JsonMetricsReader {
      * @param metricsParser the metrics parser used to read the metrics definition file.
      */
     public JsonMetricsReader(final MetricsParser metricsParser) {
-        allMetricsMap = metricsParser.getMetricsListing();
+        this.metricsParser = metricsParser;
     }
-    
+
     /**
-     * Read the QC parameters for generic metrics and NIST metrics from the json file.
+     * Read the QC parameters for the generic, NIST and QuaMeter IDFree metrics from the json file.
+     *
+     * The json file contains an object per metrics category. The generic and NIST metrics are stored as strings (date
+     * and runtime) or as description-value arrays, for example:
+     * {"generic": {"date": "2012/Nov/07 - 14:18", "f_size": ["File Size (MB)", "830.9"]}}
+     * The QuaMeter metrics are stored as an array of key-value pair arrays, for example:
+     * {"qm": [["Filename","QE1_121213_OPL0000_mq_15.raw"], ["XIC-WideFrac","0.219303"]]}
+     *
+     * The json file does not always contain all the metrics and their values. In case one of the pipeline stages does
+     * not work as expected (such as spectral search), the corresponding metrics are not written to the json file. All
+     * supported metrics that are not found get the value "N/A".
      *
      * @param jsonFile the json file that contains the QC parameters.
      * @return map containing names of QC metrics and their values - as read from the json file.
      */
-    public Map<String, String> readJsonValuesForGenericAndNISTMetrics(final File jsonFile) {
-        final Map<String, String> metricsValues = new HashMap<>();
-        try {
-            final JSONObject jsonObject = (JSONObject) new JSONParser().parse(new FileReader(jsonFile));
-            /* TODO: can we read the available metrics from the json file instead of using allMetricsMap? [Freek]
-            [Pravin] The json file does not always contain all the metrics and their values.
-            e.g. In case one of the pipeline stages do not work as expected (such as spectral search)
-            then corresponding metrics are not written to the json file. No metrics information 
-            will be written to the json file in case of erroneous RAW data. 
-            Hence I prefer to use allMetricsMap.  
-            */ 
-            for (final String key : allMetricsMap.keySet()) {
-                //Initialize metricsValues to N/A
-                String paramValue = Constants.NOT_AVAILABLE_STRING;
-                //Split the key into jsonObject and parameters
-                final StringTokenizer keyTokenizer = new StringTokenizer(key, COLON_SEPERATOR);
-                final String objectName = keyTokenizer.nextToken();
-                final String paramName = keyTokenizer.nextToken();
-                //Check whether json file contains object name
-                if (!QUAMETER_OBJECT_NAME.equals(objectName) && jsonObject.containsKey(objectName)) {
-                    final JSONObject jObject = (JSONObject) jsonObject.get(objectName);
-                    if (DATE_PARAM_NAME.equals(paramName) || RUNTIME_PARAM_NAME.equals(paramName)) {
-                        paramValue = (String) jObject.get(paramName);
-                    } else {
-                        paramValue = (String) ((JSONArray) jObject.get(paramName)).get(1);
-                    }
-                }
-                metricsValues.put(key, paramValue);
-            }
+    public Map<String, String> readJsonValues(final File jsonFile) {
+        return metricsParser.createValueMap(readJsonValueArray(jsonFile));
+    }
+
+    /**
+     * Read the QC parameters from the json file into an array indexed by metric key ordinal, which avoids building
+     * metric key strings and hashing them. See {@link #readJsonValues} for the format of the json file.
+     *
+     * @param jsonFile the json file that contains the QC parameters.
+     * @return the metrics values indexed by {@link MetricKey#getOrdinal()} ("N/A" for metrics that were not found).
+     */
+    public String[] readJsonValueArray(final File jsonFile) {
+        final String[] metricsValues = new String[metricsParser.getMetricKeys().size()];
+        Arrays.fill(metricsValues, Constants.NOT_AVAILABLE_STRING);
+        try (final BufferedReader reader = new BufferedReader(new FileReader(jsonFile))) {
+            new JSONParser().parse(reader, new MetricsContentHandler(metricsValues));
         } catch (final IOException | ParseException e) {
             logger.log(Level.SEVERE, JSON_FILE_EXCEPTION_MESSAGE, e);
         }
@@ -111,43 +114,132 @@ public class JsonMetricsReader {
     }
 
     /**
-     * Read the QC parameters for QuaMeter IDFree metrics from the json file.
-     *
-     * @param jsonFile the json file that contains the QC parameters.
-     * @param metricsValues map containing values for generic and NIST QC metrics.  
-     * @return map containing names of Generic, NIST and QuaMeter metrics and their values - as read from the json file.
+     * The handler that receives the json parse events and stores the values of the supported metrics.
      */
-    public Map<String, String> readJsonValuesForQuaMeterIDFreeMetrics(final File jsonFile, final Map<String, String> metricsValues) {
-        try {
-            final JSONObject jsonObject = (JSONObject) new JSONParser().parse(new FileReader(jsonFile));
-            /* A JSONArray is an ordered sequence of values. 
-             *  Its external text form is a string wrapped in square brackets with commas separating the values.
-             * logger.fine("qmArray string = " + qmArray.toString());
-             * qmArray string = [["Filename","QE1_121213_OPL0000_mq_15.raw"],
-             * ["StartTimeStamp","2012-12-14T12:58:54Z"],["XIC-WideFrac","0.219303"],["XIC-FWHM-Q1","8.04827"],
-             * ["XIC-FWHM-Q2","9.85281"],["XIC-FWHM-Q3","12.5852"],["XIC-Height-Q2","0.542627"],["XIC-Height-Q3","0.71677"],
-             * ["XIC-Height-Q4","4.68125"],["RT-Duration","5099.99"],["RT-TIC-Q1","0.63985"],["RT-TIC-Q2","0.284944"],
-             * ["RT-TIC-Q3","0.0166225"],["RT-TIC-Q4","0.0585837"],["RT-MS-Q1","0.13553"],["RT-MS-Q2","0.311506"],
-             * ["RT-MS-Q3","0.344944"],["RT-MS-Q4","0.20802"],["RT-MSMS-Q1","0.302877"],["RT-MSMS-Q2","0.225113"],["RT-MSMS-Q3","0.210201"],
-             * ["RT-MSMS-Q4","0.261809"],["MS1-TIC-Change-Q2","0.855981"],["MS1-TIC-Change-Q3","0.804706"],["MS1-TIC-Change-Q4","6.12754"],
-             * ["MS1-TIC-Q2","0.176212"],["MS1-TIC-Q3","0.168427"],["MS1-TIC-Q4","3.08612"],["MS1-Count","6490"],
-             * ["MS1-Freq-Max","3.25913"],["MS1-Density-Q1","728"],["MS1-Density-Q2","1221"],["MS1-Density-Q3","1418.75"],
-             * ["MS2-Count","28618"],["MS2-Freq-Max","7.14872"],["MS2-Density-Q1","18"],["MS2-Density-Q2","30"],["MS2-Density-Q3","52"],
-             * ["MS2-PrecZ-1","0"],["MS2-PrecZ-2","0.316689"],["MS2-PrecZ-3","0.503879"],["MS2-PrecZ-4","0.130547"],
-             * ["MS2-PrecZ-5","0.034978"],["MS2-PrecZ-more","0.0139073"],["MS2-PrecZ-likely-1","0"],["MS2-PrecZ-likely-multi","0"]]
-             */
-            final JSONArray qmArray = (JSONArray) jsonObject.get(QUAMETER_OBJECT_NAME);
-            if (qmArray != null) {
-                for (int i = 0; i < qmArray.size(); ++i) {
-                    //["Filename","QE1_121213_OPL0000_mq_15.raw"]
-                    final JSONArray keyValuePair = (JSONArray) qmArray.get(i);
-                    //Add key and value to metricsValues
-                    metricsValues.put(QUAMETER_OBJECT_NAME + COLON_SEPERATOR + keyValuePair.get(0).toString(), keyValuePair.get(1).toString());
+    private class MetricsContentHandler implements ContentHandler {
+        /**
+         * The array that receives the metrics values, indexed by metric key ordinal.
+         */
+        private final String[] metricsValues;
+
+        /**
+         * The current nesting depth of objects and arrays.
+         */
+        private int depth;
+
+        /**
+         * The name of the current metrics category (like "generic" or "qm").
+         */
+        private String categoryName;
+
+        /**
+         * The name of the current metric within a category object.
+         */
+        private String metricName;
+
+        /**
+         * Whether the current container at the array element depth is an array.
+         */
+        private boolean inElementArray;
+
+        /**
+         * The index of the next element in the current array at the array element depth.
+         */
+        private int elementIndex;
+
+        /**
+         * Create a handler that stores the metrics values in an array.
+         *
+         * @param metricsValues the array that receives the metrics values, indexed by metric key ordinal.
+         */
+        public MetricsContentHandler(final String[] metricsValues) {
+            this.metricsValues = metricsValues;
+        }
+
+        @Override
+        public void startJSON() {
+            depth = 0;
+        }
+
+        @Override
+        public void endJSON() {
+        }
+
+        @Override
+        public boolean startObject() {
+            depth++;
+            if (depth == ARRAY_ELEMENT_DEPTH) {
+                inElementArray = false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean endObject() {
+            depth--;
+            return true;
+        }
+
+        @Override
+        public boolean startObjectEntry(final String key) {
+            if (depth == CATEGORY_DEPTH) {
+                categoryName = key;
+            } else if (depth == METRIC_DEPTH) {
+                metricName = key;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean endObjectEntry() {
+            return true;
+        }
+
+        @Override
+        public boolean startArray() {
+            depth++;
+            if (depth == ARRAY_ELEMENT_DEPTH) {
+                inElementArray = true;
+                elementIndex = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean endArray() {
+            depth--;
+            return true;
+        }
+
+        @Override
+        public boolean primitive(final Object value) {
+            final boolean quaMeter = QUAMETER_OBJECT_NAME.equals(categoryName);
+            if (depth == METRIC_DEPTH && !quaMeter) {
+                // Metric stored as a plain value, like generic:date and generic:runtime.
+                storeValue(metricsParser.getMetricKey(categoryName, metricName), value);
+            } else if (depth == ARRAY_ELEMENT_DEPTH && inElementArray) {
+                if (quaMeter && elementIndex == 0) {
+                    // The first element of a QuaMeter key-value pair is the metric name.
+                    metricName = String.valueOf(value);
+                } else if (elementIndex == VALUE_INDEX) {
+                    storeValue(metricsParser.getMetricKey(categoryName, metricName), value);
                 }
+                elementIndex++;
+            }
+            return true;
+        }
+
+        /**
+         * Store a metric value if the metric is supported.
+         *
+         * @param metricKey the metric key or <code>null</code> if the metric is not supported.
+         * @param value the value from the json file.
+         */
+        private void storeValue(final MetricKey metricKey, final Object value) {
+            if (metricKey != null) {
+                metricsValues[metricKey.getOrdinal()] = (value != null) ? value.toString()
+                                                                        : Constants.NOT_AVAILABLE_STRING;
             }
-        } catch (final IOException | ParseException e) {
-            logger.log(Level.SEVERE, JSON_FILE_EXCEPTION_MESSAGE, e);
         }
-        return metricsValues; 
     }
 }
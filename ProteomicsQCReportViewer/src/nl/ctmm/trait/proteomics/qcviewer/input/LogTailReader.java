@@ -0,0 +1,198 @@
+package nl.ctmm.trait.proteomics.qcviewer.input;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The class for reading the last non-blank line of a log file that only grows at the end, like qc_status.log.
+ *
+ * The file is read backwards in blocks from the end until the last non-blank line is found. The reader remembers the
+ * size of the file and the start of the last line, so the next time only the bytes from the start of the last line
+ * onwards are read: the cost of reading the last line does not depend on the size of the log file. If the file
+ * becomes smaller (for example because it was replaced), it is read from the end again.
+ *
+ * Independently of the last line, the reader can return the complete lines that were appended to the log file since
+ * the previous call, so the new log entries can be processed without reading the whole log file.
+ */
+public class LogTailReader {
+    /**
+     * The number of bytes that is read at a time while searching backwards.
+     */
+    static final int BLOCK_SIZE = 4096;
+
+    /**
+     * The log file.
+     */
+    private final File logFile;
+
+    /**
+     * The size of the log file when it was read last time.
+     */
+    private long readSize;
+
+    /**
+     * The offset of the last non-blank line in the log file or -1 if no non-blank line has been found yet.
+     */
+    private long lastLineStart = -1;
+
+    /**
+     * The last non-blank line (trimmed) or an empty string if no non-blank line has been found yet.
+     */
+    private String lastLine = "";
+
+    /**
+     * The offset up to which the appended lines have been returned or -1 if the appended lines are not tracked yet.
+     */
+    private long appendedLinesOffset = -1;
+
+    /**
+     * Construct a log tail reader.
+     *
+     * @param logFile the log file to read.
+     */
+    public LogTailReader(final File logFile) {
+        this.logFile = logFile;
+    }
+
+    /**
+     * Get the last non-blank line of the log file.
+     *
+     * @return the last non-blank line (trimmed), an empty string if the log file has no non-blank lines or null if the
+     *         log file does not exist.
+     * @throws IOException if the log file could not be read.
+     */
+    public synchronized String readLastLine() throws IOException {
+        if (!logFile.exists()) {
+            reset();
+            return null;
+        }
+        try (final RandomAccessFile file = new RandomAccessFile(logFile, "r")) {
+            final long size = file.length();
+            if (size < readSize) {
+                reset();
+            }
+            if (size != readSize) {
+                // The last line can only be in the new part of the file or be the (extended) last line found before.
+                final long lowerBound = lastLineStart >= 0 ? lastLineStart : readSize;
+                findLastLine(file, lowerBound, size);
+                readSize = size;
+            }
+        }
+        return lastLine;
+    }
+
+    /**
+     * Skip the lines that are currently in the log file: the next call to {@link #readAppendedLines()} only returns
+     * lines that are appended after this call.
+     *
+     * @throws IOException if the size of the log file could not be determined.
+     */
+    public synchronized void skipAppendedLines() throws IOException {
+        appendedLinesOffset = logFile.exists() ? Files.size(logFile.toPath()) : 0;
+    }
+
+    /**
+     * Read the complete lines that were appended to the log file since the previous call (or the call to
+     * {@link #skipAppendedLines()}). A line that is still being written (without a line separator) is returned by the
+     * next call after it is completed.
+     *
+     * @return the appended non-blank lines (trimmed) or <code>null</code> if the appended lines cannot be determined,
+     *         because the appended lines were not tracked yet or the log file has become smaller or was removed.
+     * @throws IOException if the log file could not be read.
+     */
+    public synchronized List<String> readAppendedLines() throws IOException {
+        if (appendedLinesOffset < 0 || !logFile.exists()) {
+            return null;
+        }
+        try (final RandomAccessFile file = new RandomAccessFile(logFile, "r")) {
+            final long size = file.length();
+            if (size < appendedLinesOffset) {
+                appendedLinesOffset = size;
+                return null;
+            }
+            final byte[] appendedBytes = new byte[(int) (size - appendedLinesOffset)];
+            file.seek(appendedLinesOffset);
+            file.readFully(appendedBytes);
+            final List<String> appendedLines = new ArrayList<>();
+            int lineStart = 0;
+            for (int index = 0; index < appendedBytes.length; index++) {
+                if (appendedBytes[index] == '\n') {
+                    final String line = new String(appendedBytes, lineStart, index - lineStart,
+                                                   Charset.defaultCharset()).trim();
+                    if (line.length() > 0) {
+                        appendedLines.add(line);
+                    }
+                    lineStart = index + 1;
+                }
+            }
+            appendedLinesOffset += lineStart;
+            return appendedLines;
+        }
+    }
+
+    /**
+     * Forget what has been read, so the log file is read from the end again.
+     */
+    private void reset() {
+        readSize = 0;
+        lastLineStart = -1;
+        lastLine = "";
+    }
+
+    /**
+     * Search backwards from the end of the file for the last non-blank line that starts at or after the lower bound.
+     * If there is no such line, the last line stays the same.
+     *
+     * @param file the log file.
+     * @param lowerBound the offset where the search stops.
+     * @param size the size of the log file.
+     * @throws IOException if the log file could not be read.
+     */
+    private void findLastLine(final RandomAccessFile file, final long lowerBound, final long size) throws IOException {
+        final byte[] block = new byte[BLOCK_SIZE];
+        long lineEnd = -1;
+        long lineStart = -1;
+        long blockEnd = size;
+        while (blockEnd > lowerBound && lineStart < 0) {
+            final long blockStart = Math.max(lowerBound, blockEnd - BLOCK_SIZE);
+            final int blockLength = (int) (blockEnd - blockStart);
+            file.seek(blockStart);
+            file.readFully(block, 0, blockLength);
+            for (int index = blockLength - 1; index >= 0 && lineStart < 0; index--) {
+                if (lineEnd < 0) {
+                    if (!isBlank(block[index])) {
+                        lineEnd = blockStart + index + 1;
+                    }
+                } else if (block[index] == '\n') {
+                    lineStart = blockStart + index + 1;
+                }
+            }
+            blockEnd = blockStart;
+        }
+        if (lineStart < 0) {
+            lineStart = lowerBound;
+        }
+        if (lineEnd >= 0) {
+            final byte[] lineBytes = new byte[(int) (lineEnd - lineStart)];
+            file.seek(lineStart);
+            file.readFully(lineBytes);
+            lastLineStart = lineStart;
+            lastLine = new String(lineBytes, Charset.defaultCharset()).trim();
+        }
+    }
+
+    /**
+     * Check whether a byte is a blank character that is removed by <code>String.trim</code>.
+     *
+     * @param value the byte to check.
+     * @return whether the byte is blank.
+     */
+    private static boolean isBlank(final byte value) {
+        return value >= 0 && value <= ' ';
+    }
+}
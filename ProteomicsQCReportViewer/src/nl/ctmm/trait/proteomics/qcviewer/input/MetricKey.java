@@ -0,0 +1,98 @@
+package nl.ctmm.trait.proteomics.qcviewer.input;
+
+/**
+ * The canonical description of a metric supported by the QC pipeline, like "dyn:ds-1a". The metrics parser creates a
+ * single instance per metric, so metric keys can be compared by identity and used by their ordinal as an array index.
+ */
+public final class MetricKey {
+    /**
+     * The ordinal of this metric key: the index of the metric in the metrics listing.
+     */
+    private final int ordinal;
+
+    /**
+     * The name of the json object that contains the metric, like "dyn".
+     */
+    private final String objectName;
+
+    /**
+     * The name of the metric parameter in the json object, like "ds-1a".
+     */
+    private final String paramName;
+
+    /**
+     * The (interned) key of the metric: the object name and the parameter name separated by a colon.
+     */
+    private final String key;
+
+    /**
+     * The description of the metric, like "Ratios of Peptide Ions IDed (Once/Twice)".
+     */
+    private final String description;
+
+    /**
+     * Create a metric key.
+     *
+     * @param ordinal the index of the metric in the metrics listing.
+     * @param objectName the name of the json object that contains the metric.
+     * @param paramName the name of the metric parameter in the json object.
+     * @param description the description of the metric.
+     */
+    MetricKey(final int ordinal, final String objectName, final String paramName, final String description) {
+        this.ordinal = ordinal;
+        this.objectName = objectName.intern();
+        this.paramName = paramName.intern();
+        this.key = (objectName + MetricsParser.KEY_SEPARATOR + paramName).intern();
+        this.description = description;
+    }
+
+    /**
+     * Get the ordinal of this metric key.
+     *
+     * @return the index of the metric in the metrics listing.
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    /**
+     * Get the name of the json object that contains the metric.
+     *
+     * @return the object name.
+     */
+    public String getObjectName() {
+        return objectName;
+    }
+
+    /**
+     * Get the name of the metric parameter in the json object.
+     *
+     * @return the parameter name.
+     */
+    public String getParamName() {
+        return paramName;
+    }
+
+    /**
+     * Get the key of the metric, like "dyn:ds-1a".
+     *
+     * @return the (interned) key.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Get the description of the metric.
+     *
+     * @return the description.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
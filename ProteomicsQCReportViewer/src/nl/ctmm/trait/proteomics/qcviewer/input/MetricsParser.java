@@ -3,8 +3,11 @@ package nl.ctmm.trait.proteomics.qcviewer.input;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.StringTokenizer;
 import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -16,64 +19,184 @@ import org.apache.commons.io.FilenameUtils;
 /**
  * The class for parsing metrics IDs and descriptions from the MetricsListing.txt file.
  *
+ * Each metric gets a canonical {@link MetricKey} with an ordinal (the index of the metric in the sorted listing), so
+ * the metrics readers can look up metrics without building key strings and store values in arrays indexed by ordinal.
+ * The listing is read once when the parser is created and is not changed afterwards, so the parser can be used by
+ * multiple threads.
+ *
  * @author <a href="mailto:pravin.pawar@nbic.nl">Pravin Pawar</a>
  * @author <a href="mailto:freek.de.bruijn@nbic.nl">Freek de Bruijn</a>
  */
 public class MetricsParser {
+    /**
+     * The separator between the json object name and the parameter name in a metric key, like "dyn:ds-1a".
+     */
+    public static final String KEY_SEPARATOR = ":";
+
     /**
      * The logger for this class.
      */
     private static final Logger logger = Logger.getLogger(MetricsParser.class.getName());
 
     /**
-     * Message written to the logger in case exception occurs while reading metrics listing. 
+     * Message written to the logger in case exception occurs while reading metrics listing.
      */
-    private static final String METRICS_LISTING_EXCEPTION_MESSAGE = 
+    private static final String METRICS_LISTING_EXCEPTION_MESSAGE =
           "Something went wrong while reading the metrics definition file: %s.";
 
+    /**
+     * Message written to the logger for a line in the metrics listing that does not define a metric.
+     */
+    private static final String INVALID_METRIC_LINE_MESSAGE = "Skipped invalid line in the metrics definition file: %s";
+
     /**
      * The map with all metrics supported by the NIST QC pipeline. The keys are "category:code" strings and the values
      * are descriptions of the metrics.
      * <p/>
      * For example, key: "dyn:ds-1a" and value: "Ratios of Peptide Ions IDed (Once/Twice)".
      */
-    private Map<String, String> allMetricsMap;
+    private final Map<String, String> allMetricsMap = new TreeMap<>();
+
+    /**
+     * The canonical metric keys in the order of their ordinals.
+     */
+    private final List<MetricKey> metricKeys = new ArrayList<>();
+
+    /**
+     * Mapping from metric key strings to the canonical metric keys.
+     */
+    private final Map<String, MetricKey> metricKeysByKey = new HashMap<>();
+
+    /**
+     * Mapping from json object names to parameter names to the canonical metric keys.
+     */
+    private final Map<String, Map<String, MetricKey>> metricKeysByObject = new HashMap<>();
 
     /**
-     * Get all the metrics by reading them from the MetricsListing.txt file.
+     * Create a metrics parser and read all the metrics from the MetricsListing.txt file.
+     */
+    public MetricsParser() {
+        readMetricsListing();
+    }
+
+    /**
+     * Get all the metrics that were read from the MetricsListing.txt file.
      *
      * @return map containing key and value of metrics.
      */
     public Map<String, String> getMetricsListing() {
-        if (allMetricsMap == null) {
-            readMetricsListing();
-        }
         return allMetricsMap;
     }
 
     /**
-     * Read all the metrics from the MetricsListing.txt file.
+     * Get the canonical metric keys.
+     *
+     * @return the metric keys in the order of their ordinals.
+     */
+    public List<MetricKey> getMetricKeys() {
+        return Collections.unmodifiableList(metricKeys);
+    }
+
+    /**
+     * Get the canonical metric key for a key string, like "dyn:ds-1a".
+     *
+     * @param key the key string.
+     * @return the metric key or <code>null</code> if the metric is not supported.
+     */
+    public MetricKey getMetricKey(final String key) {
+        return metricKeysByKey.get(key);
+    }
+
+    /**
+     * Get the canonical metric key for a json object name and parameter name, without building the key string.
+     *
+     * @param objectName the json object name, like "dyn".
+     * @param paramName the parameter name, like "ds-1a".
+     * @return the metric key or <code>null</code> if the metric is not supported.
+     */
+    public MetricKey getMetricKey(final String objectName, final String paramName) {
+        final Map<String, MetricKey> objectMetricKeys = metricKeysByObject.get(objectName);
+        return (objectMetricKeys != null) ? objectMetricKeys.get(paramName) : null;
+    }
+
+    /**
+     * Convert metrics values indexed by ordinal to a map with key strings.
+     *
+     * @param metricsValues the metrics values indexed by metric key ordinal.
+     * @return map from metric key strings to values (without entries for <code>null</code> values).
+     */
+    public Map<String, String> createValueMap(final String[] metricsValues) {
+        final Map<String, String> valueMap = new HashMap<>();
+        for (final MetricKey metricKey : metricKeys) {
+            final String value = metricsValues[metricKey.getOrdinal()];
+            if (value != null) {
+                valueMap.put(metricKey.getKey(), value);
+            }
+        }
+        return valueMap;
+    }
+
+    /**
+     * Convert a map with key strings to metrics values indexed by ordinal. Unsupported metrics are ignored.
+     *
+     * @param valueMap map from metric key strings to values.
+     * @return the metrics values indexed by metric key ordinal (<code>null</code> for metrics without a value).
+     */
+    public String[] createValueArray(final Map<String, String> valueMap) {
+        final String[] metricsValues = new String[metricKeys.size()];
+        for (final MetricKey metricKey : metricKeys) {
+            metricsValues[metricKey.getOrdinal()] = valueMap.get(metricKey.getKey());
+        }
+        return metricsValues;
+    }
+
+    /**
+     * Read all the metrics from the MetricsListing.txt file and create the canonical metric keys.
      */
     private void readMetricsListing() {
-        /*Thanks to Freek for the tip to replace HashMap<> with TreeMap<> so that the metrics  
-         * keys are automatically sorted. */ 
-        allMetricsMap = new TreeMap<>();
-        try {
-            final String fileName = FilenameUtils.normalize(Constants.METRICS_LISTING_FILE_NAME);
-            final BufferedReader reader = new BufferedReader(new FileReader(fileName));
+        /*Thanks to Freek for the tip to replace HashMap<> with TreeMap<> so that the metrics
+         * keys are automatically sorted. */
+        final Map<String, String[]> metricDefinitions = new TreeMap<>();
+        final String fileName = FilenameUtils.normalize(Constants.METRICS_LISTING_FILE_NAME);
+        try (final BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
             String line;
             while ((line = reader.readLine()) != null) {
-                final String separator = ":";
-                final StringTokenizer lineTokenizer = new StringTokenizer(line, separator);
-                // The first two tokens together form key of the metric e.g. "ion:is-1b".
-                final String key = lineTokenizer.nextToken() + separator + lineTokenizer.nextToken();
-                // The second token is description of the metric.
-                final String value = lineTokenizer.nextToken();
-                allMetricsMap.put(key, value);
+                // A line contains the object name, the parameter name and the description, e.g. "ion:is-1b:MS1...".
+                final int paramStart = line.indexOf(KEY_SEPARATOR) + 1;
+                final int descriptionStart = line.indexOf(KEY_SEPARATOR, paramStart) + 1;
+                if (paramStart > 0 && descriptionStart > 0) {
+                    final int descriptionEnd = line.indexOf(KEY_SEPARATOR, descriptionStart);
+                    final String[] definition = {
+                        line.substring(0, paramStart - 1),
+                        line.substring(paramStart, descriptionStart - 1),
+                        (descriptionEnd >= 0) ? line.substring(descriptionStart, descriptionEnd)
+                                              : line.substring(descriptionStart)
+                    };
+                    metricDefinitions.put(line.substring(0, descriptionStart - 1), definition);
+                } else if (!line.trim().isEmpty()) {
+                    logger.warning(String.format(INVALID_METRIC_LINE_MESSAGE, line));
+                }
             }
-            reader.close();
-        } catch (final NumberFormatException | IOException e) {
+        } catch (final IOException e) {
             logger.log(Level.SEVERE, String.format(METRICS_LISTING_EXCEPTION_MESSAGE, Constants.METRICS_LISTING_FILE_NAME), e);
         }
+        for (final String[] definition : metricDefinitions.values()) {
+            addMetricKey(new MetricKey(metricKeys.size(), definition[0], definition[1], definition[2]));
+        }
+    }
+
+    /**
+     * Add a canonical metric key to the registry.
+     *
+     * @param metricKey the metric key.
+     */
+    private void addMetricKey(final MetricKey metricKey) {
+        metricKeys.add(metricKey);
+        metricKeysByKey.put(metricKey.getKey(), metricKey);
+        if (!metricKeysByObject.containsKey(metricKey.getObjectName())) {
+            metricKeysByObject.put(metricKey.getObjectName(), new HashMap<String, MetricKey>());
+        }
+        metricKeysByObject.get(metricKey.getObjectName()).put(metricKey.getParamName(), metricKey);
+        allMetricsMap.put(metricKey.getKey(), metricKey.getDescription());
     }
 }
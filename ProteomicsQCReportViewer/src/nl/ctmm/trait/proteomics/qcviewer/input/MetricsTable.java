@@ -0,0 +1,419 @@
+package nl.ctmm.trait.proteomics.qcviewer.input;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import nl.ctmm.trait.proteomics.qcviewer.utils.Constants;
+
+/**
+ * The columnar store with the metrics values of all reports. Each report has a row in the table; each metric key has a
+ * column with a primitive <code>double</code> value per row and a bitmap that marks the rows that have a value.
+ *
+ * The metric keys are dictionary encoded: the keys from the metrics listing get a column index up front (equal to the
+ * ordinal of their {@link MetricKey}) and other keys (like the maximum TIC intensity) get one when they are first
+ * used. The rows with "N/A" are marked in a bitmap and other values that are not plain numbers (like the measured
+ * date) are kept as text in an array next to the column; for numbers only the text format is recorded, so
+ * {@link #getValue} returns exactly the text that was stored.
+ *
+ * Reports are loaded by multiple threads, so the methods of this class are synchronized.
+ */
+public class MetricsTable {
+    /**
+     * The initial number of rows for which space is reserved in a column.
+     */
+    private static final int INITIAL_ROW_CAPACITY = 16;
+
+    /**
+     * Mapping from metric keys to column indices.
+     */
+    private final Map<String, Integer> keyIndices = new HashMap<>();
+
+    /**
+     * The metric keys in the order of their column indices.
+     */
+    private final List<String> keys = new ArrayList<>();
+
+    /**
+     * The columns in the order of their column indices (a column is <code>null</code> until a value is stored).
+     */
+    private final List<Column> columns = new ArrayList<>();
+
+    /**
+     * The number of rows in the table.
+     */
+    private int rowCount;
+
+    /**
+     * Create an empty metrics table.
+     */
+    public MetricsTable() {
+    }
+
+    /**
+     * Create a metrics table with a column index for each metric from the metrics listing.
+     *
+     * @param metricsParser the metrics parser with the metrics listing.
+     */
+    public MetricsTable(final MetricsParser metricsParser) {
+        for (final MetricKey metricKey : metricsParser.getMetricKeys()) {
+            getKeyIndex(metricKey.getKey());
+        }
+    }
+
+    /**
+     * Add a row (without values) for a report.
+     *
+     * @return the index of the new row.
+     */
+    public synchronized int addRow() {
+        rowCount++;
+        return rowCount - 1;
+    }
+
+    /**
+     * Get the number of rows in the table.
+     *
+     * @return the number of rows.
+     */
+    public synchronized int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Get the metric keys that have a column index, in the order of their column indices.
+     *
+     * @return the metric keys.
+     */
+    public synchronized List<String> getKeys() {
+        return new ArrayList<>(keys);
+    }
+
+    /**
+     * Set the value of a metric in a row.
+     *
+     * @param rowIndex the index of the row.
+     * @param key the metric key.
+     * @param value the metric value or <code>null</code> to remove the value.
+     */
+    public synchronized void setValue(final int rowIndex, final String key, final String value) {
+        setValue(rowIndex, getKeyIndex(key), value);
+    }
+
+    /**
+     * Set the value of a metric in a row.
+     *
+     * @param rowIndex the index of the row.
+     * @param metricKey the canonical metric key.
+     * @param value the metric value or <code>null</code> to remove the value.
+     */
+    public synchronized void setValue(final int rowIndex, final MetricKey metricKey, final String value) {
+        setValue(rowIndex, getKeyIndex(metricKey), value);
+    }
+
+    /**
+     * Replace all the values in a row.
+     *
+     * @param rowIndex the index of the row.
+     * @param values mapping from metric keys to values.
+     */
+    public synchronized void setValues(final int rowIndex, final Map<String, String> values) {
+        clearRow(rowIndex);
+        for (final Map.Entry<String, String> valueEntry : values.entrySet()) {
+            setValue(rowIndex, getKeyIndex(valueEntry.getKey()), valueEntry.getValue());
+        }
+    }
+
+    /**
+     * Replace all the values in a row with values indexed by metric key ordinal.
+     *
+     * @param rowIndex the index of the row.
+     * @param metricKeys the canonical metric keys in the order of their ordinals.
+     * @param values the values indexed by metric key ordinal (<code>null</code> for metrics without a value).
+     */
+    public synchronized void setValues(final int rowIndex, final List<MetricKey> metricKeys, final String[] values) {
+        clearRow(rowIndex);
+        for (final MetricKey metricKey : metricKeys) {
+            setValue(rowIndex, getKeyIndex(metricKey), values[metricKey.getOrdinal()]);
+        }
+    }
+
+    /**
+     * Get the value of a metric in a row.
+     *
+     * @param rowIndex the index of the row.
+     * @param key the metric key.
+     * @return the metric value or <code>null</code> if the row has no value for this metric.
+     */
+    public synchronized String getValue(final int rowIndex, final String key) {
+        final Column column = getColumn(key);
+        return (column != null) ? column.get(rowIndex) : null;
+    }
+
+    /**
+     * Get the numeric value of a metric in a row.
+     *
+     * @param rowIndex the index of the row.
+     * @param key the metric key.
+     * @return the numeric value or <code>Double.NaN</code> if the row has no numeric value for this metric.
+     */
+    public synchronized double getNumericValue(final int rowIndex, final String key) {
+        final Column column = getColumn(key);
+        return (column != null) ? column.getNumeric(rowIndex) : Double.NaN;
+    }
+
+    /**
+     * Get all the values in a row.
+     *
+     * @param rowIndex the index of the row.
+     * @return mapping from metric keys to values or <code>null</code> if the row has no values.
+     */
+    public synchronized Map<String, String> getValues(final int rowIndex) {
+        Map<String, String> values = null;
+        for (int keyIndex = 0; keyIndex < columns.size(); keyIndex++) {
+            final Column column = columns.get(keyIndex);
+            if (column != null && column.contains(rowIndex)) {
+                if (values == null) {
+                    values = new HashMap<>();
+                }
+                values.put(keys.get(keyIndex), column.get(rowIndex));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Set the value of a metric in a row.
+     *
+     * @param rowIndex the index of the row.
+     * @param keyIndex the column index of the metric.
+     * @param value the metric value or <code>null</code> to remove the value.
+     */
+    private void setValue(final int rowIndex, final int keyIndex, final String value) {
+        if (value != null) {
+            getColumn(keyIndex, true).set(rowIndex, value);
+        } else if (columns.get(keyIndex) != null) {
+            columns.get(keyIndex).remove(rowIndex);
+        }
+    }
+
+    /**
+     * Remove all the values in a row.
+     *
+     * @param rowIndex the index of the row.
+     */
+    private void clearRow(final int rowIndex) {
+        for (final Column column : columns) {
+            if (column != null) {
+                column.remove(rowIndex);
+            }
+        }
+    }
+
+    /**
+     * Get the column index of a canonical metric key. The ordinal is used directly if it is the column index of the
+     * key, which is the case for tables created with the metrics parser that created the key.
+     *
+     * @param metricKey the canonical metric key.
+     * @return the column index.
+     */
+    private int getKeyIndex(final MetricKey metricKey) {
+        final int ordinal = metricKey.getOrdinal();
+        final boolean ordinalIsIndex = ordinal < keys.size() && keys.get(ordinal).equals(metricKey.getKey());
+        return ordinalIsIndex ? ordinal : getKeyIndex(metricKey.getKey());
+    }
+
+    /**
+     * Get the column index of a metric key, adding the key if it does not have a column index yet.
+     *
+     * @param key the metric key.
+     * @return the column index.
+     */
+    private int getKeyIndex(final String key) {
+        Integer keyIndex = keyIndices.get(key);
+        if (keyIndex == null) {
+            keyIndex = keys.size();
+            keyIndices.put(key, keyIndex);
+            keys.add(key);
+            columns.add(null);
+        }
+        return keyIndex;
+    }
+
+    /**
+     * Get the column of a metric key.
+     *
+     * @param key the metric key.
+     * @return the column or <code>null</code> if no values have been stored for this metric.
+     */
+    private Column getColumn(final String key) {
+        final Integer keyIndex = keyIndices.get(key);
+        return (keyIndex != null) ? getColumn(keyIndex, false) : null;
+    }
+
+    /**
+     * Get the column with a column index.
+     *
+     * @param keyIndex the column index.
+     * @param create whether to create the column if it does not exist yet.
+     * @return the column or <code>null</code> if it does not exist and should not be created.
+     */
+    private Column getColumn(final int keyIndex, final boolean create) {
+        Column column = columns.get(keyIndex);
+        if (column == null && create) {
+            column = new Column();
+            columns.set(keyIndex, column);
+        }
+        return column;
+    }
+
+    /**
+     * The values of a single metric for all rows.
+     */
+    private static class Column {
+        /**
+         * The numeric values indexed by row (<code>Double.NaN</code> for values that are not numbers).
+         */
+        private double[] numericValues = new double[INITIAL_ROW_CAPACITY];
+
+        /**
+         * The rows that have a value.
+         */
+        private final BitSet presentRows = new BitSet();
+
+        /**
+         * The rows with a whole number that was stored without a decimal point (like "42" instead of "42.0").
+         */
+        private final BitSet wholeNumberRows = new BitSet();
+
+        /**
+         * The rows with the value "N/A".
+         */
+        private final BitSet notAvailableRows = new BitSet();
+
+        /**
+         * The texts of the values that are not stored as a number, indexed by row (<code>null</code> until the column
+         * has such a value).
+         */
+        private String[] texts;
+
+        /**
+         * Set the value in a row.
+         *
+         * @param rowIndex the index of the row.
+         * @param value the value.
+         */
+        public void set(final int rowIndex, final String value) {
+            if (rowIndex >= numericValues.length) {
+                numericValues = Arrays.copyOf(numericValues, Math.max(rowIndex + 1, 2 * numericValues.length));
+            }
+            remove(rowIndex);
+            presentRows.set(rowIndex);
+            if (Constants.NOT_AVAILABLE_STRING.equals(value)) {
+                numericValues[rowIndex] = Double.NaN;
+                notAvailableRows.set(rowIndex);
+            } else {
+                setParsedValue(rowIndex, value);
+            }
+        }
+
+        /**
+         * Set a value other than "N/A" in a row: as a number or, if that does not give back the same text, as text.
+         *
+         * @param rowIndex the index of the row.
+         * @param value the value.
+         */
+        private void setParsedValue(final int rowIndex, final String value) {
+            double numericValue;
+            try {
+                numericValue = Double.parseDouble(value);
+            } catch (final NumberFormatException e) {
+                numericValue = Double.NaN;
+            }
+            numericValues[rowIndex] = numericValue;
+            if (Double.isNaN(numericValue) || Double.isInfinite(numericValue)) {
+                setText(rowIndex, value);
+            } else if (!value.equals(Double.toString(numericValue))) {
+                final boolean wholeNumber = numericValue == Math.rint(numericValue)
+                                            && value.equals(Long.toString((long) numericValue));
+                if (wholeNumber) {
+                    wholeNumberRows.set(rowIndex);
+                } else {
+                    setText(rowIndex, value);
+                }
+            }
+        }
+
+        /**
+         * Remove the value in a row.
+         *
+         * @param rowIndex the index of the row.
+         */
+        public void remove(final int rowIndex) {
+            presentRows.clear(rowIndex);
+            wholeNumberRows.clear(rowIndex);
+            notAvailableRows.clear(rowIndex);
+            if (texts != null && rowIndex < texts.length) {
+                texts[rowIndex] = null;
+            }
+        }
+
+        /**
+         * Check whether a row has a value.
+         *
+         * @param rowIndex the index of the row.
+         * @return whether the row has a value.
+         */
+        public boolean contains(final int rowIndex) {
+            return presentRows.get(rowIndex);
+        }
+
+        /**
+         * Get the value in a row.
+         *
+         * @param rowIndex the index of the row.
+         * @return the value or <code>null</code> if the row has no value.
+         */
+        public String get(final int rowIndex) {
+            final String value;
+            if (!presentRows.get(rowIndex)) {
+                value = null;
+            } else if (notAvailableRows.get(rowIndex)) {
+                value = Constants.NOT_AVAILABLE_STRING;
+            } else if (texts != null && rowIndex < texts.length && texts[rowIndex] != null) {
+                value = texts[rowIndex];
+            } else if (wholeNumberRows.get(rowIndex)) {
+                value = Long.toString((long) numericValues[rowIndex]);
+            } else {
+                value = Double.toString(numericValues[rowIndex]);
+            }
+            return value;
+        }
+
+        /**
+         * Get the numeric value in a row.
+         *
+         * @param rowIndex the index of the row.
+         * @return the numeric value or <code>Double.NaN</code> if the row has no numeric value.
+         */
+        public double getNumeric(final int rowIndex) {
+            return presentRows.get(rowIndex) ? numericValues[rowIndex] : Double.NaN;
+        }
+
+        /**
+         * Store the text of a value that is not stored as a number. The text array grows with the numeric values.
+         *
+         * @param rowIndex the index of the row.
+         * @param text the text of the value.
+         */
+        private void setText(final int rowIndex, final String text) {
+            if (texts == null || texts.length < numericValues.length) {
+                texts = (texts == null) ? new String[numericValues.length] : Arrays.copyOf(texts, numericValues.length);
+            }
+            texts[rowIndex] = text;
+        }
+    }
+}
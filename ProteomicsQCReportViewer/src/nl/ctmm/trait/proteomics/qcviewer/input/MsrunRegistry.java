@@ -0,0 +1,117 @@
+package nl.ctmm.trait.proteomics.qcviewer.input;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The registry of the msruns whose reports have been loaded, which is used to skip these msruns when reports are
+ * retrieved again. It is backed by a concurrent hash set, so membership checks take constant time and the registry
+ * can be used from the progress log monitor thread and the event dispatch thread at the same time. The registry also
+ * remembers the report number of each msrun, also after it has been unregistered, so an msrun whose directory
+ * reappears gets its old report number and replaces its report in the viewer instead of being added twice.
+ */
+public class MsrunRegistry {
+    /**
+     * The names of the loaded msruns.
+     */
+    private final Set<String> msrunNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * Mapping from msrun names to the report numbers of their reports in the viewer.
+     */
+    private final Map<String, Integer> reportNumbers = new ConcurrentHashMap<>();
+
+    /**
+     * Check whether an msrun has been loaded.
+     *
+     * @param msrunName the name of the msrun.
+     * @return whether the msrun has been loaded.
+     */
+    public boolean contains(final String msrunName) {
+        return msrunNames.contains(msrunName);
+    }
+
+    /**
+     * Register an msrun as loaded.
+     *
+     * @param msrunName the name of the msrun.
+     * @return whether the msrun was not registered yet.
+     */
+    public boolean register(final String msrunName) {
+        return msrunNames.add(msrunName);
+    }
+
+    /**
+     * Register an msrun as loaded and remember the report number of its report.
+     *
+     * @param msrunName the name of the msrun.
+     * @param reportNum the report number of the report of the msrun.
+     * @return whether the msrun was not registered yet.
+     */
+    public boolean register(final String msrunName, final int reportNum) {
+        reportNumbers.put(msrunName, reportNum);
+        return msrunNames.add(msrunName);
+    }
+
+    /**
+     * Register msruns as loaded.
+     *
+     * @param newMsrunNames the names of the msruns.
+     */
+    public void registerAll(final Collection<String> newMsrunNames) {
+        msrunNames.addAll(newMsrunNames);
+    }
+
+    /**
+     * Remove an msrun from the registry, for example when its directory has been removed. The report number of the
+     * msrun is kept.
+     *
+     * @param msrunName the name of the msrun.
+     * @return whether the msrun was registered.
+     */
+    public boolean unregister(final String msrunName) {
+        return msrunNames.remove(msrunName);
+    }
+
+    /**
+     * Get the report number of an msrun that has been registered, even if it has been unregistered since.
+     *
+     * @param msrunName the name of the msrun.
+     * @return the report number or 0 if no report number is known for the msrun.
+     */
+    public int getReportNumber(final String msrunName) {
+        final Integer reportNum = reportNumbers.get(msrunName);
+        return (reportNum != null) ? reportNum : 0;
+    }
+
+    /**
+     * Get the names of the registered msruns.
+     *
+     * @return a copy of the names of the registered msruns.
+     */
+    public List<String> getMsrunNames() {
+        return new ArrayList<>(msrunNames);
+    }
+
+    /**
+     * Remove all msruns and their report numbers from the registry, because the reports in the viewer are replaced.
+     */
+    public void clear() {
+        msrunNames.clear();
+        reportNumbers.clear();
+    }
+
+    /**
+     * Get the number of registered msruns.
+     *
+     * @return the number of registered msruns.
+     */
+    public int size() {
+        return msrunNames.size();
+    }
+}
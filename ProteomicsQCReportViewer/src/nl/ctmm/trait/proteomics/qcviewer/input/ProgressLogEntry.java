@@ -0,0 +1,110 @@
+package nl.ctmm.trait.proteomics.qcviewer.input;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.StringTokenizer;
+
+/**
+ * An entry (line) in the qc_status.log file of the QC pipeline, like:
+ *
+ * 2013-06-04 13:40:01.191000    QE2_101109_OPL0004_TSV_mousecelllineL_Q1_2.raw    completed
+ */
+public class ProgressLogEntry {
+    /**
+     * The date/time pattern of the log entries (without the microseconds).
+     */
+    private static final String TIMESTAMP_PATTERN = "yyyy-MM-dd HH:mm:ss";
+
+    /**
+     * The number of whitespace separated fields in a log entry: date, time, raw file name and status.
+     */
+    private static final int FIELD_COUNT = 4;
+
+    /**
+     * The extension of the raw file names in the log entries.
+     */
+    private static final String RAW_FILE_EXTENSION = ".raw";
+
+    /**
+     * The date and time of the log entry.
+     */
+    private final Date timestamp;
+
+    /**
+     * The name of the msrun: the raw file name without the .raw extension.
+     */
+    private final String msrunName;
+
+    /**
+     * The status of the msrun, like running or completed.
+     */
+    private final String status;
+
+    /**
+     * Construct a progress log entry.
+     *
+     * @param timestamp the date and time of the log entry.
+     * @param msrunName the name of the msrun.
+     * @param status the status of the msrun.
+     */
+    public ProgressLogEntry(final Date timestamp, final String msrunName, final String status) {
+        this.timestamp = new Date(timestamp.getTime());
+        this.msrunName = msrunName;
+        this.status = status;
+    }
+
+    /**
+     * Parse a line from the log file.
+     *
+     * @param line the line to parse.
+     * @return the log entry or <code>null</code> if the line is not a valid log entry.
+     */
+    public static ProgressLogEntry parse(final String line) {
+        final StringTokenizer lineTokenizer = new StringTokenizer(line);
+        if (lineTokenizer.countTokens() != FIELD_COUNT) {
+            return null;
+        }
+        final String dateTime = lineTokenizer.nextToken() + " " + lineTokenizer.nextToken();
+        final String rawFileName = lineTokenizer.nextToken();
+        final String status = lineTokenizer.nextToken();
+        final int fractionIndex = dateTime.indexOf('.');
+        try {
+            final Date timestamp = new SimpleDateFormat(TIMESTAMP_PATTERN).parse(
+                    fractionIndex >= 0 ? dateTime.substring(0, fractionIndex) : dateTime);
+            final String msrunName = rawFileName.toLowerCase().endsWith(RAW_FILE_EXTENSION)
+                                     ? rawFileName.substring(0, rawFileName.length() - RAW_FILE_EXTENSION.length())
+                                     : rawFileName;
+            return new ProgressLogEntry(timestamp, msrunName, status);
+        } catch (final ParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get the date and time of the log entry.
+     *
+     * @return the date and time of the log entry.
+     */
+    public Date getTimestamp() {
+        return new Date(timestamp.getTime());
+    }
+
+    /**
+     * Get the name of the msrun.
+     *
+     * @return the name of the msrun.
+     */
+    public String getMsrunName() {
+        return msrunName;
+    }
+
+    /**
+     * Get the status of the msrun.
+     *
+     * @return the status of the msrun, like running or completed.
+     */
+    public String getStatus() {
+        return status;
+    }
+}
@@ -1,17 +1,25 @@
 package nl.ctmm.trait.proteomics.qcviewer.input;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.StringTokenizer;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -41,6 +49,21 @@ public class ProgressLogReader {
      */
     private static final ProgressLogReader INSTANCE = new ProgressLogReader();
 
+    /**
+     * Message written to the logger when the log file is watched for changes.
+     */
+    private static final String WATCHING_MESSAGE = "Watching %s for changes.";
+
+    /**
+     * Message written to the logger when the log file is polled instead of watched.
+     */
+    private static final String POLLING_MESSAGE = "Polling %s every %d ms: %s";
+
+    /**
+     * Message written to the logger when an appended line is not a valid log entry.
+     */
+    private static final String UNEXPECTED_LINE_MESSAGE = "Skipping unexpected line in the progress log: %s";
+
     /**
      * The date format for parsing date/time strings from the log file.
      */
@@ -73,10 +96,20 @@ public class ProgressLogReader {
     private File logFile;
 
     /**
-     * The timer used for checking the log file at regular intervals.
+     * The reader for the last line of the log file.
+     */
+    private LogTailReader logTailReader;
+
+    /**
+     * The timer used for checking the log file at regular intervals, if the log file cannot be watched.
      */
     private Timer timer; 
 
+    /**
+     * The watch service used for monitoring the directory of the log file, if the log file can be watched.
+     */
+    private WatchService watchService;
+
     /**
      * Constructor.
      */
@@ -91,6 +124,13 @@ public class ProgressLogReader {
      */
     public boolean setProgressLogFile(final String progressLogFilePath) {
         logFile = new File(FilenameUtils.normalize(progressLogFilePath));
+        logTailReader = new LogTailReader(logFile);
+        try {
+            // The reports that are already in the log file are found by walking the directories.
+            logTailReader.skipAppendedLines();
+        } catch (final IOException e) {
+            logger.log(Level.WARNING, "Something went wrong while reading logfile " + logFile.getAbsolutePath(), e);
+        }
         final boolean result = parseCurrentStatus(logFile);
         //Initialize savedLastLine
         savedLastLine = currentLastLine;
@@ -124,20 +164,56 @@ public class ProgressLogReader {
         return runningMsrunName; 
     }
 
+    /**
+     * Get the entries that were appended to the log file since the log file was set or this method was called last.
+     *
+     * @return the new log entries or <code>null</code> if the new entries cannot be determined (for example because
+     *         the log file was replaced), in which case all report directories should be searched.
+     */
+    public List<ProgressLogEntry> readNewLogEntries() {
+        List<ProgressLogEntry> newLogEntries = null;
+        try {
+            final List<String> appendedLines = logTailReader.readAppendedLines();
+            if (appendedLines != null) {
+                newLogEntries = new ArrayList<>();
+                for (final String appendedLine : appendedLines) {
+                    final ProgressLogEntry logEntry = ProgressLogEntry.parse(appendedLine);
+                    if (logEntry != null) {
+                        newLogEntries.add(logEntry);
+                    } else {
+                        logger.fine(String.format(UNEXPECTED_LINE_MESSAGE, appendedLine));
+                    }
+                }
+            }
+        } catch (final IOException e) {
+            logger.log(Level.WARNING, "Something went wrong while reading logfile " + logFile.getAbsolutePath(), e);
+        }
+        return newLogEntries;
+    }
+
     /**
      * Notify current pipeline status and log file change status to the Main class.
      * Compare current last line and saved last line for their difference. 
      * Difference means that the log file has changed.      
+     * The Main class is notified after the lock on this reader has been released, so the event dispatch thread is not
+     * blocked (for example in startProgressLogFileMonitor) while Main handles the notification.
      */
     public void pushPipelineStatus() {
-        parseCurrentStatus(logFile);
-        
-        if (!currentLastLine.equals(savedLastLine)) {
-            //Maintain savedLastLine
-            savedLastLine = currentLastLine; 
-            Main.getInstance().notifyProgressLogFileChanged(currentStatus);
+        final boolean logFileChanged;
+        final String status;
+        synchronized (this) {
+            parseCurrentStatus(logFile);
+            logFileChanged = !currentLastLine.equals(savedLastLine);
+            if (logFileChanged) {
+                //Maintain savedLastLine
+                savedLastLine = currentLastLine;
+            }
+            status = currentStatus;
+        }
+        if (logFileChanged) {
+            Main.getInstance().notifyProgressLogFileChanged(status);
         } else {
-            Main.getInstance().notifyUpdatePipelineStatus(currentStatus);
+            Main.getInstance().notifyUpdatePipelineStatus(status);
         }
         /* For debug: 
          * /*logger.fine("Prior to compare:\nsavedLastLine = " + savedLastLine 
@@ -159,8 +235,31 @@ public class ProgressLogReader {
      * @return true if the log file exists or false otherwise.
      */
     private boolean parseCurrentStatus(final File logFile) {
-        boolean result = true;
         currentLastLine = getLastLine(logFile);
+        return parseLastLine(logFile);
+    }
+
+    /**
+     * Refresh the current pipeline status from the last line that was read before and notify the Main class (outside
+     * the lock on this reader). The durations in the status are updated without reading the log file again.
+     */
+    private void refreshPipelineStatus() {
+        final String status;
+        synchronized (this) {
+            parseLastLine(logFile);
+            status = currentStatus;
+        }
+        Main.getInstance().notifyUpdatePipelineStatus(status);
+    }
+
+    /**
+     * Parse the current pipeline status from the last line of the log file.
+     *
+     * @param logFile the log file the last line was read from.
+     * @return true if the log file exists or false otherwise.
+     */
+    private boolean parseLastLine(final File logFile) {
+        boolean result = true;
         // Hopefully not the Y2K problem!!!!
         if (currentLastLine != null && currentLastLine.startsWith("20")) {
             try {
@@ -200,34 +299,21 @@ public class ProgressLogReader {
     }
 
     /**
-     * Retrieve the last line from the log file.
+     * Retrieve the last line from the log file. Only the end of the log file is read, see {@link LogTailReader}.
      *
      * @param logFile the log file to parse.
      * @return the last line read from the file.
      */
     private String getLastLine(final File logFile) {
-        //Return null if logFile doesn't exist in the filesystem
-        if (!logFile.exists()) {
-            return null;
-        }
-        String lastLine = "";
+        String lastLine;
         try {
-            final InputStreamReader streamReader = new InputStreamReader(new FileInputStream(logFile));
-            final BufferedReader bufferedReader = new BufferedReader(streamReader);
-            //Also check for empty lines and white spaces
-            while (bufferedReader.ready()) {
-                final String thisLine = bufferedReader.readLine().trim();
-                if (thisLine.length() > 0) {
-                    lastLine = thisLine;
-                }
-            }
-            bufferedReader.close();
+            lastLine = logTailReader.readLastLine();
         } catch (final IOException e) {
             logger.log(Level.SEVERE, "Something went wrong while reading logfile "
                                      + FilenameUtils.normalize(logFile.getAbsolutePath()));
             lastLine = null;
         }
-        return lastLine != null ? lastLine.trim() : lastLine;
+        return lastLine;
     }
 
     /**
@@ -257,13 +343,60 @@ public class ProgressLogReader {
     }
     
     /**
-     * Create a timer and run the timer thread as daemon to monitor progress log file periodically. The monitor task
-     * consists of reading pipeline status from the log file and notify status to the Main class.
+     * Start monitoring the progress log file. The directory of the log file is watched for changes, so changes are
+     * pushed to the Main class right away; the pipeline status durations are refreshed every poll interval without
+     * reading the log file. If the log file cannot be watched (for example on a network share), a timer is used that
+     * reads the log file every poll interval.
      */
-    public void startProgressLogFileMonitor() {
+    public synchronized void startProgressLogFileMonitor() {
+        stopProgressLogFileMonitor();
+        final Path logDirectory = logFile.getAbsoluteFile().toPath().getParent();
+        try {
+            final String fileStoreType = Files.getFileStore(logDirectory).type();
+            if (Constants.POLLED_FILE_STORE_TYPES.contains(fileStoreType.toLowerCase())) {
+                startPollingMonitor("network file system " + fileStoreType);
+            } else {
+                watchService = FileSystems.getDefault().newWatchService();
+                logDirectory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                                      StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                final Thread watchThread = new Thread(new WatchMonitorTask(watchService), "Progress log watcher");
+                watchThread.setDaemon(true);
+                watchThread.start();
+                logger.fine(String.format(WATCHING_MESSAGE, logFile.getAbsolutePath()));
+            }
+        } catch (final IOException | UnsupportedOperationException e) {
+            stopProgressLogFileMonitor();
+            startPollingMonitor(e.toString());
+        }
+    }
+
+    /**
+     * Stop monitoring the progress log file.
+     */
+    private void stopProgressLogFileMonitor() {
         if (timer != null) {
             timer.cancel();
+            timer = null;
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (final IOException e) {
+                logger.log(Level.WARNING, "Closing the progress log watch service failed", e);
+            }
+            watchService = null;
         }
+    }
+
+    /**
+     * Create a timer and run the timer thread as daemon to monitor progress log file periodically. The monitor task
+     * consists of reading pipeline status from the log file and notify status to the Main class.
+     *
+     * @param reason the reason why the log file is polled instead of watched.
+     */
+    private void startPollingMonitor(final String reason) {
+        logger.fine(String.format(POLLING_MESSAGE, logFile.getAbsolutePath(), Constants.POLL_INTERVAL_PIPELINE_LOG,
+                                  reason));
         // Create a timer and run the timer thread as daemon.
         timer = new Timer(true);
         final StatusMonitorTask task = new StatusMonitorTask();
@@ -279,4 +412,74 @@ public class ProgressLogReader {
             pushPipelineStatus();
         }
     }
+
+    /**
+     * Task that waits for changes in the directory of the log file. Changes to the log file are pushed right away;
+     * when nothing changes during a poll interval, the pipeline status durations are refreshed. The task ends when its
+     * watch service is closed.
+     */
+    private class WatchMonitorTask implements Runnable {
+        /**
+         * The watch service this task waits on.
+         */
+        private final WatchService taskWatchService;
+
+        /**
+         * Create a watch monitor task.
+         *
+         * @param taskWatchService the watch service to wait on.
+         */
+        public WatchMonitorTask(final WatchService taskWatchService) {
+            this.taskWatchService = taskWatchService;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    final WatchKey watchKey = taskWatchService.poll(Constants.POLL_INTERVAL_PIPELINE_LOG,
+                                                                    TimeUnit.MILLISECONDS);
+                    if (watchKey == null) {
+                        refreshPipelineStatus();
+                    } else {
+                        if (isLogFileChanged(watchKey)) {
+                            pushPipelineStatus();
+                        }
+                        if (!watchKey.reset()) {
+                            // The directory is no longer accessible: fall back to polling.
+                            synchronized (ProgressLogReader.this) {
+                                if (watchService == taskWatchService) {
+                                    stopProgressLogFileMonitor();
+                                    startPollingMonitor("the log directory can no longer be watched");
+                                }
+                            }
+                            return;
+                        }
+                    }
+                }
+            } catch (final ClosedWatchServiceException e) {
+                // The monitor was stopped or restarted.
+                logger.fine("Progress log watcher stopped.");
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Check whether the events of a watch key include a change of the log file.
+         *
+         * @param watchKey the watch key with the pending events.
+         * @return whether the log file was changed (or events were lost).
+         */
+        private boolean isLogFileChanged(final WatchKey watchKey) {
+            boolean logFileChanged = false;
+            for (final WatchEvent<?> event : watchKey.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || logFile.getName().equals(String.valueOf(event.context()))) {
+                    logFileChanged = true;
+                }
+            }
+            return logFileChanged;
+        }
+    }
 }
@@ -0,0 +1,385 @@
+package nl.ctmm.trait.proteomics.qcviewer.input;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import nl.ctmm.trait.proteomics.qcviewer.utils.Constants;
+
+
+/**
+ * The persistent index of the report directories that were loaded before. The index is stored in the root directory
+ * and contains per msrun directory a fingerprint (modification times and file sizes), the parsed metrics values and the
+ * maximum TIC intensity. Msrun directories with an unchanged fingerprint do not have to be parsed again. The TIC data
+ * itself is not stored, since it is only read when a chart is shown.
+ *
+ * The index can be used by multiple report loading threads at the same time. It is read once and then kept in memory,
+ * so successive loads of the same root directory do not read the index file again.
+ */
+public class ReportIndex {
+    /**
+     * The logger for this class.
+     */
+    private static final Logger logger = Logger.getLogger(ReportIndex.class.getName());
+
+    /**
+     * The magic number at the start of the index file ("QCRI").
+     */
+    private static final int INDEX_FILE_MAGIC = 0x51435249;
+
+    /**
+     * The version of the index file format.
+     */
+    private static final int INDEX_FILE_VERSION = 2;
+
+    /**
+     * The value written instead of a size when a metrics map is not available.
+     */
+    private static final int NOT_AVAILABLE_SIZE = -1;
+
+    /**
+     * The separator used between the parts of a fingerprint.
+     */
+    private static final String FINGERPRINT_SEPARATOR = "|";
+
+    /**
+     * Message written to the logger when the index file could not be read.
+     */
+    private static final String READ_INDEX_EXCEPTION_MESSAGE = "Something went wrong while reading report index %s.";
+
+    /**
+     * Message written to the logger when the index file could not be written.
+     */
+    private static final String WRITE_INDEX_EXCEPTION_MESSAGE = "Something went wrong while writing report index %s.";
+
+    /**
+     * Message written to the logger when the index file is ignored because it was written for different metrics.
+     */
+    private static final String OUTDATED_INDEX_MESSAGE = "Ignoring outdated report index %s.";
+
+    /**
+     * Message written to the logger after the index file is read.
+     */
+    private static final String INDEX_READ_MESSAGE = "Read %d entries from report index %s.";
+
+    /**
+     * Message written to the logger when entries for msrun directories that no longer exist are removed.
+     */
+    private static final String ENTRIES_REMOVED_MESSAGE = "Removed %d entries for missing msrun directories from %s.";
+
+    /**
+     * The suffix of the temporary file the index is written to before it replaces the index file.
+     */
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    /**
+     * The root directory of the QC reports, in which the index file is stored.
+     */
+    private final File rootDirectory;
+
+    /**
+     * The file the index is stored in.
+     */
+    private final File indexFile;
+
+    /**
+     * The hash code of the metrics keys, which is used to detect that the stored metrics are outdated.
+     */
+    private final int metricsKeysHash;
+
+    /**
+     * The index entries, with the msrun directory paths (relative to the root directory) as keys.
+     */
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Whether entries were added or replaced since the index was read.
+     */
+    private volatile boolean changed;
+
+    /**
+     * Whether the index file has been read.
+     */
+    private boolean read;
+
+    /**
+     * Create a report index for a root directory. Use the {@link #read()} method to read the stored entries.
+     *
+     * @param rootDirectory the root directory of the QC reports, in which the index file is stored.
+     * @param metricsParser the metrics parser with the metrics that are read from the metrics files.
+     */
+    public ReportIndex(final File rootDirectory, final MetricsParser metricsParser) {
+        this.rootDirectory = rootDirectory;
+        indexFile = new File(rootDirectory, Constants.REPORT_INDEX_FILE_NAME);
+        metricsKeysHash = metricsParser.getMetricsListing().keySet().hashCode();
+    }
+
+    /**
+     * Create the fingerprint of an msrun directory, which changes when one of the data files is changed.
+     *
+     * @param msRunDirectory the msrun directory.
+     * @param dataFiles the files in the msrun directory.
+     * @return the fingerprint.
+     */
+    public static String createFingerprint(final File msRunDirectory, final File[] dataFiles) {
+        final File[] sortedDataFiles = dataFiles.clone();
+        Arrays.sort(sortedDataFiles);
+        final StringBuilder fingerprint = new StringBuilder(Long.toString(msRunDirectory.lastModified()));
+        for (final File dataFile : sortedDataFiles) {
+            if (dataFile.isFile()) {
+                fingerprint.append(FINGERPRINT_SEPARATOR).append(dataFile.getName());
+                fingerprint.append(FINGERPRINT_SEPARATOR).append(dataFile.length());
+                fingerprint.append(FINGERPRINT_SEPARATOR).append(dataFile.lastModified());
+            }
+        }
+        return fingerprint.toString();
+    }
+
+    /**
+     * Get the root directory of the QC reports, in which the index file is stored.
+     *
+     * @return the root directory.
+     */
+    public File getRootDirectory() {
+        return rootDirectory;
+    }
+
+    /**
+     * Get the index entry for an msrun directory if its fingerprint has not changed.
+     *
+     * @param msRunPath the path of the msrun directory (relative to the root directory).
+     * @param fingerprint the current fingerprint of the msrun directory.
+     * @return the index entry or <code>null</code> if there is no up-to-date entry.
+     */
+    public Entry getEntry(final String msRunPath, final String fingerprint) {
+        final Entry entry = entries.get(msRunPath);
+        return (entry != null && entry.getFingerprint().equals(fingerprint)) ? entry : null;
+    }
+
+    /**
+     * Add or replace the index entry for an msrun directory.
+     *
+     * @param msRunPath the path of the msrun directory (relative to the root directory).
+     * @param entry the new index entry.
+     */
+    public void putEntry(final String msRunPath, final Entry entry) {
+        entries.put(msRunPath, entry);
+        changed = true;
+    }
+
+    /**
+     * Read the index entries from the index file, if it exists and matches the current metrics. The file is only read
+     * the first time; later calls keep the entries in memory.
+     */
+    public synchronized void read() {
+        if (!read && indexFile.isFile()) {
+            try (final DataInputStream inputStream = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(indexFile)))) {
+                if (inputStream.readInt() == INDEX_FILE_MAGIC && inputStream.readInt() == INDEX_FILE_VERSION
+                    && inputStream.readInt() == metricsKeysHash) {
+                    final int entryCount = inputStream.readInt();
+                    for (int entryIndex = 0; entryIndex < entryCount; entryIndex++) {
+                        final String msRunPath = inputStream.readUTF();
+                        entries.put(msRunPath, readEntry(inputStream));
+                    }
+                    logger.fine(String.format(INDEX_READ_MESSAGE, entryCount, indexFile));
+                } else {
+                    logger.fine(String.format(OUTDATED_INDEX_MESSAGE, indexFile));
+                }
+            } catch (final IOException e) {
+                logger.log(Level.WARNING, String.format(READ_INDEX_EXCEPTION_MESSAGE, indexFile), e);
+                entries.clear();
+            }
+        }
+        read = true;
+    }
+
+    /**
+     * Remove the entries of msrun directories that no longer exist, so the index does not keep growing when runs are
+     * deleted or moved. This checks every msrun directory in the index, so it is only done after a search through all
+     * directories.
+     */
+    public void removeMissingEntries() {
+        int removedCount = 0;
+        final Iterator<String> msRunPathIterator = entries.keySet().iterator();
+        while (msRunPathIterator.hasNext()) {
+            if (!new File(rootDirectory, msRunPathIterator.next()).isDirectory()) {
+                msRunPathIterator.remove();
+                removedCount++;
+            }
+        }
+        if (removedCount > 0) {
+            changed = true;
+            logger.fine(String.format(ENTRIES_REMOVED_MESSAGE, removedCount, indexFile));
+        }
+    }
+
+    /**
+     * Write the index entries to the index file if they have changed. The index is first written to a unique temporary
+     * file, which then atomically replaces the index file, so viewers that write the index at the same time do not
+     * share a temporary file and other viewers never see a partially written index.
+     */
+    public void writeIfChanged() {
+        if (changed) {
+            Path temporaryPath = null;
+            try {
+                temporaryPath = Files.createTempFile(rootDirectory.toPath(), Constants.REPORT_INDEX_FILE_NAME,
+                                                     TEMPORARY_FILE_SUFFIX);
+                try (final DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(
+                        new FileOutputStream(temporaryPath.toFile())))) {
+                    outputStream.writeInt(INDEX_FILE_MAGIC);
+                    outputStream.writeInt(INDEX_FILE_VERSION);
+                    outputStream.writeInt(metricsKeysHash);
+                    final Map<String, Entry> entriesSnapshot = new HashMap<>(entries);
+                    outputStream.writeInt(entriesSnapshot.size());
+                    for (final Map.Entry<String, Entry> indexEntry : entriesSnapshot.entrySet()) {
+                        outputStream.writeUTF(indexEntry.getKey());
+                        writeEntry(outputStream, indexEntry.getValue());
+                    }
+                }
+                replaceIndexFile(temporaryPath);
+                temporaryPath = null;
+                changed = false;
+            } catch (final IOException e) {
+                logger.log(Level.WARNING, String.format(WRITE_INDEX_EXCEPTION_MESSAGE, indexFile), e);
+            } finally {
+                if (temporaryPath != null) {
+                    temporaryPath.toFile().delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Replace the index file with a newly written temporary file. An atomic move is used where the file system
+     * supports it; otherwise the index file is simply replaced.
+     *
+     * @param temporaryPath the path of the temporary file.
+     * @throws IOException if moving the file fails.
+     */
+    private void replaceIndexFile(final Path temporaryPath) throws IOException {
+        try {
+            Files.move(temporaryPath, indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } catch (final AtomicMoveNotSupportedException e) {
+            Files.move(temporaryPath, indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Read a single index entry.
+     *
+     * @param inputStream the stream to read from.
+     * @return the index entry.
+     * @throws IOException if reading from the stream fails.
+     */
+    private Entry readEntry(final DataInputStream inputStream) throws IOException {
+        final String fingerprint = inputStream.readUTF();
+        Map<String, String> metricsValues = null;
+        final int metricsCount = inputStream.readInt();
+        if (metricsCount != NOT_AVAILABLE_SIZE) {
+            metricsValues = new HashMap<>();
+            for (int metricIndex = 0; metricIndex < metricsCount; metricIndex++) {
+                metricsValues.put(inputStream.readUTF(), inputStream.readUTF());
+            }
+        }
+        return new Entry(fingerprint, metricsValues, inputStream.readDouble());
+    }
+
+    /**
+     * Write a single index entry.
+     *
+     * @param outputStream the stream to write to.
+     * @param entry the index entry.
+     * @throws IOException if writing to the stream fails.
+     */
+    private void writeEntry(final DataOutputStream outputStream, final Entry entry) throws IOException {
+        outputStream.writeUTF(entry.getFingerprint());
+        final Map<String, String> metricsValues = entry.getMetricsValues();
+        outputStream.writeInt(metricsValues != null ? metricsValues.size() : NOT_AVAILABLE_SIZE);
+        if (metricsValues != null) {
+            for (final Map.Entry<String, String> metricEntry : metricsValues.entrySet()) {
+                outputStream.writeUTF(metricEntry.getKey());
+                outputStream.writeUTF(metricEntry.getValue());
+            }
+        }
+        outputStream.writeDouble(entry.getMaxTicIntensity());
+    }
+
+    /**
+     * A single entry in the report index: the fingerprint and the data read from one msrun directory.
+     */
+    public static class Entry {
+        /**
+         * The fingerprint of the msrun directory when the data was read.
+         */
+        private final String fingerprint;
+
+        /**
+         * The metrics values or <code>null</code> if there is no metrics file.
+         */
+        private final Map<String, String> metricsValues;
+
+        /**
+         * The maximum intensity of the TIC data or <code>Double.NaN</code> if there is no (valid) TIC file.
+         */
+        private final double maxTicIntensity;
+
+        /**
+         * Create an index entry.
+         *
+         * @param fingerprint the fingerprint of the msrun directory when the data was read.
+         * @param metricsValues the metrics values or <code>null</code> if there is no metrics file.
+         * @param maxTicIntensity the maximum intensity of the TIC data or <code>Double.NaN</code> if there is no
+         *                        (valid) TIC file.
+         */
+        public Entry(final String fingerprint, final Map<String, String> metricsValues, final double maxTicIntensity) {
+            this.fingerprint = fingerprint;
+            this.metricsValues = metricsValues;
+            this.maxTicIntensity = maxTicIntensity;
+        }
+
+        /**
+         * Get the fingerprint of the msrun directory when the data was read.
+         *
+         * @return the fingerprint.
+         */
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        /**
+         * Get the metrics values.
+         *
+         * @return the metrics values or <code>null</code> if there is no metrics file.
+         */
+        public Map<String, String> getMetricsValues() {
+            return metricsValues;
+        }
+
+        /**
+         * Get the maximum intensity of the TIC data.
+         *
+         * @return the maximum intensity or <code>Double.NaN</code> if there is no (valid) TIC file.
+         */
+        public double getMaxTicIntensity() {
+            return maxTicIntensity;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package nl.ctmm.trait.proteomics.qcviewer.input;
+
+/**
+ * The listener that is notified by the <code>ReportReader</code> while it loads reports, so the reports can be shown
+ * before all msrun directories have been loaded. The methods are called on the thread that loads the reports.
+ */
+public interface ReportLoadListener {
+    /**
+     * Notify the listener of the number of msrun directories that will be loaded.
+     *
+     * @param directoryCount the number of msrun directories.
+     */
+    void directoriesFound(int directoryCount);
+
+    /**
+     * Notify the listener that a report has been loaded. New reports are passed in the order of their report numbers;
+     * a report of an msrun that was loaded before keeps its old report number and replaces the old report.
+     *
+     * @param reportUnit the report unit that has been loaded.
+     */
+    void reportLoaded(ReportUnit reportUnit);
+
+    /**
+     * Notify the listener that the directory of an msrun that was loaded before has been removed. The report unit has
+     * the old report number and only signals the error: it replaces the old report, but the msrun is not loaded.
+     *
+     * @param reportUnit the report unit that replaces the report of the removed msrun.
+     */
+    void reportRemoved(ReportUnit reportUnit);
+
+    /**
+     * Check whether loading should stop: the report reader then returns the reports loaded so far.
+     *
+     * @return whether loading has been cancelled.
+     */
+    boolean isCancelled();
+}
@@ -1,26 +1,32 @@
 package nl.ctmm.trait.proteomics.qcviewer.input;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.StringTokenizer;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 
-import nl.ctmm.trait.proteomics.qcviewer.gui.ChartUnit;
 import nl.ctmm.trait.proteomics.qcviewer.utils.Constants;
 
 import org.apache.commons.io.FilenameUtils;
-import org.jfree.data.xy.XYSeries;
+import org.joda.time.DateTime;
 import org.joda.time.Interval;
+import org.joda.time.Period;
 
 /**
  * This class contains the logic to read the directory/file structure and prepare data to be displayed.
@@ -66,28 +72,167 @@ public class ReportReader {
     private static final String YEAR_NUMBER_PATTERN = "[0-9][0-9][0-9][0-9]";
 
     /**
-     * Message to log when an exception occurs while reading a TIC matrix file.
+     * Message written to the logger when a report could not be loaded by one of the worker threads.
      */
-    private static final String EXCEPTION_GRAPH_SERIES_MESSAGE = 
-                    "Something went wrong while reading graph series data";
+    private static final String EXCEPTION_LOADING_REPORT_MESSAGE = "Something went wrong while loading msrun %s";
 
     /**
-     * The current report number.
+     * Message written to the logger when loading the reports in parallel is interrupted.
+     */
+    private static final String LOADING_INTERRUPTED_MESSAGE = "Loading of reports was interrupted.";
+
+    /**
+     * Message written to the logger before the msrun directories are loaded.
+     */
+    private static final String LOADING_REPORTS_MESSAGE = "Loading %d msrun directories using %d thread(s).";
+
+    /**
+     * Message written to the logger when a year or month directory is outside the date range.
+     */
+    private static final String PRUNED_DIRECTORY_MESSAGE = "Skipped directory %s outside the date range";
+
+    /**
+     * The margin around the period of a year or month directory in which its msrun directories can be modified.
+     */
+    private static final Period DIRECTORY_DATE_MARGIN = Period.days(1);
+
+    /**
+     * Message written to the logger when the directory of an msrun in the progress log is not found.
+     */
+    private static final String LOGGED_REPORT_NOT_FOUND_MESSAGE = "No report directory found for logged msrun %s";
+
+    /**
+     * Message written to the logger when a registered msrun is removed from the registry because its directory is gone.
+     */
+    private static final String UNREGISTERED_MSRUN_MESSAGE = "Unregistered msrun %s since its directory was not found.";
+
+    /**
+     * Message written to the logger when a report is initialized from the report index.
+     */
+    private static final String INDEXED_REPORT_MESSAGE = "Using report index for msrun %s";
+
+    /**
+     * Message written to the logger when loading of reports is cancelled.
+     */
+    private static final String LOADING_CANCELLED_MESSAGE = "Loading of reports was cancelled after %d report(s).";
+
+    /**
+     * The last report number that was handed out: new reports are numbered after the reports in the viewer.
      */
     private int currentReportNum;
 
+    /**
+     * The metrics parser with the metrics that are read from the metrics files.
+     */
+    private final MetricsParser metricsParser;
+
     /**
      * The reader used to get the metrics values from the metrics JSON files.
      */
     private JsonMetricsReader jsonMetricsReader;
 
     /**
-     * Construct a report reader that can search for QC reports.
+     * The reader used to get the TIC data from the TIC matrix files.
+     */
+    private final TicMatrixReader ticMatrixReader = new TicMatrixReader();
+
+    /**
+     * The number of threads used to load the msrun directories.
+     */
+    private final int threadCount;
+
+    /**
+     * Whether the persistent report index in the root directory is used to skip unchanged msrun directories.
+     */
+    private final boolean useReportIndex;
+
+    /**
+     * The report index for the current root directory or <code>null</code> if the report index is not used. The index
+     * is kept in memory across loads of the same root directory.
+     */
+    private ReportIndex reportIndex;
+
+    /**
+     * The listener that is notified while reports are loaded or <code>null</code> if there is no listener.
+     */
+    private ReportLoadListener reportLoadListener;
+
+    /**
+     * The table that stores the metrics values of the loaded reports.
+     */
+    private MetricsTable metricsTable;
+
+    /**
+     * Construct a report reader that can search for QC reports and loads them using a single thread.
      *
      * @param metricsParser the metrics parser to use.
      */
     public ReportReader(final MetricsParser metricsParser) {
+        this(metricsParser, 1);
+    }
+
+    /**
+     * Construct a report reader that can search for QC reports and loads them using a pool of worker threads.
+     *
+     * @param metricsParser the metrics parser to use.
+     * @param threadCount the number of threads used to load the msrun directories (1 means sequential loading).
+     */
+    public ReportReader(final MetricsParser metricsParser, final int threadCount) {
+        this(metricsParser, threadCount, false);
+    }
+
+    /**
+     * Construct a report reader that can search for QC reports and loads them using a pool of worker threads.
+     *
+     * @param metricsParser the metrics parser to use.
+     * @param threadCount the number of threads used to load the msrun directories (1 means sequential loading).
+     * @param useReportIndex whether the persistent report index in the root directory should be used (and updated).
+     */
+    public ReportReader(final MetricsParser metricsParser, final int threadCount, final boolean useReportIndex) {
+        this.metricsParser = metricsParser;
+        metricsTable = new MetricsTable(metricsParser);
         jsonMetricsReader = new JsonMetricsReader(metricsParser);
+        this.threadCount = Math.max(1, threadCount);
+        this.useReportIndex = useReportIndex;
+    }
+
+    /**
+     * Set the listener that is notified while reports are loaded and that can cancel loading.
+     *
+     * @param reportLoadListener the report load listener or <code>null</code> to remove the listener.
+     */
+    public void setReportLoadListener(final ReportLoadListener reportLoadListener) {
+        this.reportLoadListener = reportLoadListener;
+    }
+
+    /**
+     * Set the table that stores the metrics values of the loaded reports, so reports that are loaded by different
+     * report readers can share a single table.
+     *
+     * @param metricsTable the metrics table.
+     */
+    public void setMetricsTable(final MetricsTable metricsTable) {
+        this.metricsTable = metricsTable;
+    }
+
+    /**
+     * Set the report index to use, so an index that was read before can be shared by successive report readers. The
+     * index has to be for the root directory that reports are retrieved from.
+     *
+     * @param reportIndex the report index.
+     */
+    public void setReportIndex(final ReportIndex reportIndex) {
+        this.reportIndex = reportIndex;
+    }
+
+    /**
+     * Set the number of reports that are already shown in the viewer, so the new reports are numbered after them (the
+     * report number is one more than the position of the report in the viewer). The default is zero.
+     *
+     * @param reportCount the number of reports in the viewer.
+     */
+    public void setReportCount(final int reportCount) {
+        currentReportNum = reportCount;
     }
 
     /**
@@ -96,54 +241,395 @@ public class ReportReader {
      *
      * @param rootDirectoryName the root directory that contains the year directories.
      * @param runningMsrunName the ms run name of the raw file that is currently being processed by the QC pipeline.
-     * @param reportUnitsKeys the msrun names of the reports that are already retrieved in the past.
+     * @param reportUnitsKeys the registry of the msruns whose reports are already retrieved in the past.
      * @param fromDate the start of the date range to search.
      * @param tillDate the end of the date range to search.
      * @return a list with report units.
      */
     public Map<String, ReportUnit> retrieveReports(final String rootDirectoryName, final String runningMsrunName,
-                                                   final List<String> reportUnitsKeys, final Date fromDate,
+                                                   final MsrunRegistry reportUnitsKeys, final Date fromDate,
                                                    final Date tillDate) {
         /*The directory has three levels - year, month and msrun.
         The msrun directory may contain following two files of importance:
         1) metrics.json: String file containing values of all QC metrics in json object format 
         2) msrun*_ticmatrix.csv: File containing list of x and y coordinates of the TIC chart 
         */
-        currentReportNum = (reportUnitsKeys != null) ? reportUnitsKeys.size() : 0;
-        final Map<String, ReportUnit> reportUnitsTable = new HashMap<>();
+        final List<File> msRunDirectories = findMsRunDirectories(rootDirectoryName, runningMsrunName, reportUnitsKeys,
+                                                                 fromDate, tillDate);
+        return loadMsRunDirectories(rootDirectoryName, reportUnitsKeys, msRunDirectories, true);
+    }
+
+    /**
+     * Load the msrun directories that are named in progress log entries, instead of searching through all year,
+     * month and msrun directories. This is used to add the reports of msruns that the QC pipeline has just processed.
+     *
+     * @param rootDirectoryName the root directory that contains the year directories.
+     * @param runningMsrunName the ms run name of the raw file that is currently being processed by the QC pipeline.
+     * @param reportUnitsKeys the registry of the msruns whose reports are already retrieved in the past.
+     * @param logEntries the progress log entries that name the msruns to load.
+     * @param fromDate the start of the date range to search.
+     * @param tillDate the end of the date range to search.
+     * @return a list with report units.
+     */
+    public Map<String, ReportUnit> retrieveLoggedReports(final String rootDirectoryName, final String runningMsrunName,
+                                                         final MsrunRegistry reportUnitsKeys,
+                                                         final List<ProgressLogEntry> logEntries, final Date fromDate,
+                                                         final Date tillDate) {
+        final List<File> msRunDirectories = findLoggedMsRunDirectories(rootDirectoryName, runningMsrunName,
+                                                                       reportUnitsKeys, logEntries, fromDate,
+                                                                       tillDate);
+        return loadMsRunDirectories(rootDirectoryName, reportUnitsKeys, msRunDirectories, false);
+    }
+
+    /**
+     * Load the report units from the msrun directories, using the report index if it is enabled.
+     *
+     * @param rootDirectoryName the root directory that contains the year directories.
+     * @param reportUnitsKeys the registry of the msruns whose reports are already retrieved in the past.
+     * @param msRunDirectories the msrun directories to load.
+     * @param allDirectoriesSearched whether all directories were searched, in which case the entries of msrun
+     *                               directories that no longer exist are removed from the report index.
+     * @return the map with report units (keys are the msrun names).
+     */
+    private Map<String, ReportUnit> loadMsRunDirectories(final String rootDirectoryName,
+                                                         final MsrunRegistry reportUnitsKeys,
+                                                         final List<File> msRunDirectories,
+                                                         final boolean allDirectoriesSearched) {
+        logger.fine(String.format(LOADING_REPORTS_MESSAGE, msRunDirectories.size(), threadCount));
+        if (reportLoadListener != null) {
+            reportLoadListener.directoriesFound(msRunDirectories.size());
+        }
+        final File rootDirectory = new File(FilenameUtils.normalize(rootDirectoryName));
+        if (useReportIndex && (reportIndex == null || !reportIndex.getRootDirectory().equals(rootDirectory))) {
+            reportIndex = new ReportIndex(rootDirectory, metricsParser);
+        }
+        if (reportIndex != null) {
+            reportIndex.read();
+        }
+        final int[] reportNums = getReportNums(reportUnitsKeys, msRunDirectories);
+        final Map<String, ReportUnit> reportUnitsTable = (threadCount > 1 && msRunDirectories.size() > 1)
+                                                         ? loadReportsInParallel(msRunDirectories, reportNums)
+                                                         : loadReports(msRunDirectories, reportNums);
+        if (reportIndex != null) {
+            if (allDirectoriesSearched) {
+                reportIndex.removeMissingEntries();
+            }
+            reportIndex.writeIfChanged();
+        }
+        return reportUnitsTable;
+    }
+
+    /**
+     * Hand out the report numbers of the msrun directories that will be loaded. An msrun that was loaded before (and
+     * was unregistered because its directory was removed) gets its old report number, so its report replaces the old
+     * one in the viewer; the other msruns are numbered after the reports in the viewer, in the order of the
+     * directories.
+     *
+     * @param reportUnitsKeys the registry of the msruns whose reports are already retrieved in the past.
+     * @param msRunDirectories the msrun directories to load.
+     * @return the report numbers, in the order of the msrun directories.
+     */
+    private int[] getReportNums(final MsrunRegistry reportUnitsKeys, final List<File> msRunDirectories) {
+        final int[] reportNums = new int[msRunDirectories.size()];
+        for (int directoryIndex = 0; directoryIndex < reportNums.length; directoryIndex++) {
+            final String msrunName = msRunDirectories.get(directoryIndex).getName().trim();
+            final int knownReportNum = (reportUnitsKeys != null) ? reportUnitsKeys.getReportNumber(msrunName) : 0;
+            if (knownReportNum > 0) {
+                reportNums[directoryIndex] = knownReportNum;
+            } else {
+                currentReportNum++;
+                reportNums[directoryIndex] = currentReportNum;
+            }
+        }
+        return reportNums;
+    }
+
+    /**
+     * Search through the year, month and msrun directories for the msrun directories that should be loaded. The
+     * directories are returned in a fixed order (by year, month and name), which determines the report numbers.
+     *
+     * @param rootDirectoryName the root directory that contains the year directories.
+     * @param runningMsrunName the ms run name of the raw file that is currently being processed by the QC pipeline.
+     * @param reportUnitsKeys the registry of the msruns whose reports are already retrieved in the past.
+     * @param fromDate the start of the date range to search.
+     * @param tillDate the end of the date range to search.
+     * @return the msrun directories to load.
+     */
+    private List<File> findMsRunDirectories(final String rootDirectoryName, final String runningMsrunName,
+                                            final MsrunRegistry reportUnitsKeys, final Date fromDate,
+                                            final Date tillDate) {
+        final List<File> msRunDirectoriesToLoad = new ArrayList<>();
+        final Set<String> foundMsrunNames = new HashSet<>();
+        final Interval dateInterval = new Interval(fromDate.getTime(), tillDate.getTime());
         logger.log(Level.ALL, "Root folder = " + rootDirectoryName);
         for (final File yearDirectory : getYearDirectories(FilenameUtils.normalize(rootDirectoryName))) {
             logger.fine("Year = " + yearDirectory.getName());
-            for (final File monthDirectory : getMonthDirectories(yearDirectory)) {
-                logger.fine("Month = " + monthDirectory.getName());
-                for (final File msRunDirectory : getMsRunDirectories(monthDirectory)) {
-                    logger.fine("Msrun = " + msRunDirectory.getName());
-                    if (new Interval(fromDate.getTime(), tillDate.getTime()).contains(msRunDirectory.lastModified())) {
-                        final File[] dataFiles = msRunDirectory.listFiles();
-                        //Check whether "metrics.json", and "*_ticmatrix.csv" files are available
-                        final String errorString = checkDataFilesAvailability(dataFiles);
-                        final boolean errorFlag = !"".equals(errorString);
-                        final String msrunName = msRunDirectory.getName().trim();
-                        if (!skipMsrun(msrunName, runningMsrunName, reportUnitsKeys)) {
-                            final ReportUnit report = createReportUnit(msRunDirectory.getName(), dataFiles, errorFlag,
-                                                                       errorString);
-                            reportUnitsTable.put(msrunName, report);
-                            logger.fine(String.format(ADDED_REPORT_MESSAGE, msrunName));
-                        } else {
-                            logger.fine(String.format(SKIPPED_REPORT_MESSAGE, msrunName, runningMsrunName));
-                        }
-                    } 
+            final int year = Integer.parseInt(yearDirectory.getName());
+            if (!overlapsDateRange(new DateTime(year, 1, 1, 0, 0), Period.years(1), dateInterval)) {
+                logger.fine(String.format(PRUNED_DIRECTORY_MESSAGE, yearDirectory.getName()));
+            } else {
+                for (final File monthDirectory : getMonthDirectories(yearDirectory)) {
+                    logger.fine("Month = " + monthDirectory.getName());
+                    final int month = MONTH_DIRS.indexOf(monthDirectory.getName()) + 1;
+                    if (!overlapsDateRange(new DateTime(year, month, 1, 0, 0), Period.months(1), dateInterval)) {
+                        logger.fine(String.format(PRUNED_DIRECTORY_MESSAGE, year + "/" + monthDirectory.getName()));
+                    } else {
+                        addMsRunDirectories(monthDirectory, runningMsrunName, reportUnitsKeys, dateInterval,
+                                            msRunDirectoriesToLoad, foundMsrunNames);
+                    }
                 }
             }
         }
+        unregisterMissingMsruns(reportUnitsKeys, foundMsrunNames);
+        return msRunDirectoriesToLoad;
+    }
+
+    /**
+     * Remove the msruns whose directories were not found from the registry, so they are loaded again if their
+     * directories reappear (for example when the QC pipeline processes a raw file again). The registered msruns were
+     * loaded for the same date range, so their directories are in the year and month directories that were searched.
+     * The reports of these msruns in the viewer are replaced by reports that signal the missing data.
+     *
+     * @param reportUnitsKeys the registry of the msruns whose reports are already retrieved in the past.
+     * @param foundMsrunNames the names of all msrun directories that were found.
+     */
+    private void unregisterMissingMsruns(final MsrunRegistry reportUnitsKeys, final Set<String> foundMsrunNames) {
+        if (reportUnitsKeys != null) {
+            for (final String msrunName : reportUnitsKeys.getMsrunNames()) {
+                if (!foundMsrunNames.contains(msrunName)) {
+                    unregisterMissingMsrun(reportUnitsKeys, msrunName);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove an msrun whose directory was not found from the registry and notify the report load listener with a
+     * report unit that replaces the report of the msrun in the viewer.
+     *
+     * @param reportUnitsKeys the registry of the msruns whose reports are already retrieved in the past.
+     * @param msrunName the name of the msrun.
+     */
+    private void unregisterMissingMsrun(final MsrunRegistry reportUnitsKeys, final String msrunName) {
+        if (reportUnitsKeys.unregister(msrunName)) {
+            logger.fine(String.format(UNREGISTERED_MSRUN_MESSAGE, msrunName));
+            final int reportNum = reportUnitsKeys.getReportNumber(msrunName);
+            if (reportLoadListener != null && reportNum > 0) {
+                reportLoadListener.reportRemoved(createErrorReportUnit(msrunName, reportNum));
+            }
+        }
+    }
+
+    /**
+     * Add the msrun directories in a month directory that were last modified in the date range and should not be
+     * skipped.
+     *
+     * @param monthDirectory the month directory.
+     * @param runningMsrunName the ms run name of the raw file that is currently being processed by the QC pipeline.
+     * @param reportUnitsKeys the registry of the msruns whose reports are already retrieved in the past.
+     * @param dateInterval the date range to search.
+     * @param msRunDirectoriesToLoad the list to add the msrun directories to.
+     * @param foundMsrunNames the set to add the names of all msrun directories in the month directory to.
+     */
+    private void addMsRunDirectories(final File monthDirectory, final String runningMsrunName,
+                                     final MsrunRegistry reportUnitsKeys, final Interval dateInterval,
+                                     final List<File> msRunDirectoriesToLoad, final Set<String> foundMsrunNames) {
+        for (final File msRunDirectory : getMsRunDirectories(monthDirectory)) {
+            logger.fine("Msrun = " + msRunDirectory.getName());
+            final String msrunName = msRunDirectory.getName().trim();
+            foundMsrunNames.add(msrunName);
+            if (dateInterval.contains(msRunDirectory.lastModified())) {
+                if (!skipMsrun(msrunName, runningMsrunName, reportUnitsKeys)) {
+                    msRunDirectoriesToLoad.add(msRunDirectory);
+                } else {
+                    logger.fine(String.format(SKIPPED_REPORT_MESSAGE, msrunName, runningMsrunName));
+                }
+            }
+        }
+    }
+
+    /**
+     * Check whether a year or month directory can contain msrun directories that were last modified in the date range.
+     * The QC pipeline creates an msrun directory in the year and month (UTC) it starts processing the raw file, so
+     * the msrun directories are last modified in that period or shortly after; a margin of a day is used on both sides
+     * for the time zone and the processing time.
+     *
+     * @param periodStart the start of the year or month.
+     * @param period the length of the period: a year or a month.
+     * @param dateInterval the date range to search.
+     * @return whether the directory should be searched.
+     */
+    private boolean overlapsDateRange(final DateTime periodStart, final Period period, final Interval dateInterval) {
+        final Interval directoryInterval = new Interval(periodStart.minus(DIRECTORY_DATE_MARGIN),
+                                                        periodStart.plus(period).plus(DIRECTORY_DATE_MARGIN));
+        return directoryInterval.overlaps(dateInterval);
+    }
+
+    /**
+     * Find the msrun directories that are named in progress log entries. The QC pipeline stores the report of an msrun
+     * in the year and month directory of the (UTC) time it processed the raw file, so the directory is searched in the
+     * months of the day before, the day of and the day after the (local) time of the log entry.
+     *
+     * @param rootDirectoryName the root directory that contains the year directories.
+     * @param runningMsrunName the ms run name of the raw file that is currently being processed by the QC pipeline.
+     * @param reportUnitsKeys the registry of the msruns whose reports are already retrieved in the past.
+     * @param logEntries the progress log entries that name the msruns to load.
+     * @param fromDate the start of the date range to search.
+     * @param tillDate the end of the date range to search.
+     * @return the msrun directories to load, in the order of the log entries.
+     */
+    private List<File> findLoggedMsRunDirectories(final String rootDirectoryName, final String runningMsrunName,
+                                                  final MsrunRegistry reportUnitsKeys,
+                                                  final List<ProgressLogEntry> logEntries, final Date fromDate,
+                                                  final Date tillDate) {
+        final File rootDirectory = new File(FilenameUtils.normalize(rootDirectoryName));
+        final Interval interval = new Interval(fromDate.getTime(), tillDate.getTime());
+        final Set<String> msrunNames = new HashSet<>();
+        final List<File> msRunDirectoriesToLoad = new ArrayList<>();
+        for (final ProgressLogEntry logEntry : logEntries) {
+            final String msrunName = logEntry.getMsrunName();
+            if (msrunNames.add(msrunName)) {
+                final File msRunDirectory = findMsRunDirectory(rootDirectory, msrunName, logEntry.getTimestamp());
+                if (msRunDirectory == null || !interval.contains(msRunDirectory.lastModified())) {
+                    logger.fine(String.format(LOGGED_REPORT_NOT_FOUND_MESSAGE, msrunName));
+                    if (msRunDirectory == null && reportUnitsKeys != null) {
+                        unregisterMissingMsrun(reportUnitsKeys, msrunName);
+                    }
+                } else if (!skipMsrun(msrunName, runningMsrunName, reportUnitsKeys)) {
+                    msRunDirectoriesToLoad.add(msRunDirectory);
+                } else {
+                    logger.fine(String.format(SKIPPED_REPORT_MESSAGE, msrunName, runningMsrunName));
+                }
+            }
+        }
+        return msRunDirectoriesToLoad;
+    }
+
+    /**
+     * Find the directory of an msrun in the year and month directories around a timestamp.
+     *
+     * @param rootDirectory the root directory that contains the year directories.
+     * @param msrunName the name of the msrun.
+     * @param timestamp the time around which the msrun was processed.
+     * @return the msrun directory or <code>null</code> if it was not found.
+     */
+    private File findMsRunDirectory(final File rootDirectory, final String msrunName, final Date timestamp) {
+        final Calendar calendar = Calendar.getInstance();
+        for (int dayOffset = -1; dayOffset <= 1; dayOffset++) {
+            calendar.setTime(timestamp);
+            calendar.add(Calendar.DAY_OF_MONTH, dayOffset);
+            final File yearDirectory = new File(rootDirectory, Integer.toString(calendar.get(Calendar.YEAR)));
+            final File monthDirectory = new File(yearDirectory, MONTH_DIRS.get(calendar.get(Calendar.MONTH)));
+            final File msRunDirectory = new File(monthDirectory, msrunName);
+            if (msRunDirectory.isDirectory()) {
+                return msRunDirectory;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Load the report units from the msrun directories one after another.
+     *
+     * @param msRunDirectories the msrun directories to load.
+     * @param reportNums the report numbers, in the order of the msrun directories.
+     * @return the map with report units (keys are the msrun names).
+     */
+    private Map<String, ReportUnit> loadReports(final List<File> msRunDirectories, final int[] reportNums) {
+        final Map<String, ReportUnit> reportUnitsTable = new HashMap<>();
+        for (int directoryIndex = 0; directoryIndex < msRunDirectories.size(); directoryIndex++) {
+            if (isLoadingCancelled(reportUnitsTable)) {
+                break;
+            }
+            addReportUnit(reportUnitsTable, createReportUnit(msRunDirectories.get(directoryIndex),
+                                                             reportNums[directoryIndex]));
+        }
+        return reportUnitsTable;
+    }
+
+    /**
+     * Load the report units from the msrun directories using a pool of worker threads. The report numbers are handed
+     * out before the directories are submitted, so the numbering is the same as with sequential loading.
+     *
+     * @param msRunDirectories the msrun directories to load.
+     * @param reportNums the report numbers, in the order of the msrun directories.
+     * @return the map with report units (keys are the msrun names).
+     */
+    private Map<String, ReportUnit> loadReportsInParallel(final List<File> msRunDirectories, final int[] reportNums) {
+        final Map<String, ReportUnit> reportUnitsTable = new HashMap<>();
+        final ExecutorService executorService = Executors.newFixedThreadPool(Math.min(threadCount,
+                                                                                      msRunDirectories.size()));
+        try {
+            final List<Future<ReportUnit>> futures = new ArrayList<>();
+            for (int directoryIndex = 0; directoryIndex < msRunDirectories.size(); directoryIndex++) {
+                final File msRunDirectory = msRunDirectories.get(directoryIndex);
+                final int reportNum = reportNums[directoryIndex];
+                futures.add(executorService.submit(new Callable<ReportUnit>() {
+                    @Override
+                    public ReportUnit call() {
+                        return createReportUnit(msRunDirectory, reportNum);
+                    }
+                }));
+            }
+            for (int directoryIndex = 0; directoryIndex < futures.size(); directoryIndex++) {
+                if (isLoadingCancelled(reportUnitsTable)) {
+                    // The directories that are still waiting are dropped when the executor is shut down.
+                    break;
+                }
+                final File msRunDirectory = msRunDirectories.get(directoryIndex);
+                ReportUnit reportUnit;
+                try {
+                    reportUnit = futures.get(directoryIndex).get();
+                } catch (final ExecutionException e) {
+                    logger.log(Level.SEVERE, String.format(EXCEPTION_LOADING_REPORT_MESSAGE, msRunDirectory), e);
+                    // Keep the report numbers consecutive: add a report unit that only signals the error.
+                    reportUnit = createErrorReportUnit(msRunDirectory.getName(), reportNums[directoryIndex]);
+                }
+                addReportUnit(reportUnitsTable, reportUnit);
+            }
+        } catch (final InterruptedException e) {
+            logger.log(Level.WARNING, LOADING_INTERRUPTED_MESSAGE, e);
+            Thread.currentThread().interrupt();
+        } finally {
+            executorService.shutdownNow();
+        }
         return reportUnitsTable;
     }
 
     /**
-     * Check whether the report directory contains "metrics.json", and "_ticmatrix.csv" files.
+     * Check whether the report load listener has cancelled loading.
+     *
+     * @param reportUnitsTable the map with the report units loaded so far.
+     * @return whether loading has been cancelled.
+     */
+    private boolean isLoadingCancelled(final Map<String, ReportUnit> reportUnitsTable) {
+        final boolean cancelled = reportLoadListener != null && reportLoadListener.isCancelled();
+        if (cancelled) {
+            logger.fine(String.format(LOADING_CANCELLED_MESSAGE, reportUnitsTable.size()));
+        }
+        return cancelled;
+    }
+
+    /**
+     * Add a report unit to the report units table and notify the report load listener.
+     *
+     * @param reportUnitsTable the map with report units (keys are the msrun names).
+     * @param reportUnit the report unit to add.
+     */
+    private void addReportUnit(final Map<String, ReportUnit> reportUnitsTable, final ReportUnit reportUnit) {
+        final String msrunName = reportUnit.getMsrunName().trim();
+        reportUnitsTable.put(msrunName, reportUnit);
+        logger.fine(String.format(ADDED_REPORT_MESSAGE, msrunName));
+        if (reportLoadListener != null) {
+            reportLoadListener.reportLoaded(reportUnit);
+        }
+    }
+
+    /**
+     * Check whether the report directory contains "metrics.json", and "_ticmatrix.csv" (or "_ticmatrix.bin") files.
      *
      * @param dataFiles list of files in folder msrunName.
-     * @return errorString if the "metrics.json", and "_ticmatrix.csv" files not found.
+     * @return errorString if the "metrics.json", and "_ticmatrix.csv" (or "_ticmatrix.bin") files not found.
      */
     private String checkDataFilesAvailability(final File[] dataFiles) {
         boolean metrics = false;
@@ -155,7 +641,8 @@ public class ReportReader {
                 logFileName(dataFileName);
                 if (Constants.METRICS_JSON_FILE_NAME.equals(dataFileName)) {
                     metrics = true;
-                } else if (dataFileName.endsWith(Constants.TIC_MATRIX_FILE_NAME_SUFFIX)) {
+                } else if (dataFileName.endsWith(Constants.TIC_MATRIX_FILE_NAME_SUFFIX)
+                           || dataFileName.endsWith(Constants.TIC_BINARY_FILE_NAME_SUFFIX)) {
                     ticMatrix = true;
                 }
             }
@@ -171,10 +658,10 @@ public class ReportReader {
      *
      * @param msrunName the name of the msrun.
      * @param runningMsrunName the ms run name of the raw file that is currently being processed by the QC pipeline.
-     * @param reportKeys the msrun names of the reports that are already retrieved in the past.
+     * @param reportKeys the registry of the msruns whose reports are already retrieved in the past.
      * @return whether the msrun should be skipped.
      */
-    private boolean skipMsrun(final String msrunName, final String runningMsrunName, final List<String> reportKeys) {
+    private boolean skipMsrun(final String msrunName, final String runningMsrunName, final MsrunRegistry reportKeys) {
         return runningMsrunName.equals(msrunName) || ((reportKeys != null) && reportKeys.contains(msrunName));
     }
 
@@ -215,6 +702,8 @@ public class ReportReader {
                 }
             }
         }
+        // Sort the directories to get the same report numbers every time the reports are loaded.
+        Collections.sort(yearDirectories);
         return yearDirectories;
     }
 
@@ -255,6 +744,13 @@ public class ReportReader {
                 }
             }
         }
+        Collections.sort(monthDirectories, new Comparator<File>() {
+            @Override
+            public int compare(final File monthDirectory1, final File monthDirectory2) {
+                return Integer.compare(MONTH_DIRS.indexOf(monthDirectory1.getName()),
+                                       MONTH_DIRS.indexOf(monthDirectory2.getName()));
+            }
+        });
         return monthDirectories;
     }
 
@@ -274,6 +770,7 @@ public class ReportReader {
                 }
             }
         }
+        Collections.sort(msRunDirectories);
         return msRunDirectories;
     }
 
@@ -290,55 +787,109 @@ public class ReportReader {
      *  // TODO: we can detect errors by checking the metricsValues and ticChartUnit 
      *  fields of the report unit. [Freek]
      * 
-     * @param msrunName the name of the msrun.
-     * @param dataFiles the files used to initialize the report unit.
-     * @param errorFlag whether an error occurred while reading the files.
-     * @param errorString if the "metrics.json", and "_ticmatrix.csv" files not found.
+     * This method can be called from multiple worker threads at the same time.
+     *
+     * @param msRunDirectory the msrun directory with the data files used to initialize the report unit.
+     * @param reportNum the number of the new report unit.
      * @return the new report unit.
      */
-    private ReportUnit createReportUnit(final String msrunName, final File[] dataFiles, final boolean errorFlag,
-                                        final String errorString) {
-        currentReportNum++;
-        logger.fine(String.format(CREATING_REPORT_UNIT_MESSAGE, currentReportNum, msrunName));
-        final ReportUnit reportUnit = new ReportUnit(msrunName, currentReportNum);
-        reportUnit.setErrorFlag(errorFlag); 
+    private ReportUnit createReportUnit(final File msRunDirectory, final int reportNum) {
+        final String msrunName = msRunDirectory.getName();
+        // The directory can be removed after it was found: treat this as a directory without data files.
+        final File[] directoryFiles = msRunDirectory.listFiles();
+        final File[] dataFiles = (directoryFiles != null) ? directoryFiles : new File[0];
+        //Check whether "metrics.json", and "*_ticmatrix.csv" files are available
+        final String errorString = checkDataFilesAvailability(dataFiles);
+        logger.fine(String.format(CREATING_REPORT_UNIT_MESSAGE, reportNum, msrunName));
+        final ReportUnit reportUnit = new ReportUnit(metricsTable, msrunName, reportNum);
+        reportUnit.setErrorFlag(!"".equals(errorString)); 
         reportUnit.setReportErrorString(errorString);
+        final String fingerprint = (reportIndex != null)
+                                   ? ReportIndex.createFingerprint(msRunDirectory, dataFiles)
+                                   : null;
+        final ReportIndex.Entry indexEntry = (reportIndex != null)
+                                             ? reportIndex.getEntry(getMsRunPath(msRunDirectory), fingerprint)
+                                             : null;
+        File metricsFile = null;
+        File ticMatrixFile = null;
+        File ticBinaryFile = null;
         for (final File dataFile : dataFiles) {
             final String dataFileName = dataFile.getName();
             if (dataFile.isFile()) {
-                handleQCPipelineDataFile(msrunName, reportUnit, dataFile, dataFileName);
+                logFileName(dataFileName);
+                if (Constants.METRICS_JSON_FILE_NAME.equals(dataFileName)) {
+                    metricsFile = dataFile;
+                } else if (dataFileName.endsWith(Constants.TIC_MATRIX_FILE_NAME_SUFFIX)) {
+                    ticMatrixFile = dataFile;
+                } else if (dataFileName.endsWith(Constants.TIC_BINARY_FILE_NAME_SUFFIX)) {
+                    ticBinaryFile = dataFile;
+                }
             } else if (dataFile.isDirectory()) {
                 logDirectoryName(dataFileName);
             }
         }
+        // The TIC data itself is only read when the chart is shown; here only its maximum intensity is needed.
+        reportUnit.setTicFiles(ticBinaryFile, ticMatrixFile);
+        if (indexEntry != null) {
+            logger.fine(String.format(INDEXED_REPORT_MESSAGE, msrunName));
+            final Map<String, String> indexedValues = indexEntry.getMetricsValues();
+            initializeReportUnit(reportUnit, (indexedValues != null) ? metricsParser.createValueArray(indexedValues)
+                                                                     : null,
+                                 indexEntry.getMaxTicIntensity());
+        } else {
+            final String[] metricsValues = (metricsFile != null)
+                                           ? jsonMetricsReader.readJsonValueArray(metricsFile)
+                                           : null;
+            final double maxTicIntensity = reportUnit.readMaxTicIntensity(ticMatrixReader);
+            initializeReportUnit(reportUnit, metricsValues, maxTicIntensity);
+            if (reportIndex != null) {
+                final Map<String, String> indexedValues = (metricsValues != null)
+                                                          ? metricsParser.createValueMap(metricsValues)
+                                                          : null;
+                reportIndex.putEntry(getMsRunPath(msRunDirectory),
+                                     new ReportIndex.Entry(fingerprint, indexedValues, maxTicIntensity));
+            }
+        }
         return reportUnit;
     }
 
     /**
-     * Handle a data file from the QC pipeline and initialize the report unit with it.
+     * Create a report unit for an msrun that could not be loaded.
      *
      * @param msrunName the name of the msrun.
+     * @param reportNum the number of the new report unit.
+     * @return the new report unit with the error flag set.
+     */
+    private ReportUnit createErrorReportUnit(final String msrunName, final int reportNum) {
+        final ReportUnit reportUnit = new ReportUnit(metricsTable, msrunName, reportNum);
+        reportUnit.setErrorFlag(true);
+        reportUnit.setReportErrorString(Constants.REPORT_ERROR_MISSING_DATA);
+        return reportUnit;
+    }
+
+    /**
+     * Initialize the report unit with the data from the QC pipeline data files.
+     *
      * @param reportUnit the report unit that is being created.
-     * @param dataFile a data file that is used to initialize the report unit.
-     * @param dataFileName the name of the data file.
-     */
-    private void handleQCPipelineDataFile(final String msrunName, final ReportUnit reportUnit, final File dataFile,
-                                          final String dataFileName) {
-        logFileName(dataFileName);
-        if (Constants.METRICS_JSON_FILE_NAME.equals(dataFileName)) {
-            Map<String, String> metricsValues = jsonMetricsReader.readJsonValuesForGenericAndNISTMetrics(dataFile);
-            metricsValues = jsonMetricsReader.readJsonValuesForQuaMeterIDFreeMetrics(dataFile, metricsValues); 
-            reportUnit.setMetricsValues(metricsValues);
+     * @param metricsValues the metrics values indexed by metric key ordinal or <code>null</code> if there is no
+     *                      metrics file.
+     * @param maxTicIntensity the maximum intensity of the TIC data or <code>Double.NaN</code> if there is no (valid)
+     *                        TIC file.
+     */
+    private void initializeReportUnit(final ReportUnit reportUnit, final String[] metricsValues,
+                                      final double maxTicIntensity) {
+        if (metricsValues != null) {
+            reportUnit.setMetricsValues(metricsParser.getMetricKeys(), metricsValues);
             //One or more metricsValues are missing if any of the values is "N/A"
-            if (metricsValues.containsValue(Constants.NOT_AVAILABLE_STRING)) {
+            if (Arrays.asList(metricsValues).contains(Constants.NOT_AVAILABLE_STRING)) {
                 reportUnit.setErrorFlag(true);
                 reportUnit.setReportErrorString(Constants.REPORT_ERROR_MISSING_DATA);
             }
-        } else if (dataFileName.endsWith(Constants.TIC_MATRIX_FILE_NAME_SUFFIX)) {
-            reportUnit.createChartUnit(readXYSeries(msrunName, dataFile));
-            final ChartUnit ticChartUnit = reportUnit.getChartUnit();
+        }
+        if (!Double.isNaN(maxTicIntensity)) {
+            reportUnit.createChartUnit(maxTicIntensity);
             //If value maxTicIntensity is 0 then there is missing data in ChartUnit
-            if (ticChartUnit.getMaxTicIntensity() == 0) {
+            if (maxTicIntensity == 0) {
                 reportUnit.setErrorFlag(true);
                 reportUnit.setReportErrorString(Constants.REPORT_ERROR_MISSING_DATA);
             }
@@ -346,32 +897,14 @@ public class ReportReader {
     }
 
     /**
-     * Create XYSeries by reading TIC matrix file that contains X & Y axis values representing TIC graph.
+     * Get the path of an msrun directory relative to the root directory, which is used as the key in the report index.
      *
-     * @param msrunName the name of the msrun.
-     * @param ticMatrixFile the tic matrix file to read from.
-     * @return XYSeries.
+     * @param msRunDirectory the msrun directory.
+     * @return the path as year/month/msrun.
      */
-    private XYSeries readXYSeries(final String msrunName, final File ticMatrixFile) {
-        final XYSeries series = new XYSeries(msrunName);
-        try {
-            final BufferedReader bufferedReader = new BufferedReader(new FileReader(ticMatrixFile));
-            //skip first line with column names: "rt","ions"
-            bufferedReader.readLine();
-            String line;
-            while ((line = bufferedReader.readLine()) != null) {
-                final StringTokenizer lineTokenizer = new StringTokenizer(line, ",");
-                // The first token is the x value.
-                // TODO: make sure the rt value is in seconds. [Freek]
-                final float x = Float.parseFloat(lineTokenizer.nextToken()) / Constants.SECONDS_PER_MINUTE;
-                // The second token is the y value.
-                final float y = Float.parseFloat(lineTokenizer.nextToken());
-                series.add(x, y);
-            }
-            bufferedReader.close();
-        } catch (final NumberFormatException | IOException e) {
-            logger.log(Level.SEVERE, EXCEPTION_GRAPH_SERIES_MESSAGE, e);
-        }
-        return series;
+    private String getMsRunPath(final File msRunDirectory) {
+        final File monthDirectory = msRunDirectory.getParentFile();
+        return monthDirectory.getParentFile().getName() + "/" + monthDirectory.getName() + "/"
+               + msRunDirectory.getName();
     }
 }
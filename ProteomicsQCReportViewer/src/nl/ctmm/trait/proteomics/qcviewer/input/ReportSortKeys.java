@@ -0,0 +1,79 @@
+package nl.ctmm.trait.proteomics.qcviewer.input;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The typed sort keys of the reports in the viewer. For every metric key that is sorted on, the numeric values of the
+ * reports are parsed once into a column (a <code>double</code> array indexed by report index) that is kept until the
+ * reports are replaced. Re-sorting the reports then only compares primitive values.
+ */
+public class ReportSortKeys {
+    /**
+     * Mapping from sort keys to the columns with the numeric values of the reports.
+     */
+    private final Map<String, double[]> sortValueColumns = new HashMap<>();
+
+    /**
+     * Get a comparator that compares the reports using the precomputed values of a sort key.
+     *
+     * @param reportUnits the reports, indexed by report index.
+     * @param sortKey the key to sort on.
+     * @param ascending whether to sort in ascending or descending order.
+     * @return the comparator to compare report units.
+     */
+    public Comparator<ReportUnit> getComparator(final List<ReportUnit> reportUnits, final String sortKey,
+                                                final boolean ascending) {
+        final double[] sortValues = ReportUnitComparator.usesNumericValues(sortKey)
+                                    ? getSortValues(reportUnits, sortKey)
+                                    : null;
+        return new ReportUnitComparator(sortKey, ascending, sortValues);
+    }
+
+    /**
+     * Get the column with the numeric values of a sort key. Only the values of reports that were added since the
+     * column was created are parsed.
+     *
+     * @param reportUnits the reports, indexed by report index.
+     * @param sortKey the key to sort on.
+     * @return the numeric values of the sort key indexed by report index (<code>Double.NaN</code> if not available).
+     */
+    public double[] getSortValues(final List<ReportUnit> reportUnits, final String sortKey) {
+        double[] sortValues = sortValueColumns.get(sortKey);
+        final int parsedCount = (sortValues != null) ? sortValues.length : 0;
+        if (parsedCount < reportUnits.size()) {
+            sortValues = (sortValues != null) ? Arrays.copyOf(sortValues, reportUnits.size())
+                                              : new double[reportUnits.size()];
+            for (int reportIndex = parsedCount; reportIndex < reportUnits.size(); reportIndex++) {
+                sortValues[reportIndex] = reportUnits.get(reportIndex).getNumericMetricValue(sortKey);
+            }
+            sortValueColumns.put(sortKey, sortValues);
+        }
+        return sortValues;
+    }
+
+    /**
+     * Update the values of a report that has replaced another report with the same report index in the columns.
+     *
+     * @param reportUnits the reports, indexed by report index.
+     * @param reportIndex the index of the report that has been replaced.
+     */
+    public void updateReport(final List<ReportUnit> reportUnits, final int reportIndex) {
+        for (final Map.Entry<String, double[]> sortValueColumn : sortValueColumns.entrySet()) {
+            if (reportIndex < sortValueColumn.getValue().length) {
+                sortValueColumn.getValue()[reportIndex] = reportUnits.get(reportIndex)
+                        .getNumericMetricValue(sortValueColumn.getKey());
+            }
+        }
+    }
+
+    /**
+     * Remove all columns, because the reports are replaced.
+     */
+    public void clear() {
+        sortValueColumns.clear();
+    }
+}
@@ -1,22 +1,41 @@
 package nl.ctmm.trait.proteomics.qcviewer.input;
 
+import java.io.File;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import nl.ctmm.trait.proteomics.qcviewer.gui.ChartUnit;
+import nl.ctmm.trait.proteomics.qcviewer.gui.TicDataset;
 import nl.ctmm.trait.proteomics.qcviewer.utils.Constants;
 
-import org.jfree.data.xy.XYSeries;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
 
 /**
  * The <code>ReportUnit</code> class contains information from an MS run generated by the QC tool that are displayed by
  * the QC report viewer. The instances of this class each represent a report of a single msrun.
  *
+ * The metrics values are not stored in the report itself: each report is a view on a row of a {@link MetricsTable},
+ * which stores the values of all reports column by column.
+ *
+ * The TIC data is not kept in memory while the reports are loaded: a report only knows the maximum intensity and the
+ * TIC files, from which the TIC data can be read when the chart is shown (see {@link #readTicDataset}).
+ *
  * @author <a href="mailto:pravin.pawar@nbic.nl">Pravin Pawar</a>
  * @author <a href="mailto:freek.de.bruijn@nbic.nl">Freek de Bruijn</a>
  */
 public class ReportUnit {
+    /**
+     * The measured time used when the measured date and time are not available.
+     */
+    public static final long MEASURED_TIME_NOT_AVAILABLE = Long.MIN_VALUE;
+
+    /**
+     * The format of the measured date and time, for example "2013/Jul/15 - 10:30" (immutable and thread-safe).
+     */
+    private static final DateTimeFormatter MEASURED_FORMATTER = DateTimeFormat.forPattern("yyyy/MMM/dd - HH:mm");
+
     /**
      * Number of the report displayed in viewer.
      */
@@ -58,6 +77,12 @@ public class ReportUnit {
      * TODO: rename to measuredDateTime? See also Constants: METRIC_KEY_MEASURED = SORT_KEY_DATE. [Freek]
      */
     private String measured = Constants.NOT_AVAILABLE_STRING;
+
+    /**
+     * Date and time at which QC pipeline has processed RAW file in milliseconds since the epoch, which is parsed once
+     * for sorting (or {@link #MEASURED_TIME_NOT_AVAILABLE}).
+     */
+    private long measuredTime = MEASURED_TIME_NOT_AVAILABLE;
     
     /**
      * Time taken by the QC pipeline to completely process RAW file.
@@ -75,23 +100,41 @@ public class ReportUnit {
     private boolean errorFlag;
 
     /**
-     * Metrics values (map from keys to values).
+     * The table that stores the metrics values of this report.
      */
-    private Map<String, String> metricsValues;
+    private final MetricsTable metricsTable;
+
+    /**
+     * The index of the row with the metrics values of this report in the metrics table.
+     */
+    private final int metricsRowIndex;
 
     /**
      * ChartUnit to hold corresponding chart.
      */
     private ChartUnit ticChartUnit;
 
+    /**
+     * The binary TIC file from which the TIC data can be read or <code>null</code> if it is not available.
+     */
+    private File ticBinaryFile;
+
+    /**
+     * The TIC matrix file from which the TIC data can be read or <code>null</code> if it is not available.
+     */
+    private File ticMatrixFile;
+
     /**
      * One row in the QC Report Viewer table corresponds to one QC ReportUnit.
-     * Sets the number of this QC ReportUnit.
+     * Sets the number of this QC ReportUnit and adds a row for its metrics values to a metrics table.
      *
+     * @param metricsTable the table that stores the metrics values of the reports.
      * @param msrunName the unique msrun name - also represents RAW file uniquely
      * @param reportNum the unique report number.
      */
-    public ReportUnit(final String msrunName, final int reportNum) {
+    public ReportUnit(final MetricsTable metricsTable, final String msrunName, final int reportNum) {
+        this.metricsTable = metricsTable;
+        metricsRowIndex = metricsTable.addRow();
         this.msrunName = msrunName;
         this.reportNum = reportNum;
         reportIndex = reportNum - 1; 
@@ -106,8 +149,27 @@ public class ReportUnit {
      * @return value of metric.
      */
     public String getMetricsValueFromKey(final String key) {
-        final boolean metricAvailable = metricsValues != null && metricsValues.containsKey(key);
-        return metricAvailable ? metricsValues.get(key) : Constants.NOT_AVAILABLE_STRING;
+        final String value = metricsTable.getValue(metricsRowIndex, key);
+        return (value != null) ? value : Constants.NOT_AVAILABLE_STRING;
+    }
+
+    /**
+     * Get the numeric value of a metric, which is used for sorting. The value of the date metric is the measured time
+     * in milliseconds since the epoch.
+     *
+     * @param key metrics key in String format.
+     * @return the numeric value of the metric or <code>Double.NaN</code> if the value is not available or not numeric.
+     */
+    public double getNumericMetricValue(final String key) {
+        double numericValue = Double.NaN;
+        if (Constants.SORT_KEY_DATE.equals(key)) {
+            if (measuredTime != MEASURED_TIME_NOT_AVAILABLE) {
+                numericValue = measuredTime;
+            }
+        } else {
+            numericValue = metricsTable.getNumericValue(metricsRowIndex, key);
+        }
+        return numericValue;
     }
 
     /**
@@ -194,13 +256,78 @@ public class ReportUnit {
     /**
      * Create ticChart and corresponding chart data for this report unit.
      *
-     * @param series a sequence of (x, y) data items.
+     * @param ticDataset the TIC data: retention times and intensities.
+     */
+    public void createChartUnit(final TicDataset ticDataset) {
+        ticChartUnit = new ChartUnit(msrunName, reportIndex, ticDataset);
+        setMaxIntensityMetric(Double.toString(ticChartUnit.getMaxTicIntensity()));
+    }
+
+    /**
+     * Create ticChart for this report unit without loading the TIC data: the data is read from the TIC files when the
+     * chart is shown.
+     *
+     * @param maxTicIntensity the maximum intensity of the TIC data.
      */
-    public void createChartUnit(final XYSeries series) {
-        ticChartUnit = new ChartUnit(msrunName, reportIndex, series);
+    public void createChartUnit(final double maxTicIntensity) {
+        ticChartUnit = new ChartUnit(msrunName, reportIndex, maxTicIntensity);
         setMaxIntensityMetric(Double.toString(ticChartUnit.getMaxTicIntensity()));
     }
 
+    /**
+     * Set the TIC files from which the TIC data of this report can be read.
+     *
+     * @param ticBinaryFile the binary TIC file or <code>null</code> if it is not available.
+     * @param ticMatrixFile the TIC matrix file or <code>null</code> if it is not available.
+     */
+    public void setTicFiles(final File ticBinaryFile, final File ticMatrixFile) {
+        this.ticBinaryFile = ticBinaryFile;
+        this.ticMatrixFile = ticMatrixFile;
+    }
+
+    /**
+     * Check whether the TIC data of this report can be read from the TIC files.
+     *
+     * @return whether there is a TIC file to read the TIC data from.
+     */
+    public boolean hasTicFiles() {
+        return ticBinaryFile != null || ticMatrixFile != null;
+    }
+
+    /**
+     * Read the TIC data of this report from the TIC files. The binary TIC file is preferred, since it needs no parsing;
+     * the TIC matrix file is used if the binary file is not available or not valid.
+     *
+     * @param ticMatrixReader the reader for the TIC files.
+     * @return the TIC data or <code>null</code> if the TIC data could not be read.
+     */
+    public TicDataset readTicDataset(final TicMatrixReader ticMatrixReader) {
+        TicDataset ticDataset = (ticBinaryFile != null)
+                                ? ticMatrixReader.readBinaryTicDataset(msrunName, ticBinaryFile)
+                                : null;
+        if (ticDataset == null && ticMatrixFile != null) {
+            ticDataset = ticMatrixReader.readTicDataset(msrunName, ticMatrixFile);
+        }
+        return ticDataset;
+    }
+
+    /**
+     * Read the maximum intensity of the TIC data of this report without reading the TIC data itself: from the header of
+     * the binary TIC file or, if that is not available or not valid, with a streaming pass over the TIC matrix file.
+     *
+     * @param ticMatrixReader the reader for the TIC files.
+     * @return the maximum intensity or <code>Double.NaN</code> if it could not be read.
+     */
+    public double readMaxTicIntensity(final TicMatrixReader ticMatrixReader) {
+        double maxTicIntensity = (ticBinaryFile != null)
+                                 ? ticMatrixReader.readBinaryMaxIntensity(ticBinaryFile)
+                                 : Double.NaN;
+        if (Double.isNaN(maxTicIntensity) && ticMatrixFile != null) {
+            maxTicIntensity = ticMatrixReader.readMaxIntensity(ticMatrixFile);
+        }
+        return maxTicIntensity;
+    }
+
     /**
      * Set the max intensity metric value.
      *
@@ -278,6 +405,15 @@ public class ReportUnit {
         return this.measured;
     }
 
+    /**
+     * Get the measured date and time in milliseconds since the epoch.
+     *
+     * @return the measured time or {@link #MEASURED_TIME_NOT_AVAILABLE} if it is not available.
+     */
+    public long getMeasuredTime() {
+        return measuredTime;
+    }
+
     /**
      * Set the value of parameter measured.
      *
@@ -285,9 +421,28 @@ public class ReportUnit {
      */
     public void setMeasured(final String measured) {
         this.measured = measured;
+        this.measuredTime = parseMeasuredTime(measured);
         setMetricValue(Constants.METRIC_KEY_MEASURED, measured);
     }
 
+    /**
+     * Parse the measured date and time.
+     *
+     * @param measuredString the measured date and time, for example "2013/Jul/15 - 10:30".
+     * @return the measured time in milliseconds since the epoch or {@link #MEASURED_TIME_NOT_AVAILABLE}.
+     */
+    private static long parseMeasuredTime(final String measuredString) {
+        long time = MEASURED_TIME_NOT_AVAILABLE;
+        if (measuredString != null && !measuredString.equals(Constants.NOT_AVAILABLE_STRING)) {
+            try {
+                time = MEASURED_FORMATTER.parseMillis(measuredString.trim());
+            } catch (final IllegalArgumentException e) {
+                time = MEASURED_TIME_NOT_AVAILABLE;
+            }
+        }
+        return time;
+    }
+
     /**
      * Get the value of parameter runtime.
      *
@@ -314,17 +469,38 @@ public class ReportUnit {
      */
     public void setMetricsValues(final Map<String, String> metricsValues) {
         if (metricsValues != null) {
-            this.metricsValues = new HashMap<>(metricsValues);
-            // Set values of certain parameters to aid in the comparison.
-            this.fileSizeString = this.getMetricsValueFromKey(Constants.METRIC_KEY_FILE_SIZE);
-            setFileSizeString(fileSizeString);
-            this.ms1Spectra = this.getMetricsValueFromKey(Constants.METRIC_KEY_MS1_SPECTRA);
-            this.ms2Spectra = this.getMetricsValueFromKey(Constants.METRIC_KEY_MS2_SPECTRA);
-            this.measured = this.getMetricsValueFromKey(Constants.METRIC_KEY_MEASURED);
-            this.runtime = this.getMetricsValueFromKey(Constants.METRIC_KEY_RUNTIME);
+            metricsTable.setValues(metricsRowIndex, metricsValues);
+            initializeGenericValues();
+        }
+    }
+
+    /**
+     * Set values of QC metrics in this report, indexed by the ordinals of the metric keys. This avoids hashing the
+     * metric key strings.
+     *
+     * @param metricKeys the canonical metric keys in the order of their ordinals.
+     * @param metricsValues the metrics values indexed by metric key ordinal.
+     */
+    public void setMetricsValues(final List<MetricKey> metricKeys, final String[] metricsValues) {
+        if (metricsValues != null) {
+            metricsTable.setValues(metricsRowIndex, metricKeys, metricsValues);
+            initializeGenericValues();
         }
     }
 
+    /**
+     * Set values of certain parameters from the metrics values to aid in the comparison.
+     */
+    private void initializeGenericValues() {
+        this.fileSizeString = this.getMetricsValueFromKey(Constants.METRIC_KEY_FILE_SIZE);
+        setFileSizeString(fileSizeString);
+        this.ms1Spectra = this.getMetricsValueFromKey(Constants.METRIC_KEY_MS1_SPECTRA);
+        this.ms2Spectra = this.getMetricsValueFromKey(Constants.METRIC_KEY_MS2_SPECTRA);
+        this.measured = this.getMetricsValueFromKey(Constants.METRIC_KEY_MEASURED);
+        this.measuredTime = parseMeasuredTime(measured);
+        this.runtime = this.getMetricsValueFromKey(Constants.METRIC_KEY_RUNTIME);
+    }
+
     /**
      * Set an individual metric.
      *
@@ -332,19 +508,17 @@ public class ReportUnit {
      * @param value the metric value.
      */
     public void setMetricValue(final String key, final String value) {
-        if (metricsValues == null) {
-            metricsValues = new HashMap<>();
-        }
-        metricsValues.put(key, value);
+        metricsTable.setValue(metricsRowIndex, key, value);
     }
 
     /**
      * Get map with values of QC metrics in this report.
      *
-     * @return metricsValues map containing QC metrics keys and corresponding values.
+     * @return metricsValues map containing QC metrics keys and corresponding values (or <code>null</code> if this
+     *         report has no metrics values).
      */
     public Map<String, String> getMetricsValues() {
-        return metricsValues;
+        return metricsTable.getValues(metricsRowIndex);
     }
 
     /**
@@ -1,32 +1,20 @@
 package nl.ctmm.trait.proteomics.qcviewer.input;
 
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Comparator;
-import java.util.Date;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 import nl.ctmm.trait.proteomics.qcviewer.utils.Constants;
 
 /**
  * The comparator used to compare reports to each other.
  *
+ * Except for the report index and the runtime, the reports are compared on the numeric value of the sort key (the
+ * measured time in milliseconds for the date key). These values can be passed in as a precomputed column, so they do
+ * not have to be parsed for every comparison (see {@link ReportSortKeys}).
+ *
  * @author <a href="mailto:pravin.pawar@nbic.nl">Pravin Pawar</a>
  * @author <a href="mailto:freek.de.bruijn@nbic.nl">Freek de Bruijn</a>
  */
 public class ReportUnitComparator implements Comparator<ReportUnit> {
-    /**
-     * The logger for this class.
-     */
-    private static final Logger logger = Logger.getLogger(ReportUnitComparator.class.getName());
-
-    /**
-     * The date and time format for parsing the measured field.
-     */
-    private final DateFormat dateTimeFormat = new SimpleDateFormat("yyyy/MMM/dd - HH:mm");
-
     /**
      * The sort key to use, for example {@link Constants#SORT_KEY_REPORT_INDEX}.
      */
@@ -37,6 +25,12 @@ public class ReportUnitComparator implements Comparator<ReportUnit> {
      */
     private final int sortFactor;
 
+    /**
+     * The numeric values of the sort key indexed by report index or <code>null</code> if the values are not
+     * precomputed.
+     */
+    private final double[] sortValues;
+
     /**
      * Create a comparator for reports.
      *
@@ -44,70 +38,99 @@ public class ReportUnitComparator implements Comparator<ReportUnit> {
      * @param ascending whether to sort ascending (<code>true</code>) or descending (<code>false</code>).
      */
     public ReportUnitComparator(final String sortKey, final boolean ascending) {
+        this(sortKey, ascending, null);
+    }
+
+    /**
+     * Create a comparator for reports that uses precomputed values of the sort key.
+     *
+     * @param sortKey    the sort key to use, for example {@link Constants#SORT_KEY_REPORT_INDEX}.
+     * @param ascending  whether to sort ascending (<code>true</code>) or descending (<code>false</code>).
+     * @param sortValues the numeric values of the sort key indexed by report index (<code>Double.NaN</code> for values
+     *                   that are not available) or <code>null</code> to get the values from the reports.
+     */
+    public ReportUnitComparator(final String sortKey, final boolean ascending, final double[] sortValues) {
         this.sortKey = sortKey;
         this.sortFactor = ascending ? 1 : -1;
+        this.sortValues = sortValues;
+    }
+
+    /**
+     * Check whether the reports are compared on the numeric values of a sort key.
+     *
+     * @param sortKey the sort key.
+     * @return whether the numeric values of the sort key are used.
+     */
+    public static boolean usesNumericValues(final String sortKey) {
+        return !sortKey.equals(Constants.SORT_KEY_REPORT_INDEX) && !sortKey.equals(Constants.SORT_KEY_RUNTIME);
     }
 
     @Override
     public int compare(final ReportUnit reportUnit1, final ReportUnit reportUnit2) {
-        int result;
+        final int result;
         // Needs following special provision to sort according to report index since call to
         // getMetricsValueFromKey(sortKey) returns "N/A" for report index.
         if (sortKey.equals(Constants.SORT_KEY_REPORT_INDEX)) {
-            result = sortFactor * Integer.compare(reportUnit1.getReportIndex(), reportUnit2.getReportIndex());
+            result = Integer.compare(reportUnit1.getReportIndex(), reportUnit2.getReportIndex());
+        } else if (sortKey.equals(Constants.SORT_KEY_RUNTIME)) {
+            result = compareRuntimes(reportUnit1.getRuntime(), reportUnit2.getRuntime());
+        } else {
+            result = compareValues(getSortValue(reportUnit1), getSortValue(reportUnit2));
+        }
+        return sortFactor * result;
+    }
+
+    /**
+     * Get the numeric value of the sort key for a report: the precomputed value if it is available.
+     *
+     * @param reportUnit the report.
+     * @return the numeric value of the sort key or <code>Double.NaN</code> if the value is not available.
+     */
+    private double getSortValue(final ReportUnit reportUnit) {
+        final int reportIndex = reportUnit.getReportIndex();
+        return (sortValues != null && reportIndex >= 0 && reportIndex < sortValues.length)
+               ? sortValues[reportIndex]
+               : reportUnit.getNumericMetricValue(sortKey);
+    }
+
+    /**
+     * Compare two numeric values in ascending order. Values that are not available come first.
+     *
+     * @param value1 the first value or <code>Double.NaN</code> if it is not available.
+     * @param value2 the second value or <code>Double.NaN</code> if it is not available.
+     * @return a negative integer, zero, or a positive integer as the first argument is less than, equal to, or greater
+     *         than the second.
+     */
+    private int compareValues(final double value1, final double value2) {
+        final int result;
+        if (Double.isNaN(value1) || Double.isNaN(value2)) {
+            result = Boolean.compare(!Double.isNaN(value1), !Double.isNaN(value2));
         } else {
-            final String value1 = reportUnit1.getMetricsValueFromKey(sortKey);
-            final String value2 = reportUnit2.getMetricsValueFromKey(sortKey);
-            if (value1.equals(value2)) {
-                result = 0;
-            } else if (value2.equals(Constants.NOT_AVAILABLE_STRING)) {
-                //value1 is valid and present
-                result = sortFactor;
-            } else if (value1.equals(Constants.NOT_AVAILABLE_STRING)) {
-                //value2 is valid and present
-                result = -sortFactor;
-            } else {
-                result = compareMetricKey(reportUnit1, reportUnit2, value1, value2);
-            }
+            result = Double.compare(value1, value2);
         }
         return result;
     }
 
     /**
-     * Compare two reports on metric key.
+     * Compare two runtimes in ascending order. Runtimes that are not available come first.
      *
-     * @param reportUnit1 the first report.
-     * @param reportUnit2 the second report.
-     * @param value1      the metric value of the first report.
-     * @param value2      the metric value of the second report.
+     * @param runtime1 the first runtime.
+     * @param runtime2 the second runtime.
      * @return a negative integer, zero, or a positive integer as the first argument is less than, equal to, or greater
      *         than the second.
      */
-    private int compareMetricKey(final ReportUnit reportUnit1, final ReportUnit reportUnit2, final String value1,
-                                 final String value2) {
-        int result = 0;
-        if (Constants.LIST_SORT_KEYS_DOUBLE.contains(sortKey)) {
-            result = sortFactor * Double.compare(Double.parseDouble(value1), Double.parseDouble(value2));
-        } else if (Constants.LIST_SORT_KEYS_INT.contains(sortKey)) {
-            result = sortFactor * Integer.compare(Integer.parseInt(value1), Integer.parseInt(value2));
-        } else if (sortKey.equals(Constants.SORT_KEY_DATE)) {
-            try {
-                final Date measured1 = dateTimeFormat.parse(reportUnit1.getMeasured());
-                final Date measured2 = dateTimeFormat.parse(reportUnit2.getMeasured());
-                result = sortFactor * measured1.compareTo(measured2);
-            } catch (final ParseException e) {
-                logger.log(Level.SEVERE, "thisValue: " + value1 + "; otherValue: " + value2, e);
-            }
-        } else if (sortKey.equals(Constants.SORT_KEY_RUNTIME)) {
-            result = sortFactor * reportUnit1.getRuntime().compareToIgnoreCase(reportUnit2.getRuntime());
-        // Since ReportUnit.createChartUnit stores the max intensity in the metricsValues map, there is no need for
-        // special code for the SORT_KEY_MAX_INTENSITY.
-//        } else if (sortKey.equals(Constants.SORT_KEY_MAX_INTENSITY)) {
-//            final double maxTicIntensity1 = reportUnit1.getChartUnit().getMaxTicIntensity();
-//            final double maxTicIntensity2 = reportUnit2.getChartUnit().getMaxTicIntensity();
-//            result = sortFactor * Double.compare(maxTicIntensity1, maxTicIntensity2);
+    private int compareRuntimes(final String runtime1, final String runtime2) {
+        final int result;
+        if (runtime1.equals(runtime2)) {
+            result = 0;
+        } else if (runtime2.equals(Constants.NOT_AVAILABLE_STRING)) {
+            //runtime1 is valid and present
+            result = 1;
+        } else if (runtime1.equals(Constants.NOT_AVAILABLE_STRING)) {
+            //runtime2 is valid and present
+            result = -1;
         } else {
-            result = sortFactor * Double.compare(Double.parseDouble(value1), Double.parseDouble(value2));
+            result = runtime1.compareToIgnoreCase(runtime2);
         }
         return result;
     }
@@ -0,0 +1,508 @@
+package nl.ctmm.trait.proteomics.qcviewer.input;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import nl.ctmm.trait.proteomics.qcviewer.gui.TicDataset;
+import nl.ctmm.trait.proteomics.qcviewer.utils.Constants;
+
+/**
+ * The reader for the TIC matrix files (msrun*_ticmatrix.csv) generated by the QC pipeline. Each line of such a file
+ * contains a retention time in seconds and an intensity, for example: 300.4132192266296,9.8695246730217E9
+ *
+ * The file is read into a byte buffer with a single channel read and the numbers are parsed directly from the bytes, so
+ * no strings are created per line. The file is not memory mapped, since a mapped file stays locked on Windows until the
+ * mapping is garbage collected, which would stop the QC pipeline from replacing it.
+ * The parsed values are exactly the same as the values <code>Float.parseFloat</code> would return: in the rare cases
+ * where the fast conversion cannot guarantee this, the reader falls back to <code>Float.parseFloat</code>.
+ *
+ * The QC pipeline can also write a binary TIC file (msrun*_ticmatrix.bin) next to the TIC matrix file. This file has a
+ * header with the point count and the maximum intensity, followed by little-endian float pairs, so it can be loaded
+ * without any parsing.
+ *
+ * When the reports are loaded, only the maximum intensity is needed: it is taken from the header of the binary TIC file
+ * or, without a binary file, computed in a streaming pass over the TIC matrix file that does not keep any points (see
+ * {@link #readBinaryMaxIntensity} and {@link #readMaxIntensity}).
+ *
+ * This class can be used by multiple report loading threads at the same time.
+ */
+public class TicMatrixReader {
+    /**
+     * The magic number at the start of a binary TIC file ("QTIC" in little-endian byte order).
+     */
+    public static final int TIC_BINARY_MAGIC = 0x43495451;
+
+    /**
+     * The version of the binary TIC file format.
+     */
+    public static final int TIC_BINARY_VERSION = 1;
+
+    /**
+     * The size of the binary TIC file header: magic number, version, point count and maximum intensity.
+     */
+    public static final int TIC_BINARY_HEADER_SIZE = 20;
+
+    /**
+     * The size of a single point in a binary TIC file: retention time in seconds and intensity.
+     */
+    public static final int TIC_BINARY_POINT_SIZE = 8;
+
+    /**
+     * The logger for this class.
+     */
+    private static final Logger logger = Logger.getLogger(TicMatrixReader.class.getName());
+
+    /**
+     * Message to log when an exception occurs while reading a TIC matrix file.
+     */
+    private static final String EXCEPTION_GRAPH_SERIES_MESSAGE =
+                    "Something went wrong while reading graph series data";
+
+    /**
+     * Message to log when a binary TIC file has an unknown format.
+     */
+    private static final String INVALID_BINARY_FILE_MESSAGE = "Ignoring binary TIC file %s with an unknown format.";
+
+    /**
+     * Message of the exception thrown when a line of a TIC matrix file does not fit in the stream buffer.
+     */
+    private static final String LINE_TOO_LONG_MESSAGE = "Line too long in TIC matrix file %s";
+
+    /**
+     * The offset of the format version in a binary TIC file.
+     */
+    private static final int TIC_BINARY_VERSION_OFFSET = 4;
+
+    /**
+     * The offset of the point count in a binary TIC file.
+     */
+    private static final int TIC_BINARY_POINT_COUNT_OFFSET = 8;
+
+    /**
+     * The offset of the maximum intensity in a binary TIC file.
+     */
+    private static final int TIC_BINARY_MAX_INTENSITY_OFFSET = 12;
+
+    /**
+     * The size of the buffer used to stream through a TIC matrix file for its maximum intensity.
+     */
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The radix of the decimal numbers in the TIC matrix file.
+     */
+    private static final int DECIMAL_RADIX = 10;
+
+    /**
+     * The minimum capacity of the arrays used while reading a TIC matrix file.
+     */
+    private static final int MINIMUM_TIC_CAPACITY = 1024;
+
+    /**
+     * The estimated number of bytes per line in a TIC matrix file, which is used to size the arrays.
+     */
+    private static final int ESTIMATED_LINE_LENGTH = 32;
+
+    /**
+     * The maximum number of significant digits that fits in the long mantissa.
+     */
+    private static final int MAXIMUM_MANTISSA_DIGITS = 18;
+
+    /**
+     * The powers of ten that can be represented exactly as a double.
+     */
+    private static final double[] EXACT_POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * The number of low mantissa bits of a double that are dropped when it is converted to a float.
+     */
+    private static final int DROPPED_MANTISSA_BITS = 29;
+
+    /**
+     * The mask for the dropped mantissa bits of a double.
+     */
+    private static final long DROPPED_MANTISSA_MASK = (1L << DROPPED_MANTISSA_BITS) - 1;
+
+    /**
+     * The dropped mantissa bits of a double that lies exactly halfway between two floats.
+     */
+    private static final long HALFWAY_MANTISSA_BITS = 1L << (DROPPED_MANTISSA_BITS - 1);
+
+    /**
+     * The number of double units in the last place around a float halfway point where the fast conversion could round
+     * differently than <code>Float.parseFloat</code>. The fast conversion is at most a few units off.
+     */
+    private static final long HALFWAY_MARGIN = 8;
+
+    /**
+     * Read a TIC matrix file and return the TIC data with the retention times converted to minutes. If an error
+     * occurs, the points read up to that moment are returned.
+     *
+     * @param msrunName the name of the msrun.
+     * @param ticMatrixFile the TIC matrix file to read from.
+     * @return the TIC dataset.
+     */
+    public TicDataset readTicDataset(final String msrunName, final File ticMatrixFile) {
+        final int capacity = (int) Math.max(MINIMUM_TIC_CAPACITY, ticMatrixFile.length() / ESTIMATED_LINE_LENGTH);
+        float[] xValues = new float[capacity];
+        float[] yValues = new float[capacity];
+        int pointCount = 0;
+        try {
+            final ByteBuffer buffer = readFile(ticMatrixFile);
+            final int limit = buffer.limit();
+            //skip first line with column names: "rt","ions"
+            int position = skipLine(buffer, 0, limit);
+            while (position < limit) {
+                final byte firstByte = buffer.get(position);
+                if (firstByte == '\n' || firstByte == '\r') {
+                    position++;
+                    continue;
+                }
+                // The first value is the retention time in seconds.
+                // TODO: make sure the rt value is in seconds. [Freek]
+                final int xEnd = findValueEnd(buffer, position, limit);
+                final float x = parseFloat(buffer, position, xEnd) / Constants.SECONDS_PER_MINUTE;
+                if (xEnd >= limit || buffer.get(xEnd) != ',') {
+                    throw new NumberFormatException("Missing intensity value in line with retention time " + x);
+                }
+                // The second value is the intensity.
+                final int yEnd = findValueEnd(buffer, xEnd + 1, limit);
+                final float y = parseFloat(buffer, xEnd + 1, yEnd);
+                if (pointCount == xValues.length) {
+                    xValues = Arrays.copyOf(xValues, 2 * pointCount);
+                    yValues = Arrays.copyOf(yValues, 2 * pointCount);
+                }
+                xValues[pointCount] = x;
+                yValues[pointCount] = y;
+                pointCount++;
+                position = skipLine(buffer, yEnd, limit);
+            }
+        } catch (final NumberFormatException | IOException e) {
+            logger.log(Level.SEVERE, EXCEPTION_GRAPH_SERIES_MESSAGE, e);
+        }
+        return new TicDataset(msrunName, Arrays.copyOf(xValues, pointCount), Arrays.copyOf(yValues, pointCount));
+    }
+
+    /**
+     * Read a binary TIC file and return the TIC data with the retention times converted to minutes.
+     *
+     * @param msrunName the name of the msrun.
+     * @param ticBinaryFile the binary TIC file to read from.
+     * @return the TIC dataset or <code>null</code> if the file could not be read or has an unknown format.
+     */
+    public TicDataset readBinaryTicDataset(final String msrunName, final File ticBinaryFile) {
+        try {
+            final ByteBuffer buffer = readFile(ticBinaryFile);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (!isValidBinaryHeader(buffer, buffer.limit())) {
+                logger.warning(String.format(INVALID_BINARY_FILE_MESSAGE, ticBinaryFile));
+                return null;
+            }
+            final int pointCount = buffer.getInt(TIC_BINARY_POINT_COUNT_OFFSET);
+            final float[] xValues = new float[pointCount];
+            final float[] yValues = new float[pointCount];
+            buffer.position(TIC_BINARY_HEADER_SIZE);
+            for (int pointIndex = 0; pointIndex < pointCount; pointIndex++) {
+                xValues[pointIndex] = buffer.getFloat() / Constants.SECONDS_PER_MINUTE;
+                yValues[pointIndex] = buffer.getFloat();
+            }
+            return new TicDataset(msrunName, xValues, yValues);
+        } catch (final IOException e) {
+            logger.log(Level.SEVERE, EXCEPTION_GRAPH_SERIES_MESSAGE, e);
+            return null;
+        }
+    }
+
+    /**
+     * Read the maximum intensity from the header of a binary TIC file, without reading the points.
+     *
+     * @param ticBinaryFile the binary TIC file to read from.
+     * @return the maximum intensity (rounded to a float like the points) or <code>Double.NaN</code> if the file could
+     *         not be read or has an unknown format.
+     */
+    public double readBinaryMaxIntensity(final File ticBinaryFile) {
+        try (final FileInputStream inputStream = new FileInputStream(ticBinaryFile);
+             final FileChannel fileChannel = inputStream.getChannel()) {
+            final ByteBuffer header = ByteBuffer.allocate(TIC_BINARY_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            int bytesRead = 0;
+            while (header.hasRemaining() && bytesRead >= 0) {
+                bytesRead = fileChannel.read(header);
+            }
+            header.flip();
+            if (!isValidBinaryHeader(header, fileChannel.size())) {
+                logger.warning(String.format(INVALID_BINARY_FILE_MESSAGE, ticBinaryFile));
+                return Double.NaN;
+            }
+            return (float) header.getDouble(TIC_BINARY_MAX_INTENSITY_OFFSET);
+        } catch (final IOException e) {
+            logger.log(Level.SEVERE, EXCEPTION_GRAPH_SERIES_MESSAGE, e);
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Compute the maximum intensity of a TIC matrix file in a single streaming pass, which parses only the intensities
+     * and keeps no points. If an error occurs, the maximum of the points read up to that moment is returned, like
+     * {@link #readTicDataset} returns those points.
+     *
+     * @param ticMatrixFile the TIC matrix file to read from.
+     * @return the maximum intensity or 0 if the file has no points.
+     */
+    public double readMaxIntensity(final File ticMatrixFile) {
+        float maxIntensity = Float.NEGATIVE_INFINITY;
+        try (final FileInputStream inputStream = new FileInputStream(ticMatrixFile);
+             final FileChannel fileChannel = inputStream.getChannel()) {
+            final ByteBuffer buffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE);
+            boolean columnNamesSkipped = false;
+            boolean endOfFile = false;
+            while (!endOfFile) {
+                endOfFile = fileChannel.read(buffer) < 0;
+                buffer.flip();
+                final int limit = buffer.limit();
+                int position = 0;
+                int lineEnd = findLineEnd(buffer, position, limit);
+                // The last line of the file does not need a line feed; other lines are completed by the next read.
+                while (lineEnd < limit || (endOfFile && position < limit)) {
+                    if (!columnNamesSkipped) {
+                        //skip first line with column names: "rt","ions"
+                        columnNamesSkipped = true;
+                    } else if (lineEnd > position && buffer.get(position) != '\r') {
+                        final int xEnd = findValueEnd(buffer, position, lineEnd);
+                        if (xEnd >= lineEnd || buffer.get(xEnd) != ',') {
+                            throw new NumberFormatException("Missing intensity value in TIC matrix line");
+                        }
+                        final int yEnd = findValueEnd(buffer, xEnd + 1, lineEnd);
+                        maxIntensity = Math.max(maxIntensity, parseFloat(buffer, xEnd + 1, yEnd));
+                    }
+                    position = Math.min(lineEnd + 1, limit);
+                    lineEnd = findLineEnd(buffer, position, limit);
+                }
+                buffer.position(position);
+                buffer.compact();
+                if (!endOfFile && !buffer.hasRemaining()) {
+                    throw new IOException(String.format(LINE_TOO_LONG_MESSAGE, ticMatrixFile));
+                }
+            }
+        } catch (final NumberFormatException | IOException e) {
+            logger.log(Level.SEVERE, EXCEPTION_GRAPH_SERIES_MESSAGE, e);
+        }
+        return (maxIntensity != Float.NEGATIVE_INFINITY) ? maxIntensity : 0;
+    }
+
+    /**
+     * Check whether a buffer starts with a valid binary TIC file header for a file of a given size.
+     *
+     * @param buffer the little-endian buffer with (at least) the header.
+     * @param fileSize the size of the binary TIC file.
+     * @return whether the header is valid.
+     */
+    private boolean isValidBinaryHeader(final ByteBuffer buffer, final long fileSize) {
+        final boolean headerAvailable = buffer.limit() >= TIC_BINARY_HEADER_SIZE;
+        final int pointCount = headerAvailable ? buffer.getInt(TIC_BINARY_POINT_COUNT_OFFSET) : -1;
+        return headerAvailable && buffer.getInt(0) == TIC_BINARY_MAGIC
+               && buffer.getInt(TIC_BINARY_VERSION_OFFSET) == TIC_BINARY_VERSION && pointCount >= 0
+               && fileSize == TIC_BINARY_HEADER_SIZE + (long) pointCount * TIC_BINARY_POINT_SIZE;
+    }
+
+    /**
+     * Read the contents of a file into a heap byte buffer.
+     *
+     * @param file the file to read.
+     * @return the buffer with the file contents, positioned at the start.
+     * @throws IOException if reading the file fails or the file is shorter than its size indicated.
+     */
+    private ByteBuffer readFile(final File file) throws IOException {
+        try (final FileInputStream inputStream = new FileInputStream(file);
+             final FileChannel fileChannel = inputStream.getChannel()) {
+            final ByteBuffer buffer = ByteBuffer.allocate((int) fileChannel.size());
+            while (buffer.hasRemaining()) {
+                if (fileChannel.read(buffer) < 0) {
+                    throw new EOFException(file.getPath());
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    /**
+     * Find the start of the next line.
+     *
+     * @param buffer the buffer with the file contents.
+     * @param start the position to start searching.
+     * @param limit the end of the buffer.
+     * @return the position after the next line feed or the limit if there is no next line.
+     */
+    private int skipLine(final ByteBuffer buffer, final int start, final int limit) {
+        int position = start;
+        while (position < limit && buffer.get(position) != '\n') {
+            position++;
+        }
+        return Math.min(position + 1, limit);
+    }
+
+    /**
+     * Find the end of a line.
+     *
+     * @param buffer the buffer with the file contents.
+     * @param start the start of the line.
+     * @param limit the end of the buffer.
+     * @return the position of the line feed or the limit if the line has no line feed (yet).
+     */
+    private int findLineEnd(final ByteBuffer buffer, final int start, final int limit) {
+        int position = start;
+        while (position < limit && buffer.get(position) != '\n') {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Find the end of a value: the first comma, carriage return or line feed.
+     *
+     * @param buffer the buffer with the file contents.
+     * @param start the start of the value.
+     * @param limit the end of the buffer.
+     * @return the position directly after the value.
+     */
+    private int findValueEnd(final ByteBuffer buffer, final int start, final int limit) {
+        int position = start;
+        while (position < limit) {
+            final byte currentByte = buffer.get(position);
+            if (currentByte == ',' || currentByte == '\r' || currentByte == '\n') {
+                break;
+            }
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Parse a float value from the bytes of the TIC matrix file, with the same result as <code>Float.parseFloat</code>.
+     *
+     * The digits are collected in a long mantissa with a decimal exponent. When the mantissa and exponent are small
+     * enough, the value is computed with a single double multiplication or division by an exact power of ten, which is
+     * at most a few units in the last place of a double off. This double is then rounded to a float, which is exact
+     * unless the double is very close to the halfway point between two floats.
+     *
+     * @param buffer the buffer with the file contents.
+     * @param start the start of the value.
+     * @param end the position directly after the value.
+     * @return the float value.
+     */
+    static float parseFloat(final ByteBuffer buffer, final int start, final int end) {
+        int position = start;
+        while (position < end && buffer.get(position) == ' ') {
+            position++;
+        }
+        int valueEnd = end;
+        while (valueEnd > position && buffer.get(valueEnd - 1) == ' ') {
+            valueEnd--;
+        }
+        final boolean negative = position < valueEnd && buffer.get(position) == '-';
+        if (position < valueEnd && (buffer.get(position) == '-' || buffer.get(position) == '+')) {
+            position++;
+        }
+        long mantissa = 0;
+        int mantissaDigits = 0;
+        int decimalExponent = 0;
+        boolean digitsFound = false;
+        boolean fractionPart = false;
+        boolean fastPathPossible = true;
+        while (position < valueEnd) {
+            final byte currentByte = buffer.get(position);
+            if (currentByte >= '0' && currentByte <= '9') {
+                digitsFound = true;
+                if (mantissaDigits < MAXIMUM_MANTISSA_DIGITS) {
+                    mantissa = DECIMAL_RADIX * mantissa + (currentByte - '0');
+                    if (mantissa != 0) {
+                        mantissaDigits++;
+                    }
+                    if (fractionPart) {
+                        decimalExponent--;
+                    }
+                } else {
+                    // Digits beyond the mantissa precision are dropped; this is covered by the halfway margin.
+                    if (!fractionPart) {
+                        decimalExponent++;
+                    }
+                }
+            } else if (currentByte == '.' && !fractionPart) {
+                fractionPart = true;
+            } else {
+                break;
+            }
+            position++;
+        }
+        if (digitsFound && position < valueEnd && (buffer.get(position) == 'e' || buffer.get(position) == 'E')) {
+            position++;
+            final boolean negativeExponent = position < valueEnd && buffer.get(position) == '-';
+            if (position < valueEnd && (buffer.get(position) == '-' || buffer.get(position) == '+')) {
+                position++;
+            }
+            int exponent = 0;
+            boolean exponentDigitsFound = false;
+            while (position < valueEnd && buffer.get(position) >= '0' && buffer.get(position) <= '9') {
+                exponentDigitsFound = true;
+                exponent = Math.min(DECIMAL_RADIX * exponent + (buffer.get(position) - '0'), Short.MAX_VALUE);
+                position++;
+            }
+            fastPathPossible = exponentDigitsFound;
+            decimalExponent += negativeExponent ? -exponent : exponent;
+        }
+        fastPathPossible &= digitsFound && position == valueEnd;
+        if (fastPathPossible && mantissa == 0) {
+            return negative ? -0.0f : 0.0f;
+        }
+        if (fastPathPossible && Math.abs(decimalExponent) < EXACT_POWERS_OF_TEN.length) {
+            final double value = (decimalExponent >= 0)
+                                 ? mantissa * EXACT_POWERS_OF_TEN[decimalExponent]
+                                 : mantissa / EXACT_POWERS_OF_TEN[-decimalExponent];
+            if (value >= Float.MIN_NORMAL && value <= Float.MAX_VALUE && !isNearFloatHalfway(value)) {
+                return (float) (negative ? -value : value);
+            }
+        }
+        return parseFloatSlow(buffer, start, end);
+    }
+
+    /**
+     * Check whether a double is close to the halfway point between two floats, where rounding it to a float could give
+     * a different result than rounding the exact decimal value.
+     *
+     * @param value the positive double value.
+     * @return whether the value is close to a float halfway point.
+     */
+    private static boolean isNearFloatHalfway(final double value) {
+        final long droppedBits = Double.doubleToRawLongBits(value) & DROPPED_MANTISSA_MASK;
+        return Math.abs(droppedBits - HALFWAY_MANTISSA_BITS) <= HALFWAY_MARGIN;
+    }
+
+    /**
+     * Parse a float value using <code>Float.parseFloat</code>, which is used for the values the fast path can not
+     * handle exactly.
+     *
+     * @param buffer the buffer with the file contents.
+     * @param start the start of the value.
+     * @param end the position directly after the value.
+     * @return the float value.
+     */
+    private static float parseFloatSlow(final ByteBuffer buffer, final int start, final int end) {
+        final byte[] valueBytes = new byte[end - start];
+        for (int index = 0; index < valueBytes.length; index++) {
+            valueBytes[index] = buffer.get(start + index);
+        }
+        return Float.parseFloat(new String(valueBytes, StandardCharsets.US_ASCII));
+    }
+}
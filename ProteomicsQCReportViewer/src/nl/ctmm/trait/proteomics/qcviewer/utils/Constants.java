@@ -44,6 +44,16 @@ public interface Constants {
      */
     String DEFAULT_ROOT_FOLDER = "QCReports";
     
+    /**
+     * Property name for the number of threads used to load the QC reports.
+     */
+    String PROPERTY_REPORT_LOADER_THREADS = "ReportLoaderThreads";
+
+    /**
+     * Default number of threads used to load the QC reports.
+     */
+    int DEFAULT_REPORT_LOADER_THREADS = 4;
+
     /**
      * Not available string.
      */
@@ -175,10 +185,28 @@ public interface Constants {
     Font DETAILS_HEADER_FONT = new Font(FONT_NAME, Font.BOLD, 12);
 
     /**
-     * The poll interval in milliseconds for checking the QC pipeline log file.
+     * The poll interval in milliseconds for checking the QC pipeline log file. When the log file is watched for
+     * changes, this is the interval for refreshing the pipeline status (the active/inactive durations) without reading
+     * the log file.
      */
     int POLL_INTERVAL_PIPELINE_LOG = 5000;
 
+    /**
+     * The file store types of network file systems that do not report changes made by other machines to a watch
+     * service; the QC pipeline log file on these file systems is polled instead.
+     */
+    List<String> POLLED_FILE_STORE_TYPES = Arrays.asList("nfs", "nfs4", "cifs", "smbfs", "smb2", "fuse.sshfs");
+
+    /**
+     * The maximum number of bytes used by the TIC data of the charts that are shown (or were shown recently).
+     */
+    long TIC_DATA_CACHE_BYTES = 32 * 1024 * 1024;
+
+    /**
+     * The maximum number of bytes used by the cached TIC thumbnail images in the report list.
+     */
+    long TIC_THUMBNAIL_CACHE_BYTES = 64 * 1024 * 1024;
+
     /**
      * Separator used in metrics definitions.
      */
@@ -234,6 +262,16 @@ public interface Constants {
      */
     String TIC_MATRIX_FILE_NAME_SUFFIX = "_ticmatrix.csv";
 
+    /**
+     * The suffix of the binary TIC file generated by the (Java addition to the) QC pipeline next to the TIC matrix.
+     */
+    String TIC_BINARY_FILE_NAME_SUFFIX = "_ticmatrix.bin";
+
+    /**
+     * The name of the report index file in the root directory, which is used to skip unchanged msrun directories.
+     */
+    String REPORT_INDEX_FILE_NAME = "qc_report_index.dat";
+
     /**
      * Report error message label when report unit contains errors.
      */
@@ -10,7 +10,10 @@ import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import nl.ctmm.trait.proteomics.qcviewer.gui.ChartUnit;
+import nl.ctmm.trait.proteomics.qcviewer.gui.TicDataset;
 import nl.ctmm.trait.proteomics.qcviewer.input.ReportUnit;
+import nl.ctmm.trait.proteomics.qcviewer.input.TicMatrixReader;
 
 import org.jfree.chart.ChartRenderingInfo;
 import org.jfree.chart.ChartUtilities;
@@ -120,12 +123,6 @@ public class ReportPDFExporter {
      */
     private static final DateFormat CREATION_DATE_TIME_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm");
 
-    /**
-     * Error message to be written to the logger in case exception occurs while preparing TIC Graph.
-     */
-    private static final String CLONE_EXCEPTION_MESSAGE = "Clone not supported exception occurred while preparing TIC"
-                                                          + " graph for %s.";
-
     /**
      * Default private constructor.
      */
@@ -209,27 +206,24 @@ public class ReportPDFExporter {
         /*Reference: http://vangjee.wordpress.com/2010/11/03/how-to-use-and-not-use-itext-and-jfreechart/
          * Apache License, Version 2.0
          */
-        JFreeChart ticChart = null;
-        try {
-            ticChart = (JFreeChart) reportUnit.getChartUnit().getTicChart().clone();
-        } catch (final CloneNotSupportedException e) {
-            logger.log(Level.SEVERE, String.format(CLONE_EXCEPTION_MESSAGE, reportUnit.getMsrunName()), e);
-        }
+        final ChartUnit chartUnit = reportUnit.getChartUnit();
+        // The TIC data is only kept for the charts that are shown, so it may have to be read for the exported chart,
+        // which is a temporary chart that is not kept by the chart unit.
+        final TicDataset ticDataset = (!chartUnit.isTicDataLoaded() && reportUnit.hasTicFiles())
+                                      ? reportUnit.readTicDataset(new TicMatrixReader())
+                                      : null;
+        final JFreeChart ticChart = chartUnit.createDetachedChart(ticDataset);
         final String titleString = String.format(TIC_GRAPH_TITLE, reportUnit.getMsrunName(),
                                                  reportUnit.getChartUnit().getMaxTicIntensityString());
         final TextTitle newTitle = new TextTitle(titleString, Constants.PDF_CHART_TITLE_FONT);
         newTitle.setPaint(Color.red);
-        if (ticChart != null) {
-            ticChart.setTitle(newTitle);
-        }
+        ticChart.setTitle(newTitle);
         Image chartImage = null;
         try {
             final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-            if (ticChart != null) {
-                ChartUtilities.writeChartAsPNG(
-                    byteArrayOutputStream, ticChart, CHART_IMAGE_WIDTH, CHART_IMAGE_HEIGHT,
-                    new ChartRenderingInfo());
-            }
+            ChartUtilities.writeChartAsPNG(
+                byteArrayOutputStream, ticChart, CHART_IMAGE_WIDTH, CHART_IMAGE_HEIGHT,
+                new ChartRenderingInfo());
             chartImage = Image.getInstance(byteArrayOutputStream.toByteArray());
             byteArrayOutputStream.close();
         } catch (final BadElementException | IOException e) {
@@ -4,9 +4,23 @@ import junit.framework.JUnit4TestAdapter;
 import junit.textui.TestRunner;
 
 import nl.ctmm.trait.proteomics.qcviewer.gui.ChartUnitTest;
+import nl.ctmm.trait.proteomics.qcviewer.gui.ReportListPaneTest;
 import nl.ctmm.trait.proteomics.qcviewer.gui.ScrollDesktopTest;
+import nl.ctmm.trait.proteomics.qcviewer.gui.TicChartPanelTest;
+import nl.ctmm.trait.proteomics.qcviewer.gui.TicDataCacheTest;
+import nl.ctmm.trait.proteomics.qcviewer.gui.TicDatasetTest;
+import nl.ctmm.trait.proteomics.qcviewer.gui.TicSparklineTest;
+import nl.ctmm.trait.proteomics.qcviewer.gui.TicThumbnailCacheTest;
+import nl.ctmm.trait.proteomics.qcviewer.input.JsonMetricsReaderTest;
+import nl.ctmm.trait.proteomics.qcviewer.input.LogTailReaderTest;
+import nl.ctmm.trait.proteomics.qcviewer.input.MetricsParserTest;
+import nl.ctmm.trait.proteomics.qcviewer.input.MetricsTableTest;
+import nl.ctmm.trait.proteomics.qcviewer.input.MsrunRegistryTest;
+import nl.ctmm.trait.proteomics.qcviewer.input.ReportIndexTest;
 import nl.ctmm.trait.proteomics.qcviewer.input.ReportReaderTest;
+import nl.ctmm.trait.proteomics.qcviewer.input.ReportSortKeysTest;
 import nl.ctmm.trait.proteomics.qcviewer.input.ReportUnitTest;
+import nl.ctmm.trait.proteomics.qcviewer.input.TicMatrixReaderTest;
 import nl.ctmm.trait.proteomics.qcviewer.utils.UtilitiesTest;
 
 import org.junit.runner.RunWith;
@@ -16,8 +30,12 @@ import org.junit.runners.Suite;
 @RunWith(Suite.class)
 @Suite.SuiteClasses(
         {
-                ReportReaderTest.class, ReportUnitTest.class, UtilitiesTest.class,  
-                ScrollDesktopTest.class, ChartUnitTest.class
+                ReportReaderTest.class, ReportSortKeysTest.class, ReportUnitTest.class, UtilitiesTest.class,  
+                ScrollDesktopTest.class, ChartUnitTest.class, JsonMetricsReaderTest.class,
+                TicDatasetTest.class, TicMatrixReaderTest.class, LogTailReaderTest.class,
+                MsrunRegistryTest.class, ReportListPaneTest.class, TicSparklineTest.class, MetricsTableTest.class,
+                MetricsParserTest.class, TicDataCacheTest.class, TicChartPanelTest.class, ReportIndexTest.class,
+                TicThumbnailCacheTest.class
         }
 )
 
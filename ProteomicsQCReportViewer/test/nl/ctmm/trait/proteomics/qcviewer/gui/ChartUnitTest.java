@@ -1,15 +1,22 @@
 package nl.ctmm.trait.proteomics.qcviewer.gui;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.commons.io.FilenameUtils;
-import org.jfree.data.xy.XYSeries;
+import org.jfree.chart.axis.ValueAxis;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.data.Range;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -41,7 +48,7 @@ public class ChartUnitTest {
     private ChartUnit chartUnit3;
 
     /**
-     * Initialize an <code>XYSeries</code> object and three <code>ChartUnit</code> objects.
+     * Initialize a <code>TicDataset</code> object and three <code>ChartUnit</code> objects.
      */
     @Before
     public void setUp() {
@@ -50,13 +57,14 @@ public class ChartUnitTest {
         final String msrunName3 = "msrun3";
         final String directory1 = TIC_DIRECTORY + "simulated_tic_130707_a\\";
         final String fileName1 = "simulated_tic_130707_a_ticmatrix.csv";
-        final XYSeries xySeries = readXYSeries(msrunName1, new File(FilenameUtils.normalize(directory1 + fileName1)));
+        final File ticFileChartUnit1 = new File(FilenameUtils.normalize(directory1 + fileName1));
+        final TicDataset ticDataset = readTicDataset(msrunName1, ticFileChartUnit1);
         final String directory2 = TIC_DIRECTORY + "simulated_tic_130707_b\\";
         final File ticFileChartUnit3 = new File(FilenameUtils.normalize(directory2 + "simulated_tic_130707_b_ticmatrix.csv"));
-        // public ChartUnit(final String msrunName, final int reportIndex, final XYSeries series)
-        chartUnit1 = new ChartUnit(msrunName1, 0, xySeries);
+        // public ChartUnit(final String msrunName, final int reportIndex, final TicDataset ticDataset)
+        chartUnit1 = new ChartUnit(msrunName1, 0, ticDataset);
         chartUnit2 = new ChartUnit(msrunName2, 1, null); 
-        chartUnit3 = new ChartUnit(msrunName3, 2, readXYSeries(msrunName1, ticFileChartUnit3));
+        chartUnit3 = new ChartUnit(msrunName3, 2, readTicDataset(msrunName1, ticFileChartUnit3));
     }
 
     /**
@@ -65,9 +73,10 @@ public class ChartUnitTest {
     
     @Test
     public void testGetMaxTicIntensity() {
-        final double maxIntensity1 = 9.96046420611126E9;
+        // The TIC intensities are stored as floats.
+        final double maxIntensity1 = (float) 9.96046420611126E9;
         final double maxIntensity2 = 0.0;
-        final double maxIntensity3 = 9.9600473163739E9;
+        final double maxIntensity3 = (float) 9.9600473163739E9;
         assertEquals(0, chartUnit2.getMaxTicIntensity(), 0);
         assertEquals(maxIntensity1, chartUnit1.getMaxTicIntensity(), 10);
         assertEquals(maxIntensity2, chartUnit2.getMaxTicIntensity(), 0);
@@ -75,29 +84,121 @@ public class ChartUnitTest {
     }
 
     /**
-     * Create an <code>XYSeries</code> object by reading the TIC matrix file that contains rt and ions values
+     * Test the <code>zoomInDomain</code>, <code>zoomOutDomain</code>, <code>setDomainRange</code> and
+     * <code>restoreAutoBounds</code> methods.
+     */
+    @Test
+    public void testZoom() {
+        final ValueAxis domainAxis = ((XYPlot) chartUnit1.getTicChart().getPlot()).getDomainAxis();
+        final Range autoRange = domainAxis.getRange();
+        chartUnit1.zoomInDomain();
+        assertEquals(autoRange.getLength() / 2, domainAxis.getRange().getLength(), 1e-6);
+        assertEquals(autoRange.getCentralValue(), domainAxis.getRange().getCentralValue(), 1e-6);
+        chartUnit1.zoomOutDomain();
+        assertEquals(autoRange.getLength(), domainAxis.getRange().getLength(), 1e-6);
+        chartUnit1.setDomainRange(10, 80);
+        assertEquals(new Range(10, 80), domainAxis.getRange());
+        chartUnit1.restoreAutoBounds();
+        assertEquals(autoRange, domainAxis.getRange());
+    }
+
+    /**
+     * Test that a chart unit can be zoomed before its JFreeChart object is created and that the chart gets the zoom
+     * bounds when it is created.
+     */
+    @Test
+    public void testZoomWithoutChart() {
+        final Range dataRange = chartUnit3.getTicDataset().getDomainBounds(false);
+        assertEquals(dataRange, chartUnit3.getDomainRange());
+        chartUnit3.zoomInDomain();
+        assertEquals(dataRange.getLength() / 2, chartUnit3.getDomainRange().getLength(), 1e-6);
+        assertEquals(dataRange.getCentralValue(), chartUnit3.getDomainRange().getCentralValue(), 1e-6);
+        final ValueAxis domainAxis = ((XYPlot) chartUnit3.getTicChart().getPlot()).getDomainAxis();
+        assertEquals(chartUnit3.getDomainRange(), domainAxis.getRange());
+        // Zooming the axis (like a chart panel does) changes the zoom bounds of the chart unit.
+        domainAxis.setRange(10, 20);
+        assertEquals(new Range(10, 20), chartUnit3.getDomainRange());
+        chartUnit3.restoreAutoBounds();
+        assertEquals(dataRange, chartUnit3.getDomainRange());
+        // Without TIC data and zoom bounds, the visible domain is unknown.
+        assertNull(chartUnit2.getDomainRange());
+    }
+
+    /**
+     * Test that the chart draws a level of detail of the TIC data, which follows the domain axis.
+     */
+    @Test
+    public void testLevelOfDetail() {
+        final int pointCount = 20000;
+        final float[] xValues = new float[pointCount];
+        final float[] yValues = new float[pointCount];
+        for (int pointIndex = 0; pointIndex < pointCount; pointIndex++) {
+            xValues[pointIndex] = pointIndex / 100f;
+            yValues[pointIndex] = pointIndex % 10;
+        }
+        final TicDataset ticDataset = new TicDataset("msrun", xValues, yValues);
+        final ChartUnit chartUnit = new ChartUnit("msrun", 0, ticDataset);
+        final XYPlot plot = (XYPlot) chartUnit.getTicChart().getPlot();
+        final int fullDetailCount = plot.getDataset().getItemCount(0);
+        assertTrue(fullDetailCount < pointCount);
+        assertSame(ticDataset, chartUnit.getTicDataset());
+        chartUnit.setDomainRange(10, 12);
+        final TicDataset zoomedDetail = (TicDataset) plot.getDataset();
+        assertEquals(xValues[999], zoomedDetail.getXValues()[0], 0);
+        assertEquals(xValues[1200], zoomedDetail.getXValues()[zoomedDetail.getItemCount(0) - 1], 0);
+        chartUnit.restoreAutoBounds();
+        assertEquals(fullDetailCount, plot.getDataset().getItemCount(0));
+        chartUnit.setTicDataset(null);
+        assertEquals(0, plot.getDataset().getSeriesCount());
+    }
+
+    /**
+     * Test that a detached chart (used for the PDF export) gets the zoom bounds and the TIC data, but is not linked to
+     * the chart unit.
+     */
+    @Test
+    public void testCreateDetachedChart() {
+        final ChartUnit chartUnit = new ChartUnit("msrun", 0, chartUnit3.getMaxTicIntensity());
+        chartUnit.setDomainRange(10, 20);
+        final XYPlot plot = (XYPlot) chartUnit.createDetachedChart(chartUnit3.getTicDataset()).getPlot();
+        assertEquals(new Range(10, 20), plot.getDomainAxis().getRange());
+        assertTrue(plot.getDataset().getItemCount(0) > 0);
+        assertNull(chartUnit.getTicDataset());
+        // Zooming the detached chart does not change the zoom bounds of the chart unit.
+        plot.getDomainAxis().setRange(30, 40);
+        assertEquals(new Range(10, 20), chartUnit.getZoomRange());
+    }
+
+    /**
+     * Create a <code>TicDataset</code> object by reading the TIC matrix file that contains rt and ions values
      * representing a TIC graph.
      *
      * @param msrunName the name of the msrun.
      * @param ticMatrixFile the file with the TIC values.
-     * @return The <code>XYSeries</code> object with the TIC graph.
+     * @return The <code>TicDataset</code> object with the TIC graph.
      */
-    private XYSeries readXYSeries(final String msrunName, final File ticMatrixFile) {
-        final XYSeries xySeries = new XYSeries(msrunName);
+    private TicDataset readTicDataset(final String msrunName, final File ticMatrixFile) {
+        final List<String> lines = new ArrayList<>();
         try {
             final BufferedReader bufferedReader = new BufferedReader(new FileReader(ticMatrixFile));
             // Skip the header line ("rt","ions").
             bufferedReader.readLine();
             String line;
             while ((line = bufferedReader.readLine()) != null) {
-                final String[] values = line.split(",");
-                xySeries.add(Double.parseDouble(values[0]) / 60.0, Double.parseDouble(values[1]));
+                lines.add(line);
             }
             bufferedReader.close();
-        } catch (final NumberFormatException | IOException e) {
+        } catch (final IOException e) {
             fail(e.getMessage());
             e.printStackTrace();
         }
-        return xySeries;
+        final float[] xValues = new float[lines.size()];
+        final float[] yValues = new float[lines.size()];
+        for (int lineIndex = 0; lineIndex < lines.size(); lineIndex++) {
+            final String[] values = lines.get(lineIndex).split(",");
+            xValues[lineIndex] = (float) (Double.parseDouble(values[0]) / 60.0);
+            yValues[lineIndex] = (float) Double.parseDouble(values[1]);
+        }
+        return new TicDataset(msrunName, xValues, yValues);
     }
 }
@@ -1,5 +1,6 @@
 package nl.ctmm.trait.proteomics.qcviewer.gui;
 
+import nl.ctmm.trait.proteomics.qcviewer.input.MetricsTable;
 import nl.ctmm.trait.proteomics.qcviewer.input.ReportUnit;
 
 /**
@@ -16,6 +17,6 @@ public class GuiTestUtils {
      */
     public static ReportUnit createReportUnit(final int reportNumber) {
         //    public ReportUnit(String msrunName, int reportNum)
-        return new ReportUnit("msrun", reportNumber);
+        return new ReportUnit(new MetricsTable(), "msrun", reportNumber);
     }
 }
@@ -0,0 +1,135 @@
+package nl.ctmm.trait.proteomics.qcviewer.gui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JViewport;
+import javax.swing.SwingConstants;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the <code>ReportListPane</code> class.
+ */
+public class ReportListPaneTest {
+    /**
+     * The width of the rows.
+     */
+    private static final int ROW_WIDTH = 800;
+
+    /**
+     * The height of the rows.
+     */
+    private static final int ROW_HEIGHT = 100;
+
+    /**
+     * The height of the viewport.
+     */
+    private static final int VIEWPORT_HEIGHT = 400;
+
+    /**
+     * The number of rows in the list.
+     */
+    private static final int ROW_COUNT = 1000;
+
+    /**
+     * The row components created by the row model.
+     */
+    private final List<JComponent> createdRows = new ArrayList<>();
+
+    /**
+     * The <code>reportListPane</code> to test.
+     */
+    private ReportListPane reportListPane;
+
+    /**
+     * The viewport that shows the <code>reportListPane</code>.
+     */
+    private JViewport viewport;
+
+    /**
+     * Initialize <code>reportListPane</code> with a row model that shows the row index in a label.
+     */
+    @Before
+    public void setUp() {
+        reportListPane = new ReportListPane(ROW_WIDTH, ROW_HEIGHT, new ReportListPane.RowModel() {
+            @Override
+            public JComponent createRow() {
+                final JLabel row = new JLabel();
+                createdRows.add(row);
+                return row;
+            }
+
+            @Override
+            public void showRow(final JComponent row, final int rowIndex) {
+                ((JLabel) row).setText(Integer.toString(rowIndex));
+            }
+
+            @Override
+            public void hideRow(final JComponent row) {
+                ((JLabel) row).setText(null);
+            }
+        });
+        viewport = new JViewport();
+        viewport.setSize(ROW_WIDTH, VIEWPORT_HEIGHT);
+        viewport.setView(reportListPane);
+    }
+
+    /**
+     * Test that only the rows in or near the viewport get a component and that these components are recycled.
+     */
+    @Test
+    public void testVirtualizedRows() {
+        reportListPane.setRowCount(ROW_COUNT);
+        layOut();
+        assertEquals(ROW_COUNT * ROW_HEIGHT, reportListPane.getPreferredSize().height);
+        // Rows 0 to 3 are visible and two extra rows below them get a component as well.
+        assertEquals(7, createdRows.size());
+        assertEquals("0", ((JLabel) reportListPane.getComponentAt(1, 1)).getText());
+        // Scroll to rows 500 to 503: the existing components are reused and two extra components are created.
+        viewport.setViewPosition(new Point(0, 500 * ROW_HEIGHT));
+        layOut();
+        assertEquals(9, createdRows.size());
+        assertEquals(9, reportListPane.getComponentCount());
+        assertEquals("500", ((JLabel) reportListPane.getComponentAt(1, 500 * ROW_HEIGHT + 1)).getText());
+        // Shrink the list: rows that no longer exist are hidden.
+        viewport.setViewPosition(new Point(0, 0));
+        reportListPane.setRowCount(2);
+        layOut();
+        int visibleRowCount = 0;
+        for (final JComponent row : createdRows) {
+            visibleRowCount += row.isVisible() ? 1 : 0;
+            // The hidden rows have been cleared by the row model.
+            assertEquals(row.isVisible(), ((JLabel) row).getText() != null);
+        }
+        assertEquals(2, visibleRowCount);
+    }
+
+    /**
+     * Test the <code>Scrollable</code> methods of the <code>ReportListPane</code> class.
+     */
+    @Test
+    public void testScrollableMethods() {
+        assertEquals(50, reportListPane.getScrollableUnitIncrement(null, SwingConstants.VERTICAL, 1));
+        assertEquals(VIEWPORT_HEIGHT - ROW_HEIGHT, reportListPane.getScrollableBlockIncrement(
+                viewport.getViewRect(), SwingConstants.VERTICAL, 1));
+        assertFalse(reportListPane.getScrollableTracksViewportWidth());
+        assertFalse(reportListPane.getScrollableTracksViewportHeight());
+    }
+
+    /**
+     * Lay out the viewport (which sizes the report list pane) and the report list pane, like Swing does after a
+     * revalidate.
+     */
+    private void layOut() {
+        viewport.doLayout();
+        reportListPane.doLayout();
+    }
+}
@@ -0,0 +1,102 @@
+package nl.ctmm.trait.proteomics.qcviewer.gui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Graphics2D;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the <code>TicChartPanel</code> class.
+ */
+public class TicChartPanelTest {
+    /**
+     * The width of the chart panel.
+     */
+    private static final int WIDTH = 800;
+
+    /**
+     * The height of the chart panel.
+     */
+    private static final int HEIGHT = 400;
+
+    /**
+     * Test that the crosshairs show the TIC point nearest to the mouse pointer and that no entities are collected.
+     */
+    @Test
+    public void testShowNearestPoint() {
+        final int pointCount = 10000;
+        final float[] xValues = new float[pointCount];
+        final float[] yValues = new float[pointCount];
+        for (int pointIndex = 0; pointIndex < pointCount; pointIndex++) {
+            xValues[pointIndex] = pointIndex / 100f;
+            yValues[pointIndex] = pointIndex * 10f;
+        }
+        final TicDataset ticDataset = new TicDataset("msrun", xValues, yValues);
+        final TicChartPanel ticChartPanel = new TicChartPanel(new ChartUnit("msrun", 0, ticDataset));
+        paint(ticChartPanel);
+        assertNull(ticChartPanel.getChartRenderingInfo().getEntityCollection());
+        assertFalse(ticChartPanel.getRetentionTimeCrosshair().isVisible());
+        final Rectangle2D dataArea = ticChartPanel.getScreenDataArea();
+        final int mouseX = (int) dataArea.getCenterX();
+        ticChartPanel.showNearestPoint(createMouseEvent(ticChartPanel, mouseX, (int) dataArea.getCenterY()));
+        assertTrue(ticChartPanel.getRetentionTimeCrosshair().isVisible());
+        final double retentionTime = ticChartPanel.getRetentionTimeCrosshair().getValue();
+        final double pixelWidth = ticChartPanel.getChart().getXYPlot().getDomainAxis().getRange().getLength()
+                                  / dataArea.getWidth();
+        assertEquals(ticChartPanel.getChart().getXYPlot().getDomainAxis().java2DToValue(
+                mouseX, dataArea, ticChartPanel.getChart().getXYPlot().getDomainAxisEdge()), retentionTime, pixelWidth);
+        assertEquals(retentionTime * 1000, ticChartPanel.getIntensityCrosshair().getValue(), 1);
+        // Outside the plot area, the crosshairs are hidden.
+        ticChartPanel.showNearestPoint(createMouseEvent(ticChartPanel, 0, 0));
+        assertFalse(ticChartPanel.getRetentionTimeCrosshair().isVisible());
+        assertFalse(ticChartPanel.getIntensityCrosshair().isVisible());
+    }
+
+    /**
+     * Test that the crosshairs stay hidden while the TIC data is not loaded.
+     */
+    @Test
+    public void testWithoutTicData() {
+        final TicChartPanel ticChartPanel = new TicChartPanel(new ChartUnit("msrun", 0, 1e9));
+        paint(ticChartPanel);
+        final Rectangle2D dataArea = ticChartPanel.getScreenDataArea();
+        ticChartPanel.showNearestPoint(createMouseEvent(ticChartPanel, (int) dataArea.getCenterX(),
+                                                        (int) dataArea.getCenterY()));
+        assertFalse(ticChartPanel.getRetentionTimeCrosshair().isVisible());
+    }
+
+    /**
+     * Paint a chart panel into an image, which determines the data area of the chart.
+     *
+     * @param ticChartPanel the chart panel to paint.
+     */
+    private void paint(final TicChartPanel ticChartPanel) {
+        ticChartPanel.setSize(WIDTH, HEIGHT);
+        final BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D graphics = image.createGraphics();
+        try {
+            ticChartPanel.paint(graphics);
+        } finally {
+            graphics.dispose();
+        }
+    }
+
+    /**
+     * Create a mouse moved event for a position in a chart panel.
+     *
+     * @param ticChartPanel the chart panel.
+     * @param x the x coordinate of the mouse pointer.
+     * @param y the y coordinate of the mouse pointer.
+     * @return the mouse event.
+     */
+    private MouseEvent createMouseEvent(final TicChartPanel ticChartPanel, final int x, final int y) {
+        return new MouseEvent(ticChartPanel, MouseEvent.MOUSE_MOVED, System.currentTimeMillis(), 0, x, y, 0, false);
+    }
+}
@@ -0,0 +1,272 @@
+package nl.ctmm.trait.proteomics.qcviewer.gui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+
+import javax.swing.JLabel;
+import javax.swing.SwingUtilities;
+
+import nl.ctmm.trait.proteomics.qcviewer.input.MetricsTable;
+import nl.ctmm.trait.proteomics.qcviewer.input.ReportUnit;
+import nl.ctmm.trait.proteomics.qcviewer.input.TicMatrixReader;
+import nl.ctmm.trait.proteomics.qcviewer.utils.Constants;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for the <code>TicDataCache</code> class.
+ */
+public class TicDataCacheTest {
+    /**
+     * The number of bytes used by the TIC data of a test report: two points of two floats.
+     */
+    private static final int REPORT_TIC_BYTES = 16;
+
+    /**
+     * The maximum time in milliseconds to wait for TIC data to be loaded.
+     */
+    private static final long LOAD_TIMEOUT = 10000;
+
+    /**
+     * The time in milliseconds between checks whether TIC data has been loaded.
+     */
+    private static final long LOAD_CHECK_INTERVAL = 10;
+
+    /**
+     * The temporary folder for the TIC matrix files.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The component that requests the TIC data.
+     */
+    private final JLabel requester = new JLabel();
+
+    /**
+     * The <code>ticDataCache</code> to test, which has room for the TIC data of two reports.
+     */
+    private TicDataCache ticDataCache;
+
+    /**
+     * Initialize <code>ticDataCache</code>.
+     */
+    @Before
+    public void setUp() {
+        ticDataCache = new TicDataCache(new TicMatrixReader(), 2 * REPORT_TIC_BYTES);
+    }
+
+    /**
+     * Test that the TIC data is loaded in the background and set in the chart of the report.
+     *
+     * @throws Exception if the TIC data could not be requested on the event dispatch thread.
+     */
+    @Test
+    public void testRequest() throws Exception {
+        final ReportUnit reportUnit = createReportUnit(1);
+        assertFalse(reportUnit.getChartUnit().isTicDataLoaded());
+        assertFalse(request(reportUnit));
+        waitForTicData(reportUnit);
+        assertEquals(2, reportUnit.getChartUnit().getTicDataset().getItemCount(0));
+        assertEquals(1, ticDataCache.size());
+        assertEquals(REPORT_TIC_BYTES, ticDataCache.getUsedBytes());
+        // A report without TIC files is complete right away.
+        final ReportUnit emptyReportUnit = new ReportUnit(new MetricsTable(), "msrun", 2);
+        assertTrue(request(emptyReportUnit));
+        assertEquals(1, ticDataCache.size());
+    }
+
+    /**
+     * Test that the TIC data of the least recently used report is removed when the memory limit is reached, except
+     * for the pinned report.
+     *
+     * @throws Exception if the TIC data could not be requested on the event dispatch thread.
+     */
+    @Test
+    public void testMemoryLimit() throws Exception {
+        final ReportUnit reportUnit1 = createReportUnit(1);
+        final ReportUnit reportUnit2 = createReportUnit(2);
+        final ReportUnit reportUnit3 = createReportUnit(3);
+        final ReportUnit reportUnit4 = createReportUnit(4);
+        ticDataCache.setPinnedReport(reportUnit1);
+        waitForTicData(reportUnit1);
+        waitForTicData(reportUnit2);
+        waitForTicData(reportUnit3);
+        assertEquals(2, ticDataCache.size());
+        assertTrue(reportUnit1.getChartUnit().isTicDataLoaded());
+        assertFalse(reportUnit2.getChartUnit().isTicDataLoaded());
+        assertTrue(reportUnit3.getChartUnit().isTicDataLoaded());
+        // After pinning another report, the TIC data of the first pinned report can be removed.
+        ticDataCache.setPinnedReport(reportUnit3);
+        waitForTicData(reportUnit4);
+        assertFalse(reportUnit1.getChartUnit().isTicDataLoaded());
+        assertTrue(reportUnit3.getChartUnit().isTicDataLoaded());
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                ticDataCache.clear();
+            }
+        });
+        assertEquals(0, ticDataCache.size());
+        assertEquals(0, ticDataCache.getUsedBytes());
+        assertNull(reportUnit4.getChartUnit().getTicDataset());
+    }
+
+    /**
+     * Test that the TIC data of the shown reports is not removed when the memory limit is reached.
+     *
+     * @throws Exception if the TIC data could not be requested on the event dispatch thread.
+     */
+    @Test
+    public void testShownReportsAreKept() throws Exception {
+        final ReportUnit reportUnit1 = createReportUnit(1);
+        final ReportUnit reportUnit2 = createReportUnit(2);
+        final ReportUnit reportUnit3 = createReportUnit(3);
+        final ReportUnit reportUnit4 = createReportUnit(4);
+        setShown(reportUnit1, true);
+        setShown(reportUnit2, true);
+        waitForTicData(reportUnit1);
+        waitForTicData(reportUnit2);
+        waitForTicData(reportUnit3);
+        // The cache uses more memory than its limit while the shown reports need it.
+        assertEquals(3, ticDataCache.size());
+        setShown(reportUnit1, false);
+        waitForTicData(reportUnit4);
+        assertEquals(2, ticDataCache.size());
+        assertFalse(reportUnit1.getChartUnit().isTicDataLoaded());
+        assertTrue(reportUnit2.getChartUnit().isTicDataLoaded());
+        assertFalse(reportUnit3.getChartUnit().isTicDataLoaded());
+        assertTrue(reportUnit4.getChartUnit().isTicDataLoaded());
+    }
+
+    /**
+     * Test that the TIC data is read one report at a time and that a queued report is dropped when it is no longer
+     * shown.
+     *
+     * @throws Exception if the TIC data could not be requested on the event dispatch thread.
+     */
+    @Test
+    public void testHiddenReportIsDropped() throws Exception {
+        final ReportUnit reportUnit1 = createReportUnit(1);
+        final ReportUnit reportUnit2 = createReportUnit(2);
+        final int[] queuedCounts = new int[2];
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                ticDataCache.setShown(reportUnit1, true);
+                ticDataCache.setShown(reportUnit2, true);
+                ticDataCache.request(reportUnit1, requester);
+                ticDataCache.request(reportUnit2, requester);
+                queuedCounts[0] = ticDataCache.getQueuedCount();
+                ticDataCache.setShown(reportUnit2, false);
+                queuedCounts[1] = ticDataCache.getQueuedCount();
+            }
+        });
+        assertEquals(1, queuedCounts[0]);
+        assertEquals(0, queuedCounts[1]);
+        waitForTicData(reportUnit1);
+        assertFalse(reportUnit2.getChartUnit().isTicDataLoaded());
+        assertEquals(1, ticDataCache.size());
+    }
+
+    /**
+     * Test that TIC data that cannot be read is not requested again.
+     *
+     * @throws Exception if the TIC data could not be requested on the event dispatch thread.
+     */
+    @Test
+    public void testInvalidTicFile() throws Exception {
+        final ReportUnit reportUnit = new ReportUnit(new MetricsTable(), "msrun", 1);
+        reportUnit.createChartUnit(1);
+        final File ticBinaryFile = temporaryFolder.newFile("msrun" + Constants.TIC_BINARY_FILE_NAME_SUFFIX);
+        FileUtils.writeStringToFile(ticBinaryFile, "not a binary TIC file");
+        reportUnit.setTicFiles(ticBinaryFile, null);
+        assertFalse(request(reportUnit));
+        final long timeout = System.currentTimeMillis() + LOAD_TIMEOUT;
+        while (!request(reportUnit) && System.currentTimeMillis() < timeout) {
+            Thread.sleep(LOAD_CHECK_INTERVAL);
+        }
+        assertTrue(request(reportUnit));
+        assertFalse(reportUnit.getChartUnit().isTicDataLoaded());
+        assertEquals(0, ticDataCache.size());
+    }
+
+    /**
+     * Create a report with a TIC matrix file that contains two points, without loading the TIC data.
+     *
+     * @param reportNumber the report number.
+     * @return the report.
+     * @throws IOException if the TIC matrix file could not be written.
+     */
+    private ReportUnit createReportUnit(final int reportNumber) throws IOException {
+        final String msrunName = "msrun" + reportNumber;
+        final File ticMatrixFile = temporaryFolder.newFile(msrunName + Constants.TIC_MATRIX_FILE_NAME_SUFFIX);
+        FileUtils.writeStringToFile(ticMatrixFile, "\"rt\",\"ions\"\n60,1000\n120," + reportNumber * 1000);
+        final ReportUnit reportUnit = new ReportUnit(new MetricsTable(), msrunName, reportNumber);
+        reportUnit.createChartUnit(reportNumber * 1000);
+        reportUnit.setTicFiles(null, ticMatrixFile);
+        return reportUnit;
+    }
+
+    /**
+     * Mark a report as shown or no longer shown on the event dispatch thread.
+     *
+     * @param reportUnit the report.
+     * @param shown whether the report is shown.
+     * @throws InvocationTargetException if marking the report failed.
+     * @throws InterruptedException if the test was interrupted.
+     */
+    private void setShown(final ReportUnit reportUnit, final boolean shown)
+            throws InvocationTargetException, InterruptedException {
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                ticDataCache.setShown(reportUnit, shown);
+            }
+        });
+    }
+
+    /**
+     * Request the TIC data of a report on the event dispatch thread.
+     *
+     * @param reportUnit the report.
+     * @return whether the chart of the report is complete.
+     * @throws InvocationTargetException if requesting the TIC data failed.
+     * @throws InterruptedException if the test was interrupted.
+     */
+    private boolean request(final ReportUnit reportUnit) throws InvocationTargetException, InterruptedException {
+        final boolean[] complete = new boolean[1];
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                complete[0] = ticDataCache.request(reportUnit, requester);
+            }
+        });
+        return complete[0];
+    }
+
+    /**
+     * Request the TIC data of a report and wait until it has been loaded.
+     *
+     * @param reportUnit the report.
+     * @throws InvocationTargetException if requesting the TIC data failed.
+     * @throws InterruptedException if the test was interrupted.
+     */
+    private void waitForTicData(final ReportUnit reportUnit) throws InvocationTargetException, InterruptedException {
+        final long timeout = System.currentTimeMillis() + LOAD_TIMEOUT;
+        while (!request(reportUnit) && System.currentTimeMillis() < timeout) {
+            Thread.sleep(LOAD_CHECK_INTERVAL);
+        }
+        assertTrue(reportUnit.getChartUnit().isTicDataLoaded());
+    }
+}
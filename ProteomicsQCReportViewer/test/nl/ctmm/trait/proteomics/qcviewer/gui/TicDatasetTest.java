@@ -0,0 +1,245 @@
+package nl.ctmm.trait.proteomics.qcviewer.gui;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.jfree.data.general.DatasetUtilities;
+import org.jfree.data.xy.XYSeries;
+import org.junit.Test;
+
+/**
+ * Unit tests for the <code>TicDataset</code> class.
+ */
+public class TicDatasetTest {
+    /**
+     * The number of points in a TIC of a long (about 60 minutes) msrun.
+     */
+    private static final int LONG_RUN_POINT_COUNT = 30000;
+
+    /**
+     * The number of TIC datasets that is kept in memory during the memory test.
+     */
+    private static final int MEMORY_TEST_DATASET_COUNT = 20;
+
+    /**
+     * The minimum factor by which the TIC dataset should use less memory than an <code>XYSeries</code>.
+     */
+    private static final double MINIMUM_MEMORY_FACTOR = 5.0;
+
+    /**
+     * Test the values and bounds of a TIC dataset.
+     */
+    @Test
+    public void testValuesAndBounds() {
+        final TicDataset ticDataset = new TicDataset("msrun", new float[]{1, 2, 3}, new float[]{10, 30, 20});
+        assertEquals(1, ticDataset.getSeriesCount());
+        assertEquals("msrun", ticDataset.getSeriesKey(0));
+        assertEquals(3, ticDataset.getItemCount(0));
+        assertEquals(2, ticDataset.getXValue(0, 1), 0);
+        assertEquals(30, ticDataset.getY(0, 1).doubleValue(), 0);
+        assertEquals(30, ticDataset.getMaxY(), 0);
+        assertEquals(1, DatasetUtilities.findDomainBounds(ticDataset).getLowerBound(), 0);
+        assertEquals(3, DatasetUtilities.findDomainBounds(ticDataset).getUpperBound(), 0);
+        assertEquals(10, DatasetUtilities.findRangeBounds(ticDataset).getLowerBound(), 0);
+    }
+
+    /**
+     * Test that the points are sorted by x value, like an auto sorting <code>XYSeries</code> does.
+     */
+    @Test
+    public void testUnsortedPoints() {
+        final TicDataset ticDataset = new TicDataset("msrun", new float[]{3, -1, 2, 2}, new float[]{30, 10, 20, 21});
+        assertArrayEquals(new float[]{-1, 2, 2, 3}, ticDataset.getXValues(), 0);
+        assertArrayEquals(new float[]{10, 20, 21, 30}, ticDataset.getYValues(), 0);
+    }
+
+    /**
+     * Test that the level of detail keeps the minimum and maximum of each bucket and the bounds of the dataset.
+     */
+    @Test
+    public void testCreateLevelOfDetail() {
+        final float[] xValues = new float[LONG_RUN_POINT_COUNT];
+        final float[] yValues = new float[LONG_RUN_POINT_COUNT];
+        for (int pointIndex = 0; pointIndex < LONG_RUN_POINT_COUNT; pointIndex++) {
+            xValues[pointIndex] = pointIndex / 500f;
+            yValues[pointIndex] = 100 + pointIndex % 7;
+        }
+        // A single narrow peak should survive downsampling.
+        yValues[12345] = 1e9f;
+        final TicDataset ticDataset = new TicDataset("msrun", xValues, yValues);
+        final int bucketCount = 100;
+        final TicDataset levelOfDetail = ticDataset.createLevelOfDetail(0, xValues[xValues.length - 1], bucketCount);
+        assertTrue(levelOfDetail.getItemCount(0) <= 4 * bucketCount + 2);
+        assertEquals(ticDataset.getDomainBounds(false), levelOfDetail.getDomainBounds(false));
+        assertEquals(ticDataset.getRangeBounds(false), levelOfDetail.getRangeBounds(false));
+        assertEquals(1e9f, findMaximum(levelOfDetail.getYValues()), 0);
+        assertEquals(100, findMinimum(levelOfDetail.getYValues()), 0);
+        assertTrue(isAscending(levelOfDetail.getXValues()));
+        // Zoomed in: the points of the visible domain and one point on each side.
+        final TicDataset zoomedDetail = ticDataset.createLevelOfDetail(20, 20.1, bucketCount);
+        assertEquals(xValues[9999], zoomedDetail.getXValues()[0], 0);
+        assertEquals(xValues[10050], zoomedDetail.getXValues()[zoomedDetail.getItemCount(0) - 1], 0);
+        // A small dataset is used as it is.
+        final TicDataset smallDataset = new TicDataset("msrun", new float[]{1, 2, 3}, new float[]{10, 30, 20});
+        assertSame(smallDataset, smallDataset.createLevelOfDetail(1, 3, bucketCount));
+    }
+
+    /**
+     * Test that a level of detail taken from the min/max pyramid keeps the minimum and maximum of every pyramid block
+     * in the visible domain.
+     */
+    @Test
+    public void testLevelOfDetailPyramid() {
+        final int pointCount = 100000;
+        final float[] xValues = new float[pointCount];
+        final float[] yValues = new float[pointCount];
+        final Random random = new Random(42);
+        for (int pointIndex = 0; pointIndex < pointCount; pointIndex++) {
+            xValues[pointIndex] = pointIndex / 500f;
+            yValues[pointIndex] = random.nextFloat() * 1e6f;
+        }
+        final TicDataset ticDataset = new TicDataset("msrun", xValues, yValues);
+        // The pyramid uses about a quarter of the memory of the points.
+        assertTrue(ticDataset.getByteCount() > 8L * pointCount);
+        assertTrue(ticDataset.getByteCount() < 11L * pointCount);
+        // The window contains 50000 points, so 100 buckets select the pyramid level with blocks of 256 points.
+        final int bucketCount = 100;
+        final int blockSize = 256;
+        final TicDataset levelOfDetail = ticDataset.createLevelOfDetail(40, 140, bucketCount);
+        assertTrue(levelOfDetail.getItemCount(0) <= 4 * bucketCount + 2);
+        assertTrue(isAscending(levelOfDetail.getXValues()));
+        final List<Float> detailYValues = new ArrayList<>();
+        for (final float yValue : levelOfDetail.getYValues()) {
+            detailYValues.add(yValue);
+        }
+        for (int blockStart = 20000 / blockSize * blockSize; blockStart < 70000; blockStart += blockSize) {
+            final float[] blockValues = Arrays.copyOfRange(yValues, blockStart, blockStart + blockSize);
+            assertTrue(detailYValues.contains(findMinimum(blockValues)));
+            assertTrue(detailYValues.contains(findMaximum(blockValues)));
+        }
+    }
+
+    /**
+     * Test finding the point nearest to an x value.
+     */
+    @Test
+    public void testFindNearestIndex() {
+        final TicDataset ticDataset = new TicDataset("msrun", new float[]{1, 2, 4}, new float[]{10, 30, 20});
+        assertEquals(0, ticDataset.findNearestIndex(-5));
+        assertEquals(0, ticDataset.findNearestIndex(1.4));
+        assertEquals(1, ticDataset.findNearestIndex(1.6));
+        assertEquals(1, ticDataset.findNearestIndex(3));
+        assertEquals(2, ticDataset.findNearestIndex(3.1));
+        assertEquals(2, ticDataset.findNearestIndex(100));
+        assertEquals(-1, new TicDataset("msrun", new float[0], new float[0]).findNearestIndex(1));
+    }
+
+    /**
+     * Test an empty TIC dataset.
+     */
+    @Test
+    public void testEmptyDataset() {
+        final TicDataset ticDataset = new TicDataset("msrun", new float[0], new float[0]);
+        assertEquals(0, ticDataset.getItemCount(0));
+        assertEquals(0, ticDataset.getMaxY(), 0);
+        assertNull(ticDataset.getDomainBounds(true));
+    }
+
+    /**
+     * Test that a TIC dataset uses much less memory than an <code>XYSeries</code> with the same points.
+     */
+    @Test
+    public void testMemoryUse() {
+        final List<Object> ticDatasets = new ArrayList<>();
+        final long ticDatasetsStart = getUsedMemory();
+        for (int datasetIndex = 0; datasetIndex < MEMORY_TEST_DATASET_COUNT; datasetIndex++) {
+            final float[] xValues = new float[LONG_RUN_POINT_COUNT];
+            final float[] yValues = new float[LONG_RUN_POINT_COUNT];
+            for (int pointIndex = 0; pointIndex < LONG_RUN_POINT_COUNT; pointIndex++) {
+                xValues[pointIndex] = pointIndex / 500f;
+                yValues[pointIndex] = pointIndex * 1000f;
+            }
+            ticDatasets.add(new TicDataset("msrun" + datasetIndex, xValues, yValues));
+        }
+        final long ticDatasetsMemory = getUsedMemory() - ticDatasetsStart;
+        final List<Object> xySeriesList = new ArrayList<>();
+        final long xySeriesStart = getUsedMemory();
+        for (int datasetIndex = 0; datasetIndex < MEMORY_TEST_DATASET_COUNT; datasetIndex++) {
+            final XYSeries xySeries = new XYSeries("msrun" + datasetIndex);
+            for (int pointIndex = 0; pointIndex < LONG_RUN_POINT_COUNT; pointIndex++) {
+                xySeries.add(pointIndex / 500f, pointIndex * 1000f, false);
+            }
+            xySeriesList.add(xySeries);
+        }
+        final long xySeriesMemory = getUsedMemory() - xySeriesStart;
+        // Both lists are still used here, so their contents could not be garbage collected while measuring.
+        assertEquals(MEMORY_TEST_DATASET_COUNT, ticDatasets.size());
+        assertEquals(MEMORY_TEST_DATASET_COUNT, xySeriesList.size());
+        assertTrue("TIC datasets: " + ticDatasetsMemory + " bytes, XY series: " + xySeriesMemory + " bytes.",
+                   ticDatasetsMemory * MINIMUM_MEMORY_FACTOR < xySeriesMemory);
+    }
+
+    /**
+     * Find the maximum of an array of values.
+     *
+     * @param values the values.
+     * @return the maximum value.
+     */
+    private float findMaximum(final float[] values) {
+        float maximum = values[0];
+        for (final float value : values) {
+            maximum = Math.max(maximum, value);
+        }
+        return maximum;
+    }
+
+    /**
+     * Find the minimum of an array of values.
+     *
+     * @param values the values.
+     * @return the minimum value.
+     */
+    private float findMinimum(final float[] values) {
+        float minimum = values[0];
+        for (final float value : values) {
+            minimum = Math.min(minimum, value);
+        }
+        return minimum;
+    }
+
+    /**
+     * Check whether the values are in ascending order.
+     *
+     * @param values the values.
+     * @return whether the values are in ascending order.
+     */
+    private boolean isAscending(final float[] values) {
+        for (int index = 1; index < values.length; index++) {
+            if (values[index] < values[index - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the amount of used heap memory after running the garbage collector.
+     *
+     * @return the amount of used heap memory in bytes.
+     */
+    private long getUsedMemory() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int gcIndex = 0; gcIndex < 3; gcIndex++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,137 @@
+package nl.ctmm.trait.proteomics.qcviewer.gui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+import nl.ctmm.trait.proteomics.qcviewer.input.MetricsTable;
+import nl.ctmm.trait.proteomics.qcviewer.input.ReportUnit;
+import nl.ctmm.trait.proteomics.qcviewer.input.TicMatrixReader;
+
+import org.jfree.data.Range;
+import org.junit.Test;
+
+/**
+ * Unit tests for the <code>TicSparkline</code> class.
+ */
+public class TicSparklineTest {
+    /**
+     * The width of the sparkline.
+     */
+    private static final int WIDTH = 400;
+
+    /**
+     * The height of the sparkline.
+     */
+    private static final int HEIGHT = 120;
+
+    /**
+     * Test that the path with the TIC data fills the plot area from the first to the last point and from the bottom
+     * to the maximum intensity.
+     */
+    @Test
+    public void testCreateTicPath() {
+        final TicDataset ticDataset = new TicDataset("msrun", new float[]{0, 1, 2}, new float[]{0, 10, 0});
+        final Rectangle plotArea = new Rectangle(10, 20, 100, 50);
+        final Rectangle2D pathBounds = TicSparkline.createTicPath(ticDataset, new Range(0, 2), plotArea).getBounds2D();
+        assertEquals(plotArea, pathBounds.getBounds());
+        // Zoomed in on the peak: the lines to the points outside the domain extend beyond the plot area.
+        final Rectangle2D zoomedBounds = TicSparkline.createTicPath(ticDataset, new Range(0.5, 1.5), plotArea)
+                .getBounds2D();
+        assertEquals(plotArea.y, zoomedBounds.getMinY(), 1e-6);
+        assertTrue(zoomedBounds.getMinX() < plotArea.x);
+        assertTrue(zoomedBounds.getMaxX() > plotArea.x + plotArea.width);
+    }
+
+    /**
+     * Test that the path of a long TIC has a number of points that depends on the width of the plot area instead of
+     * the number of points in the TIC.
+     */
+    @Test
+    public void testPathSize() {
+        final int pointCount = 100000;
+        final float[] xValues = new float[pointCount];
+        final float[] yValues = new float[pointCount];
+        for (int pointIndex = 0; pointIndex < pointCount; pointIndex++) {
+            xValues[pointIndex] = pointIndex / 500f;
+            yValues[pointIndex] = pointIndex % 13;
+        }
+        final TicDataset ticDataset = new TicDataset("msrun", xValues, yValues);
+        final Rectangle plotArea = new Rectangle(0, 0, WIDTH, HEIGHT);
+        final PathIterator pathIterator = TicSparkline.createTicPath(ticDataset, ticDataset.getDomainBounds(false),
+                                                                     plotArea).getPathIterator(null);
+        int segmentCount = 0;
+        while (!pathIterator.isDone()) {
+            segmentCount++;
+            pathIterator.next();
+        }
+        assertTrue(segmentCount <= 2 * WIDTH + 4);
+    }
+
+    /**
+     * Test that the path is reused while the TIC data, the domain and the plot area are the same.
+     */
+    @Test
+    public void testTicPathCache() {
+        final TicDataset ticDataset = new TicDataset("msrun", new float[]{0, 1, 2}, new float[]{0, 10, 0});
+        final TicSparkline ticSparkline = new TicSparkline(new TicDataCache(new TicMatrixReader(), 0),
+                                                           new TicThumbnailCache(0), WIDTH, HEIGHT);
+        final Rectangle plotArea = new Rectangle(0, 0, WIDTH, HEIGHT);
+        final Path2D ticPath = ticSparkline.getTicPath(ticDataset, new Range(0, 2), plotArea);
+        assertSame(ticPath, ticSparkline.getTicPath(ticDataset, new Range(0, 2), new Rectangle(plotArea)));
+        final Path2D zoomedPath = ticSparkline.getTicPath(ticDataset, new Range(0.5, 1.5), plotArea);
+        assertNotSame(ticPath, zoomedPath);
+        assertNotSame(zoomedPath, ticSparkline.getTicPath(ticDataset, new Range(0.5, 1.5),
+                                                          new Rectangle(0, 0, WIDTH / 2, HEIGHT)));
+        final TicDataset otherDataset = new TicDataset("msrun", new float[]{0, 1, 2}, new float[]{0, 10, 0});
+        assertNotSame(zoomedPath, ticSparkline.getTicPath(otherDataset, new Range(0.5, 1.5), plotArea));
+    }
+
+    /**
+     * Test that the TIC data is painted in the color of the chart and that the thumbnail is painted again after the
+     * TIC data has been removed from the chart.
+     */
+    @Test
+    public void testPaint() {
+        final ReportUnit reportUnit = new ReportUnit(new MetricsTable(), "msrun", 1);
+        reportUnit.createChartUnit(new TicDataset("msrun", new float[]{0, 1, 2}, new float[]{0, 10, 0}));
+        final TicThumbnailCache ticThumbnailCache = new TicThumbnailCache(WIDTH * HEIGHT * 4);
+        final TicSparkline ticSparkline = new TicSparkline(new TicDataCache(new TicMatrixReader(), 0),
+                                                           ticThumbnailCache, WIDTH, HEIGHT);
+        ticSparkline.setSize(WIDTH, HEIGHT);
+        ticSparkline.setReportUnit(reportUnit);
+        final int graphRgb = reportUnit.getChartUnit().getGraphColor().getRGB();
+        final BufferedImage image = paint(ticSparkline);
+        assertEquals(graphRgb, image.getRGB(WIDTH / 2, HEIGHT / 2));
+        assertFalse(graphRgb == image.getRGB(WIDTH / 8, HEIGHT / 2));
+        assertEquals(1, ticThumbnailCache.size());
+        reportUnit.getChartUnit().setTicDataset(null);
+        assertEquals(graphRgb, paint(ticSparkline).getRGB(WIDTH / 2, HEIGHT / 2));
+    }
+
+    /**
+     * Paint a sparkline into an image.
+     *
+     * @param ticSparkline the sparkline to paint.
+     * @return the image.
+     */
+    private BufferedImage paint(final TicSparkline ticSparkline) {
+        final BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D graphics = image.createGraphics();
+        try {
+            ticSparkline.paint(graphics);
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+}
@@ -0,0 +1,109 @@
+package nl.ctmm.trait.proteomics.qcviewer.gui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the <code>TicThumbnailCache</code> class.
+ */
+public class TicThumbnailCacheTest {
+    /**
+     * The width of the thumbnails.
+     */
+    private static final int WIDTH = 200;
+
+    /**
+     * The height of the thumbnails.
+     */
+    private static final int HEIGHT = 100;
+
+    /**
+     * The <code>thumbnailCache</code> to test, which has room for two thumbnails.
+     */
+    private TicThumbnailCache thumbnailCache;
+
+    /**
+     * Initialize <code>thumbnailCache</code>.
+     */
+    @Before
+    public void setUp() {
+        thumbnailCache = new TicThumbnailCache(2 * WIDTH * HEIGHT * 4);
+    }
+
+    /**
+     * Test that a thumbnail is outdated when the zoom bounds or the size of the chart change, but not when the TIC data
+     * of the chart is removed.
+     */
+    @Test
+    public void testUpToDateThumbnail() {
+        final ChartUnit chartUnit = createChartUnit(0);
+        assertNull(thumbnailCache.getThumbnail(chartUnit));
+        assertFalse(thumbnailCache.hasUpToDateThumbnail(chartUnit, WIDTH, HEIGHT));
+        final BufferedImage thumbnail = createThumbnail();
+        thumbnailCache.putThumbnail(chartUnit, thumbnail);
+        assertTrue(thumbnailCache.hasUpToDateThumbnail(chartUnit, WIDTH, HEIGHT));
+        assertFalse(thumbnailCache.hasUpToDateThumbnail(chartUnit, WIDTH + 1, HEIGHT));
+        chartUnit.setTicDataset(null);
+        assertTrue(thumbnailCache.hasUpToDateThumbnail(chartUnit, WIDTH, HEIGHT));
+        chartUnit.setDomainRange(1, 2);
+        // The outdated thumbnail is still returned until a new one is stored.
+        assertFalse(thumbnailCache.hasUpToDateThumbnail(chartUnit, WIDTH, HEIGHT));
+        assertSame(thumbnail, thumbnailCache.getThumbnail(chartUnit));
+        thumbnailCache.putThumbnail(chartUnit, createThumbnail());
+        assertTrue(thumbnailCache.hasUpToDateThumbnail(chartUnit, WIDTH, HEIGHT));
+        chartUnit.restoreAutoBounds();
+        assertFalse(thumbnailCache.hasUpToDateThumbnail(chartUnit, WIDTH, HEIGHT));
+        assertEquals(1, thumbnailCache.size());
+    }
+
+    /**
+     * Test that the least recently used thumbnail is removed when the memory limit is reached.
+     */
+    @Test
+    public void testMemoryLimit() {
+        final ChartUnit chartUnit1 = createChartUnit(1);
+        final ChartUnit chartUnit2 = createChartUnit(2);
+        final ChartUnit chartUnit3 = createChartUnit(3);
+        thumbnailCache.putThumbnail(chartUnit1, createThumbnail());
+        thumbnailCache.putThumbnail(chartUnit2, createThumbnail());
+        // Use the first thumbnail, so the second one is the least recently used.
+        thumbnailCache.getThumbnail(chartUnit1);
+        thumbnailCache.putThumbnail(chartUnit3, createThumbnail());
+        assertEquals(2, thumbnailCache.size());
+        assertNotNull(thumbnailCache.getThumbnail(chartUnit1));
+        assertNull(thumbnailCache.getThumbnail(chartUnit2));
+        assertNotNull(thumbnailCache.getThumbnail(chartUnit3));
+        thumbnailCache.clear();
+        assertEquals(0, thumbnailCache.size());
+    }
+
+    /**
+     * Create a chart unit with a small TIC.
+     *
+     * @param reportIndex the report index.
+     * @return the chart unit.
+     */
+    private ChartUnit createChartUnit(final int reportIndex) {
+        final float[] xValues = {1, 2, 3, 4};
+        final float[] yValues = {10, 40, 20, 30};
+        return new ChartUnit("msrun" + reportIndex, reportIndex, new TicDataset("msrun", xValues, yValues));
+    }
+
+    /**
+     * Create an empty thumbnail image.
+     *
+     * @return the thumbnail image.
+     */
+    private BufferedImage createThumbnail() {
+        return new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+    }
+}
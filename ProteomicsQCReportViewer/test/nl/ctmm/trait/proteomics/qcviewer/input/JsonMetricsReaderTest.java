@@ -0,0 +1,71 @@
+package nl.ctmm.trait.proteomics.qcviewer.input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+import nl.ctmm.trait.proteomics.qcviewer.utils.Constants;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for the <code>JsonMetricsReader</code> class.
+ */
+public class JsonMetricsReaderTest {
+    /**
+     * Metrics json file with generic, NIST and QuaMeter metrics.
+     */
+    private static final String METRICS_JSON = "{\"generic\": {\"date\": \"2012/Nov/07 - 14:18\", "
+            + "\"runtime\": \"0:16:23\", \"f_size\": [\"File Size (MB)\", \"830.9\"], "
+            + "\"ms1_spectra\": [\"MS1 Spectra\", \"7707 (7707)\"], \"unknown\": [\"Unknown\", \"1\"]}, "
+            + "\"ion\": {\"is-2\": [\"Precursor m/z for IDs (Median)\", \"512.3\"]}, "
+            + "\"qm\": [[\"Filename\", \"QE1_121213_OPL0000_mq_15.raw\"], [\"XIC-WideFrac\", \"0.219303\"]]}";
+
+    /**
+     * Temporary folder for the json files created by the tests.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Test the <code>readJsonValues</code> method with generic, NIST and QuaMeter metrics.
+     *
+     * @throws IOException if the json file could not be written.
+     */
+    @Test
+    public void testReadJsonValues() throws IOException {
+        final File jsonFile = temporaryFolder.newFile(Constants.METRICS_JSON_FILE_NAME);
+        FileUtils.writeStringToFile(jsonFile, METRICS_JSON);
+        final MetricsParser metricsParser = new MetricsParser();
+        final Map<String, String> metricsValues = new JsonMetricsReader(metricsParser).readJsonValues(jsonFile);
+        assertEquals(metricsParser.getMetricsListing().keySet(), metricsValues.keySet());
+        assertEquals("2012/Nov/07 - 14:18", metricsValues.get(Constants.METRIC_KEY_MEASURED));
+        assertEquals("0:16:23", metricsValues.get(Constants.METRIC_KEY_RUNTIME));
+        assertEquals("830.9", metricsValues.get(Constants.METRIC_KEY_FILE_SIZE));
+        assertEquals("7707 (7707)", metricsValues.get(Constants.METRIC_KEY_MS1_SPECTRA));
+        assertEquals("512.3", metricsValues.get("ion:is-2"));
+        assertEquals("0.219303", metricsValues.get("qm:XIC-WideFrac"));
+        assertEquals(Constants.NOT_AVAILABLE_STRING, metricsValues.get(Constants.METRIC_KEY_MS2_SPECTRA));
+        assertEquals(Constants.NOT_AVAILABLE_STRING, metricsValues.get("qm:XIC-FWHM-Q1"));
+        assertFalse(metricsValues.containsKey("generic:unknown"));
+    }
+
+    /**
+     * Test the <code>readJsonValues</code> method with an invalid json file.
+     *
+     * @throws IOException if the json file could not be written.
+     */
+    @Test
+    public void testReadJsonValuesInvalidFile() throws IOException {
+        final File jsonFile = temporaryFolder.newFile(Constants.METRICS_JSON_FILE_NAME);
+        FileUtils.writeStringToFile(jsonFile, "{\"generic\": [");
+        final Map<String, String> metricsValues = new JsonMetricsReader(new MetricsParser()).readJsonValues(jsonFile);
+        assertEquals(Constants.NOT_AVAILABLE_STRING, metricsValues.get(Constants.METRIC_KEY_MEASURED));
+    }
+}
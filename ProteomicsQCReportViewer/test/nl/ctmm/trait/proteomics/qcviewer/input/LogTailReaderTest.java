@@ -0,0 +1,124 @@
+package nl.ctmm.trait.proteomics.qcviewer.input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for the <code>LogTailReader</code> class.
+ */
+public class LogTailReaderTest {
+    /**
+     * The first line written to the test log files.
+     */
+    private static final String RUNNING_LINE = "2013-06-04 13:40:01.165000    QE2_101109_OPL0004_Q1_2.raw    running";
+
+    /**
+     * The second line written to the test log files.
+     */
+    private static final String COMPLETED_LINE = "2013-06-04 13:40:01.191000    QE2_101109_OPL0004_Q1_2.raw    completed";
+
+    /**
+     * Temporary folder for the log files created by the tests.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Test reading the last line of a log file that does not exist, is empty and ends with blank lines.
+     *
+     * @throws IOException if the log file could not be written or read.
+     */
+    @Test
+    public void testReadLastLine() throws IOException {
+        final File logFile = new File(temporaryFolder.getRoot(), "qc_status.log");
+        final LogTailReader logTailReader = new LogTailReader(logFile);
+        assertNull(logTailReader.readLastLine());
+        FileUtils.writeStringToFile(logFile, "");
+        assertEquals("", logTailReader.readLastLine());
+        FileUtils.writeStringToFile(logFile, RUNNING_LINE + "\r\n" + COMPLETED_LINE + "\r\n\r\n  \r\n");
+        assertEquals(COMPLETED_LINE, logTailReader.readLastLine());
+    }
+
+    /**
+     * Test reading the last line after lines are appended, including a line that is appended in two parts.
+     *
+     * @throws IOException if the log file could not be written or read.
+     */
+    @Test
+    public void testReadLastLineAppended() throws IOException {
+        final File logFile = temporaryFolder.newFile("qc_status.log");
+        final LogTailReader logTailReader = new LogTailReader(logFile);
+        FileUtils.writeStringToFile(logFile, RUNNING_LINE + "\n");
+        assertEquals(RUNNING_LINE, logTailReader.readLastLine());
+        append(logFile, "\n \n");
+        assertEquals(RUNNING_LINE, logTailReader.readLastLine());
+        append(logFile, COMPLETED_LINE.substring(0, 10));
+        assertEquals(COMPLETED_LINE.substring(0, 10), logTailReader.readLastLine());
+        append(logFile, COMPLETED_LINE.substring(10) + "\n");
+        assertEquals(COMPLETED_LINE, logTailReader.readLastLine());
+    }
+
+    /**
+     * Test reading the last line when it is longer than a block and when the log file is replaced by a smaller one.
+     *
+     * @throws IOException if the log file could not be written or read.
+     */
+    @Test
+    public void testReadLastLineLongAndReplaced() throws IOException {
+        final File logFile = temporaryFolder.newFile("qc_status.log");
+        final LogTailReader logTailReader = new LogTailReader(logFile);
+        final String longLine = StringUtils.repeat("x", 3 * LogTailReader.BLOCK_SIZE + 1);
+        FileUtils.writeStringToFile(logFile, RUNNING_LINE + "\n" + longLine + "\n"
+                                             + StringUtils.repeat(" \n", LogTailReader.BLOCK_SIZE));
+        assertEquals(longLine, logTailReader.readLastLine());
+        FileUtils.writeStringToFile(logFile, RUNNING_LINE + "\n");
+        assertEquals(RUNNING_LINE, logTailReader.readLastLine());
+    }
+
+    /**
+     * Test reading the lines that are appended after the existing lines are skipped.
+     *
+     * @throws IOException if the log file could not be written or read.
+     */
+    @Test
+    public void testReadAppendedLines() throws IOException {
+        final File logFile = temporaryFolder.newFile("qc_status.log");
+        final LogTailReader logTailReader = new LogTailReader(logFile);
+        assertNull(logTailReader.readAppendedLines());
+        FileUtils.writeStringToFile(logFile, RUNNING_LINE + "\n");
+        logTailReader.skipAppendedLines();
+        assertEquals(Collections.<String>emptyList(), logTailReader.readAppendedLines());
+        append(logFile, COMPLETED_LINE + "\n\n" + RUNNING_LINE.substring(0, 10));
+        assertEquals(Arrays.asList(COMPLETED_LINE), logTailReader.readAppendedLines());
+        append(logFile, RUNNING_LINE.substring(10) + "\r\n");
+        assertEquals(Arrays.asList(RUNNING_LINE), logTailReader.readAppendedLines());
+        FileUtils.writeStringToFile(logFile, "");
+        assertNull(logTailReader.readAppendedLines());
+    }
+
+    /**
+     * Append text to the end of a log file, like the QC pipeline does.
+     *
+     * @param logFile the log file.
+     * @param text the text to append.
+     * @throws IOException if the log file could not be written.
+     */
+    private void append(final File logFile, final String text) throws IOException {
+        try (final Writer writer = new FileWriter(logFile, true)) {
+            writer.write(text);
+        }
+    }
+}
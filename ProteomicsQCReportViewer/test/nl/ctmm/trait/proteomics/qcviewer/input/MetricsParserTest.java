@@ -0,0 +1,73 @@
+package nl.ctmm.trait.proteomics.qcviewer.input;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import nl.ctmm.trait.proteomics.qcviewer.utils.Constants;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the <code>MetricsParser</code> class.
+ */
+public class MetricsParserTest {
+    /**
+     * Test that each metric from the listing has a canonical metric key with an ordinal in the sorted order.
+     */
+    @Test
+    public void testGetMetricKeys() {
+        final MetricsParser metricsParser = new MetricsParser();
+        final List<MetricKey> metricKeys = metricsParser.getMetricKeys();
+        final Map<String, String> metricsListing = metricsParser.getMetricsListing();
+        assertFalse(metricKeys.isEmpty());
+        assertEquals(new ArrayList<>(metricsListing.keySet()), getKeyStrings(metricKeys));
+        for (final MetricKey metricKey : metricKeys) {
+            assertSame(metricKey, metricKeys.get(metricKey.getOrdinal()));
+            assertSame(metricKey, metricsParser.getMetricKey(metricKey.getKey()));
+            assertSame(metricKey, metricsParser.getMetricKey(metricKey.getObjectName(), metricKey.getParamName()));
+            assertSame(metricKey.getKey().intern(), metricKey.getKey());
+            assertEquals(metricsListing.get(metricKey.getKey()), metricKey.getDescription());
+        }
+        final MetricKey metricKey = metricsParser.getMetricKey("dyn", "ds-1a");
+        assertEquals("dyn:ds-1a", metricKey.getKey());
+        assertNull(metricsParser.getMetricKey("dyn", "unknown"));
+        assertNull(metricsParser.getMetricKey("unknown:ds-1a"));
+    }
+
+    /**
+     * Test converting metrics values between arrays indexed by ordinal and maps with key strings.
+     */
+    @Test
+    public void testValueConversion() {
+        final MetricsParser metricsParser = new MetricsParser();
+        final MetricKey metricKey = metricsParser.getMetricKey(Constants.METRIC_KEY_MS1_SPECTRA);
+        final String[] metricsValues = new String[metricsParser.getMetricKeys().size()];
+        metricsValues[metricKey.getOrdinal()] = "1234";
+        final Map<String, String> valueMap = metricsParser.createValueMap(metricsValues);
+        assertEquals(1, valueMap.size());
+        assertEquals("1234", valueMap.get(Constants.METRIC_KEY_MS1_SPECTRA));
+        final String[] convertedValues = metricsParser.createValueArray(valueMap);
+        assertEquals(metricsValues.length, convertedValues.length);
+        assertEquals("1234", convertedValues[metricKey.getOrdinal()]);
+    }
+
+    /**
+     * Get the key strings of a list of metric keys.
+     *
+     * @param metricKeys the metric keys.
+     * @return the key strings.
+     */
+    private List<String> getKeyStrings(final List<MetricKey> metricKeys) {
+        final List<String> keyStrings = new ArrayList<>();
+        for (final MetricKey metricKey : metricKeys) {
+            keyStrings.add(metricKey.getKey());
+        }
+        return keyStrings;
+    }
+}
@@ -0,0 +1,85 @@
+package nl.ctmm.trait.proteomics.qcviewer.input;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import nl.ctmm.trait.proteomics.qcviewer.utils.Constants;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the <code>MetricsTable</code> class.
+ */
+public class MetricsTableTest {
+    /**
+     * Test that the values are returned exactly as they were stored, with numeric values for numbers.
+     */
+    @Test
+    public void testValues() {
+        final MetricsTable metricsTable = new MetricsTable();
+        final String[] values = {"42", "1.5", "1.50", "1.0E7", "-0", "2013/Jul/15 - 10:30",
+                                 Constants.NOT_AVAILABLE_STRING};
+        final double[] numericValues = {42, 1.5, 1.5, 1.0E7, 0, Double.NaN, Double.NaN};
+        for (int rowIndex = 0; rowIndex < values.length; rowIndex++) {
+            assertEquals(rowIndex, metricsTable.addRow());
+            metricsTable.setValue(rowIndex, Constants.METRIC_KEY_FILE_SIZE, values[rowIndex]);
+        }
+        assertEquals(values.length, metricsTable.getRowCount());
+        for (int rowIndex = 0; rowIndex < values.length; rowIndex++) {
+            assertEquals(values[rowIndex], metricsTable.getValue(rowIndex, Constants.METRIC_KEY_FILE_SIZE));
+            assertEquals(numericValues[rowIndex],
+                         metricsTable.getNumericValue(rowIndex, Constants.METRIC_KEY_FILE_SIZE), 0);
+        }
+        assertNull(metricsTable.getValue(0, Constants.METRIC_KEY_RUNTIME));
+        assertEquals(Double.NaN, metricsTable.getNumericValue(0, Constants.METRIC_KEY_RUNTIME), 0);
+        metricsTable.setValue(0, Constants.METRIC_KEY_FILE_SIZE, null);
+        assertNull(metricsTable.getValue(0, Constants.METRIC_KEY_FILE_SIZE));
+    }
+
+    /**
+     * Test that texts are kept when the columns grow beyond their initial capacity.
+     */
+    @Test
+    public void testTextsInManyRows() {
+        final MetricsTable metricsTable = new MetricsTable();
+        final int rowCount = 100;
+        for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
+            metricsTable.addRow();
+            final String value = (rowIndex % 3 == 0) ? "2013/Jul/" + rowIndex : Integer.toString(rowIndex);
+            metricsTable.setValue(rowIndex, Constants.METRIC_KEY_MEASURED, value);
+        }
+        for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
+            final String value = (rowIndex % 3 == 0) ? "2013/Jul/" + rowIndex : Integer.toString(rowIndex);
+            assertEquals(value, metricsTable.getValue(rowIndex, Constants.METRIC_KEY_MEASURED));
+        }
+        metricsTable.setValue(0, Constants.METRIC_KEY_MEASURED, "7");
+        assertEquals("7", metricsTable.getValue(0, Constants.METRIC_KEY_MEASURED));
+    }
+
+    /**
+     * Test getting and replacing all the values of a row.
+     */
+    @Test
+    public void testRowValues() {
+        final MetricsTable metricsTable = new MetricsTable(new MetricsParser());
+        assertTrue(metricsTable.getKeys().contains("dyn:ds-1a"));
+        final int rowIndex1 = metricsTable.addRow();
+        final int rowIndex2 = metricsTable.addRow();
+        assertNull(metricsTable.getValues(rowIndex1));
+        final Map<String, String> values = new HashMap<>();
+        values.put("dyn:ds-1a", "0.25");
+        values.put(Constants.METRIC_KEY_MS1_SPECTRA, "1234");
+        metricsTable.setValues(rowIndex1, values);
+        metricsTable.setValue(rowIndex2, Constants.METRIC_KEY_MAX_INTENSITY, "5.0");
+        assertEquals(values, metricsTable.getValues(rowIndex1));
+        final Map<String, String> newValues = new HashMap<>();
+        newValues.put(Constants.METRIC_KEY_MS2_SPECTRA, "567");
+        metricsTable.setValues(rowIndex1, newValues);
+        assertEquals(newValues, metricsTable.getValues(rowIndex1));
+        assertEquals("5.0", metricsTable.getValue(rowIndex2, Constants.METRIC_KEY_MAX_INTENSITY));
+    }
+}
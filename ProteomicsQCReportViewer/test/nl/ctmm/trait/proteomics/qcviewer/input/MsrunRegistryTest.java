@@ -0,0 +1,74 @@
+package nl.ctmm.trait.proteomics.qcviewer.input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the <code>MsrunRegistry</code> class.
+ */
+public class MsrunRegistryTest {
+    /**
+     * The number of threads that register msruns at the same time.
+     */
+    private static final int THREAD_COUNT = 4;
+
+    /**
+     * The number of msruns registered by each thread.
+     */
+    private static final int MSRUNS_PER_THREAD = 10000;
+
+    /**
+     * Test registering, checking and unregistering msruns.
+     */
+    @Test
+    public void testRegister() {
+        final MsrunRegistry msrunRegistry = new MsrunRegistry();
+        assertTrue(msrunRegistry.register("msrun1"));
+        assertFalse(msrunRegistry.register("msrun1"));
+        msrunRegistry.registerAll(Arrays.asList("msrun2", "msrun3"));
+        assertEquals(3, msrunRegistry.size());
+        assertTrue(msrunRegistry.contains("msrun2"));
+        assertTrue(msrunRegistry.unregister("msrun2"));
+        assertFalse(msrunRegistry.contains("msrun2"));
+        assertFalse(msrunRegistry.unregister("msrun2"));
+        msrunRegistry.clear();
+        assertEquals(0, msrunRegistry.size());
+    }
+
+    /**
+     * Test registering msruns from several threads at the same time.
+     *
+     * @throws InterruptedException if the test is interrupted while waiting for the threads.
+     */
+    @Test
+    public void testRegisterConcurrently() throws InterruptedException {
+        final MsrunRegistry msrunRegistry = new MsrunRegistry();
+        final List<Thread> threads = new ArrayList<>();
+        for (int threadIndex = 0; threadIndex < THREAD_COUNT; threadIndex++) {
+            final int firstMsrun = threadIndex * MSRUNS_PER_THREAD / 2;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int msrunIndex = firstMsrun; msrunIndex < firstMsrun + MSRUNS_PER_THREAD; msrunIndex++) {
+                        msrunRegistry.register("msrun" + msrunIndex);
+                    }
+                }
+            }));
+        }
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        // The threads register overlapping ranges of msruns.
+        assertEquals((THREAD_COUNT + 1) * MSRUNS_PER_THREAD / 2, msrunRegistry.size());
+    }
+}
@@ -0,0 +1,79 @@
+package nl.ctmm.trait.proteomics.qcviewer.input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import nl.ctmm.trait.proteomics.qcviewer.utils.Constants;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for the <code>ReportIndex</code> class.
+ */
+public class ReportIndexTest {
+    /**
+     * Temporary folder for the root directory with the index file.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Test that the index is written without leaving temporary files behind, that it is read only once and that
+     * entries for msrun directories that no longer exist are only removed on request.
+     */
+    @Test
+    public void testWriteAndRemoveMissingEntries() {
+        final File rootDirectory = temporaryFolder.getRoot();
+        final String existingPath = "2013/Jul/msrun1";
+        final String missingPath = "2013/Jul/msrun2";
+        assertTrue(new File(rootDirectory, existingPath).mkdirs());
+        final ReportIndex reportIndex = new ReportIndex(rootDirectory, new MetricsParser());
+        final ReportIndex.Entry entry = new ReportIndex.Entry("fingerprint", Collections.singletonMap("a", "1"), 2.0);
+        reportIndex.putEntry(existingPath, entry);
+        reportIndex.putEntry(missingPath, entry);
+        reportIndex.writeIfChanged();
+        final List<String> expectedNames = Arrays.asList("2013", Constants.REPORT_INDEX_FILE_NAME);
+        assertEquals(expectedNames, sortedNames(rootDirectory));
+        final ReportIndex readIndex = new ReportIndex(rootDirectory, new MetricsParser());
+        readIndex.read();
+        final ReportIndex.Entry readEntry = readIndex.getEntry(existingPath, "fingerprint");
+        assertNotNull(readEntry);
+        assertEquals(entry.getMetricsValues(), readEntry.getMetricsValues());
+        assertEquals(entry.getMaxTicIntensity(), readEntry.getMaxTicIntensity(), 0);
+        assertNotNull(readIndex.getEntry(missingPath, "fingerprint"));
+        // The entries are kept in memory: reading the index again does not undo changes that were not written.
+        final String newPath = "2013/Jul/msrun3";
+        readIndex.putEntry(newPath, entry);
+        readIndex.read();
+        assertNotNull(readIndex.getEntry(newPath, "fingerprint"));
+        readIndex.removeMissingEntries();
+        assertNull(readIndex.getEntry(missingPath, "fingerprint"));
+        assertNull(readIndex.getEntry(newPath, "fingerprint"));
+        // The removal of the missing entry is written as well.
+        final long indexLength = new File(rootDirectory, Constants.REPORT_INDEX_FILE_NAME).length();
+        readIndex.writeIfChanged();
+        assertTrue(new File(rootDirectory, Constants.REPORT_INDEX_FILE_NAME).length() < indexLength);
+        assertEquals(expectedNames, sortedNames(rootDirectory));
+    }
+
+    /**
+     * Get the sorted names of the files in a directory.
+     *
+     * @param directory the directory.
+     * @return the sorted file names.
+     */
+    private List<String> sortedNames(final File directory) {
+        final String[] names = directory.list();
+        Arrays.sort(names);
+        return Arrays.asList(names);
+    }
+}
@@ -1,17 +1,26 @@
 package nl.ctmm.trait.proteomics.qcviewer.input;
 
+import java.io.File;
+import java.io.IOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import nl.ctmm.trait.proteomics.qcviewer.utils.Constants;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  * Unit tests for the <code>ReportReader</code> class.
@@ -21,6 +30,12 @@ import org.junit.Test;
 public class ReportReaderTest {
     // TODO: code coverage: Cobertura? CodeCover? [Freek]
     
+    /**
+     * Temporary folder for report directories created by the tests.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     /**
      * ReportReader object. 
      */
@@ -52,7 +67,7 @@ public class ReportReaderTest {
             System.out.println("Unparsable using " + sdf);
         }
         //TODO: Change unit test to support Map<String, ReportUnit>
-        final List<String> reportUnitsKeys = new ArrayList<String>();
+        final MsrunRegistry reportUnitsKeys = new MsrunRegistry();
         final List<ReportUnit> reports = new ArrayList<ReportUnit>(reportReader.retrieveReports("QCReports", "", 
                 reportUnitsKeys, fromDate, tillDate).values());
         assertEquals("There should be 4 report units.", 4, reports.size());
@@ -81,9 +96,343 @@ public class ReportReaderTest {
         } catch (final ParseException e) { 
             System.out.println("Unparsable using " + sdf);
         }
-        final List<String> reportUnitsKeys = new ArrayList<String>();
+        final MsrunRegistry reportUnitsKeys = new MsrunRegistry();
         final List<ReportUnit> reportUnits = new ArrayList<ReportUnit>(reportReader.retrieveReports("nonExistingDirectory", "", 
                 reportUnitsKeys, fromDate, tillDate).values());
         assertEquals(0, reportUnits.size());
     }
+
+    /**
+     * Test that loading the reports in parallel gives the same report numbers as loading them sequentially.
+     *
+     * @throws IOException if the test reports could not be created.
+     * @throws ParseException if the test dates could not be parsed.
+     */
+    @Test
+    public void testRetrieveReportsParallel() throws IOException, ParseException {
+        final SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy");
+        final Date fromDate = sdf.parse("01/07/2013");
+        final Date tillDate = sdf.parse("31/07/2013");
+        final File rootDirectory = createTestReports(sdf.parse("15/07/2013").getTime());
+        final Map<String, ReportUnit> sequentialReports = reportReader.retrieveReports(rootDirectory.getPath(), "",
+                new MsrunRegistry(), fromDate, tillDate);
+        final Map<String, ReportUnit> parallelReports = new ReportReader(new MetricsParser(), 3).retrieveReports(
+                rootDirectory.getPath(), "", new MsrunRegistry(), fromDate, tillDate);
+        assertEquals(4, sequentialReports.size());
+        assertEquals(sequentialReports.keySet(), parallelReports.keySet());
+        for (final Map.Entry<String, ReportUnit> reportEntry : sequentialReports.entrySet()) {
+            final ReportUnit parallelReport = parallelReports.get(reportEntry.getKey());
+            assertEquals(reportEntry.getValue().getReportNum(), parallelReport.getReportNum());
+            assertEquals(reportEntry.getValue().getChartUnit().getMaxTicIntensity(),
+                         parallelReport.getChartUnit().getMaxTicIntensity(), 0);
+        }
+    }
+
+    /**
+     * Test that the report load listener is notified of the reports in report number order and can cancel loading.
+     *
+     * @throws IOException if the test reports could not be created.
+     * @throws ParseException if the test dates could not be parsed.
+     */
+    @Test
+    public void testReportLoadListener() throws IOException, ParseException {
+        final SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy");
+        final Date fromDate = sdf.parse("01/07/2013");
+        final Date tillDate = sdf.parse("31/07/2013");
+        final File rootDirectory = createTestReports(sdf.parse("15/07/2013").getTime());
+        for (final int threadCount : new int[]{1, 3}) {
+            final TestReportLoadListener completeListener = new TestReportLoadListener(Integer.MAX_VALUE);
+            final ReportReader completeReader = new ReportReader(new MetricsParser(), threadCount);
+            completeReader.setReportLoadListener(completeListener);
+            final Map<String, ReportUnit> reports = completeReader.retrieveReports(rootDirectory.getPath(), "",
+                                                                                   new MsrunRegistry(), fromDate,
+                                                                                   tillDate);
+            assertEquals(4, completeListener.directoryCount);
+            assertEquals(4, completeListener.loadedReports.size());
+            for (int reportIndex = 0; reportIndex < completeListener.loadedReports.size(); reportIndex++) {
+                final ReportUnit reportUnit = completeListener.loadedReports.get(reportIndex);
+                assertEquals(reportIndex + 1, reportUnit.getReportNum());
+                assertEquals(reportUnit, reports.get(reportUnit.getMsrunName().trim()));
+            }
+            final TestReportLoadListener cancellingListener = new TestReportLoadListener(2);
+            final ReportReader cancelledReader = new ReportReader(new MetricsParser(), threadCount);
+            cancelledReader.setReportLoadListener(cancellingListener);
+            assertEquals(2, cancelledReader.retrieveReports(rootDirectory.getPath(), "", new MsrunRegistry(),
+                                                            fromDate, tillDate).size());
+            assertEquals(2, cancellingListener.loadedReports.size());
+        }
+    }
+
+    /**
+     * Test that the report index is written and used for msrun directories that have not changed.
+     *
+     * @throws IOException if the test reports could not be created.
+     * @throws ParseException if the test dates could not be parsed.
+     */
+    @Test
+    public void testRetrieveReportsWithIndex() throws IOException, ParseException {
+        final SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy");
+        final Date fromDate = sdf.parse("01/07/2013");
+        final Date tillDate = sdf.parse("31/07/2013");
+        final File rootDirectory = createTestReports(sdf.parse("15/07/2013").getTime());
+        final Map<String, ReportUnit> parsedReports = new ReportReader(new MetricsParser(), 1, true).retrieveReports(
+                rootDirectory.getPath(), "", new MsrunRegistry(), fromDate, tillDate);
+        assertTrue(new File(rootDirectory, Constants.REPORT_INDEX_FILE_NAME).isFile());
+        // Overwrite the TIC files with zeros of the same length and keep the modification times: the index is used.
+        for (final Object ticMatrixFileObject : FileUtils.listFiles(rootDirectory, new String[]{"csv"}, true)) {
+            final File ticMatrixFile = (File) ticMatrixFileObject;
+            final long lastModified = ticMatrixFile.lastModified();
+            FileUtils.writeByteArrayToFile(ticMatrixFile, new byte[(int) ticMatrixFile.length()]);
+            ticMatrixFile.setLastModified(lastModified);
+        }
+        final Map<String, ReportUnit> indexedReports = new ReportReader(new MetricsParser(), 1, true).retrieveReports(
+                rootDirectory.getPath(), "", new MsrunRegistry(), fromDate, tillDate);
+        assertEquals(parsedReports.keySet(), indexedReports.keySet());
+        for (final Map.Entry<String, ReportUnit> reportEntry : parsedReports.entrySet()) {
+            final ReportUnit indexedReport = indexedReports.get(reportEntry.getKey());
+            assertEquals(reportEntry.getValue().getReportNum(), indexedReport.getReportNum());
+            assertEquals(reportEntry.getValue().getMetricsValues(), indexedReport.getMetricsValues());
+            assertEquals(reportEntry.getValue().getChartUnit().getMaxTicIntensity(),
+                         indexedReport.getChartUnit().getMaxTicIntensity(), 0);
+        }
+    }
+
+    /**
+     * Test that year and month directories outside the date range are skipped without looking at their msruns. The
+     * June directory can contain msruns that were finished on the first of July, so it is searched.
+     *
+     * @throws IOException if the test reports could not be copied.
+     * @throws ParseException if a test date could not be parsed.
+     */
+    @Test
+    public void testRetrieveReportsPrunesDirectories() throws IOException, ParseException {
+        final SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy");
+        final long lastModified = sdf.parse("15/07/2013").getTime();
+        final File rootDirectory = createTestReports(lastModified);
+        for (final String monthPath : new String[]{"2012/Jul", "2013/Jan", "2013/Jun", "2013/Aug"}) {
+            final File msRunDirectory = new File(rootDirectory, monthPath + "/msrun_" + monthPath.replace('/', '_'));
+            assertTrue(msRunDirectory.mkdirs());
+            assertTrue(msRunDirectory.setLastModified(lastModified));
+        }
+        final Map<String, ReportUnit> reports = reportReader.retrieveReports(
+                rootDirectory.getPath(), "", new MsrunRegistry(), sdf.parse("01/07/2013"), sdf.parse("31/07/2013"));
+        assertEquals(5, reports.size());
+        assertTrue(reports.containsKey("msrun_2013_Jun"));
+    }
+
+    /**
+     * Test the <code>retrieveLoggedReports</code> method: only the msruns named in the log entries are loaded.
+     *
+     * @throws IOException if the test reports could not be copied.
+     * @throws ParseException if a test date could not be parsed.
+     */
+    @Test
+    public void testRetrieveLoggedReports() throws IOException, ParseException {
+        final SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy");
+        final File rootDirectory = createTestReports(sdf.parse("15/07/2013").getTime());
+        final List<ProgressLogEntry> logEntries = new ArrayList<>();
+        logEntries.add(ProgressLogEntry.parse("2013-07-15 10:00:00.000000\tsimulated_tic_130707_a.raw\tcompleted"));
+        logEntries.add(ProgressLogEntry.parse("2013-07-15 11:00:00.000000\tsimulated_tic_130707_b.raw\trunning"));
+        // The report directory is in the month before the log entry.
+        logEntries.add(ProgressLogEntry.parse("2013-08-01 00:30:00.000000\tsimulated_tic_130707_c.raw\tcompleted"));
+        logEntries.add(ProgressLogEntry.parse("2013-07-15 12:00:00.000000\tnot_processed.raw\tcompleted"));
+        assertNull(ProgressLogEntry.parse("2013-07-15 12:00:00.000000\tincomplete.raw"));
+        final MsrunRegistry reportUnitsKeys = new MsrunRegistry();
+        reportUnitsKeys.register("simulated_tic_130707_a", 1);
+        reportReader.setReportCount(1);
+        final Map<String, ReportUnit> reports = reportReader.retrieveLoggedReports(
+                rootDirectory.getPath(), "simulated_tic_130707_b", reportUnitsKeys, logEntries,
+                sdf.parse("01/07/2013"), sdf.parse("31/08/2013"));
+        assertEquals(1, reports.size());
+        assertEquals(2, reports.get("simulated_tic_130707_c").getReportNum());
+    }
+
+    /**
+     * Test that msruns whose directories have been removed are unregistered, both when all directories are searched
+     * and when an msrun named in the progress log is not found.
+     *
+     * @throws IOException if the test reports could not be copied.
+     * @throws ParseException if a test date could not be parsed.
+     */
+    @Test
+    public void testRetrieveReportsUnregistersRemovedMsruns() throws IOException, ParseException {
+        final SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy");
+        final Date fromDate = sdf.parse("01/07/2013");
+        final Date tillDate = sdf.parse("31/07/2013");
+        final File rootDirectory = createTestReports(sdf.parse("15/07/2013").getTime());
+        final MsrunRegistry reportUnitsKeys = new MsrunRegistry();
+        reportUnitsKeys.registerAll(reportReader.retrieveReports(rootDirectory.getPath(), "", reportUnitsKeys, fromDate,
+                                                                 tillDate).keySet());
+        assertTrue(reportUnitsKeys.contains("simulated_tic_130707_a"));
+        FileUtils.deleteDirectory(new File(rootDirectory, "2013/Jul/simulated_tic_130707_a"));
+        assertEquals(0, reportReader.retrieveReports(rootDirectory.getPath(), "", reportUnitsKeys, fromDate,
+                                                     tillDate).size());
+        assertFalse(reportUnitsKeys.contains("simulated_tic_130707_a"));
+        assertTrue(reportUnitsKeys.contains("simulated_tic_130707_b"));
+        FileUtils.deleteDirectory(new File(rootDirectory, "2013/Jul/simulated_tic_130707_b"));
+        final List<ProgressLogEntry> logEntries = new ArrayList<>();
+        logEntries.add(ProgressLogEntry.parse("2013-07-15 11:00:00.000000\tsimulated_tic_130707_b.raw\tcompleted"));
+        reportReader.retrieveLoggedReports(rootDirectory.getPath(), "", reportUnitsKeys, logEntries, fromDate,
+                                           tillDate);
+        assertFalse(reportUnitsKeys.contains("simulated_tic_130707_b"));
+    }
+
+    /**
+     * Test that the reports of a viewer keep their positions when an msrun directory is removed and reappears: the
+     * report of the removed msrun is replaced by an error report and the reloaded report gets its old report number,
+     * while new msruns are numbered after the reports in the viewer.
+     *
+     * @throws IOException if the test reports could not be copied.
+     * @throws ParseException if a test date could not be parsed.
+     */
+    @Test
+    public void testReloadedReportsKeepTheirPositions() throws IOException, ParseException {
+        final SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy");
+        final Date fromDate = sdf.parse("01/07/2013");
+        final Date tillDate = sdf.parse("31/07/2013");
+        final long lastModified = sdf.parse("15/07/2013").getTime();
+        final File rootDirectory = createTestReports(lastModified);
+        final File monthDirectory = new File(rootDirectory, "2013/Jul");
+        final MsrunRegistry reportUnitsKeys = new MsrunRegistry();
+        final List<ReportUnit> viewerReports = new ArrayList<>();
+        final TestReportLoadListener firstListener = loadIntoViewer(rootDirectory, reportUnitsKeys, viewerReports,
+                                                                    fromDate, tillDate);
+        assertEquals(4, firstListener.loadedReports.size());
+        final ReportUnit firstReport = viewerReports.get(0);
+        final String firstMsrunName = firstReport.getMsrunName().trim();
+        final File firstMsRunDirectory = new File(monthDirectory, firstMsrunName);
+        final File movedMsRunDirectory = new File(temporaryFolder.newFolder("removed"), firstMsrunName);
+        assertTrue(firstMsRunDirectory.renameTo(movedMsRunDirectory));
+        final TestReportLoadListener removalListener = loadIntoViewer(rootDirectory, reportUnitsKeys, viewerReports,
+                                                                      fromDate, tillDate);
+        assertEquals(0, removalListener.loadedReports.size());
+        assertEquals(1, removalListener.removedReports.size());
+        assertEquals(firstReport.getReportNum(), removalListener.removedReports.get(0).getReportNum());
+        assertTrue(viewerReports.get(0).getErrorFlag());
+        assertFalse(reportUnitsKeys.contains(firstMsrunName));
+        assertTrue(movedMsRunDirectory.renameTo(firstMsRunDirectory));
+        final File newMsRunDirectory = new File(monthDirectory, "simulated_tic_130707_e");
+        FileUtils.copyDirectory(new File(monthDirectory, "simulated_tic_130707_b"), newMsRunDirectory);
+        assertTrue(firstMsRunDirectory.setLastModified(lastModified));
+        assertTrue(newMsRunDirectory.setLastModified(lastModified));
+        final TestReportLoadListener reloadListener = loadIntoViewer(rootDirectory, reportUnitsKeys, viewerReports,
+                                                                     fromDate, tillDate);
+        assertEquals(2, reloadListener.loadedReports.size());
+        assertEquals(5, viewerReports.size());
+        assertEquals(reloadListener.loadedReports.get(0), viewerReports.get(0));
+        assertEquals(firstMsrunName, viewerReports.get(0).getMsrunName().trim());
+        assertEquals("simulated_tic_130707_e", viewerReports.get(4).getMsrunName().trim());
+        for (int reportIndex = 0; reportIndex < viewerReports.size(); reportIndex++) {
+            assertEquals(reportIndex, viewerReports.get(reportIndex).getReportIndex());
+        }
+    }
+
+    /**
+     * Retrieve the reports that are not in a simulated viewer yet and update the viewer like the report loading
+     * worker does: a report with the report index of a report in the viewer replaces it, other reports are added.
+     *
+     * @param rootDirectory the root directory of the reports.
+     * @param reportUnitsKeys the registry of the msruns whose reports are in the viewer.
+     * @param viewerReports the reports in the viewer, indexed by report index.
+     * @param fromDate the start of the date range to search.
+     * @param tillDate the end of the date range to search.
+     * @return the report load listener that was notified of the loaded and removed reports.
+     */
+    private TestReportLoadListener loadIntoViewer(final File rootDirectory, final MsrunRegistry reportUnitsKeys,
+                                                  final List<ReportUnit> viewerReports, final Date fromDate,
+                                                  final Date tillDate) {
+        final TestReportLoadListener listener = new TestReportLoadListener(Integer.MAX_VALUE);
+        final ReportReader viewerReportReader = new ReportReader(new MetricsParser());
+        viewerReportReader.setReportLoadListener(listener);
+        viewerReportReader.setReportCount(viewerReports.size());
+        viewerReportReader.retrieveReports(rootDirectory.getPath(), "", reportUnitsKeys, fromDate, tillDate);
+        for (final ReportUnit removedReport : listener.removedReports) {
+            viewerReports.set(removedReport.getReportIndex(), removedReport);
+        }
+        for (final ReportUnit loadedReport : listener.loadedReports) {
+            if (loadedReport.getReportIndex() < viewerReports.size()) {
+                viewerReports.set(loadedReport.getReportIndex(), loadedReport);
+            } else {
+                assertEquals(viewerReports.size(), loadedReport.getReportIndex());
+                viewerReports.add(loadedReport);
+            }
+            reportUnitsKeys.register(loadedReport.getMsrunName().trim(), loadedReport.getReportNum());
+        }
+        return listener;
+    }
+
+    /**
+     * Copy the TIC files of the test reports into a year/month/msrun structure in a temporary folder.
+     *
+     * @param lastModified the last modified time to give the msrun directories.
+     * @return the root directory of the copied reports.
+     * @throws IOException if the test reports could not be copied.
+     */
+    private File createTestReports(final long lastModified) throws IOException {
+        final File rootDirectory = temporaryFolder.newFolder("QCReports");
+        final File sourceMonthDirectory = new File(new File(new File("QCReports"), "2013"), "Jul");
+        final File targetMonthDirectory = new File(new File(rootDirectory, "2013"), "Jul");
+        FileUtils.copyDirectory(sourceMonthDirectory, targetMonthDirectory);
+        final File[] msRunDirectories = targetMonthDirectory.listFiles();
+        if (msRunDirectories != null) {
+            for (final File msRunDirectory : msRunDirectories) {
+                msRunDirectory.setLastModified(lastModified);
+            }
+        }
+        return rootDirectory;
+    }
+
+    /**
+     * Report load listener that collects the loaded reports and cancels loading after a number of reports.
+     */
+    private static class TestReportLoadListener implements ReportLoadListener {
+        /**
+         * The number of reports after which loading is cancelled.
+         */
+        private final int cancelAfterCount;
+
+        /**
+         * The reports that have been loaded.
+         */
+        private final List<ReportUnit> loadedReports = new ArrayList<>();
+
+        /**
+         * The reports that replace the reports of removed msruns.
+         */
+        private final List<ReportUnit> removedReports = new ArrayList<>();
+
+        /**
+         * The number of msrun directories that will be loaded.
+         */
+        private int directoryCount;
+
+        /**
+         * Create a test report load listener.
+         *
+         * @param cancelAfterCount the number of reports after which loading is cancelled.
+         */
+        public TestReportLoadListener(final int cancelAfterCount) {
+            this.cancelAfterCount = cancelAfterCount;
+        }
+
+        @Override
+        public void directoriesFound(final int directoryCount) {
+            this.directoryCount = directoryCount;
+        }
+
+        @Override
+        public void reportLoaded(final ReportUnit reportUnit) {
+            loadedReports.add(reportUnit);
+        }
+
+        @Override
+        public void reportRemoved(final ReportUnit reportUnit) {
+            removedReports.add(reportUnit);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return loadedReports.size() >= cancelAfterCount;
+        }
+    }
 }
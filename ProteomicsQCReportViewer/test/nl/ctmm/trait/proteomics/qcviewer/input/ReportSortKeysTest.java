@@ -0,0 +1,83 @@
+package nl.ctmm.trait.proteomics.qcviewer.input;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import nl.ctmm.trait.proteomics.qcviewer.utils.Constants;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the <code>ReportSortKeys</code> class.
+ */
+public class ReportSortKeysTest {
+    /**
+     * Test that the columns with sort values are parsed once, extended when reports are added and updated when a
+     * report is replaced.
+     */
+    @Test
+    public void testGetSortValues() {
+        final List<ReportUnit> reportUnits = new ArrayList<>();
+        reportUnits.add(createReport(1, "2.5", "2013/Jul/15 - 10:30"));
+        reportUnits.add(createReport(2, Constants.NOT_AVAILABLE_STRING, Constants.NOT_AVAILABLE_STRING));
+        final ReportSortKeys reportSortKeys = new ReportSortKeys();
+        final double[] fileSizes = reportSortKeys.getSortValues(reportUnits, Constants.SORT_KEY_FILE_SIZE);
+        assertArrayEquals(new double[]{2.5, Double.NaN}, fileSizes, 0);
+        assertSame(fileSizes, reportSortKeys.getSortValues(reportUnits, Constants.SORT_KEY_FILE_SIZE));
+        final double[] measuredTimes = reportSortKeys.getSortValues(reportUnits, Constants.SORT_KEY_DATE);
+        assertEquals(reportUnits.get(0).getMeasuredTime(), measuredTimes[0], 0);
+        assertEquals(Double.NaN, measuredTimes[1], 0);
+        reportUnits.add(createReport(3, "1.5", "2013/Jul/14 - 10:30"));
+        final double[] extendedFileSizes = reportSortKeys.getSortValues(reportUnits, Constants.SORT_KEY_FILE_SIZE);
+        assertNotSame(fileSizes, extendedFileSizes);
+        assertArrayEquals(new double[]{2.5, Double.NaN, 1.5}, extendedFileSizes, 0);
+        reportUnits.set(1, createReport(2, "3.5", "2013/Jul/16 - 10:30"));
+        reportSortKeys.updateReport(reportUnits, 1);
+        assertArrayEquals(new double[]{2.5, 3.5, 1.5}, extendedFileSizes, 0);
+        reportSortKeys.clear();
+        assertNotSame(extendedFileSizes, reportSortKeys.getSortValues(reportUnits, Constants.SORT_KEY_FILE_SIZE));
+    }
+
+    /**
+     * Test sorting with the precomputed sort values: reports without a value come first in ascending order.
+     */
+    @Test
+    public void testGetComparator() {
+        final ReportUnit report1 = createReport(1, "2.5", "2013/Jul/15 - 10:30");
+        final ReportUnit report2 = createReport(2, Constants.NOT_AVAILABLE_STRING, Constants.NOT_AVAILABLE_STRING);
+        final ReportUnit report3 = createReport(3, "1.5", "2013/Jul/14 - 10:30");
+        final List<ReportUnit> reportUnits = Arrays.asList(report1, report2, report3);
+        final ReportSortKeys reportSortKeys = new ReportSortKeys();
+        final List<ReportUnit> sortedReports = new ArrayList<>(reportUnits);
+        Collections.sort(sortedReports, reportSortKeys.getComparator(reportUnits, Constants.SORT_KEY_FILE_SIZE,
+                                                                     true));
+        assertEquals(Arrays.asList(report2, report3, report1), sortedReports);
+        Collections.sort(sortedReports, reportSortKeys.getComparator(reportUnits, Constants.SORT_KEY_DATE, false));
+        assertEquals(Arrays.asList(report1, report3, report2), sortedReports);
+        Collections.sort(sortedReports, reportSortKeys.getComparator(reportUnits, Constants.SORT_KEY_REPORT_INDEX,
+                                                                     true));
+        assertEquals(reportUnits, sortedReports);
+    }
+
+    /**
+     * Create a report with a file size and a measured date and time.
+     *
+     * @param reportNumber the report number.
+     * @param fileSize the file size.
+     * @param measured the measured date and time.
+     * @return the new report.
+     */
+    private ReportUnit createReport(final int reportNumber, final String fileSize, final String measured) {
+        final ReportUnit report = new ReportUnit(new MetricsTable(), "msrun" + reportNumber, reportNumber);
+        report.setFileSizeString(fileSize);
+        report.setMeasured(measured);
+        return report;
+    }
+}
@@ -45,7 +45,7 @@ public class ReportUnitTest {
         /*
          * public ReportUnit(String msrunName, int reportNum)
          */
-        reportUnit = new ReportUnit("msrun" + REPORT_NUMBER, REPORT_NUMBER);
+        reportUnit = new ReportUnit(new MetricsTable(), "msrun" + REPORT_NUMBER, REPORT_NUMBER);
     }
 
     /**
@@ -162,7 +162,7 @@ public class ReportUnitTest {
     }
 
     private ReportUnit createReport(final int reportNumber) {
-        final ReportUnit report = new ReportUnit("msrun" + reportNumber, reportNumber);
+        final ReportUnit report = new ReportUnit(new MetricsTable(), "msrun" + reportNumber, reportNumber);
         final String reportNumberString = Integer.toString(reportNumber);
         report.setFileSizeString(reportNumberString);
         report.setMs1Spectra(reportNumberString);
@@ -0,0 +1,220 @@
+package nl.ctmm.trait.proteomics.qcviewer.input;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import nl.ctmm.trait.proteomics.qcviewer.gui.TicDataset;
+import nl.ctmm.trait.proteomics.qcviewer.utils.Constants;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for the <code>TicMatrixReader</code> class.
+ */
+public class TicMatrixReaderTest {
+    /**
+     * The number of random values used to compare the parser with <code>Float.parseFloat</code>.
+     */
+    private static final int RANDOM_VALUE_COUNT = 200000;
+
+    /**
+     * The number of points in a TIC matrix file that is larger than the buffer of the streaming maximum intensity pass.
+     */
+    private static final int LARGE_TIC_POINT_COUNT = 20000;
+
+    /**
+     * The binary TIC file written by the <code>Oplreader</code> of the QC pipeline in its own unit test.
+     */
+    private static final File PIPELINE_TIC_BINARY_FILE = new File("../ProteomicsQCPipeline/QC/test/data/ticmatrix.bin");
+
+    /**
+     * Temporary folder for the TIC matrix files created by the tests.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Test that the parser gives exactly the same results as <code>Float.parseFloat</code>.
+     */
+    @Test
+    public void testParseFloat() {
+        final List<String> values = new ArrayList<>();
+        final String[] specialValues = {
+            "0", "-0", "0.0", "1", "-1", "60", "300.4132192266296", "9.8695246730217E9", "1.6346381634949392E8",
+            "1e-50", "1e50", "3.4028235E38", "3.4028236E38", "1.17549435E-38", "1.4E-45", ".5", "5.", "+7",
+            "123456789012345678901234567890", "0.000000000000000000000000123", "NaN", "-Infinity", " 42 ",
+            "16777217", "16777219", "33554435", "1.00000005960464477539062499", "1.000000059604644775390625",
+        };
+        for (final String specialValue : specialValues) {
+            values.add(specialValue);
+        }
+        final Random random = new Random(12345);
+        for (int valueIndex = 0; valueIndex < RANDOM_VALUE_COUNT; valueIndex++) {
+            final double magnitude = Math.pow(10, random.nextInt(30) - 10);
+            values.add(Double.toString(random.nextDouble() * magnitude));
+            values.add(Float.toString(random.nextFloat() * (float) magnitude));
+            // Halfway between two floats, which is the hardest case for rounding.
+            final float base = random.nextFloat() * (float) magnitude;
+            final double halfway = ((double) base + (double) Math.nextUp(base)) / 2;
+            values.add(new BigDecimal(halfway).toPlainString());
+            values.add(Double.toString(halfway));
+        }
+        for (final String value : values) {
+            final byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+            final float expected = Float.parseFloat(value);
+            final float actual = TicMatrixReader.parseFloat(ByteBuffer.wrap(bytes), 0, bytes.length);
+            assertEquals(value, Float.floatToIntBits(expected), Float.floatToIntBits(actual));
+        }
+    }
+
+    /**
+     * Test reading a TIC matrix file with a header, Windows line endings and an empty line.
+     *
+     * @throws IOException if the TIC matrix file could not be written.
+     */
+    @Test
+    public void testReadTicDataset() throws IOException {
+        final File ticMatrixFile = temporaryFolder.newFile("msrun_ticmatrix.csv");
+        FileUtils.writeStringToFile(ticMatrixFile, "\"rt\",\"ions\"\r\n300.4132192266296,9.8695246730217E9\r\n\r\n"
+                                                   + "301.2722554407939,7.057171614834488E9");
+        final TicDataset ticDataset = new TicMatrixReader().readTicDataset("msrun", ticMatrixFile);
+        assertEquals("msrun", ticDataset.getSeriesKey(0));
+        assertArrayEquals(new float[]{Float.parseFloat("300.4132192266296") / Constants.SECONDS_PER_MINUTE,
+                                      Float.parseFloat("301.2722554407939") / Constants.SECONDS_PER_MINUTE},
+                          ticDataset.getXValues(), 0);
+        assertArrayEquals(new float[]{Float.parseFloat("9.8695246730217E9"), Float.parseFloat("7.057171614834488E9")},
+                          ticDataset.getYValues(), 0);
+    }
+
+    /**
+     * Test reading a TIC matrix file with an invalid line: the points before that line are returned.
+     *
+     * @throws IOException if the TIC matrix file could not be written.
+     */
+    @Test
+    public void testReadTicDatasetInvalidLine() throws IOException {
+        final File ticMatrixFile = temporaryFolder.newFile("msrun_ticmatrix.csv");
+        FileUtils.writeStringToFile(ticMatrixFile, "\"rt\",\"ions\"\n60,1000\nabc,def\n120,2000\n");
+        final TicDataset ticDataset = new TicMatrixReader().readTicDataset("msrun", ticMatrixFile);
+        assertArrayEquals(new float[]{1}, ticDataset.getXValues(), 0);
+        assertArrayEquals(new float[]{1000}, ticDataset.getYValues(), 0);
+    }
+
+    /**
+     * Test that the streaming pass finds the same maximum intensity as reading the TIC data, also when the lines cross
+     * the boundaries of its buffer.
+     *
+     * @throws IOException if the TIC matrix file could not be written.
+     */
+    @Test
+    public void testReadMaxIntensity() throws IOException {
+        final Random random = new Random(54321);
+        final StringBuilder contents = new StringBuilder("\"rt\",\"ions\"\r\n");
+        for (int pointIndex = 0; pointIndex < LARGE_TIC_POINT_COUNT; pointIndex++) {
+            contents.append(pointIndex * 0.25).append(',').append(random.nextDouble() * 1e10);
+            contents.append((pointIndex % 100 == 0) ? "\r\n\r\n" : "\r\n");
+        }
+        contents.append("5000.5,1.5E3");
+        final File ticMatrixFile = temporaryFolder.newFile("msrun_ticmatrix.csv");
+        FileUtils.writeStringToFile(ticMatrixFile, contents.toString());
+        final TicMatrixReader ticMatrixReader = new TicMatrixReader();
+        assertEquals(ticMatrixReader.readTicDataset("msrun", ticMatrixFile).getMaxY(),
+                     ticMatrixReader.readMaxIntensity(ticMatrixFile), 0);
+        FileUtils.writeStringToFile(ticMatrixFile, "\"rt\",\"ions\"\n60,1000\nabc,def\n120,2000\n");
+        assertEquals(1000, ticMatrixReader.readMaxIntensity(ticMatrixFile), 0);
+        FileUtils.writeStringToFile(ticMatrixFile, "\"rt\",\"ions\"\n");
+        assertEquals(0, ticMatrixReader.readMaxIntensity(ticMatrixFile), 0);
+    }
+
+    /**
+     * Test reading the maximum intensity from the header of a binary TIC file.
+     *
+     * @throws IOException if the binary TIC file could not be written.
+     */
+    @Test
+    public void testReadBinaryMaxIntensity() throws IOException {
+        final File ticBinaryFile = writeBinaryTicFile(new float[]{60, 120}, new float[]{1000, 2000});
+        assertEquals(2000, new TicMatrixReader().readBinaryMaxIntensity(ticBinaryFile), 0);
+        final byte[] contents = FileUtils.readFileToByteArray(ticBinaryFile);
+        FileUtils.writeByteArrayToFile(ticBinaryFile, Arrays.copyOf(contents, contents.length - 1));
+        assertEquals(Double.NaN, new TicMatrixReader().readBinaryMaxIntensity(ticBinaryFile), 0);
+    }
+
+    /**
+     * Test reading a binary TIC file.
+     *
+     * @throws IOException if the binary TIC file could not be written.
+     */
+    @Test
+    public void testReadBinaryTicDataset() throws IOException {
+        final File ticBinaryFile = writeBinaryTicFile(new float[]{60, 120}, new float[]{1000, 2000});
+        final TicDataset ticDataset = new TicMatrixReader().readBinaryTicDataset("msrun", ticBinaryFile);
+        assertArrayEquals(new float[]{1, 2}, ticDataset.getXValues(), 0);
+        assertArrayEquals(new float[]{1000, 2000}, ticDataset.getYValues(), 0);
+    }
+
+    /**
+     * Test reading the binary TIC file that the QC pipeline writes in its <code>OplreaderTest</code>, so the layout of
+     * the writer and the reader can not drift apart. The test is skipped if the viewer is built without the pipeline.
+     */
+    @Test
+    public void testReadPipelineBinaryTicDataset() {
+        assumeTrue(PIPELINE_TIC_BINARY_FILE.isFile());
+        final TicDataset ticDataset = new TicMatrixReader().readBinaryTicDataset("msrun", PIPELINE_TIC_BINARY_FILE);
+        assertArrayEquals(new float[]{60.5f / 60, 2, 180.25f / 60}, ticDataset.getXValues(), 0);
+        assertArrayEquals(new float[]{1000, 2500.5f, 0}, ticDataset.getYValues(), 0);
+        assertEquals(2500.5, ticDataset.getMaxY(), 0);
+        assertEquals(2500.5, new TicMatrixReader().readBinaryMaxIntensity(PIPELINE_TIC_BINARY_FILE), 0);
+    }
+
+    /**
+     * Test reading a binary TIC file that is truncated: the file is ignored.
+     *
+     * @throws IOException if the binary TIC file could not be written.
+     */
+    @Test
+    public void testReadBinaryTicDatasetTruncated() throws IOException {
+        final File ticBinaryFile = writeBinaryTicFile(new float[]{60, 120}, new float[]{1000, 2000});
+        final byte[] contents = FileUtils.readFileToByteArray(ticBinaryFile);
+        FileUtils.writeByteArrayToFile(ticBinaryFile, Arrays.copyOf(contents, contents.length - 1));
+        assertNull(new TicMatrixReader().readBinaryTicDataset("msrun", ticBinaryFile));
+    }
+
+    /**
+     * Write a binary TIC file in the format written by the QC pipeline.
+     *
+     * @param retentionTimes the retention times in seconds.
+     * @param intensities the intensities.
+     * @return the binary TIC file.
+     * @throws IOException if the binary TIC file could not be written.
+     */
+    private File writeBinaryTicFile(final float[] retentionTimes, final float[] intensities) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(TicMatrixReader.TIC_BINARY_HEADER_SIZE
+                                                      + TicMatrixReader.TIC_BINARY_POINT_SIZE * retentionTimes.length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(TicMatrixReader.TIC_BINARY_MAGIC).putInt(TicMatrixReader.TIC_BINARY_VERSION);
+        buffer.putInt(retentionTimes.length).putDouble(intensities[intensities.length - 1]);
+        for (int pointIndex = 0; pointIndex < retentionTimes.length; pointIndex++) {
+            buffer.putFloat(retentionTimes[pointIndex]).putFloat(intensities[pointIndex]);
+        }
+        final File ticBinaryFile = temporaryFolder.newFile("msrun" + Constants.TIC_BINARY_FILE_NAME_SUFFIX);
+        FileUtils.writeByteArrayToFile(ticBinaryFile, buffer.array());
+        return ticBinaryFile;
+    }
+}